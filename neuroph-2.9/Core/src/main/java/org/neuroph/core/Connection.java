@@ -124,6 +124,7 @@ public class Connection implements Serializable {
             throw new IllegalArgumentException("Connection Weight cant be null!");
         } else {
             this.weight = weight;
+            toNeuron.invalidateNetwork();
         }
     }
 
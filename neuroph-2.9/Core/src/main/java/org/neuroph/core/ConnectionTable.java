@@ -0,0 +1,476 @@
+/**
+ * Copyright 2014 Neuroph Project http://neuroph.sourceforge.net
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.neuroph.core;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InvalidObjectException;
+import java.io.NotSerializableException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.neuroph.core.exceptions.NeurophException;
+
+/**
+ * 神经网络连接表.
+ * <p>
+ * Serialized form of all connections in neural network. Instead of writing connections as
+ * objects, which recursively pulls in connected neurons and their connections,
+ * connections are written as primitive arrays: position of the source neuron (layer index and
+ * neuron index in layer), index of the weight of each connection, and values of all weights.
+ * Source neurons are written only when they differ from the previous neuron, and consecutive
+ * weight indices are written as their first index, so fully connected layers take little more than their weight values.
+ * Weights which are shared by several connections are written as objects, so they stay shared after reading,
+ * also with other objects which keep them (like kernels of convolutional layers).
+ * Connections of subclasses, like delayed connections, are written as objects with their own
+ * serialization, since table does not know their state.
+ * <p>
+ * While network is written, its neurons skip their connection lists when they are written to the same
+ * stream (see {@link Neuron#isSerializedWithNetwork(ObjectOutputStream)}), and network writes this table after its layers.
+ * When network is read, connections are created again from the table, so serialization does not recurse
+ * through neurons and connections, and works for networks of any depth.
+ * <p>
+ * When network is copied with {@link NeuralNetwork#copy()}, arrays of the table are passed from
+ * copied network to its copy in memory by the copy streams, so only layers and neurons go through serialization.
+ *
+ * @author Zoran Sevarac <sevarac@gmail.com>
+ * @see NeuralNetwork
+ */
+public final class ConnectionTable implements Serializable {
+
+    /**
+     * The class fingerprint that is set to indicate serialization compatibility
+     * with a previous version of the class
+     */
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Neuron has the same source neurons as previous neuron with connections
+     */
+    private static final int SAME_SOURCES = 1;
+
+    /**
+     * Weights of neuron have consecutive indices
+     */
+    private static final int CONSECUTIVE_WEIGHTS = 2;
+
+    private transient NeuralNetwork<?> network;
+
+    /**
+     * True if arrays of the table are not written, but passed to the copy of the network in memory
+     */
+    private boolean copied;
+
+    /**
+     * Number of input connections of each neuron, in network order
+     */
+    private int[] connectionsCounts;
+
+    /**
+     * Pattern flags of each neuron
+     */
+    private byte[] patterns;
+
+    /**
+     * Layer index and index in layer of source neurons, for neurons which do not have the same sources as previous neuron
+     */
+    private int[] fromLayers;
+    private int[] fromNeurons;
+
+    /**
+     * Weight indices of connections, only the first one for neurons with consecutive weight indices
+     */
+    private int[] weightIndices;
+
+    /**
+     * Values of all weights, in the order of first use
+     */
+    private double[] weightValues;
+
+    /**
+     * Weights which are written as objects, and their weight indices
+     */
+    private Weight[] sharedWeights;
+    private int[] sharedIndices;
+
+    /**
+     * Connections of subclasses, which are written as objects, and their positions among all connections
+     */
+    private Connection[] objectConnections;
+    private int[] objectPositions;
+
+    ConnectionTable(NeuralNetwork<?> network) {
+        this.network = network;
+    }
+
+    /**
+     * Copies network: layers and neurons are copied through serialization, and connections
+     * and weights are created from arrays of connection table, which are not serialized.
+     */
+    static NeuralNetwork<?> copy(NeuralNetwork<?> network) {
+        // holds arrays of the table while network is copied
+        ConnectionTable arrays = new ConnectionTable(network);
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (ObjectOutputStream out = new CopyOutputStream(bytes, arrays)) {
+                out.writeObject(network);
+            }
+            try (ObjectInputStream in = new CopyInputStream(new ByteArrayInputStream(bytes.toByteArray()), arrays,
+                    network.getClass().getClassLoader())) {
+                return (NeuralNetwork<?>) in.readObject();
+            }
+        } catch (IOException | ClassNotFoundException ex) {
+            throw new NeurophException("Could not copy neural network!", ex);
+        }
+    }
+
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        // network is only read, since other threads may use or write it at the same time
+        try {
+            fill();
+            copied = out instanceof CopyOutputStream && ((CopyOutputStream) out).arrays.network == network;
+            if (copied) {
+                moveArrays(((CopyOutputStream) out).arrays);
+            }
+            out.defaultWriteObject();
+        } finally {
+            connectionsCounts = null;
+            patterns = null;
+            fromLayers = null;
+            fromNeurons = null;
+            weightIndices = null;
+            weightValues = null;
+            sharedWeights = null;
+            sharedIndices = null;
+            objectConnections = null;
+            objectPositions = null;
+        }
+    }
+
+    /**
+     * Moves arrays which describe connections to the specified table
+     */
+    private void moveArrays(ConnectionTable table) {
+        table.connectionsCounts = connectionsCounts;
+        table.patterns = patterns;
+        table.fromLayers = fromLayers;
+        table.fromNeurons = fromNeurons;
+        table.weightIndices = weightIndices;
+        table.weightValues = weightValues;
+        connectionsCounts = null;
+        patterns = null;
+        fromLayers = null;
+        fromNeurons = null;
+        weightIndices = null;
+        weightValues = null;
+    }
+
+    /**
+     * Returns positions of neurons in network order
+     */
+    private static Map<Neuron, Integer> positions(NeuralNetwork<?> network) {
+        Map<Neuron, Integer> positions = new IdentityHashMap<>();
+        for (int l = 0; l < network.getLayersCount(); l++) {
+            Layer layer = network.getLayerAt(l);
+            for (int i = 0; i < layer.getNeuronsCount(); i++) {
+                positions.put(layer.getNeuronAt(i), positions.size());
+            }
+        }
+        return positions;
+    }
+
+    /**
+     * Fills arrays of the table. Weights get indices in the order of first use, the same way learning rules index them
+     */
+    private void fill() throws NotSerializableException {
+        Map<Neuron, Integer> positions = positions(network);
+        int neuronsCount = positions.size();
+        Neuron[] neurons = new Neuron[neuronsCount];
+        int[] layerOf = new int[neuronsCount];
+        int[] indexInLayer = new int[neuronsCount];
+        int position = 0;
+        int count = 0;
+        for (int l = 0; l < network.getLayersCount(); l++) {
+            for (int i = 0; i < network.getLayerAt(l).getNeuronsCount(); i++, position++) {
+                neurons[position] = network.getLayerAt(l).getNeuronAt(i);
+                layerOf[position] = l;
+                indexInLayer[position] = i;
+                count += neurons[position].getInputConnections().size();
+            }
+        }
+        Map<Weight, Integer> weightIndex = new IdentityHashMap<>(count);
+
+        connectionsCounts = new int[neuronsCount];
+        patterns = new byte[neuronsCount];
+        int[] sourceLayers = new int[count];
+        int[] sourceNeurons = new int[count];
+        int[] indices = new int[count];
+        double[] values = new double[count];
+        Weight[] weights = new Weight[count];
+        boolean[] shared = new boolean[count];
+        List<Connection> objects = new ArrayList<>();
+        List<Integer> objectsAt = new ArrayList<>();
+        int sourcesCount = 0;
+        int indicesCount = 0;
+        int previousSources = -1;
+        int previousCount = 0;
+        int previousFrom = -1;
+        int n = 0;
+        int k = 0;
+        for (int l = 0; l < network.getLayersCount(); l++) {
+            Layer layer = network.getLayerAt(l);
+            for (int i = 0; i < layer.getNeuronsCount(); i++, n++) {
+                List<Connection> connections = layer.getNeuronAt(i).getInputConnections();
+                int connectionsCount = connections.size();
+                connectionsCounts[n] = connectionsCount;
+                if (connectionsCount == 0) {
+                    continue;
+                }
+                for (int j = 0; j < connectionsCount; j++, k++) {
+                    Connection connection = connections.get(j);
+                    // sources usually follow network order, so hash lookup is needed only when they do not
+                    int fromPosition = previousFrom + 1;
+                    if (fromPosition >= neuronsCount || neurons[fromPosition] != connection.getFromNeuron()) {
+                        Integer found = positions.get(connection.getFromNeuron());
+                        if (found == null) {
+                            throw new NotSerializableException("Connection from neuron which is not in any layer of the network");
+                        }
+                        fromPosition = found;
+                    }
+                    previousFrom = fromPosition;
+                    sourceLayers[sourcesCount + j] = layerOf[fromPosition];
+                    sourceNeurons[sourcesCount + j] = indexInLayer[fromPosition];
+
+                    Weight weight = connection.getWeight();
+                    Integer index = weightIndex.get(weight);
+                    if (index == null) {
+                        index = weightIndex.size();
+                        weightIndex.put(weight, index);
+                        weights[index] = weight;
+                        values[index] = weight.value;
+                    } else {
+                        shared[index] = true;
+                    }
+                    indices[indicesCount + j] = index;
+
+                    if (connection.getClass() != Connection.class) {
+                        // connection of subclass is written with its weight as object, weight stays shared with it
+                        objects.add(connection);
+                        objectsAt.add(k);
+                        shared[index] = true;
+                    }
+                }
+
+                int flags = 0;
+                if (connectionsCount == previousCount
+                        && rangeEquals(sourceLayers, previousSources, sourcesCount, connectionsCount)
+                        && rangeEquals(sourceNeurons, previousSources, sourcesCount, connectionsCount)) {
+                    flags |= SAME_SOURCES;
+                } else {
+                    previousSources = sourcesCount;
+                    previousCount = connectionsCount;
+                    sourcesCount += connectionsCount;
+                }
+                if (isConsecutive(indices, indicesCount, connectionsCount)) {
+                    flags |= CONSECUTIVE_WEIGHTS;
+                    indicesCount++;
+                } else {
+                    indicesCount += connectionsCount;
+                }
+                patterns[n] = (byte) flags;
+            }
+        }
+        fromLayers = Arrays.copyOf(sourceLayers, sourcesCount);
+        fromNeurons = Arrays.copyOf(sourceNeurons, sourcesCount);
+        weightIndices = Arrays.copyOf(indices, indicesCount);
+        weightValues = Arrays.copyOf(values, weightIndex.size());
+
+        int sharedCount = 0;
+        for (int i = 0; i < weightValues.length; i++) {
+            if (shared[i]) {
+                sharedCount++;
+            }
+        }
+        sharedWeights = new Weight[sharedCount];
+        sharedIndices = new int[sharedCount];
+        for (int i = 0, j = 0; i < weightValues.length; i++) {
+            if (shared[i]) {
+                sharedWeights[j] = weights[i];
+                sharedIndices[j++] = i;
+            }
+        }
+        objectConnections = objects.toArray(new Connection[objects.size()]);
+        objectPositions = new int[objectConnections.length];
+        for (int i = 0; i < objectPositions.length; i++) {
+            objectPositions[i] = objectsAt.get(i);
+        }
+    }
+
+    private static boolean rangeEquals(int[] array, int from, int to, int length) {
+        if (from < 0) {
+            return false;
+        }
+        for (int j = 0; j < length; j++) {
+            if (array[from + j] != array[to + j]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isConsecutive(int[] array, int from, int length) {
+        for (int j = 1; j < length; j++) {
+            if (array[from + j] != array[from] + j) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        if (sharedWeights.length != sharedIndices.length || objectConnections.length != objectPositions.length || (!copied
+                && (connectionsCounts.length != patterns.length || fromLayers.length != fromNeurons.length))) {
+            throw new InvalidObjectException("Corrupted connection table");
+        }
+    }
+
+    /**
+     * Creates connections of the network which was read together with this table from the specified stream
+     */
+    void connect(NeuralNetwork<?> network, ObjectInputStream in) throws InvalidObjectException {
+        if (copied) {
+            ConnectionTable source = in instanceof CopyInputStream ? ((CopyInputStream) in).arrays : null;
+            if (source == null || source.connectionsCounts == null) {
+                throw new InvalidObjectException("Connections of copied network can be created only while network is copied");
+            }
+            source.moveArrays(this);
+        }
+
+        Weight[] weights = new Weight[weightValues.length];
+        try {
+            for (int i = 0; i < sharedIndices.length; i++) {
+                weights[sharedIndices[i]] = sharedWeights[i];
+            }
+
+            int neuronsCount = 0;
+            for (int l = 0; l < network.getLayersCount(); l++) {
+                Layer layer = network.getLayerAt(l);
+                neuronsCount += layer.getNeuronsCount();
+                // neurons written on their own before the network keep their connections in the table
+                for (int i = 0; i < layer.getNeuronsCount(); i++) {
+                    layer.getNeuronAt(i).inputConnections.clear();
+                    layer.getNeuronAt(i).outConnections.clear();
+                }
+            }
+            if (neuronsCount != connectionsCounts.length) {
+                throw new InvalidObjectException("Corrupted connection table: number of neurons does not match");
+            }
+
+            int nextObject = 0;
+            int sources = 0;
+            int sourcesEnd = 0;
+            int indices = 0;
+            int n = 0;
+            int k = 0;
+            for (int l = 0; l < network.getLayersCount(); l++) {
+                Layer layer = network.getLayerAt(l);
+                for (int i = 0; i < layer.getNeuronsCount(); i++, n++) {
+                    Neuron neuron = layer.getNeuronAt(i);
+                    int count = connectionsCounts[n];
+                    if (count == 0) {
+                        continue;
+                    }
+                    if ((patterns[n] & SAME_SOURCES) == 0) {
+                        sources = sourcesEnd;
+                        sourcesEnd += count;
+                    }
+                    boolean consecutive = (patterns[n] & CONSECUTIVE_WEIGHTS) != 0;
+
+                    neuron.ensureConnectionsCapacity(count, 0);
+                    for (int j = 0; j < count; j++, k++) {
+                        Neuron from = network.getLayerAt(fromLayers[sources + j]).getNeuronAt(fromNeurons[sources + j]);
+                        int index = consecutive ? weightIndices[indices] + j : weightIndices[indices + j];
+                        Weight weight = weights[index];
+                        if (weight == null) {
+                            weight = new Weight(weightValues[index]);
+                            weights[index] = weight;
+                        }
+                        if (nextObject < objectPositions.length && objectPositions[nextObject] == k) {
+                            neuron.addUniqueInputConnection(objectConnections[nextObject++]);
+                        } else {
+                            neuron.addUniqueInputConnection(new Connection(from, neuron, weight));
+                        }
+                    }
+                    indices += consecutive ? 1 : count;
+                }
+            }
+            network.invalidateFlatNetwork();
+        } catch (IndexOutOfBoundsException ex) {
+            InvalidObjectException invalid = new InvalidObjectException("Corrupted connection table");
+            invalid.initCause(ex);
+            throw invalid;
+        }
+    }
+
+    /**
+     * Stream which writes network for its copy, it passes arrays of connection table to the copy stream
+     */
+    private static final class CopyOutputStream extends ObjectOutputStream {
+
+        private final ConnectionTable arrays;
+
+        CopyOutputStream(OutputStream out, ConnectionTable arrays) throws IOException {
+            super(out);
+            this.arrays = arrays;
+        }
+    }
+
+    /**
+     * Stream which reads copy of network, with arrays of connection table passed by copy output stream
+     */
+    private static final class CopyInputStream extends ObjectInputStream {
+
+        private final ConnectionTable arrays;
+        private final ClassLoader classLoader;
+
+        CopyInputStream(InputStream in, ConnectionTable arrays, ClassLoader classLoader) throws IOException {
+            super(in);
+            this.arrays = arrays;
+            this.classLoader = classLoader;
+        }
+
+        @Override
+        protected Class<?> resolveClass(ObjectStreamClass desc) throws IOException, ClassNotFoundException {
+            try {
+                return Class.forName(desc.getName(), false, classLoader);
+            } catch (ClassNotFoundException ex) {
+                return super.resolveClass(desc);
+            }
+        }
+    }
+
+}
@@ -47,6 +47,11 @@ public class Layer implements Iterable<Neuron>, Serializable {
      */
     private static final long serialVersionUID = 4L;
 
+    /**
+     * Parameters of layers which have only connection weights
+     */
+    private static final double[][] NO_PARAMETERS = new double[0][];
+
     /**
      * Parent neural network - to which this layer belongs
      * 建立层与神经元网络的绑定关系.
@@ -139,8 +144,10 @@ public class Layer implements Iterable<Neuron>, Serializable {
         neurons.add(neuron);
 
         // notify network listeners that neuron has been added
-        if (parentNetwork != null)
+        if (parentNetwork != null) {
+            parentNetwork.invalidateFlatNetwork();
             parentNetwork.fireNetworkEvent(new NeuralNetworkEvent(neuron, NeuralNetworkEvent.Type.NEURON_ADDED));
+        }
     }
 
     /**
@@ -165,8 +172,10 @@ public class Layer implements Iterable<Neuron>, Serializable {
         neuron.setParentLayer(this);
 
         // notify network listeners that neuron has been added
-        if (parentNetwork != null)
+        if (parentNetwork != null) {
+            parentNetwork.invalidateFlatNetwork();
             parentNetwork.fireNetworkEvent(new NeuralNetworkEvent(neuron, NeuralNetworkEvent.Type.NEURON_ADDED));
+        }
     }
 
     /**
@@ -186,8 +195,10 @@ public class Layer implements Iterable<Neuron>, Serializable {
         neuron.setParentLayer(this);
 
         // notify network listeners that neuron has been added
-        if (parentNetwork != null)
+        if (parentNetwork != null) {
+            parentNetwork.invalidateFlatNetwork();
             parentNetwork.fireNetworkEvent(new NeuralNetworkEvent(neuron, NeuralNetworkEvent.Type.NEURON_ADDED));
+        }
 
     }
 
@@ -213,16 +224,20 @@ public class Layer implements Iterable<Neuron>, Serializable {
         neurons.remove(index);
 
         // notify listeners that neuron has been removed
-        if (parentNetwork != null)
+        if (parentNetwork != null) {
+            parentNetwork.invalidateFlatNetwork();
             parentNetwork.fireNetworkEvent(new NeuralNetworkEvent(this, NeuralNetworkEvent.Type.NEURON_REMOVED));
+        }
     }
 
     public final void removeAllNeurons() {
         neurons.clear();
 
         // notify listeners that neurons has been removed
-        if (parentNetwork != null)
+        if (parentNetwork != null) {
+            parentNetwork.invalidateFlatNetwork();
             parentNetwork.fireNetworkEvent(new NeuralNetworkEvent(this, NeuralNetworkEvent.Type.NEURON_REMOVED));
+        }
     }
 
     /**
@@ -254,20 +269,15 @@ public class Layer implements Iterable<Neuron>, Serializable {
         return neurons.size();
     }
 
-    //static final ForkJoinPool mainPool = ForkJoinPool.commonPool();
-
     /**
      * Performs calculaton for all neurons in this layer
+     *
+     * @see org.neuroph.core.calc.LayerCalculator
      */
     public void calculate() {
-
-        for (Neuron neuron : neurons) {
-            neuron.calculate();
+        for (int i = 0; i < neurons.size(); i++) {
+            neurons.get(i).calculate();
         }
-        //   neurons.forEach(Neuron::calculate);
-
-        //   neurons.parallelStream().forEach( n -> n.calculate());
-//        mainPool.invokeAll(Arrays.asList(neurons.asArray()));
     }
 
     /**
@@ -290,6 +300,51 @@ public class Layer implements Iterable<Neuron>, Serializable {
         });
     }
 
+    /**
+     * Returns parameters of this layer which are not weights of neuron connections, like kernels and
+     * biases of tensor layers. In canonical weight order of {@link WeightVector} they follow the
+     * connection weights of the network. Returned arrays are not copies, so changing their values
+     * changes the layer.
+     *
+     * @return parameter arrays, empty if the layer has only connection weights
+     */
+    public double[][] getParameters() {
+        return NO_PARAMETERS;
+    }
+
+    /**
+     * Copies values of {@link #getParameters() parameters} from the specified layer with the same structure.
+     * Layers which keep parameters with some shape should override this method to check it.
+     *
+     * @param layer layer to copy parameters from
+     * @throws IllegalArgumentException if layers do not have the same parameters, nothing is copied in that case
+     */
+    public void copyParametersFrom(Layer layer) {
+        double[][] parameters = getParameters();
+        double[][] sourceParameters = layer.getParameters();
+        if (!hasSameParametersSize(parameters, sourceParameters)) {
+            throw new IllegalArgumentException("Layers do not have the same parameters!");
+        }
+        for (int i = 0; i < parameters.length; i++) {
+            System.arraycopy(sourceParameters[i], 0, parameters[i], 0, parameters[i].length);
+        }
+    }
+
+    /**
+     * Returns true if parameter arrays have the same number and sizes
+     */
+    static boolean hasSameParametersSize(double[][] parameters, double[][] otherParameters) {
+        if (parameters.length != otherParameters.length) {
+            return false;
+        }
+        for (int i = 0; i < parameters.length; i++) {
+            if (parameters[i].length != otherParameters[i].length) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     /**
      * Get layer label
      *
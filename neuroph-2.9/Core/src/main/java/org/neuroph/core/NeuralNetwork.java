@@ -15,11 +15,16 @@
  */
 package org.neuroph.core;
 
+import org.neuroph.core.calc.AdaptiveCalculator;
+import org.neuroph.core.calc.LayerCalculator;
+import org.neuroph.core.calc.ParallelCalculator;
+import org.neuroph.core.calc.SequentialCalculator;
 import org.neuroph.core.data.DataSet;
 import org.neuroph.core.events.NeuralNetworkEvent;
 import org.neuroph.core.events.NeuralNetworkEventListener;
 import org.neuroph.core.exceptions.NeurophException;
 import org.neuroph.core.exceptions.VectorSizeMismatchException;
+import org.neuroph.core.flat.FlatNetwork;
 import org.neuroph.core.learning.IterativeLearning;
 import org.neuroph.core.learning.LearningRule;
 import org.neuroph.util.NeuralNetworkType;
@@ -86,6 +91,11 @@ public class NeuralNetwork<L extends LearningRule> implements Serializable {
      */
     private List<Neuron> outputNeurons;
 
+    /**
+     * Strategy used to calculate network layers
+     */
+    private LayerCalculator calculator;
+
     /**
      * Plugins collection
      */
@@ -101,6 +111,38 @@ public class NeuralNetwork<L extends LearningRule> implements Serializable {
      */
     private transient List<NeuralNetworkEventListener> listeners = new ArrayList();
 
+    /**
+     * True while network events are not delivered to listeners, used during bulk construction
+     */
+    private transient volatile boolean eventsSuppressed;
+
+    /**
+     * Compiled network used for batch calculation, created on first use
+     */
+    private transient volatile FlatNetwork flatNetwork;
+
+    /**
+     * True if structure of this network is not supported by compiled network
+     */
+    private transient volatile boolean flatNetworkUnsupported;
+
+    /**
+     * Incremented when structure of the network is changed, and version of structure which was compiled
+     */
+    private transient volatile long structureVersion;
+    private transient volatile long flatNetworkStructure;
+
+    /**
+     * Incremented when weights are changed, and version of weights copied to compiled network
+     */
+    private transient volatile long weightsVersion;
+    private transient volatile long flatNetworkVersion;
+
+    /**
+     * Streams which currently write this network, its neurons skip their connections when written to them
+     */
+    private transient Set<ObjectOutputStream> connectionStreams = Collections.newSetFromMap(new IdentityHashMap<>());
+
     /**
      * Neural network logger
      */
@@ -114,6 +156,7 @@ public class NeuralNetwork<L extends LearningRule> implements Serializable {
         this.inputNeurons = new ArrayList<>();
         this.outputNeurons = new ArrayList<>();
         this.plugins = new HashMap<>();
+        this.calculator = new SequentialCalculator();
     }
 
     /**
@@ -133,6 +176,7 @@ public class NeuralNetwork<L extends LearningRule> implements Serializable {
 
         // add layer to layers collection
         layers.add(layer);
+        invalidateFlatNetwork();
 
         // notify listeners that layer has been added
         fireNetworkEvent(new NeuralNetworkEvent(layer, NeuralNetworkEvent.Type.LAYER_ADDED));
@@ -161,6 +205,7 @@ public class NeuralNetwork<L extends LearningRule> implements Serializable {
 
         // add layer to layers collection at specified position        
         layers.add(index, layer);
+        invalidateFlatNetwork();
 
         // notify listeners that layer has been added
         fireNetworkEvent(new NeuralNetworkEvent(layer, NeuralNetworkEvent.Type.LAYER_ADDED));
@@ -177,6 +222,7 @@ public class NeuralNetwork<L extends LearningRule> implements Serializable {
         if (!layers.remove(layer)) {
             throw new RuntimeException("Layer not in Neural n/w");
         }
+        invalidateFlatNetwork();
 
         // notify listeners that layer has been removed
         fireNetworkEvent(new NeuralNetworkEvent(layer, NeuralNetworkEvent.Type.LAYER_REMOVED));
@@ -191,6 +237,7 @@ public class NeuralNetwork<L extends LearningRule> implements Serializable {
     public void removeLayerAt(int index) {
         Layer layer = layers.get(index);
         layers.remove(index);
+        invalidateFlatNetwork();
 
         // notify listeners that layer has been removed
         fireNetworkEvent(new NeuralNetworkEvent(layer, NeuralNetworkEvent.Type.LAYER_REMOVED));
@@ -245,10 +292,9 @@ public class NeuralNetwork<L extends LearningRule> implements Serializable {
         }
 
         // TODO: Make this more elegant
-        int i = 0;
-        for (Neuron neuron : this.inputNeurons) {
-            neuron.setInput(inputVector[i]); // set input to the corresponding neuron
-            i++;
+        // indexed loops do not allocate iterators on the training hot path
+        for (int i = 0; i < inputVector.length; i++) {
+            inputNeurons.get(i).setInput(inputVector[i]); // set input to the corresponding neuron
         }
     }
 
@@ -261,46 +307,138 @@ public class NeuralNetwork<L extends LearningRule> implements Serializable {
      */
     public double[] getOutput() {
         // TODO: Make this more elegant
-        int i = 0;
-        for (Neuron c : outputNeurons) {
-            outputBuffer[i] = c.getOutput();
-            i++;
+        for (int i = 0; i < outputNeurons.size(); i++) {
+            outputBuffer[i] = outputNeurons.get(i).getOutput();
         }
 
         return outputBuffer;
     }
 
-//    This can be used to provid difefrent ways for leyer calculation
-//    public static interface Calculator {
-//        // default calculator
-//        public void calculate();
-//    }
-//    
-//    // default calculator is sequential using foreach loop
-//    transient Calculator calculator = new Calculator() {
-//        @Override
-//        public void calculate() {
-//            for (Layer layer : getLayers()) {
-//                layer.calculate();
-//            }
-//        }
-//    };
-//
-//    public Calculator getCalculator() {
-//        return calculator;
-//    }
-//
-//    public void setCalculator(Calculator calculator) {
-//        this.calculator = calculator;
-//    }
+    /**
+     * Returns strategy used to calculate layers of this network
+     *
+     * @return layer calculator
+     */
+    public LayerCalculator getCalculator() {
+        return calculator;
+    }
 
+    /**
+     * Sets strategy used to calculate layers of this network
+     *
+     * @param calculator layer calculator
+     * @see SequentialCalculator
+     * @see ParallelCalculator
+     * @see AdaptiveCalculator
+     */
+    public void setCalculator(LayerCalculator calculator) {
+        this.calculator = Objects.requireNonNull(calculator, "Calculator can't be null!");
+    }
 
     /**
      * Performs calculation on whole network
      */
     public void calculate() {
-        layers.forEach(Layer::calculate);
-        fireNetworkEvent(new NeuralNetworkEvent(this, NeuralNetworkEvent.Type.CALCULATED));
+        for (int i = 0; i < layers.size(); i++) {
+            calculator.calculate(layers.get(i));
+        }
+        // event is created only if somebody listens, calculate() is called for each training pattern
+        if (!listeners.isEmpty()) {
+            fireNetworkEvent(new NeuralNetworkEvent(this, NeuralNetworkEvent.Type.CALCULATED));
+        }
+    }
+
+    /**
+     * Calculates network outputs for all input vectors in the batch.
+     * Networks supported by {@link FlatNetwork} are calculated layer by layer for
+     * blocks of samples, without changing neuron outputs. Other networks are
+     * calculated one input vector at a time with {@link #calculate()}.
+     *
+     * @param inputs input vectors, one row for each sample
+     * @return network outputs, one row for each sample
+     */
+    public double[][] calculate(double[][] inputs) {
+        double[][] outputs;
+        FlatNetwork flat = getFlatNetwork();
+
+        if (flat != null) {
+            outputs = flat.calculate(inputs);
+            fireNetworkEvent(new NeuralNetworkEvent(this, NeuralNetworkEvent.Type.CALCULATED));
+        } else {
+            // calculate() is used, since network types may override it, and it fires event for each sample
+            outputs = new double[inputs.length][];
+            for (int i = 0; i < inputs.length; i++) {
+                setInput(inputs[i]);
+                calculate();
+                outputs[i] = getOutput().clone();
+            }
+        }
+        return outputs;
+    }
+
+    /**
+     * Returns compiled version of this network with current weight values,
+     * or null if this network cannot be compiled.
+     * Compiled network is created on first call and reused after that. Weight values are copied
+     * to it again only after they were changed (see {@link #weightsChanged()}), and the lock is
+     * taken only to compile or refresh it, so calls with unchanged weights do not block each other.
+     *
+     * @return compiled network or null
+     */
+    public FlatNetwork getFlatNetwork() {
+        if (flatNetworkStructure == structureVersion) {
+            if (flatNetworkUnsupported) {
+                return null;
+            }
+            FlatNetwork flat = flatNetwork;
+            if (flat != null && flatNetworkVersion == weightsVersion) {
+                return flat;
+            }
+        }
+        synchronized (this) {
+            // versions are read before network is compiled, so changes made meanwhile are picked up next time
+            long structure = structureVersion;
+            long version = weightsVersion;
+            if (flatNetworkStructure != structure) {
+                flatNetwork = null;
+                flatNetworkUnsupported = false;
+            }
+            if (flatNetwork != null) {
+                if (flatNetworkVersion != version) {
+                    flatNetwork.refresh();
+                    flatNetworkVersion = version;
+                }
+            } else if (!flatNetworkUnsupported) {
+                try {
+                    FlatNetwork compiled = FlatNetwork.compile(this);
+                    flatNetworkVersion = version;
+                    flatNetwork = compiled;
+                } catch (NeurophException ex) {
+                    LOGGER.debug("Using object graph for batch calculation: " + ex.getMessage());
+                    flatNetworkUnsupported = true;
+                }
+            }
+            flatNetworkStructure = structure;
+            return flatNetwork;
+        }
+    }
+
+    /**
+     * Marks weights of this network as changed, so they are copied to compiled network on its next use.
+     * Setting weights through this network or its {@link WeightVector}, randomizing them and learning
+     * call this method. Code which changes {@link Weight} values directly should call it after the change.
+     */
+    public void weightsChanged() {
+        weightsVersion++;
+    }
+
+    /**
+     * Discards compiled version of this network, so that it is created again on next use.
+     * Layers and neurons call this when neurons, connections or functions of the network are changed.
+     * It only marks the structure as changed, without taking the lock, so bulk construction stays cheap.
+     */
+    public void invalidateFlatNetwork() {
+        structureVersion++;
     }
 
     /**
@@ -393,6 +531,7 @@ public class NeuralNetwork<L extends LearningRule> implements Serializable {
      */
     public void randomizeWeights(WeightsRandomizer randomizer) {
         randomizer.randomize(this);
+        weightsChanged();
     }
 
     /**
@@ -440,6 +579,7 @@ public class NeuralNetwork<L extends LearningRule> implements Serializable {
         for (Neuron neuron : inputNeurons) {
             this.inputNeurons.add(neuron);
         }
+        invalidateFlatNetwork();
     }
 
     /**
@@ -465,6 +605,7 @@ public class NeuralNetwork<L extends LearningRule> implements Serializable {
             this.outputNeurons.add(neuron);
         }
         this.outputBuffer = new double[outputNeurons.size()];
+        invalidateFlatNetwork();
     }
 
     /**
@@ -503,37 +644,122 @@ public class NeuralNetwork<L extends LearningRule> implements Serializable {
 
 
     /**
-     * Returns all network weights as an double array
+     * Returns number of network weights, one for each connection, followed by
+     * parameters of layers (see {@link Layer#getParameters()})
+     *
+     * @return number of weights
+     */
+    public int getWeightsCount() {
+        int count = 0;
+        for (int l = 0; l < layers.size(); l++) {
+            Layer layer = layers.get(l);
+            for (int i = 0; i < layer.getNeuronsCount(); i++) {
+                count += layer.getNeuronAt(i).getInputConnections().size();
+            }
+            for (double[] parameters : layer.getParameters()) {
+                count += parameters.length;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Returns all network weights as an double array, in canonical order of {@link WeightVector}
      *
      * @return network weights as an double array
      */
     public Double[] getWeights() {
-        List<Double> weights = new ArrayList();
-        for (Layer layer : layers) {
-            for (Neuron neuron : layer.getNeurons()) {
-                for (Connection conn : neuron.getInputConnections()) {
-                    weights.add(conn.getWeight().getValue());
-                }
-            }
+        double[] values = getWeightVector().toArray();
+        Double[] weights = new Double[values.length];
+        for (int i = 0; i < values.length; i++) {
+            weights[i] = values[i];
         }
-        return weights.toArray(new Double[weights.size()]);
+        return weights;
+    }
+
+    /**
+     * Copies all network weights to the specified array, in the same order as {@link #getWeights()}
+     *
+     * @param weights array for weights, with at least {@link #getWeightsCount()} elements
+     */
+    public void getWeights(double[] weights) {
+        getWeightVector().get(weights, 0);
     }
 
     /**
-     * Sets network weights from the specified double array
+     * Sets network weights from the specified double array, in the same order as {@link #getWeights()}
      *
-     * @param weights array of weights to set
+     * @param weights array of weights to set, with at least {@link #getWeightsCount()} elements
      */
     public void setWeights(double[] weights) {
-        int i = 0;
-        for (Layer layer : layers) {
-            for (Neuron neuron : layer.getNeurons()) {
-                for (Connection conn : neuron.getInputConnections()) {
-                    conn.getWeight().setValue(weights[i]);
-                    i++;
+        getWeightVector().set(weights, 0);
+    }
+
+    /**
+     * Returns live view of network weights as a primitive vector, which can be read and
+     * changed repeatedly without walking layers, neurons and connections.
+     * Vector should be created again after connections are added or removed.
+     *
+     * @return weight vector for current network connections
+     */
+    public WeightVector getWeightVector() {
+        return new WeightVector(this);
+    }
+
+    /**
+     * Creates copy of this network, for example for training several replicas of the same network.
+     * Layers, neurons, learning rule and plugins are copied through serialization, while connections
+     * and weights are created from index arrays which are passed to the copy in memory, so copying is
+     * much cheaper than serialization of the whole network. Weights shared by several connections stay shared in copy.
+     * Event listeners are not copied.
+     *
+     * @return copy of this network
+     */
+    public NeuralNetwork<L> copy() {
+        return (NeuralNetwork<L>) ConnectionTable.copy(this);
+    }
+
+    /**
+     * Copies weight values from the specified network with the same structure,
+     * like network created by {@link #copy()}. Layer parameters, like kernels of tensor convolutional
+     * layers, are copied too (see {@link Layer#copyParametersFrom(Layer)}).
+     *
+     * @param network network to copy weights from
+     * @throws IllegalArgumentException if networks do not have the same layers, neurons and connections
+     */
+    public void copyWeightsFrom(NeuralNetwork<?> network) {
+        if (network.getLayersCount() != getLayersCount()) {
+            throw new IllegalArgumentException("Networks do not have the same number of layers!");
+        }
+        for (int l = 0; l < getLayersCount(); l++) {
+            Layer layer = getLayerAt(l);
+            Layer sourceLayer = network.getLayerAt(l);
+            if (sourceLayer.getNeuronsCount() != layer.getNeuronsCount()) {
+                throw new IllegalArgumentException("Networks do not have the same number of neurons in layer " + l + "!");
+            }
+            for (int i = 0; i < layer.getNeuronsCount(); i++) {
+                if (sourceLayer.getNeuronAt(i).getInputConnections().size() != layer.getNeuronAt(i).getInputConnections().size()) {
+                    throw new IllegalArgumentException("Networks do not have the same connections in layer " + l + "!");
                 }
             }
+            if (!Layer.hasSameParametersSize(layer.getParameters(), sourceLayer.getParameters())) {
+                throw new IllegalArgumentException("Networks do not have the same parameters in layer " + l + "!");
+            }
         }
+
+        for (int l = 0; l < getLayersCount(); l++) {
+            Layer layer = getLayerAt(l);
+            Layer sourceLayer = network.getLayerAt(l);
+            for (int i = 0; i < layer.getNeuronsCount(); i++) {
+                List<Connection> connections = layer.getNeuronAt(i).getInputConnections();
+                List<Connection> sourceConnections = sourceLayer.getNeuronAt(i).getInputConnections();
+                for (int j = 0; j < connections.size(); j++) {
+                    connections.get(j).getWeight().value = sourceConnections.get(j).getWeight().value;
+                }
+            }
+            layer.copyParametersFrom(sourceLayer);
+        }
+        weightsChanged();
     }
 
     public boolean isEmpty() {
@@ -549,6 +775,7 @@ public class NeuralNetwork<L extends LearningRule> implements Serializable {
      */
     public void createConnection(Neuron fromNeuron, Neuron toNeuron, double weightVal) {
         toNeuron.addInputConnection(fromNeuron, weightVal);
+        invalidateFlatNetwork();
     }
 
     @Override
@@ -561,6 +788,7 @@ public class NeuralNetwork<L extends LearningRule> implements Serializable {
 
     /**
      * Saves neural network into the specified file.
+     * Large networks can be saved faster in binary format, see {@link org.neuroph.util.io.BinaryNetworkFile}.
      *
      * @param filePath file path to save network into
      */
@@ -645,10 +873,48 @@ public class NeuralNetwork<L extends LearningRule> implements Serializable {
         }
     }
 
+    private void writeObject(java.io.ObjectOutputStream out) throws IOException {
+        // neurons skip their connections, which are written after layers as index table
+        synchronized (connectionStreams) {
+            connectionStreams.add(out);
+        }
+        try {
+            out.defaultWriteObject();
+            out.writeObject(new ConnectionTable(this));
+        } finally {
+            synchronized (connectionStreams) {
+                connectionStreams.remove(out);
+            }
+        }
+    }
+
+    /**
+     * Returns true if this network is currently written to the specified stream, together with connections of its neurons
+     */
+    boolean writesConnections(ObjectOutputStream out) {
+        synchronized (connectionStreams) {
+            return connectionStreams.contains(out);
+        }
+    }
+
     private void readObject(java.io.ObjectInputStream in)
             throws IOException, ClassNotFoundException {
         in.defaultReadObject();
         listeners = new ArrayList();
+        connectionStreams = Collections.newSetFromMap(new IdentityHashMap<>());
+        if (calculator == null) { // networks saved before calculators were introduced
+            calculator = new SequentialCalculator();
+        }
+        try {
+            ConnectionTable connections = (ConnectionTable) in.readObject();
+            if (connections != null) {
+                connections.connect(this, in);
+            }
+        } catch (OptionalDataException ex) { // networks saved before connection tables were introduced
+            if (!ex.eof) {
+                throw ex;
+            }
+        }
     }
 
     /**
@@ -752,9 +1018,34 @@ public class NeuralNetwork<L extends LearningRule> implements Serializable {
     }
 
     // This method is used to fire NeuralNetworkEvents
-    public synchronized void fireNetworkEvent(NeuralNetworkEvent evt) {
-        for (NeuralNetworkEventListener listener : listeners) {
-            listener.handleNeuralNetworkEvent(evt);
+    public void fireNetworkEvent(NeuralNetworkEvent evt) {
+        if (eventsSuppressed) {
+            return;
+        }
+        synchronized (this) {
+            for (NeuralNetworkEventListener listener : listeners) {
+                listener.handleNeuralNetworkEvent(evt);
+            }
         }
     }
+
+    /**
+     * Returns true if network events are currently not delivered to listeners
+     *
+     * @return true if events are suppressed
+     */
+    public boolean isEventsSuppressed() {
+        return eventsSuppressed;
+    }
+
+    /**
+     * Turns delivery of network events on or off. Events are suppressed while
+     * network structure is built in bulk, since each added neuron would
+     * otherwise fire an event. Events fired while suppressed are dropped.
+     *
+     * @param eventsSuppressed true to stop delivering events
+     */
+    public void setEventsSuppressed(boolean eventsSuppressed) {
+        this.eventsSuppressed = eventsSuppressed;
+    }
 }
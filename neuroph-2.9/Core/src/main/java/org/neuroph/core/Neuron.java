@@ -15,6 +15,9 @@
  */
 package org.neuroph.core;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -72,6 +75,12 @@ public class Neuron implements Serializable, Cloneable /*, Callable<Void>*/ {
      */
     protected List<Connection> outConnections;
 
+    /**
+     * Read only views of input and output connections, created on first use
+     */
+    private transient List<Connection> inputConnectionsView;
+    private transient List<Connection> outConnectionsView;
+
     /**
      * Total net input for this neuron. Represents total input for this neuron received from input function.
      * totalInput表示的经过神经元激活函数作用之前，全部 (输入连接权* 对应输入神经元的)的聚合.
@@ -196,6 +205,29 @@ public class Neuron implements Serializable, Cloneable /*, Callable<Void>*/ {
         return (inputConnections.size() > 0);
     }
 
+    /**
+     * Returns true if this is a bias neuron, whose output is always 1 and which has no input connections.
+     * Compiled networks and network tools use this to recognize bias neurons, so subclasses
+     * of bias neurons which change their output should return false.
+     *
+     * @return true if this is a bias neuron, false otherwise
+     */
+    public boolean isBias() {
+        return false;
+    }
+
+    /**
+     * Returns true if this is an input neuron, which passes input set from outside
+     * of the network to its output without change.
+     * Compiled networks use this to recognize neurons which can be network inputs, so subclasses
+     * of input neurons which change their output should return false.
+     *
+     * @return true if this is an input neuron, false otherwise
+     */
+    public boolean isInput() {
+        return false;
+    }
+
     /**
      * Check the connection to neuron, output connection with other following neural.
      *
@@ -251,6 +283,44 @@ public class Neuron implements Serializable, Cloneable /*, Callable<Void>*/ {
         Neuron fromNeuron = connection.getFromNeuron();
         // add the special input neural to construct the currentLay's formal networkLay.
         fromNeuron.addOutputConnection(connection);
+        invalidateNetwork();
+    }
+
+    /**
+     * Adds the specified input connection without checking whether neurons are
+     * already connected. Used for bulk construction, where the caller guarantees
+     * that there is no other connection between the same neurons, since the check
+     * scans all input connections of this and output connections of the from neuron.
+     * Compiled network is not discarded for each connection, so the caller should call
+     * {@link NeuralNetwork#invalidateFlatNetwork()} once after all connections are added.
+     *
+     * @param connection input connection to add
+     */
+    public void addUniqueInputConnection(Connection connection) {
+        if (connection == null) {
+            throw new IllegalArgumentException("Attempt to add null connection to neuron!");
+        }
+        if (connection.getToNeuron() != this) {
+            throw new IllegalArgumentException("Cannot add input connection - bad toNeuron specified!");
+        }
+        this.inputConnections.add(connection);
+        connection.getFromNeuron().outConnections.add(connection);
+    }
+
+    /**
+     * Makes room for the specified number of input and output connections, so
+     * that lists are not grown while connections are added one by one.
+     *
+     * @param inputsCount  expected number of input connections
+     * @param outputsCount expected number of output connections
+     */
+    public void ensureConnectionsCapacity(int inputsCount, int outputsCount) {
+        if (inputConnections instanceof ArrayList) {
+            ((ArrayList<Connection>) inputConnections).ensureCapacity(inputsCount);
+        }
+        if (outConnections instanceof ArrayList) {
+            ((ArrayList<Connection>) outConnections).ensureCapacity(outputsCount);
+        }
     }
 
     /**
@@ -306,7 +376,11 @@ public class Neuron implements Serializable, Cloneable /*, Callable<Void>*/ {
      * @return input connections of this neuron
      */
     public final List<Connection> getInputConnections() {
-        return Collections.unmodifiableList(inputConnections);
+        // view is kept, since this is called for each neuron and training pattern
+        if (inputConnectionsView == null) {
+            inputConnectionsView = Collections.unmodifiableList(inputConnections);
+        }
+        return inputConnectionsView;
     }
 
     /**
@@ -315,15 +389,20 @@ public class Neuron implements Serializable, Cloneable /*, Callable<Void>*/ {
      * @return output connections from this neuron
      */
     public final List<Connection> getOutConnections() {
-        return Collections.unmodifiableList(outConnections);
+        if (outConnectionsView == null) {
+            outConnectionsView = Collections.unmodifiableList(outConnections);
+        }
+        return outConnectionsView;
     }
 
     protected void removeInputConnection(Connection conn) {
         inputConnections.remove(conn);
+        invalidateNetwork();
     }
 
     protected void removeOutputConnection(Connection conn) {
         outConnections.remove(conn);
+        invalidateNetwork();
     }
 
     /**
@@ -357,10 +436,12 @@ public class Neuron implements Serializable, Cloneable /*, Callable<Void>*/ {
 
     public void removeAllInputConnections() {
         inputConnections.clear();
+        invalidateNetwork();
     }
 
     public void removeAllOutputConnections() {
         outConnections.clear();
+        invalidateNetwork();
     }
 
     public void removeAllConnections() {
@@ -388,6 +469,7 @@ public class Neuron implements Serializable, Cloneable /*, Callable<Void>*/ {
      */
     public void setInputFunction(InputFunction inputFunction) {
         this.inputFunction = inputFunction;
+        invalidateNetwork();
     }
 
     /**
@@ -397,6 +479,7 @@ public class Neuron implements Serializable, Cloneable /*, Callable<Void>*/ {
      */
     public void setTransferFunction(TransferFunction transferFunction) {
         this.transferFunction = transferFunction;
+        invalidateNetwork();
     }
 
     /**
@@ -417,6 +500,16 @@ public class Neuron implements Serializable, Cloneable /*, Callable<Void>*/ {
         return this.transferFunction;
     }
 
+    /**
+     * Discards compiled version of the network which contains this neuron,
+     * after connections or functions of this neuron are changed
+     */
+    void invalidateNetwork() {
+        if (parentLayer != null && parentLayer.getParentNetwork() != null) {
+            parentLayer.getParentNetwork().invalidateFlatNetwork();
+        }
+    }
+
     /**
      * Sets reference to parent layer for this neuron (layer in which the neuron
      * is located)
@@ -487,6 +580,9 @@ public class Neuron implements Serializable, Cloneable /*, Callable<Void>*/ {
         for (Connection connection : this.inputConnections) {
             connection.getWeight().setValue(value);
         }
+        if (parentLayer != null && parentLayer.getParentNetwork() != null) {
+            parentLayer.getParentNetwork().weightsChanged();
+        }
     }
 
     /**
@@ -507,6 +603,47 @@ public class Neuron implements Serializable, Cloneable /*, Callable<Void>*/ {
         this.label = label;
     }
 
+    /**
+     * Returns true if this neuron is currently written to the specified stream as part of its network. Connections
+     * of such neuron are written by network in {@link ConnectionTable}, so subclasses which keep
+     * their own references to connections should not write them either.
+     *
+     * @param out stream to which this neuron is written
+     * @return true if connections of this neuron are written by its network
+     */
+    protected final boolean isSerializedWithNetwork(ObjectOutputStream out) {
+        NeuralNetwork<?> network = parentLayer != null ? parentLayer.getParentNetwork() : null;
+        return network != null && network.writesConnections(out);
+    }
+
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        if (!isSerializedWithNetwork(out)) {
+            out.defaultWriteObject();
+            return;
+        }
+        // connections are written by network, fields are written without them
+        // instead of changing this neuron, which can be used by other threads
+        ObjectOutputStream.PutField fields = out.putFields();
+        fields.put("parentLayer", parentLayer);
+        fields.put("inputConnections", null);
+        fields.put("outConnections", null);
+        fields.put("inputFunction", inputFunction);
+        fields.put("transferFunction", transferFunction);
+        fields.put("label", label);
+        out.writeFields();
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        // connections written by network are added when network is read
+        if (inputConnections == null) {
+            inputConnections = new ArrayList<>();
+        }
+        if (outConnections == null) {
+            outConnections = new ArrayList<>();
+        }
+    }
+
     @Override
     public Object clone() throws CloneNotSupportedException {
         throw new UnsupportedOperationException("Not yer implemented");
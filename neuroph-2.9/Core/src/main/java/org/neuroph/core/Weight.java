@@ -16,6 +16,7 @@
 package org.neuroph.core;
 
 import java.util.Objects;
+import java.util.concurrent.ThreadLocalRandom;
 
 import org.apache.commons.lang3.builder.HashCodeBuilder;
 
@@ -51,12 +52,18 @@ public class Weight<T> implements java.io.Serializable, Cloneable {
      */
     private transient T trainingData; // this could be map maybe?
 
+    /**
+     * Index of this weight in learning rule state arrays, assigned when training starts
+     */
+    private transient int index;
+
     /**
      * Creates an instance of connection weight with random weight value in
-     * range [-0.5 .. 0.5]
+     * range [-0.5 .. 0.5]. Value comes from random generator of the current thread,
+     * so networks can be built concurrently, use weights randomizer for reproducible weights.
      */
     public Weight() {
-        this.value = Math.random() - 0.5d;
+        this.value = ThreadLocalRandom.current().nextDouble() - 0.5d;
         this.weightChange = 0;
     }
 
@@ -114,16 +121,18 @@ public class Weight<T> implements java.io.Serializable, Cloneable {
     }
 
     /**
-     * Sets random weight value within specified interval
-     * Use weight randomizers for this
+     * Sets random weight value within specified interval, using random generator of the current thread.
+     * Use weight randomizers for this, they give reproducible values
      */
     @Deprecated
     public void randomize(double min, double max) {
-        this.value = min + Math.random() * (max - min);
+        this.value = min + ThreadLocalRandom.current().nextDouble() * (max - min);
     }
 
     /**
-     * Returns training data buffer for this weight
+     * Returns training data buffer for this weight.
+     * Learning rules of this library keep their state in arrays indexed by {@link #getIndex()}
+     * and do not set training data, which is left for custom learning rules.
      *
      * @return training data buffer for this weight
      */
@@ -135,6 +144,25 @@ public class Weight<T> implements java.io.Serializable, Cloneable {
         this.trainingData = trainingData;
     }
 
+    /**
+     * Returns index of this weight in learning rule state arrays
+     *
+     * @return weight index
+     * @see org.neuroph.core.learning.SupervisedLearning#indexWeights()
+     */
+    public final int getIndex() {
+        return index;
+    }
+
+    /**
+     * Sets index of this weight in learning rule state arrays
+     *
+     * @param index weight index
+     */
+    public final void setIndex(int index) {
+        this.index = index;
+    }
+
     /**
      * Returns cloned instance of this weight
      * Important: trainingData will be lost in cloned instance
@@ -181,5 +209,4 @@ public class Weight<T> implements java.io.Serializable, Cloneable {
         return true;
     }
 
-
 }
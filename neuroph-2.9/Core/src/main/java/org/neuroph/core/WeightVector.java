@@ -0,0 +1,252 @@
+/**
+ * Copyright 2014 Neuroph Project http://neuroph.sourceforge.net
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.neuroph.core;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.neuroph.core.exceptions.VectorSizeMismatchException;
+
+/**
+ * 权值向量.
+ * <p>
+ * Indexable view of all network weights as one vector of primitive values. Weights are
+ * ordered canonically: by layers, neurons in layer, and input connections of neuron, which is the
+ * order of {@link NeuralNetwork#getWeights()}, {@link NeuralNetwork#setWeights(double[])},
+ * {@link org.neuroph.util.NeuralNetworkCODEC} and weights of compiled {@link org.neuroph.core.flat.FlatNetwork}.
+ * Weight shared by several connections appears once for each connection. Connection weights are
+ * followed by {@link Layer#getParameters() parameters} of layers, like kernels and biases of tensor
+ * convolutional layers, in layer order.
+ * <p>
+ * Vector keeps references to network weights, so reading and writing values does not walk
+ * layers, neurons and connections, which makes it suitable for optimizers which change the whole
+ * weight vector at once (like simulated annealing or genetic algorithms) and for averaging weights of network copies.
+ * Values are live: they are read from and written to network weights. Connections added or
+ * removed after the vector was created are not visible, so create new vector after network structure changes.
+ *
+ * @author Zoran Sevarac <sevarac@gmail.com>
+ * @see NeuralNetwork#getWeightVector()
+ */
+public final class WeightVector {
+
+    /**
+     * Network of the weights, which is told when weights are set
+     */
+    private final NeuralNetwork<?> network;
+
+    /**
+     * Network weights in canonical order
+     */
+    private final Weight[] weights;
+
+    /**
+     * Layer parameters, which follow connection weights
+     */
+    private final double[][] parameters;
+
+    /**
+     * Number of connection weights and layer parameters
+     */
+    private final int size;
+
+    /**
+     * Creates weight vector for current connections of the specified network
+     *
+     * @param network neural network
+     */
+    WeightVector(NeuralNetwork<?> network) {
+        this.network = network;
+        List<Layer> layers = network.getLayers();
+        int connectionsCount = 0;
+        for (int l = 0; l < layers.size(); l++) {
+            Layer layer = layers.get(l);
+            for (int i = 0; i < layer.getNeuronsCount(); i++) {
+                connectionsCount += layer.getNeuronAt(i).getInputConnections().size();
+            }
+        }
+
+        weights = new Weight[connectionsCount];
+        List<double[]> layerParameters = new ArrayList<>();
+        int k = 0;
+        for (int l = 0; l < layers.size(); l++) {
+            Layer layer = layers.get(l);
+            for (int i = 0; i < layer.getNeuronsCount(); i++) {
+                List<Connection> connections = layer.getNeuronAt(i).getInputConnections();
+                for (int j = 0; j < connections.size(); j++) {
+                    weights[k++] = connections.get(j).getWeight();
+                }
+            }
+            Collections.addAll(layerParameters, layer.getParameters());
+        }
+        parameters = layerParameters.toArray(new double[layerParameters.size()][]);
+        int count = weights.length;
+        for (double[] values : parameters) {
+            count += values.length;
+        }
+        size = count;
+    }
+
+    /**
+     * Returns number of weights in this vector
+     *
+     * @return vector size
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns value of weight at the specified index
+     *
+     * @param index weight index
+     * @return weight value
+     */
+    public double get(int index) {
+        if (index < weights.length) {
+            return weights[index].value;
+        }
+        int offset = index - weights.length;
+        for (double[] values : parameters) {
+            if (offset < values.length) {
+                return values[offset];
+            }
+            offset -= values.length;
+        }
+        throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+    }
+
+    /**
+     * Sets value of weight at the specified index
+     *
+     * @param index weight index
+     * @param value weight value
+     */
+    public void set(int index, double value) {
+        if (index < weights.length) {
+            weights[index].value = value;
+            network.weightsChanged();
+            return;
+        }
+        int offset = index - weights.length;
+        for (double[] values : parameters) {
+            if (offset < values.length) {
+                values[offset] = value;
+                network.weightsChanged();
+                return;
+            }
+            offset -= values.length;
+        }
+        throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+    }
+
+    /**
+     * Returns network weight at the specified index
+     *
+     * @param index weight index
+     * @return network weight
+     * @throws IllegalArgumentException if index belongs to layer parameter, which is not weight object
+     */
+    public Weight getWeight(int index) {
+        if (index >= weights.length && index < size) {
+            throw new IllegalArgumentException("Weight at index " + index + " is layer parameter!");
+        }
+        return weights[index];
+    }
+
+    /**
+     * Copies weight values to the specified array
+     *
+     * @param values array for weight values, with one element for each weight
+     * @throws VectorSizeMismatchException if array size does not match vector size
+     */
+    public void get(double[] values) {
+        if (values.length != size) {
+            throw new VectorSizeMismatchException("Array size does not match number of weights!");
+        }
+        get(values, 0);
+    }
+
+    /**
+     * Copies weight values to the specified array, starting at the specified offset.
+     * Can be used to pack weights of several networks in one array.
+     *
+     * @param values array for weight values
+     * @param offset index of the first weight value in array
+     * @throws VectorSizeMismatchException if weights do not fit in array
+     */
+    public void get(double[] values, int offset) {
+        if (offset < 0 || offset + size > values.length) {
+            throw new VectorSizeMismatchException("Weights do not fit in array!");
+        }
+        for (int i = 0; i < weights.length; i++) {
+            values[offset + i] = weights[i].value;
+        }
+        offset += weights.length;
+        for (double[] tensor : parameters) {
+            System.arraycopy(tensor, 0, values, offset, tensor.length);
+            offset += tensor.length;
+        }
+    }
+
+    /**
+     * Sets weight values from the specified array
+     *
+     * @param values weight values, one for each weight
+     * @throws VectorSizeMismatchException if array size does not match vector size
+     */
+    public void set(double[] values) {
+        if (values.length != size) {
+            throw new VectorSizeMismatchException("Array size does not match number of weights!");
+        }
+        set(values, 0);
+    }
+
+    /**
+     * Sets weight values from the specified array, starting at the specified offset.
+     * When weight is shared by several connections, the value of its last connection is set.
+     *
+     * @param values array with weight values
+     * @param offset index of the first weight value in array
+     * @throws VectorSizeMismatchException if array does not contain all weights
+     */
+    public void set(double[] values, int offset) {
+        if (offset < 0 || offset + size > values.length) {
+            throw new VectorSizeMismatchException("Array does not contain all weights!");
+        }
+        for (int i = 0; i < weights.length; i++) {
+            weights[i].value = values[offset + i];
+        }
+        offset += weights.length;
+        for (double[] tensor : parameters) {
+            System.arraycopy(values, offset, tensor, 0, tensor.length);
+            offset += tensor.length;
+        }
+        network.weightsChanged();
+    }
+
+    /**
+     * Returns weight values as a new array
+     *
+     * @return weight values
+     */
+    public double[] toArray() {
+        double[] values = new double[size];
+        get(values, 0);
+        return values;
+    }
+
+}
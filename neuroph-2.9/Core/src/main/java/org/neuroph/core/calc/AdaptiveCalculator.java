@@ -0,0 +1,97 @@
+/**
+ * Copyright 2014 Neuroph Project http://neuroph.sourceforge.net
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.neuroph.core.calc;
+
+import org.neuroph.core.Layer;
+
+/**
+ * 自适应计算.
+ * <p>
+ * Chooses sequential or parallel calculation for each layer, based on the
+ * amount of work in the layer, estimated as number of neurons multiplied by
+ * fan-in (number of input connections of a neuron). Narrow layers are calculated
+ * in the calling thread, where task scheduling would cost more than it saves,
+ * and wide layers are partitioned with {@link ParallelCalculator}.
+ *
+ * @author Zoran Sevarac <sevarac@gmail.com>
+ */
+public class AdaptiveCalculator implements LayerCalculator {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Default minimum number of weighted inputs for parallel calculation
+     */
+    public static final int DEFAULT_WORK_THRESHOLD = 100000;
+
+    /**
+     * Minimum number of weighted inputs (neurons x fan-in) for parallel calculation
+     */
+    private final int workThreshold;
+
+    /**
+     * Calculator used for wide layers
+     */
+    private final ParallelCalculator parallelCalculator;
+
+    /**
+     * Creates calculator with default work threshold which uses common fork join pool
+     */
+    public AdaptiveCalculator() {
+        this(DEFAULT_WORK_THRESHOLD, new ParallelCalculator());
+    }
+
+    /**
+     * Creates calculator with the specified work threshold and parallel calculator
+     *
+     * @param workThreshold      minimum number of weighted inputs for parallel calculation
+     * @param parallelCalculator calculator used for wide layers
+     */
+    public AdaptiveCalculator(int workThreshold, ParallelCalculator parallelCalculator) {
+        this.workThreshold = workThreshold;
+        this.parallelCalculator = parallelCalculator;
+    }
+
+    @Override
+    public void calculate(Layer layer) {
+        if (isParallel(layer)) {
+            parallelCalculator.calculate(layer);
+        } else {
+            layer.calculate();
+        }
+    }
+
+    /**
+     * Returns true if the specified layer should be calculated in parallel
+     *
+     * @param layer layer to check
+     * @return true if work in layer is above work threshold
+     */
+    public boolean isParallel(Layer layer) {
+        int neuronsCount = layer.getNeuronsCount();
+        if (neuronsCount == 0) {
+            return false;
+        }
+        long fanIn = layer.getNeuronAt(0).getInputConnections().size();
+        return neuronsCount * fanIn >= workThreshold;
+    }
+
+    public int getWorkThreshold() {
+        return workThreshold;
+    }
+
+}
@@ -0,0 +1,42 @@
+/**
+ * Copyright 2014 Neuroph Project http://neuroph.sourceforge.net
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.neuroph.core.calc;
+
+import org.neuroph.core.Layer;
+
+import java.io.Serializable;
+
+/**
+ * 层计算策略.
+ * <p>
+ * Strategy used by {@link org.neuroph.core.NeuralNetwork} to calculate its layers.
+ * Layers are always calculated one after another, calculator decides how
+ * neurons inside a single layer are calculated.
+ *
+ * @author Zoran Sevarac <sevarac@gmail.com>
+ * @see org.neuroph.core.NeuralNetwork#setCalculator(LayerCalculator)
+ */
+public interface LayerCalculator extends Serializable {
+
+    /**
+     * Calculates all neurons in the specified layer
+     *
+     * @param layer layer to calculate
+     */
+    void calculate(Layer layer);
+
+}
@@ -0,0 +1,174 @@
+/**
+ * Copyright 2014 Neuroph Project http://neuroph.sourceforge.net
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.neuroph.core.calc;
+
+import org.neuroph.core.Connection;
+import org.neuroph.core.Layer;
+import org.neuroph.core.Neuron;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * 层内并行计算.
+ * <p>
+ * Calculates neurons of a layer in parallel, by partitioning them across
+ * {@link ForkJoinPool} worker threads. Layer is split in halves until parts
+ * have at most threshold neurons, and layers with less neurons than the
+ * threshold are calculated sequentially.
+ * <p>
+ * Neurons are calculated in parallel only if they do not depend on each other.
+ * Layers which override {@link Layer#calculate()} (like competitive layers) and layers
+ * with connections between their own neurons are always calculated sequentially.
+ *
+ * @author Zoran Sevarac <sevarac@gmail.com>
+ */
+public class ParallelCalculator implements LayerCalculator {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Default maximum number of neurons calculated by one task
+     */
+    public static final int DEFAULT_THRESHOLD = 64;
+
+    /**
+     * True for layer classes which use default Layer.calculate()
+     */
+    private static final ClassValue<Boolean> DEFAULT_CALCULATE = new ClassValue<Boolean>() {
+        @Override
+        protected Boolean computeValue(Class<?> type) {
+            try {
+                return type.getMethod("calculate").getDeclaringClass() == Layer.class;
+            } catch (NoSuchMethodException ex) {
+                return false;
+            }
+        }
+    };
+
+    /**
+     * Maximum number of neurons calculated by one task
+     */
+    private final int threshold;
+
+    /**
+     * Pool which executes tasks, common pool if not set
+     */
+    private transient ForkJoinPool pool;
+
+    /**
+     * Creates calculator which uses common fork join pool and default threshold
+     */
+    public ParallelCalculator() {
+        this(null, DEFAULT_THRESHOLD);
+    }
+
+    /**
+     * Creates calculator which uses common fork join pool and the specified threshold
+     *
+     * @param threshold maximum number of neurons calculated by one task
+     */
+    public ParallelCalculator(int threshold) {
+        this(null, threshold);
+    }
+
+    /**
+     * Creates calculator which uses the specified pool and threshold
+     *
+     * @param pool      fork join pool, or null to use common pool
+     * @param threshold maximum number of neurons calculated by one task
+     */
+    public ParallelCalculator(ForkJoinPool pool, int threshold) {
+        if (threshold < 1) {
+            throw new IllegalArgumentException("Threshold must be positive: " + threshold);
+        }
+        this.pool = pool;
+        this.threshold = threshold;
+    }
+
+    @Override
+    public void calculate(Layer layer) {
+        if (layer.getNeuronsCount() <= threshold || !isPartitionable(layer)) {
+            layer.calculate();
+            return;
+        }
+        List<Neuron> neurons = layer.getNeurons();
+        getPool().invoke(new CalculateTask(neurons, 0, neurons.size(), threshold));
+    }
+
+    /**
+     * Returns true if neurons in the specified layer can be calculated independently
+     *
+     * @param layer layer to check
+     * @return true if layer neurons can be calculated in parallel
+     */
+    protected boolean isPartitionable(Layer layer) {
+        if (!DEFAULT_CALCULATE.get(layer.getClass())) {
+            return false;
+        }
+        // layers connected to themselves (like in Hopfield network) are connected from the first neuron
+        for (Connection connection : layer.getNeuronAt(0).getInputConnections()) {
+            if (connection.getFromNeuron().getParentLayer() == layer) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public int getThreshold() {
+        return threshold;
+    }
+
+    public ForkJoinPool getPool() {
+        return pool != null ? pool : ForkJoinPool.commonPool();
+    }
+
+    /**
+     * Calculates neurons in range [from, to), splitting the range while it is larger than threshold
+     */
+    private static final class CalculateTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final List<Neuron> neurons;
+        private final int from;
+        private final int to;
+        private final int threshold;
+
+        CalculateTask(List<Neuron> neurons, int from, int to, int threshold) {
+            this.neurons = neurons;
+            this.from = from;
+            this.to = to;
+            this.threshold = threshold;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= threshold) {
+                for (int i = from; i < to; i++) {
+                    neurons.get(i).calculate();
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new CalculateTask(neurons, from, middle, threshold),
+                    new CalculateTask(neurons, middle, to, threshold));
+        }
+    }
+
+}
@@ -0,0 +1,35 @@
+/**
+ * Copyright 2014 Neuroph Project http://neuroph.sourceforge.net
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.neuroph.core.calc;
+
+import org.neuroph.core.Layer;
+
+/**
+ * Default calculator, which calculates neurons one by one in the calling thread.
+ *
+ * @author Zoran Sevarac <sevarac@gmail.com>
+ */
+public class SequentialCalculator implements LayerCalculator {
+
+    private static final long serialVersionUID = 1L;
+
+    @Override
+    public void calculate(Layer layer) {
+        layer.calculate();
+    }
+
+}
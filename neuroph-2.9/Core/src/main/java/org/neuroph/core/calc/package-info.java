@@ -0,0 +1,5 @@
+/**
+ * Provides strategies for calculating neural network layers.
+ */
+
+package org.neuroph.core.calc;
@@ -115,6 +115,23 @@ public class DataSet implements List<DataSetRow>, Serializable { // implements
         setDefaultColumnTypes();
     }
 
+    /**
+     * Creates an instance of new empty data set which keeps its rows in the specified list.
+     * Used by data sets with their own row storage, like {@link DenseDataSet}.
+     *
+     * @param inputSize  Length of the input vector
+     * @param outputSize Length of the output vector, 0 for unsupervised data set
+     * @param rows       empty list for data set rows
+     */
+    protected DataSet(int inputSize, int outputSize, List<DataSetRow> rows) {
+        this.rows = rows;
+        this.inputSize = inputSize;
+        this.outputSize = outputSize;
+        this.isSupervised = outputSize > 0;
+        setDefaultColumnNames();
+        setDefaultColumnTypes();
+    }
+
     /**
      * Adds new row row to this data set
      *
@@ -207,6 +224,30 @@ public class DataSet implements List<DataSetRow>, Serializable { // implements
         return this.rows.get(idx);
     }
 
+    /**
+     * Copies input vector of the specified row to the specified array. Data sets which
+     * store rows as primitive values copy them without creating row object.
+     *
+     * @param rowIdx row index
+     * @param input  array for input vector
+     */
+    public void getInput(int rowIdx, double[] input) {
+        double[] rowInput = getRowAt(rowIdx).getInput();
+        System.arraycopy(rowInput, 0, input, 0, rowInput.length);
+    }
+
+    /**
+     * Copies desired output of the specified row to the specified array. Data sets which
+     * store rows as primitive values copy them without creating row object.
+     *
+     * @param rowIdx        row index
+     * @param desiredOutput array for desired output vector
+     */
+    public void getDesiredOutput(int rowIdx, double[] desiredOutput) {
+        double[] rowOutput = getRowAt(rowIdx).getDesiredOutput();
+        System.arraycopy(rowOutput, 0, desiredOutput, 0, rowOutput.length);
+    }
+
     /**
      * Removes all alements from training set
      */
@@ -0,0 +1,594 @@
+/**
+ * Copyright 2014 Neuroph Project http://neuroph.sourceforge.net
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.neuroph.core.data;
+
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamException;
+import java.io.Serializable;
+import java.util.AbstractList;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.RandomAccess;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.neuroph.core.exceptions.VectorSizeMismatchException;
+
+/**
+ * 稠密数据集.
+ * <p>
+ * Data set which keeps values of all rows in one contiguous primitive array, row by row,
+ * with input values of each row followed by its desired output. Values can be stored as doubles,
+ * or as floats which take half of the memory. Compared to {@link DataSet}, which keeps separate
+ * row object and two arrays for each row, dense data set has no per row overhead, and rows are read
+ * from memory sequentially.
+ * <p>
+ * Dense data set can be used everywhere where DataSet is used. Rows are handed out as views:
+ * <ul>
+ * <li>Iterator (also used by for-each loop over data set and {@link #getRows()}) returns one reusable
+ * row for the whole iteration, and fills its input and output arrays with values of each next row,
+ * so iteration does not allocate anything. Row returned by the iterator and its arrays are valid only until the next row is read,
+ * copy them to keep values.</li>
+ * <li>{@link #getRowAt(int)} and {@link #get(int)} return new row with its own copy of values, which can be kept
+ * and used from several threads.</li>
+ * </ul>
+ * Changes of row values are written to the data set when {@link DataSetRow#setInput(double[])} or
+ * {@link DataSetRow#setDesiredOutput(double[])} is called, like normalizers do. Row labels are not stored.
+ * Number of rows times row size is limited by the maximum array size.
+ *
+ * @author Zoran Sevarac <sevarac@gmail.com>
+ * @see DataSet
+ */
+public class DenseDataSet extends DataSet {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Primitive type used to store data set values
+     */
+    public enum Precision {
+        /**
+         * Values are stored as doubles, exactly as they were added
+         */
+        DOUBLE,
+        /**
+         * Values are stored as floats, and rounded to float precision when added
+         */
+        FLOAT
+    }
+
+    /**
+     * Storage of data set rows, the same list is used by superclass
+     */
+    private final DenseRows denseRows;
+
+    /**
+     * Creates new empty unsupervised data set which stores values as doubles
+     *
+     * @param inputSize size of input vector
+     */
+    public DenseDataSet(int inputSize) {
+        this(inputSize, 0, Precision.DOUBLE);
+    }
+
+    /**
+     * Creates new empty data set which stores values as doubles
+     *
+     * @param inputSize  size of input vector
+     * @param outputSize size of output vector
+     */
+    public DenseDataSet(int inputSize, int outputSize) {
+        this(inputSize, outputSize, Precision.DOUBLE);
+    }
+
+    /**
+     * Creates new empty data set which stores values with the specified precision
+     *
+     * @param inputSize  size of input vector
+     * @param outputSize size of output vector, 0 for unsupervised data set
+     * @param precision  primitive type used to store values
+     */
+    public DenseDataSet(int inputSize, int outputSize, Precision precision) {
+        this(new DenseRows(inputSize, outputSize, precision));
+    }
+
+    private DenseDataSet(DenseRows denseRows) {
+        super(denseRows.inputSize, denseRows.outputSize, denseRows);
+        this.denseRows = denseRows;
+    }
+
+    /**
+     * Creates dense data set with the same rows, column names and label as the specified data set
+     *
+     * @param dataSet   data set to copy
+     * @param precision primitive type used to store values
+     * @return dense copy of data set
+     */
+    public static DenseDataSet copyOf(DataSet dataSet, Precision precision) {
+        DenseDataSet copy = new DenseDataSet(dataSet.getInputSize(), dataSet.isSupervised() ? dataSet.getOutputSize() : 0, precision);
+        copy.ensureCapacity(dataSet.size());
+        for (DataSetRow row : dataSet.getRows()) {
+            copy.addRow(row);
+        }
+        copy.setLabel(dataSet.getLabel());
+        if (dataSet.getColumnNames() != null && dataSet.getColumnNames().length == copy.getColumnNames().length) {
+            copy.setColumnNames(dataSet.getColumnNames().clone());
+        }
+        if (dataSet.getColumnTypes() != null && dataSet.getColumnTypes().length == copy.getColumnTypes().length) {
+            for (int i = 0; i < dataSet.getColumnTypes().length; i++) {
+                copy.setColumnType(i, dataSet.getColumnType(i));
+            }
+        }
+        return copy;
+    }
+
+    /**
+     * Returns primitive type used to store values
+     *
+     * @return precision of stored values
+     */
+    public Precision getPrecision() {
+        return denseRows.floats != null ? Precision.FLOAT : Precision.DOUBLE;
+    }
+
+    /**
+     * Makes sure that the specified number of rows can be added without growing the storage
+     *
+     * @param rowsCount number of rows
+     */
+    public void ensureCapacity(int rowsCount) {
+        denseRows.ensureCapacity(rowsCount);
+    }
+
+    /**
+     * Releases unused storage, after all rows have been added
+     */
+    public void trimToSize() {
+        denseRows.trimToSize();
+    }
+
+    /**
+     * Copies input vector of the specified row to the specified array, without creating row object
+     *
+     * @param rowIdx row index
+     * @param input  array for input vector
+     */
+    @Override
+    public void getInput(int rowIdx, double[] input) {
+        denseRows.read(denseRows.checkIndex(rowIdx), input, null);
+    }
+
+    /**
+     * Copies desired output of the specified row to the specified array, without creating row object
+     *
+     * @param rowIdx        row index
+     * @param desiredOutput array for desired output vector
+     */
+    @Override
+    public void getDesiredOutput(int rowIdx, double[] desiredOutput) {
+        denseRows.read(denseRows.checkIndex(rowIdx), null, desiredOutput);
+    }
+
+    /**
+     * Returns value in the specified row and column, where input columns are followed by output columns
+     *
+     * @param rowIdx row index
+     * @param column column index
+     * @return value
+     */
+    public double getValue(int rowIdx, int column) {
+        return denseRows.getValue(denseRows.checkIndex(rowIdx), denseRows.checkColumn(column));
+    }
+
+    /**
+     * Sets value in the specified row and column, where input columns are followed by output columns
+     *
+     * @param rowIdx row index
+     * @param column column index
+     * @param value  value to set
+     */
+    public void setValue(int rowIdx, int column, double value) {
+        denseRows.setValue(denseRows.checkIndex(rowIdx), denseRows.checkColumn(column), value);
+    }
+
+    /**
+     * Shuffles rows in place, by swapping stored values
+     */
+    @Override
+    public void shuffle() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = denseRows.size - 1; i > 0; i--) {
+            denseRows.swap(i, random.nextInt(i + 1));
+        }
+    }
+
+    /**
+     * Row values stored in one primitive array, row by row
+     */
+    private static final class DenseRows extends AbstractList<DataSetRow> implements RandomAccess, Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        final int inputSize;
+
+        final int outputSize;
+
+        /**
+         * Number of values in each row
+         */
+        final int width;
+
+        /**
+         * Values of rows stored as doubles, or null when floats are used
+         */
+        double[] doubles;
+
+        /**
+         * Values of rows stored as floats, or null when doubles are used
+         */
+        float[] floats;
+
+        /**
+         * Number of rows
+         */
+        int size;
+
+        DenseRows(int inputSize, int outputSize, Precision precision) {
+            if (inputSize <= 0 || outputSize < 0) {
+                throw new IllegalArgumentException("Dense data set must have fixed input and output size!");
+            }
+            if (precision == null) {
+                throw new IllegalArgumentException("Precision can't be null!");
+            }
+            this.inputSize = inputSize;
+            this.outputSize = outputSize;
+            this.width = inputSize + outputSize;
+            if (precision == Precision.FLOAT) {
+                floats = new float[0];
+            } else {
+                doubles = new double[0];
+            }
+        }
+
+        int capacity() {
+            return (floats != null ? floats.length : doubles.length) / width;
+        }
+
+        void ensureCapacity(int rowsCount) {
+            int capacity = capacity();
+            if (rowsCount <= capacity) {
+                return;
+            }
+            long newCapacity = Math.max(rowsCount, capacity + (capacity >> 1) + 16);
+            long maxCapacity = (Integer.MAX_VALUE - 8) / width;
+            if (rowsCount > maxCapacity) {
+                throw new IllegalStateException("Too many rows for dense data set with " + width + " values in row!");
+            }
+            resize((int) Math.min(newCapacity, maxCapacity));
+        }
+
+        void trimToSize() {
+            if (size < capacity()) {
+                resize(size);
+            }
+        }
+
+        private void resize(int capacity) {
+            if (floats != null) {
+                float[] values = new float[capacity * width];
+                System.arraycopy(floats, 0, values, 0, size * width);
+                floats = values;
+            } else {
+                double[] values = new double[capacity * width];
+                System.arraycopy(doubles, 0, values, 0, size * width);
+                doubles = values;
+            }
+        }
+
+        int checkIndex(int index) {
+            if (index < 0 || index >= size) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+            }
+            return index;
+        }
+
+        int checkColumn(int column) {
+            if (column < 0 || column >= width) {
+                throw new IndexOutOfBoundsException("Column: " + column + ", Columns: " + width);
+            }
+            return column;
+        }
+
+        /**
+         * Copies values of the specified row to input and output arrays, which can be null
+         */
+        void read(int index, double[] input, double[] output) {
+            int offset = index * width;
+            if (floats != null) {
+                if (input != null) {
+                    for (int i = 0; i < inputSize; i++) {
+                        input[i] = floats[offset + i];
+                    }
+                }
+                if (output != null) {
+                    offset += inputSize;
+                    for (int i = 0; i < outputSize; i++) {
+                        output[i] = floats[offset + i];
+                    }
+                }
+            } else {
+                if (input != null) {
+                    System.arraycopy(doubles, offset, input, 0, inputSize);
+                }
+                if (output != null) {
+                    System.arraycopy(doubles, offset + inputSize, output, 0, outputSize);
+                }
+            }
+        }
+
+        /**
+         * Stores values from the specified array, starting at the specified column of row
+         */
+        void write(int index, int column, double[] values, int length) {
+            int offset = index * width + column;
+            if (floats != null) {
+                for (int i = 0; i < length; i++) {
+                    floats[offset + i] = (float) values[i];
+                }
+            } else {
+                System.arraycopy(values, 0, doubles, offset, length);
+            }
+        }
+
+        double getValue(int index, int column) {
+            int offset = index * width + column;
+            return floats != null ? floats[offset] : doubles[offset];
+        }
+
+        void setValue(int index, int column, double value) {
+            int offset = index * width + column;
+            if (floats != null) {
+                floats[offset] = (float) value;
+            } else {
+                doubles[offset] = value;
+            }
+        }
+
+        void swap(int i, int j) {
+            int a = i * width;
+            int b = j * width;
+            if (floats != null) {
+                for (int k = 0; k < width; k++) {
+                    float value = floats[a + k];
+                    floats[a + k] = floats[b + k];
+                    floats[b + k] = value;
+                }
+            } else {
+                for (int k = 0; k < width; k++) {
+                    double value = doubles[a + k];
+                    doubles[a + k] = doubles[b + k];
+                    doubles[b + k] = value;
+                }
+            }
+        }
+
+        private void move(int from, int to, int count) {
+            if (floats != null) {
+                System.arraycopy(floats, from * width, floats, to * width, count * width);
+            } else {
+                System.arraycopy(doubles, from * width, doubles, to * width, count * width);
+            }
+        }
+
+        private void writeRow(int index, DataSetRow row) {
+            double[] input = row.getInput();
+            if (input.length != inputSize) {
+                throw new VectorSizeMismatchException("Input vector size does not match data set input size!");
+            }
+            double[] output = row.getDesiredOutput();
+            if (outputSize > 0 && (output == null || output.length != outputSize)) {
+                throw new VectorSizeMismatchException("Output vector size does not match data set output size!");
+            }
+            write(index, 0, input, inputSize);
+            if (outputSize > 0) {
+                write(index, inputSize, output, outputSize);
+            }
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public DataSetRow get(int index) {
+            return new DenseRow(this, checkIndex(index));
+        }
+
+        @Override
+        public DataSetRow set(int index, DataSetRow row) {
+            DataSetRow previous = get(index);
+            writeRow(index, row);
+            return previous;
+        }
+
+        @Override
+        public void add(int index, DataSetRow row) {
+            if (index < 0 || index > size) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+            }
+            ensureCapacity(size + 1);
+            move(index, index + 1, size - index);
+            size++;
+            modCount++;
+            try {
+                writeRow(index, row);
+            } catch (RuntimeException ex) {
+                removeRange(index, index + 1);
+                throw ex;
+            }
+        }
+
+        @Override
+        public DataSetRow remove(int index) {
+            DataSetRow previous = get(index);
+            removeRange(index, index + 1);
+            return previous;
+        }
+
+        @Override
+        protected void removeRange(int fromIndex, int toIndex) {
+            move(toIndex, fromIndex, size - toIndex);
+            size -= toIndex - fromIndex;
+            modCount++;
+        }
+
+        @Override
+        public void clear() {
+            size = 0;
+            modCount++;
+        }
+
+        @Override
+        public Iterator<DataSetRow> iterator() {
+            return new RowCursor();
+        }
+
+        private void writeObject(ObjectOutputStream out) throws IOException {
+            // unused capacity is not written
+            trimToSize();
+            out.defaultWriteObject();
+        }
+
+        /**
+         * Iterator which moves one reusable row through the data set
+         */
+        private final class RowCursor implements Iterator<DataSetRow> {
+
+            private DenseRow row;
+
+            private int next;
+
+            private int expectedModCount = modCount;
+
+            @Override
+            public boolean hasNext() {
+                return next < size;
+            }
+
+            @Override
+            public DataSetRow next() {
+                if (modCount != expectedModCount) {
+                    throw new ConcurrentModificationException();
+                }
+                if (next >= size) {
+                    throw new NoSuchElementException();
+                }
+                if (row == null) {
+                    row = new DenseRow(DenseRows.this, next);
+                } else {
+                    row.moveTo(next);
+                }
+                next++;
+                return row;
+            }
+
+            @Override
+            public void remove() {
+                if (row == null || row.index != next - 1) {
+                    throw new IllegalStateException();
+                }
+                if (modCount != expectedModCount) {
+                    throw new ConcurrentModificationException();
+                }
+                removeRange(next - 1, next);
+                next--;
+                row.index = -1;
+                expectedModCount = modCount;
+            }
+        }
+    }
+
+    /**
+     * View of one data set row, with its own copy of row values
+     */
+    private static final class DenseRow extends DataSetRow {
+
+        private static final long serialVersionUID = 1L;
+
+        private final DenseRows rows;
+
+        /**
+         * Index of the row in data set
+         */
+        int index;
+
+        DenseRow(DenseRows rows, int index) {
+            super(new double[rows.inputSize], rows.outputSize > 0 ? new double[rows.outputSize] : null);
+            this.rows = rows;
+            moveTo(index);
+        }
+
+        void moveTo(int index) {
+            this.index = index;
+            rows.read(index, input, getDesiredOutput());
+        }
+
+        /**
+         * Sets input vector, and stores it in data set
+         *
+         * @param input input vector
+         */
+        @Override
+        public void setInput(double[] input) {
+            if (input.length != rows.inputSize) {
+                throw new VectorSizeMismatchException("Input vector size does not match data set input size!");
+            }
+            rows.write(index, 0, input, rows.inputSize);
+            rows.read(index, this.input, null);
+        }
+
+        /**
+         * Sets desired output vector, and stores it in data set
+         *
+         * @param desiredOutput desired output vector
+         */
+        @Override
+        public void setDesiredOutput(double[] desiredOutput) {
+            if (rows.outputSize == 0) {
+                throw new IllegalStateException("Rows of unsupervised data set have no desired output!");
+            }
+            if (desiredOutput.length != rows.outputSize) {
+                throw new VectorSizeMismatchException("Output vector size does not match data set output size!");
+            }
+            rows.write(index, rows.inputSize, desiredOutput, rows.outputSize);
+            rows.read(index, null, getDesiredOutput());
+        }
+
+        /**
+         * Rows are serialized as ordinary rows, detached from data set
+         */
+        private Object writeReplace() throws ObjectStreamException {
+            double[] output = getDesiredOutput();
+            DataSetRow row = output != null ? new DataSetRow(input.clone(), output.clone()) : new DataSetRow(input.clone());
+            row.setLabel(label);
+            return row;
+        }
+    }
+
+}
@@ -0,0 +1,373 @@
+/**
+ * Copyright 2014 Neuroph Project http://neuroph.sourceforge.net
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.neuroph.core.flat;
+
+import org.neuroph.core.transfer.FastMath;
+import org.neuroph.core.transfer.Gaussian;
+import org.neuroph.core.transfer.Linear;
+import org.neuroph.core.transfer.Log;
+import org.neuroph.core.transfer.Ramp;
+import org.neuroph.core.transfer.RectifiedLinear;
+import org.neuroph.core.transfer.Sgn;
+import org.neuroph.core.transfer.Sigmoid;
+import org.neuroph.core.transfer.Sin;
+import org.neuroph.core.transfer.Step;
+import org.neuroph.core.transfer.Tanh;
+import org.neuroph.core.transfer.TransferFunction;
+
+import java.io.Serializable;
+
+/**
+ * 激活核.
+ * <p>
+ * Stateless replacement for a {@link TransferFunction} used by {@link FlatNetwork}.
+ * Kernels copy the function parameters when the network is compiled and
+ * evaluate exactly the same expression as the function they were created from,
+ * so compiled outputs are bit-identical to the object graph. Unlike transfer
+ * functions, kernels do not cache the last output and can be shared by threads.
+ *
+ * @author Zoran Sevarac <sevarac@gmail.com>
+ * @see FlatNetwork
+ */
+public abstract class ActivationKernel implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Returns output for the specified net input
+     *
+     * @param net neuron net input
+     * @return neuron output
+     */
+    public abstract double apply(double net);
+
+    /**
+     * Returns first derivative for the specified net input and output
+     *
+     * @param net    neuron net input
+     * @param output neuron output for the given net input
+     * @return first derivative
+     */
+    public abstract double derivative(double net, double output);
+
+    /**
+     * Creates kernel for the specified transfer function. Functions without
+     * dedicated kernel are wrapped and called under their own lock.
+     *
+     * @param function transfer function
+     * @return kernel which computes the same output as the given function
+     */
+    public static ActivationKernel of(TransferFunction function) {
+        Class<?> type = function.getClass();
+
+        if (type == Sigmoid.class) {
+            Sigmoid sigmoid = (Sigmoid) function;
+            return new SigmoidKernel(sigmoid.getSlope(), sigmoid.isFastMath());
+        } else if (type == Tanh.class) {
+            Tanh tanh = (Tanh) function;
+            return new TanhKernel(tanh.getSlope(), tanh.getAmplitude(), tanh.isFastMath());
+        } else if (type == Linear.class) {
+            return new LinearKernel(((Linear) function).getSlope());
+        } else if (type == RectifiedLinear.class) {
+            return new RectifiedLinearKernel();
+        } else if (type == Gaussian.class) {
+            Gaussian gaussian = (Gaussian) function;
+            return new GaussianKernel(gaussian.getSigma(), gaussian.isFastMath());
+        } else if (type == Step.class) {
+            Step step = (Step) function;
+            return new StepKernel(step.getYHigh(), step.getYLow());
+        } else if (type == Sgn.class) {
+            return new StepKernel(1d, -1d);
+        } else if (type == Ramp.class) {
+            Ramp ramp = (Ramp) function;
+            return new RampKernel(ramp.getSlope(), ramp.getXLow(), ramp.getXHigh(), ramp.getYLow(), ramp.getYHigh());
+        } else if (type == Log.class) {
+            return new LogKernel(((Log) function).isFastMath());
+        } else if (type == Sin.class) {
+            return new SinKernel();
+        }
+
+        return new FunctionKernel(function);
+    }
+
+    static final class SigmoidKernel extends ActivationKernel {
+
+        private static final long serialVersionUID = 1L;
+
+        private final double slope;
+
+        private final boolean fastMath;
+
+        SigmoidKernel(double slope, boolean fastMath) {
+            this.slope = slope;
+            this.fastMath = fastMath;
+        }
+
+        @Override
+        public double apply(double net) {
+            if (net > 100) {
+                return 1.0;
+            } else if (net < -100) {
+                return 0.0;
+            }
+            if (fastMath) {
+                return FastMath.sigmoid(slope * net);
+            }
+            double den = 1 + Math.exp(-slope * net);
+            return 1d / den;
+        }
+
+        @Override
+        public double derivative(double net, double output) {
+            return slope * output * (1d - output);
+        }
+    }
+
+    static final class TanhKernel extends ActivationKernel {
+
+        private static final long serialVersionUID = 1L;
+
+        private final double slope;
+        private final double amplitude;
+
+        private final boolean fastMath;
+
+        TanhKernel(double slope, double amplitude, boolean fastMath) {
+            this.slope = slope;
+            this.amplitude = amplitude;
+            this.fastMath = fastMath;
+        }
+
+        @Override
+        public double apply(double net) {
+            if (Math.abs(net) * slope > 100) {
+                return Math.signum(net) * 1.0d;
+            }
+            if (fastMath) {
+                return amplitude * FastMath.tanh(slope * net);
+            }
+            double E_x = Math.exp(2.0d * slope * net);
+            return amplitude * ((E_x - 1.0d) / (E_x + 1.0d));
+        }
+
+        @Override
+        public double derivative(double net, double output) {
+            if (Math.abs(net) * slope > 100) {
+                return 0.0d;
+            }
+            double tanhsx;
+            if (fastMath) {
+                tanhsx = FastMath.tanh(slope * net);
+            } else {
+                double E_x = Math.exp(2 * slope * net);
+                tanhsx = (E_x - 1d) / (E_x + 1d);
+            }
+            return amplitude * slope * (1.0d - tanhsx * tanhsx);
+        }
+    }
+
+    static final class LinearKernel extends ActivationKernel {
+
+        private static final long serialVersionUID = 1L;
+
+        private final double slope;
+
+        LinearKernel(double slope) {
+            this.slope = slope;
+        }
+
+        @Override
+        public double apply(double net) {
+            return slope * net;
+        }
+
+        @Override
+        public double derivative(double net, double output) {
+            return slope;
+        }
+    }
+
+    static final class RectifiedLinearKernel extends ActivationKernel {
+
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        public double apply(double net) {
+            return Math.max(0, net);
+        }
+
+        @Override
+        public double derivative(double net, double output) {
+            return net > Double.MIN_VALUE ? 1 : 0;
+        }
+    }
+
+    static final class GaussianKernel extends ActivationKernel {
+
+        private static final long serialVersionUID = 1L;
+
+        private final double sigma;
+
+        private final boolean fastMath;
+
+        GaussianKernel(double sigma, boolean fastMath) {
+            this.sigma = sigma;
+            this.fastMath = fastMath;
+        }
+
+        @Override
+        public double apply(double net) {
+            if (fastMath) {
+                return FastMath.exp(-(net * net) / (2 * sigma * sigma));
+            }
+            return Math.exp(-Math.pow(net, 2) / (2 * Math.pow(sigma, 2)));
+        }
+
+        @Override
+        public double derivative(double net, double output) {
+            return output * (-net / (sigma * sigma));
+        }
+    }
+
+    static final class StepKernel extends ActivationKernel {
+
+        private static final long serialVersionUID = 1L;
+
+        private final double yHigh;
+        private final double yLow;
+
+        StepKernel(double yHigh, double yLow) {
+            this.yHigh = yHigh;
+            this.yLow = yLow;
+        }
+
+        @Override
+        public double apply(double net) {
+            return net > 0d ? yHigh : yLow;
+        }
+
+        @Override
+        public double derivative(double net, double output) {
+            return 1d;
+        }
+    }
+
+    static final class RampKernel extends ActivationKernel {
+
+        private static final long serialVersionUID = 1L;
+
+        private final double slope;
+        private final double xLow;
+        private final double xHigh;
+        private final double yLow;
+        private final double yHigh;
+
+        RampKernel(double slope, double xLow, double xHigh, double yLow, double yHigh) {
+            this.slope = slope;
+            this.xLow = xLow;
+            this.xHigh = xHigh;
+            this.yLow = yLow;
+            this.yHigh = yHigh;
+        }
+
+        @Override
+        public double apply(double net) {
+            if (net < xLow) {
+                return yLow;
+            } else if (net > xHigh) {
+                return yHigh;
+            }
+            return slope * net;
+        }
+
+        @Override
+        public double derivative(double net, double output) {
+            return 1d;
+        }
+    }
+
+    static final class LogKernel extends ActivationKernel {
+
+        private static final long serialVersionUID = 1L;
+
+        private final boolean fastMath;
+
+        LogKernel(boolean fastMath) {
+            this.fastMath = fastMath;
+        }
+
+        @Override
+        public double apply(double net) {
+            if (fastMath) {
+                return FastMath.log(net);
+            }
+            return Math.log(net);
+        }
+
+        @Override
+        public double derivative(double net, double output) {
+            return 1 / net;
+        }
+    }
+
+    static final class SinKernel extends ActivationKernel {
+
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        public double apply(double net) {
+            return Math.sin(net);
+        }
+
+        @Override
+        public double derivative(double net, double output) {
+            return Math.cos(net);
+        }
+    }
+
+    /**
+     * Fallback for custom transfer functions. Transfer functions may keep
+     * state between calls, so access is serialized on the function instance.
+     */
+    static final class FunctionKernel extends ActivationKernel {
+
+        private static final long serialVersionUID = 1L;
+
+        private final TransferFunction function;
+
+        FunctionKernel(TransferFunction function) {
+            this.function = function;
+        }
+
+        @Override
+        public double apply(double net) {
+            synchronized (function) {
+                return function.getOutput(net);
+            }
+        }
+
+        @Override
+        public double derivative(double net, double output) {
+            synchronized (function) {
+                // some functions use output cached by the last getOutput call
+                function.getOutput(net);
+                return function.getDerivative(net);
+            }
+        }
+    }
+
+}
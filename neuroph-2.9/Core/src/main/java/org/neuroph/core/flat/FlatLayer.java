@@ -0,0 +1,422 @@
+/**
+ * Copyright 2014 Neuroph Project http://neuroph.sourceforge.net
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.neuroph.core.flat;
+
+import org.neuroph.core.Weight;
+
+import java.io.Serializable;
+
+/**
+ * Compiled layer of the {@link FlatNetwork}.
+ * <p>
+ * When all computed neurons of the layer read the same source activations,
+ * weights are stored as one dense row-major block: row i holds the input weights
+ * of the i-th neuron in the order of its input connections.
+ * <p>
+ * Layers whose neurons have different inputs (partially connected or pruned
+ * layers) are stored in compressed sparse row form: weights and source slots
+ * of all existing connections are stored back to back, and rowOffsets[i]
+ * is the index of the first connection of the i-th neuron, so calculation
+ * touches only existing connections.
+ *
+ * @author Zoran Sevarac <sevarac@gmail.com>
+ */
+final class FlatLayer implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Activation slot of the first neuron in this layer
+     */
+    final int targetOffset;
+
+    /**
+     * Number of computed neurons in this layer
+     */
+    final int size;
+
+    /**
+     * Number of inputs of each neuron in dense layer, 0 in sparse layer
+     */
+    final int inputCount;
+
+    /**
+     * Activation slots read by each neuron, in connection order. In sparse layer
+     * this holds the source slot of each weight.
+     */
+    final int[] sources;
+
+    /**
+     * Index of the first weight of each neuron, and total number of weights
+     * as the last element. Null for dense layer.
+     */
+    final int[] rowOffsets;
+
+    /**
+     * First source slot if sources are consecutive, -1 otherwise
+     */
+    final int sourceOffset;
+
+    /**
+     * Index of the first weight of this layer in network weight order
+     */
+    final int weightOffset;
+
+    /**
+     * Weight block, size x inputCount, or weights of all connections in sparse layer
+     */
+    final double[] weights;
+
+    /**
+     * Activation kernel for each neuron
+     */
+    final ActivationKernel[] kernels;
+
+    /**
+     * Weights of the source network, used to refresh weight block
+     */
+    transient Weight[] sourceWeights;
+
+    /**
+     * Creates dense layer
+     */
+    FlatLayer(int targetOffset, int weightOffset, int[] sources, Weight[] sourceWeights, ActivationKernel[] kernels) {
+        this(targetOffset, weightOffset, sources, null, sourceWeights, kernels);
+    }
+
+    /**
+     * Creates sparse layer if rowOffsets are specified, or dense layer if rowOffsets are null
+     */
+    FlatLayer(int targetOffset, int weightOffset, int[] sources, int[] rowOffsets, Weight[] sourceWeights, ActivationKernel[] kernels) {
+        this.targetOffset = targetOffset;
+        this.weightOffset = weightOffset;
+        this.size = kernels.length;
+        this.inputCount = rowOffsets == null ? sources.length : 0;
+        this.sources = sources;
+        this.rowOffsets = rowOffsets;
+        this.sourceOffset = rowOffsets == null ? consecutiveOffset(sources) : -1;
+        this.kernels = kernels;
+        this.sourceWeights = sourceWeights;
+        this.weights = new double[sourceWeights.length];
+        refresh();
+    }
+
+    private static int consecutiveOffset(int[] sources) {
+        if (sources.length == 0) {
+            return 0;
+        }
+        for (int i = 1; i < sources.length; i++) {
+            if (sources[i] != sources[0] + i) {
+                return -1;
+            }
+        }
+        return sources[0];
+    }
+
+    /**
+     * Calculates outputs of this layer for a block of samples and stores them in activation matrix.
+     * Activations of sample b start at index b * stride. Each weight row is applied to all
+     * samples in the block before moving to the next row, so weights are read from cache.
+     *
+     * @param activations activation matrix, one row for each sample
+     * @param count       number of samples
+     * @param stride      number of activation slots of one sample
+     */
+    void forward(double[] activations, int count, int stride) {
+        if (rowOffsets != null) {
+            sparseForward(activations, count, stride);
+            return;
+        }
+        final double[] w = weights;
+        final int n = inputCount;
+
+        for (int i = 0; i < size; i++) {
+            final int row = i * n;
+            final int target = targetOffset + i;
+            final ActivationKernel kernel = kernels[i];
+
+            for (int b = 0, base = 0; b < count; b++, base += stride) {
+                double sum = 0d;
+                if (sourceOffset >= 0) {
+                    for (int j = 0, a = base + sourceOffset; j < n; j++, a++) {
+                        sum += activations[a] * w[row + j];
+                    }
+                } else {
+                    for (int j = 0; j < n; j++) {
+                        sum += activations[base + sources[j]] * w[row + j];
+                    }
+                }
+                activations[base + target] = kernel.apply(sum);
+            }
+        }
+    }
+
+    /**
+     * Calculates outputs of this layer for one sample, and keeps neuron net inputs
+     * which are needed to calculate transfer function derivatives.
+     *
+     * @param activations activation slots
+     * @param netInputs   net input slots
+     */
+    void forward(double[] activations, double[] netInputs) {
+        if (rowOffsets != null) {
+            sparseForward(activations, netInputs);
+            return;
+        }
+        final double[] w = weights;
+        final int n = inputCount;
+
+        for (int i = 0, row = 0; i < size; i++, row += n) {
+            double sum = 0d;
+            if (sourceOffset >= 0) {
+                for (int j = 0, a = sourceOffset; j < n; j++, a++) {
+                    sum += activations[a] * w[row + j];
+                }
+            } else {
+                for (int j = 0; j < n; j++) {
+                    sum += activations[sources[j]] * w[row + j];
+                }
+            }
+            netInputs[targetOffset + i] = sum;
+            activations[targetOffset + i] = kernels[i].apply(sum);
+        }
+    }
+
+    /**
+     * Back propagates error of this layer for one sample. On entry errors holds the
+     * weighted sum of output deltas for each neuron of this layer; neuron deltas are
+     * propagated to source slots and weight gradients (delta * input) are added
+     * to the gradient buffer.
+     *
+     * @param activations activation slots
+     * @param netInputs   net input slots
+     * @param errors      error slots
+     * @param gradients   gradient buffer in network weight order
+     */
+    void backward(double[] activations, double[] netInputs, double[] errors, double[] gradients) {
+        if (rowOffsets != null) {
+            sparseBackward(activations, netInputs, errors, gradients);
+            return;
+        }
+        final double[] w = weights;
+        final int n = inputCount;
+
+        for (int i = 0, row = 0; i < size; i++, row += n) {
+            final int target = targetOffset + i;
+            final double delta = errors[target] * kernels[i].derivative(netInputs[target], activations[target]);
+            if (delta == 0d) {
+                continue;
+            }
+            final int g = weightOffset + row;
+            if (sourceOffset >= 0) {
+                for (int j = 0, a = sourceOffset; j < n; j++, a++) {
+                    gradients[g + j] += delta * activations[a];
+                    errors[a] += delta * w[row + j];
+                }
+            } else {
+                for (int j = 0; j < n; j++) {
+                    final int a = sources[j];
+                    gradients[g + j] += delta * activations[a];
+                    errors[a] += delta * w[row + j];
+                }
+            }
+        }
+    }
+
+    /**
+     * Back propagates error of this layer for one sample like {@link #backward(double[], double[], double[], double[])},
+     * but applies weight changes -learningRate * delta * input immediately to the weight block.
+     * Errors of source neurons are calculated with weight values before the change.
+     * Weights with zero input are not written, so sparse inputs touch only a few weights.
+     *
+     * @param activations  activation slots
+     * @param netInputs    net input slots
+     * @param errors       error slots
+     * @param learningRate learning rate
+     */
+    void backward(double[] activations, double[] netInputs, double[] errors, double learningRate) {
+        if (rowOffsets != null) {
+            sparseBackward(activations, netInputs, errors, learningRate);
+            return;
+        }
+        final double[] w = weights;
+        final int n = inputCount;
+
+        for (int i = 0, row = 0; i < size; i++, row += n) {
+            final int target = targetOffset + i;
+            final double delta = errors[target] * kernels[i].derivative(netInputs[target], activations[target]);
+            if (delta == 0d) {
+                continue;
+            }
+            final double step = -learningRate * delta;
+            for (int j = 0; j < n; j++) {
+                final int a = sourceOffset >= 0 ? sourceOffset + j : sources[j];
+                final double weight = w[row + j];
+                errors[a] += delta * weight;
+                final double input = activations[a];
+                if (input != 0d) {
+                    w[row + j] = weight + step * input;
+                }
+            }
+        }
+    }
+
+    private void sparseForward(double[] activations, int count, int stride) {
+        final double[] w = weights;
+        final int[] s = sources;
+
+        for (int i = 0; i < size; i++) {
+            final int start = rowOffsets[i];
+            final int end = rowOffsets[i + 1];
+            final int target = targetOffset + i;
+            final ActivationKernel kernel = kernels[i];
+
+            for (int b = 0, base = 0; b < count; b++, base += stride) {
+                double sum = 0d;
+                for (int k = start; k < end; k++) {
+                    sum += activations[base + s[k]] * w[k];
+                }
+                activations[base + target] = kernel.apply(sum);
+            }
+        }
+    }
+
+    private void sparseForward(double[] activations, double[] netInputs) {
+        final double[] w = weights;
+        final int[] s = sources;
+
+        for (int i = 0; i < size; i++) {
+            double sum = 0d;
+            for (int k = rowOffsets[i], end = rowOffsets[i + 1]; k < end; k++) {
+                sum += activations[s[k]] * w[k];
+            }
+            netInputs[targetOffset + i] = sum;
+            activations[targetOffset + i] = kernels[i].apply(sum);
+        }
+    }
+
+    private void sparseBackward(double[] activations, double[] netInputs, double[] errors, double[] gradients) {
+        final double[] w = weights;
+        final int[] s = sources;
+
+        for (int i = 0; i < size; i++) {
+            final int target = targetOffset + i;
+            final double delta = errors[target] * kernels[i].derivative(netInputs[target], activations[target]);
+            if (delta == 0d) {
+                continue;
+            }
+            for (int k = rowOffsets[i], end = rowOffsets[i + 1]; k < end; k++) {
+                final int a = s[k];
+                gradients[weightOffset + k] += delta * activations[a];
+                errors[a] += delta * w[k];
+            }
+        }
+    }
+
+    private void sparseBackward(double[] activations, double[] netInputs, double[] errors, double learningRate) {
+        final double[] w = weights;
+        final int[] s = sources;
+
+        for (int i = 0; i < size; i++) {
+            final int target = targetOffset + i;
+            final double delta = errors[target] * kernels[i].derivative(netInputs[target], activations[target]);
+            if (delta == 0d) {
+                continue;
+            }
+            final double step = -learningRate * delta;
+            for (int k = rowOffsets[i], end = rowOffsets[i + 1]; k < end; k++) {
+                final int a = s[k];
+                final double weight = w[k];
+                errors[a] += delta * weight;
+                final double input = activations[a];
+                if (input != 0d) {
+                    w[k] = weight + step * input;
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns true if this layer is stored in compressed sparse row form
+     *
+     * @return true for sparse layer
+     */
+    boolean isSparse() {
+        return rowOffsets != null;
+    }
+
+    /**
+     * Returns index of the first weight of the specified neuron
+     *
+     * @param i neuron index
+     * @return index in weight block
+     */
+    int rowStart(int i) {
+        return rowOffsets != null ? rowOffsets[i] : i * inputCount;
+    }
+
+    /**
+     * Returns index after the last weight of the specified neuron
+     *
+     * @param i neuron index
+     * @return index in weight block
+     */
+    int rowEnd(int i) {
+        return rowOffsets != null ? rowOffsets[i + 1] : (i + 1) * inputCount;
+    }
+
+    /**
+     * Copies weights of the source network to the array, starting at weightOffset
+     *
+     * @param result array for weights in network weight order
+     */
+    void getSourceWeights(Weight[] result) {
+        if (sourceWeights == null) {
+            throw new IllegalStateException("Compiled network is not attached to source network!");
+        }
+        System.arraycopy(sourceWeights, 0, result, weightOffset, sourceWeights.length);
+    }
+
+    /**
+     * Copies current weight values from the source network
+     */
+    void refresh() {
+        if (sourceWeights == null) {
+            throw new IllegalStateException("Compiled network is not attached to source network!");
+        }
+        for (int i = 0; i < weights.length; i++) {
+            weights[i] = sourceWeights[i].value;
+        }
+    }
+
+    /**
+     * Copies weight values of this layer to the source network
+     */
+    void flush() {
+        if (sourceWeights == null) {
+            throw new IllegalStateException("Compiled network is not attached to source network!");
+        }
+        for (int i = 0; i < weights.length; i++) {
+            sourceWeights[i].value = weights[i];
+        }
+    }
+
+    boolean isAttached() {
+        return sourceWeights != null;
+    }
+
+}
@@ -0,0 +1,734 @@
+/**
+ * Copyright 2014 Neuroph Project http://neuroph.sourceforge.net
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.neuroph.core.flat;
+
+import org.neuroph.core.Connection;
+import org.neuroph.core.Layer;
+import org.neuroph.core.NeuralNetwork;
+import org.neuroph.core.Neuron;
+import org.neuroph.core.Weight;
+import org.neuroph.core.data.DataSet;
+import org.neuroph.core.exceptions.NeurophException;
+import org.neuroph.core.exceptions.VectorSizeMismatchException;
+import org.neuroph.core.input.WeightedSum;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.ObjLongConsumer;
+
+/**
+ * 编译后的网络.
+ * <p>
+ * Array backed execution plan for feed-forward neural networks.
+ * Compiled network keeps one activation slot for each neuron, and one
+ * contiguous weight block for each layer, so calculation does not walk
+ * Layer, Neuron, Connection and Weight objects.
+ * <p>
+ * Outputs are bit-identical to {@link NeuralNetwork#calculate()}: weighted sums
+ * are accumulated in input connection order and transfer functions are
+ * replaced with {@link ActivationKernel}s which evaluate the same expressions.
+ * After the source network is trained, call {@link #refresh()} to copy new weight values.
+ * <p>
+ * Compiled network does not hold any activation state, so one instance can be
+ * used from many threads at once, each thread with its own {@link InferenceSession}.
+ * Weights should not be refreshed while other threads are calculating.
+ * <p>
+ * Supported networks consist of plain {@link Neuron}s with {@link WeightedSum} input
+ * function, input neurons and bias neurons (see {@link Neuron#isInput()} and
+ * {@link Neuron#isBias()}), where each neuron is
+ * connected only to neurons from previous layers. Layers where all neurons are
+ * connected to the same source neurons (like in {@link org.neuroph.nnet.MultiLayerPerception})
+ * are compiled to dense weight blocks. Partially connected or pruned layers are
+ * compiled to compressed sparse rows, which store and calculate only existing connections.
+ *
+ * @author Zoran Sevarac <sevarac@gmail.com>
+ * @see ActivationKernel
+ * @see InferenceSession
+ */
+public class FlatNetwork implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Number of samples calculated together in batch mode
+     */
+    static final int BATCH_BLOCK = 32;
+
+    /**
+     * Total number of activation slots
+     */
+    private final int slotsCount;
+
+    /**
+     * Activation slots of network input neurons
+     */
+    private final int[] inputSlots;
+
+    /**
+     * Activation slots of network output neurons
+     */
+    private final int[] outputSlots;
+
+    /**
+     * Activation slots of bias neurons, which always have output 1
+     */
+    private final int[] biasSlots;
+
+    /**
+     * Compiled layers in calculation order
+     */
+    private final FlatLayer[] layers;
+
+    private FlatNetwork(int slotsCount, int[] inputSlots, int[] outputSlots, int[] biasSlots, FlatLayer[] layers) {
+        this.slotsCount = slotsCount;
+        this.inputSlots = inputSlots;
+        this.outputSlots = outputSlots;
+        this.biasSlots = biasSlots;
+        this.layers = layers;
+    }
+
+    /**
+     * Compiles specified neural network
+     *
+     * @param network neural network to compile
+     * @return compiled network
+     * @throws NeurophException if network structure is not supported
+     */
+    public static FlatNetwork compile(NeuralNetwork<?> network) {
+        List<Layer> networkLayers = network.getLayers();
+        Set<Neuron> inputNeurons = Collections.newSetFromMap(new IdentityHashMap<>());
+        inputNeurons.addAll(network.getInputNeurons());
+
+        Map<Neuron, Integer> slots = new IdentityHashMap<>();
+        Map<Neuron, Integer> layerIndex = new IdentityHashMap<>();
+        List<List<Neuron>> computedNeurons = new ArrayList<>();
+        List<Integer> biasList = new ArrayList<>();
+        int slot = 0;
+
+        // computed neurons of each layer get consecutive slots, followed by input and bias neurons
+        for (int l = 0; l < networkLayers.size(); l++) {
+            List<Neuron> computed = new ArrayList<>();
+            List<Neuron> inputs = new ArrayList<>();
+            List<Neuron> biases = new ArrayList<>();
+
+            for (Neuron neuron : networkLayers.get(l).getNeurons()) {
+                if (inputNeurons.contains(neuron)) {
+                    if (!neuron.isInput() || neuron.hasInputConnections()) {
+                        throw new NeurophException("Cannot compile network: unsupported input neuron " + neuron.getClass().getName());
+                    }
+                    inputs.add(neuron);
+                } else if (neuron.isBias()) {
+                    biases.add(neuron);
+                } else if (neuron.getClass() == Neuron.class && neuron.getInputFunction().getClass() == WeightedSum.class) {
+                    computed.add(neuron);
+                } else {
+                    throw new NeurophException("Cannot compile network: unsupported neuron " + neuron.getClass().getName());
+                }
+                layerIndex.put(neuron, l);
+            }
+
+            for (Neuron neuron : computed) {
+                slots.put(neuron, slot++);
+            }
+            for (Neuron neuron : inputs) {
+                slots.put(neuron, slot++);
+            }
+            for (Neuron neuron : biases) {
+                biasList.add(slot);
+                slots.put(neuron, slot++);
+            }
+            computedNeurons.add(computed);
+        }
+
+        List<FlatLayer> flatLayers = new ArrayList<>();
+        int weightOffset = 0;
+        for (int l = 0; l < computedNeurons.size(); l++) {
+            List<Neuron> computed = computedNeurons.get(l);
+            if (computed.isEmpty()) {
+                continue;
+            }
+            if (!hasInputConnections(computed)) {
+                // outputs of such neurons are set by their layer, like in tensor layers
+                throw new NeurophException("Cannot compile network: neurons in layer " + l + " have no input connections");
+            }
+            FlatLayer flatLayer = compileLayer(computed, l, weightOffset, slots, layerIndex);
+            weightOffset += flatLayer.weights.length;
+            flatLayers.add(flatLayer);
+        }
+
+        return new FlatNetwork(slot,
+                slotsOf(network.getInputNeurons(), slots),
+                slotsOf(network.getOutputNeurons(), slots),
+                toArray(biasList),
+                flatLayers.toArray(new FlatLayer[flatLayers.size()]));
+    }
+
+    private static boolean hasInputConnections(List<Neuron> neurons) {
+        for (Neuron neuron : neurons) {
+            if (neuron.hasInputConnections()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns true if all neurons are connected to the same source slots in the same order
+     */
+    private static boolean hasSameInputs(List<Neuron> neurons, Map<Neuron, Integer> slots) {
+        List<Connection> firstConnections = neurons.get(0).getInputConnections();
+        for (int i = 1; i < neurons.size(); i++) {
+            List<Connection> connections = neurons.get(i).getInputConnections();
+            if (connections.size() != firstConnections.size()) {
+                return false;
+            }
+            for (int j = 0; j < connections.size(); j++) {
+                if (!Objects.equals(slots.get(connections.get(j).getFromNeuron()), slots.get(firstConnections.get(j).getFromNeuron()))) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private static int sourceSlot(Connection connection, int l, Map<Neuron, Integer> slots, Map<Neuron, Integer> layerIndex) {
+        Neuron from = connection.getFromNeuron();
+        Integer fromLayer = layerIndex.get(from);
+        if (fromLayer == null || fromLayer >= l) {
+            throw new NeurophException("Cannot compile network: only connections from previous layers are supported");
+        }
+        if (connection.getClass() != Connection.class) {
+            throw new NeurophException("Cannot compile network: unsupported connection " + connection.getClass().getName());
+        }
+        return slots.get(from);
+    }
+
+    private static FlatLayer compileLayer(List<Neuron> neurons, int l, int weightOffset, Map<Neuron, Integer> slots, Map<Neuron, Integer> layerIndex) {
+        if (!hasSameInputs(neurons, slots)) {
+            return compileSparseLayer(neurons, l, weightOffset, slots, layerIndex);
+        }
+
+        List<Connection> firstConnections = neurons.get(0).getInputConnections();
+        int[] sources = new int[firstConnections.size()];
+        for (int j = 0; j < sources.length; j++) {
+            sources[j] = sourceSlot(firstConnections.get(j), l, slots, layerIndex);
+        }
+
+        Weight[] weights = new Weight[neurons.size() * sources.length];
+        ActivationKernel[] kernels = new ActivationKernel[neurons.size()];
+        int k = 0;
+        for (int i = 0; i < neurons.size(); i++) {
+            Neuron neuron = neurons.get(i);
+            List<Connection> connections = neuron.getInputConnections();
+            if (connections.size() != sources.length) {
+                throw new NeurophException("Cannot compile network: neurons in layer " + l + " have different inputs");
+            }
+            for (int j = 0; j < sources.length; j++) {
+                Connection connection = connections.get(j);
+                Integer from = slots.get(connection.getFromNeuron());
+                if (connection.getClass() != Connection.class || from == null || from != sources[j]) {
+                    throw new NeurophException("Cannot compile network: neurons in layer " + l + " have different inputs");
+                }
+                weights[k++] = connection.getWeight();
+            }
+            kernels[i] = ActivationKernel.of(neuron.getTransferFunction());
+        }
+
+        return new FlatLayer(slots.get(neurons.get(0)), weightOffset, sources, weights, kernels);
+    }
+
+    private static FlatLayer compileSparseLayer(List<Neuron> neurons, int l, int weightOffset, Map<Neuron, Integer> slots, Map<Neuron, Integer> layerIndex) {
+        int[] rowOffsets = new int[neurons.size() + 1];
+        for (int i = 0; i < neurons.size(); i++) {
+            rowOffsets[i + 1] = rowOffsets[i] + neurons.get(i).getInputConnections().size();
+        }
+
+        int[] sources = new int[rowOffsets[neurons.size()]];
+        Weight[] weights = new Weight[sources.length];
+        ActivationKernel[] kernels = new ActivationKernel[neurons.size()];
+        int k = 0;
+        for (int i = 0; i < neurons.size(); i++) {
+            Neuron neuron = neurons.get(i);
+            List<Connection> connections = neuron.getInputConnections();
+            for (int j = 0; j < connections.size(); j++) {
+                Connection connection = connections.get(j);
+                sources[k] = sourceSlot(connection, l, slots, layerIndex);
+                weights[k++] = connection.getWeight();
+            }
+            kernels[i] = ActivationKernel.of(neuron.getTransferFunction());
+        }
+
+        return new FlatLayer(slots.get(neurons.get(0)), weightOffset, sources, rowOffsets, weights, kernels);
+    }
+
+    private static int[] slotsOf(List<Neuron> neurons, Map<Neuron, Integer> slots) {
+        int[] result = new int[neurons.size()];
+        for (int i = 0; i < result.length; i++) {
+            Integer slot = slots.get(neurons.get(i));
+            if (slot == null) {
+                throw new NeurophException("Cannot compile network: input or output neuron is not in any layer");
+            }
+            result[i] = slot;
+        }
+        return result;
+    }
+
+    private static int[] toArray(List<Integer> list) {
+        int[] result = new int[list.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = list.get(i);
+        }
+        return result;
+    }
+
+    /**
+     * Copies current weight values from the network this plan was compiled from.
+     * Should be called after the source network has been trained.
+     *
+     * @throws IllegalStateException if this network was deserialized and is not attached to source network
+     */
+    public void refresh() {
+        for (FlatLayer layer : layers) {
+            layer.refresh();
+        }
+    }
+
+    /**
+     * Copies weight values of this network to the network it was compiled from.
+     * Used when weights are trained directly in the compiled network.
+     *
+     * @throws IllegalStateException if this network is not attached to source network
+     */
+    public void flush() {
+        for (FlatLayer layer : layers) {
+            layer.flush();
+        }
+    }
+
+    /**
+     * Creates single precision copy of this network. Returned network shares
+     * structure with this one, and is attached to the same source network.
+     *
+     * @return single precision network
+     */
+    public FloatNetwork toFloat() {
+        FloatLayer[] floatLayers = new FloatLayer[layers.length];
+        for (int i = 0; i < layers.length; i++) {
+            floatLayers[i] = new FloatLayer(layers[i]);
+        }
+        return new FloatNetwork(slotsCount, inputSlots, outputSlots, biasSlots, floatLayers);
+    }
+
+    /**
+     * Creates 8 bit quantized copy of this network. Input range of each layer
+     * is calibrated by calculating this network for all rows of the calibration set.
+     *
+     * @param calibrationSet sample inputs used to calibrate activation ranges
+     * @param granularity    granularity of weight scale and zero point
+     * @return quantized network
+     * @throws IllegalArgumentException if calibration set is empty
+     */
+    public QuantizedNetwork quantize(DataSet calibrationSet, QuantizedNetwork.Granularity granularity) {
+        if (granularity == null) {
+            throw new IllegalArgumentException("Granularity cannot be null!");
+        }
+        double[][] ranges = QuantizedNetwork.calibrate(this, layers, calibrationSet);
+        QuantizedLayer[] quantizedLayers = new QuantizedLayer[layers.length];
+        for (int i = 0; i < layers.length; i++) {
+            quantizedLayers[i] = new QuantizedLayer(layers[i], ranges[i][0], ranges[i][1],
+                    granularity == QuantizedNetwork.Granularity.PER_NEURON);
+        }
+        return new QuantizedNetwork(slotsCount, inputSlots, outputSlots, biasSlots, quantizedLayers, granularity);
+    }
+
+    /**
+     * Writes structure of this network without weight values. Weights are written
+     * separately by the caller, in network weight order (see {@link #getSourceWeights()}),
+     * so they can be stored as raw blocks and read with {@link #readStructure(InputStream, ObjLongConsumer)}.
+     *
+     * @param out stream to write to
+     * @throws IOException if structure cannot be written
+     */
+    public void writeStructure(OutputStream out) throws IOException {
+        final Map<Object, FlatLayer> weightBlocks = new IdentityHashMap<>();
+        for (FlatLayer layer : layers) {
+            weightBlocks.put(layer.weights, layer);
+        }
+        ObjectOutputStream oos = new ObjectOutputStream(out) {
+            {
+                enableReplaceObject(true);
+            }
+
+            @Override
+            protected Object replaceObject(Object obj) {
+                FlatLayer layer = weightBlocks.get(obj);
+                return layer != null ? new WeightBlock(layer.weightOffset, layer.weights.length) : obj;
+            }
+        };
+        oos.writeObject(this);
+        oos.flush();
+    }
+
+    /**
+     * Reads network structure written by {@link #writeStructure(OutputStream)}. Weights of
+     * each layer are filled by the specified reader, which gets array to fill and index of
+     * the first weight in network weight order. Returned network is not attached to source network.
+     *
+     * @param in            stream to read from
+     * @param weightsReader fills weight arrays
+     * @return compiled network
+     * @throws IOException if structure cannot be read
+     */
+    public static FlatNetwork readStructure(InputStream in, final ObjLongConsumer<double[]> weightsReader) throws IOException {
+        ObjectInputStream ois = new ObjectInputStream(in) {
+            {
+                enableResolveObject(true);
+            }
+
+            @Override
+            protected Object resolveObject(Object obj) {
+                if (obj instanceof WeightBlock) {
+                    WeightBlock block = (WeightBlock) obj;
+                    double[] weights = new double[block.length];
+                    weightsReader.accept(weights, block.offset);
+                    return weights;
+                }
+                return obj;
+            }
+        };
+        try {
+            return (FlatNetwork) ois.readObject();
+        } catch (ClassNotFoundException | ClassCastException ex) {
+            throw new IOException("Could not read compiled network structure", ex);
+        }
+    }
+
+    /**
+     * Placeholder for weights of one layer in written structure
+     */
+    private static final class WeightBlock implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private final long offset;
+        private final int length;
+
+        WeightBlock(long offset, int length) {
+            this.offset = offset;
+            this.length = length;
+        }
+    }
+
+    /**
+     * Creates new session for calculating this network. Each thread should use its own session.
+     *
+     * @return new inference session
+     */
+    public InferenceSession createSession() {
+        return new InferenceSession(this);
+    }
+
+    /**
+     * Calculates network output for the specified input.
+     * This method allocates new activation buffer on each call, use
+     * {@link InferenceSession} to calculate many inputs.
+     *
+     * @param input network input vector
+     * @return new array with network output
+     */
+    public double[] calculate(double... input) {
+        double[] output = new double[outputSlots.length];
+        calculate(input, new double[slotsCount], output);
+        return output;
+    }
+
+    /**
+     * Calculates network outputs for all input vectors in the batch.
+     * This method allocates new activation buffer on each call.
+     *
+     * @param inputs input vectors, one row for each sample
+     * @return network outputs, one row for each sample
+     */
+    public double[][] calculate(double[][] inputs) {
+        double[][] outputs = new double[inputs.length][outputSlots.length];
+        calculate(inputs, outputs, new double[Math.min(BATCH_BLOCK, inputs.length) * slotsCount]);
+        return outputs;
+    }
+
+    /**
+     * Creates new session for training this network. Each thread should use its own session.
+     *
+     * @return new training session
+     */
+    public TrainingSession createTrainingSession() {
+        return new TrainingSession(this);
+    }
+
+    /**
+     * Calculates network output and keeps neuron net inputs for back propagation
+     *
+     * @param input       network input vector
+     * @param activations activation buffer
+     * @param netInputs   net input buffer
+     * @param output      array for network output
+     */
+    void forward(double[] input, double[] activations, double[] netInputs, double[] output) {
+        if (input.length != inputSlots.length) {
+            throw new VectorSizeMismatchException("Input vector size does not match network input dimension!");
+        }
+        setInput(input, activations, 0);
+        for (FlatLayer layer : layers) {
+            layer.forward(activations, netInputs);
+        }
+        getOutput(activations, 0, output);
+    }
+
+    /**
+     * Back propagates output error of the last {@link #forward} call and adds weight gradients to the buffer
+     *
+     * @param outputError output error vector
+     * @param activations activation buffer
+     * @param netInputs   net input buffer
+     * @param errors      error buffer, one element for each slot
+     * @param gradients   gradient buffer, one element for each weight
+     */
+    void backward(double[] outputError, double[] activations, double[] netInputs, double[] errors, double[] gradients) {
+        Arrays.fill(errors, 0d);
+        for (int i = 0; i < outputSlots.length; i++) {
+            errors[outputSlots[i]] += outputError[i];
+        }
+        for (int l = layers.length - 1; l >= 0; l--) {
+            layers[l].backward(activations, netInputs, errors, gradients);
+        }
+    }
+
+    /**
+     * Back propagates output error of the last {@link #forward} call and applies weight changes
+     * to the weights of this network immediately, without any synchronization
+     *
+     * @param outputError  output error vector
+     * @param activations  activation buffer
+     * @param netInputs    net input buffer
+     * @param errors       error buffer, one element for each slot
+     * @param learningRate learning rate
+     */
+    void backward(double[] outputError, double[] activations, double[] netInputs, double[] errors, double learningRate) {
+        Arrays.fill(errors, 0d);
+        for (int i = 0; i < outputSlots.length; i++) {
+            errors[outputSlots[i]] += outputError[i];
+        }
+        for (int l = layers.length - 1; l >= 0; l--) {
+            layers[l].backward(activations, netInputs, errors, learningRate);
+        }
+    }
+
+    /**
+     * Calculates network output using the specified activation buffer
+     *
+     * @param input       network input vector
+     * @param activations activation buffer, one element for each slot
+     * @param output      array for network output
+     */
+    void calculate(double[] input, double[] activations, double[] output) {
+        if (input.length != inputSlots.length) {
+            throw new VectorSizeMismatchException("Input vector size does not match network input dimension!");
+        }
+        setInput(input, activations, 0);
+        for (FlatLayer layer : layers) {
+            layer.forward(activations, 1, slotsCount);
+        }
+        getOutput(activations, 0, output);
+    }
+
+    /**
+     * Calculates the batch in blocks of {@link #BATCH_BLOCK} samples, using the specified activation buffer
+     *
+     * @param inputs      input vectors
+     * @param outputs     arrays for network outputs
+     * @param activations activation buffer, large enough for min(BATCH_BLOCK, inputs.length) samples
+     */
+    void calculate(double[][] inputs, double[][] outputs, double[] activations) {
+        for (double[] input : inputs) {
+            if (input.length != inputSlots.length) {
+                throw new VectorSizeMismatchException("Input vector size does not match network input dimension!");
+            }
+        }
+
+        for (int start = 0; start < inputs.length; start += BATCH_BLOCK) {
+            int count = Math.min(BATCH_BLOCK, inputs.length - start);
+            for (int b = 0; b < count; b++) {
+                setInput(inputs[start + b], activations, b * slotsCount);
+            }
+            for (FlatLayer layer : layers) {
+                layer.forward(activations, count, slotsCount);
+            }
+            for (int b = 0; b < count; b++) {
+                getOutput(activations, b * slotsCount, outputs[start + b]);
+            }
+        }
+    }
+
+    private void setInput(double[] input, double[] activations, int base) {
+        for (int i = 0; i < inputSlots.length; i++) {
+            activations[base + inputSlots[i]] = input[i];
+        }
+        for (int i = 0; i < biasSlots.length; i++) {
+            activations[base + biasSlots[i]] = 1d;
+        }
+    }
+
+    private void getOutput(double[] activations, int base, double[] output) {
+        for (int i = 0; i < outputSlots.length; i++) {
+            output[i] = activations[base + outputSlots[i]];
+        }
+    }
+
+    /**
+     * Returns number of activation slots, one for each neuron
+     *
+     * @return number of activation slots
+     */
+    int getSlotsCount() {
+        return slotsCount;
+    }
+
+    /**
+     * Returns number of network inputs
+     *
+     * @return number of network inputs
+     */
+    public int getInputsCount() {
+        return inputSlots.length;
+    }
+
+    /**
+     * Returns number of network outputs
+     *
+     * @return number of network outputs
+     */
+    public int getOutputsCount() {
+        return outputSlots.length;
+    }
+
+    /**
+     * Returns number of compiled (non input) layers
+     *
+     * @return number of compiled layers
+     */
+    public int getLayersCount() {
+        return layers.length;
+    }
+
+    /**
+     * Returns true if the specified compiled layer is stored in compressed sparse row form
+     *
+     * @param layerIdx index of compiled layer
+     * @return true if layer is sparse, false if it is dense
+     */
+    public boolean isSparseLayer(int layerIdx) {
+        return layers[layerIdx].isSparse();
+    }
+
+    /**
+     * Returns total number of weights in all compiled layers
+     *
+     * @return total number of weights
+     */
+    public int getWeightsCount() {
+        int count = 0;
+        for (FlatLayer layer : layers) {
+            count += layer.weights.length;
+        }
+        return count;
+    }
+
+    /**
+     * Copies weights of this network to the specified array. Compiled order is the same as the order of
+     * {@link NeuralNetwork#getWeights()} and {@link org.neuroph.core.WeightVector}, so weights can be
+     * exchanged with the source network and other networks compiled from the same structure.
+     *
+     * @param weights array for weights, with {@link #getWeightsCount()} elements
+     * @throws VectorSizeMismatchException if array size does not match number of weights
+     */
+    public void getWeights(double[] weights) {
+        if (weights.length != getWeightsCount()) {
+            throw new VectorSizeMismatchException("Array size does not match number of weights!");
+        }
+        for (FlatLayer layer : layers) {
+            System.arraycopy(layer.weights, 0, weights, layer.weightOffset, layer.weights.length);
+        }
+    }
+
+    /**
+     * Sets weights of this network from the specified array, in the same order as {@link #getWeights(double[])}.
+     * Source network is not changed until {@link #flush()} is called.
+     *
+     * @param weights weight values
+     * @throws VectorSizeMismatchException if array size does not match number of weights
+     */
+    public void setWeights(double[] weights) {
+        if (weights.length != getWeightsCount()) {
+            throw new VectorSizeMismatchException("Array size does not match number of weights!");
+        }
+        for (FlatLayer layer : layers) {
+            System.arraycopy(weights, layer.weightOffset, layer.weights, 0, layer.weights.length);
+        }
+    }
+
+    /**
+     * Returns weights of the source network in compiled order, which is the order of
+     * gradients calculated by {@link TrainingSession}. Weight shared by several
+     * connections appears once for each connection.
+     *
+     * @return weights of the source network
+     * @throws IllegalStateException if this network is not attached to source network
+     */
+    public Weight[] getSourceWeights() {
+        Weight[] result = new Weight[getWeightsCount()];
+        for (FlatLayer layer : layers) {
+            layer.getSourceWeights(result);
+        }
+        return result;
+    }
+
+    /**
+     * Returns true if this network can be refreshed from the source network
+     *
+     * @return true if this network is attached to source network
+     */
+    public boolean isAttached() {
+        for (FlatLayer layer : layers) {
+            if (!layer.isAttached()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+}
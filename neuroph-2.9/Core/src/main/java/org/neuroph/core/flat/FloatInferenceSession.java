@@ -0,0 +1,131 @@
+/**
+ * Copyright 2014 Neuroph Project http://neuroph.sourceforge.net
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.neuroph.core.flat;
+
+/**
+ * 单精度推理会话.
+ * <p>
+ * Execution context for calculating a {@link FloatNetwork}, which holds
+ * single precision neuron activations and output buffer. Inputs and outputs
+ * can be passed either as float or as double vectors; double vectors are
+ * rounded to float on input.
+ * Session instances are not thread safe, each thread should use its own session.
+ *
+ * @author Zoran Sevarac <sevarac@gmail.com>
+ * @see FloatNetwork#createSession()
+ * @see InferenceSession
+ */
+public class FloatInferenceSession {
+
+    /**
+     * Compiled network calculated by this session
+     */
+    private final FloatNetwork network;
+
+    /**
+     * Neuron activations, one element for each activation slot
+     */
+    private final float[] activations;
+
+    /**
+     * Output buffer
+     */
+    private final float[] output;
+
+    /**
+     * Activation matrix for batch calculation, created on first use
+     */
+    private float[] batchActivations;
+
+    /**
+     * Creates new session for the specified compiled network
+     *
+     * @param network compiled network
+     */
+    public FloatInferenceSession(FloatNetwork network) {
+        this.network = network;
+        this.activations = new float[network.getSlotsCount()];
+        this.output = new float[network.getOutputsCount()];
+    }
+
+    /**
+     * Calculates network output for the specified input.
+     * Returned array is the output buffer of this session, which is overwritten by the next call.
+     *
+     * @param input network input vector
+     * @return network output
+     */
+    public float[] calculate(float... input) {
+        network.calculate(input, activations, output);
+        return output;
+    }
+
+    /**
+     * Calculates network output for the specified input and copies it to the given array
+     *
+     * @param input  network input vector
+     * @param result array for network output
+     */
+    public void calculate(float[] input, float[] result) {
+        network.calculate(input, activations, result);
+    }
+
+    /**
+     * Calculates network output for double precision input, and copies it to the given array
+     *
+     * @param input  network input vector
+     * @param result array for network output
+     */
+    public void calculate(double[] input, double[] result) {
+        network.calculate(input, activations, result);
+    }
+
+    /**
+     * Calculates network outputs for all input vectors in the batch, in blocks of samples
+     *
+     * @param inputs input vectors, one row for each sample
+     * @return new matrix with network outputs, one row for each sample
+     */
+    public float[][] calculate(float[][] inputs) {
+        float[][] outputs = new float[inputs.length][network.getOutputsCount()];
+        if (batchActivations == null) {
+            batchActivations = new float[FlatNetwork.BATCH_BLOCK * network.getSlotsCount()];
+        }
+        network.calculate(inputs, outputs, batchActivations);
+        return outputs;
+    }
+
+    /**
+     * Returns output of the last {@link #calculate(float...)} call
+     *
+     * @return output buffer of this session
+     */
+    public float[] getOutput() {
+        return output;
+    }
+
+    /**
+     * Returns compiled network calculated by this session
+     *
+     * @return compiled network
+     */
+    public FloatNetwork getNetwork() {
+        return network;
+    }
+
+}
@@ -0,0 +1,183 @@
+/**
+ * Copyright 2014 Neuroph Project http://neuroph.sourceforge.net
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.neuroph.core.flat;
+
+import org.neuroph.core.Weight;
+
+import java.io.Serializable;
+
+/**
+ * Single precision copy of a {@link FlatLayer}, used by {@link FloatNetwork}.
+ * <p>
+ * Weights are stored as floats, while weighted sums are accumulated and
+ * activation kernels are evaluated in double precision. Source slots and
+ * kernels are shared with the layer this copy was created from.
+ *
+ * @author Zoran Sevarac <sevarac@gmail.com>
+ */
+final class FloatLayer implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Activation slot of the first neuron in this layer
+     */
+    final int targetOffset;
+
+    /**
+     * Number of computed neurons in this layer
+     */
+    final int size;
+
+    /**
+     * Number of inputs of each neuron in dense layer, 0 in sparse layer
+     */
+    final int inputCount;
+
+    /**
+     * Activation slots read by each neuron, in connection order, or source slot of each weight in sparse layer
+     */
+    final int[] sources;
+
+    /**
+     * Index of the first weight of each neuron in sparse layer, null for dense layer
+     */
+    final int[] rowOffsets;
+
+    /**
+     * First source slot if sources are consecutive, -1 otherwise
+     */
+    final int sourceOffset;
+
+    /**
+     * Weight block, size x inputCount, or weights of all connections in sparse layer
+     */
+    final float[] weights;
+
+    /**
+     * Activation kernel for each neuron
+     */
+    final ActivationKernel[] kernels;
+
+    /**
+     * Weights of the source network, used to refresh weight block
+     */
+    private transient Weight[] sourceWeights;
+
+    FloatLayer(FlatLayer layer) {
+        this.targetOffset = layer.targetOffset;
+        this.size = layer.size;
+        this.inputCount = layer.inputCount;
+        this.sources = layer.sources;
+        this.rowOffsets = layer.rowOffsets;
+        this.sourceOffset = layer.sourceOffset;
+        this.kernels = layer.kernels;
+        this.sourceWeights = layer.sourceWeights;
+        this.weights = new float[layer.weights.length];
+        for (int i = 0; i < weights.length; i++) {
+            weights[i] = (float) layer.weights[i];
+        }
+    }
+
+    /**
+     * Calculates outputs of this layer for a block of samples and stores them in activation matrix.
+     * Activations of sample b start at index b * stride.
+     *
+     * @param activations activation matrix, one row for each sample
+     * @param count       number of samples
+     * @param stride      number of activation slots of one sample
+     * @see FlatLayer#forward(double[], int, int)
+     */
+    void forward(float[] activations, int count, int stride) {
+        if (rowOffsets != null) {
+            sparseForward(activations, count, stride);
+            return;
+        }
+        final float[] w = weights;
+        final int n = inputCount;
+
+        for (int i = 0; i < size; i++) {
+            final int row = i * n;
+            final int target = targetOffset + i;
+            final ActivationKernel kernel = kernels[i];
+
+            for (int b = 0, base = 0; b < count; b++, base += stride) {
+                double sum = 0d;
+                if (sourceOffset >= 0) {
+                    for (int j = 0, a = base + sourceOffset; j < n; j++, a++) {
+                        sum += (double) activations[a] * w[row + j];
+                    }
+                } else {
+                    for (int j = 0; j < n; j++) {
+                        sum += (double) activations[base + sources[j]] * w[row + j];
+                    }
+                }
+                activations[base + target] = (float) kernel.apply(sum);
+            }
+        }
+    }
+
+    private void sparseForward(float[] activations, int count, int stride) {
+        final float[] w = weights;
+        final int[] s = sources;
+
+        for (int i = 0; i < size; i++) {
+            final int start = rowOffsets[i];
+            final int end = rowOffsets[i + 1];
+            final int target = targetOffset + i;
+            final ActivationKernel kernel = kernels[i];
+
+            for (int b = 0, base = 0; b < count; b++, base += stride) {
+                double sum = 0d;
+                for (int k = start; k < end; k++) {
+                    sum += (double) activations[base + s[k]] * w[k];
+                }
+                activations[base + target] = (float) kernel.apply(sum);
+            }
+        }
+    }
+
+    /**
+     * Copies current weight values from the source network, rounded to float
+     */
+    void refresh() {
+        if (sourceWeights == null) {
+            throw new IllegalStateException("Compiled network is not attached to source network!");
+        }
+        for (int i = 0; i < weights.length; i++) {
+            weights[i] = (float) sourceWeights[i].value;
+        }
+    }
+
+    /**
+     * Copies weight values of this layer to the source network
+     */
+    void flush() {
+        if (sourceWeights == null) {
+            throw new IllegalStateException("Compiled network is not attached to source network!");
+        }
+        for (int i = 0; i < weights.length; i++) {
+            sourceWeights[i].value = weights[i];
+        }
+    }
+
+    boolean isAttached() {
+        return sourceWeights != null;
+    }
+
+}
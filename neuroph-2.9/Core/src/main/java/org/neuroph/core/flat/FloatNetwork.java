@@ -0,0 +1,307 @@
+/**
+ * Copyright 2014 Neuroph Project http://neuroph.sourceforge.net
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.neuroph.core.flat;
+
+import org.neuroph.core.NeuralNetwork;
+import org.neuroph.core.exceptions.NeurophException;
+import org.neuroph.core.exceptions.VectorSizeMismatchException;
+
+import java.io.Serializable;
+
+/**
+ * 单精度编译网络.
+ * <p>
+ * Single precision variant of {@link FlatNetwork} for inference. Weights and
+ * neuron activations are stored as 32 bit floats, which halves the memory
+ * and memory bandwidth needed to score a network, while weighted sums are
+ * still accumulated and transfer functions evaluated in double precision.
+ * Outputs therefore differ from the double network only by float rounding of
+ * weights and activations, typically around 1e-7 relative.
+ * <pre>
+ * FloatNetwork network = FloatNetwork.compile(neuralNetwork);
+ * // in each worker thread
+ * FloatInferenceSession session = network.createSession();
+ * float[] output = session.calculate(input);
+ * </pre>
+ * Weights can be copied from the source network with {@link #refresh()} after
+ * it has been trained, and back to it with {@link #flush()}. Like
+ * {@link FlatNetwork}, this class holds no activation state and can be shared
+ * by threads, each with its own {@link FloatInferenceSession}.
+ *
+ * @author Zoran Sevarac <sevarac@gmail.com>
+ * @see FlatNetwork#toFloat()
+ */
+public class FloatNetwork implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Total number of activation slots
+     */
+    private final int slotsCount;
+
+    /**
+     * Activation slots of network input neurons
+     */
+    private final int[] inputSlots;
+
+    /**
+     * Activation slots of network output neurons
+     */
+    private final int[] outputSlots;
+
+    /**
+     * Activation slots of bias neurons, which always have output 1
+     */
+    private final int[] biasSlots;
+
+    /**
+     * Compiled layers in calculation order
+     */
+    private final FloatLayer[] layers;
+
+    FloatNetwork(int slotsCount, int[] inputSlots, int[] outputSlots, int[] biasSlots, FloatLayer[] layers) {
+        this.slotsCount = slotsCount;
+        this.inputSlots = inputSlots;
+        this.outputSlots = outputSlots;
+        this.biasSlots = biasSlots;
+        this.layers = layers;
+    }
+
+    /**
+     * Compiles specified neural network to single precision
+     *
+     * @param network neural network to compile
+     * @return compiled network
+     * @throws NeurophException if network structure is not supported
+     */
+    public static FloatNetwork compile(NeuralNetwork<?> network) {
+        return FlatNetwork.compile(network).toFloat();
+    }
+
+    /**
+     * Copies current weight values from the network this plan was compiled from.
+     *
+     * @throws IllegalStateException if this network is not attached to source network
+     */
+    public void refresh() {
+        for (FloatLayer layer : layers) {
+            layer.refresh();
+        }
+    }
+
+    /**
+     * Copies weight values of this network to the network it was compiled from.
+     * Weights of the source network get float precision.
+     *
+     * @throws IllegalStateException if this network is not attached to source network
+     */
+    public void flush() {
+        for (FloatLayer layer : layers) {
+            layer.flush();
+        }
+    }
+
+    /**
+     * Returns true if this network can be refreshed from the source network
+     *
+     * @return true if this network is attached to source network
+     */
+    public boolean isAttached() {
+        for (FloatLayer layer : layers) {
+            if (!layer.isAttached()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Creates new session for calculating this network. Each thread should use its own session.
+     *
+     * @return new inference session
+     */
+    public FloatInferenceSession createSession() {
+        return new FloatInferenceSession(this);
+    }
+
+    /**
+     * Calculates network output for the specified input.
+     * This method allocates new activation buffer on each call, use
+     * {@link FloatInferenceSession} to calculate many inputs.
+     *
+     * @param input network input vector
+     * @return new array with network output
+     */
+    public float[] calculate(float... input) {
+        float[] output = new float[outputSlots.length];
+        calculate(input, new float[slotsCount], output);
+        return output;
+    }
+
+    /**
+     * Calculates network outputs for all input vectors in the batch.
+     * This method allocates new activation buffer on each call.
+     *
+     * @param inputs input vectors, one row for each sample
+     * @return network outputs, one row for each sample
+     */
+    public float[][] calculate(float[][] inputs) {
+        float[][] outputs = new float[inputs.length][outputSlots.length];
+        calculate(inputs, outputs, new float[Math.min(FlatNetwork.BATCH_BLOCK, inputs.length) * slotsCount]);
+        return outputs;
+    }
+
+    /**
+     * Calculates network output using the specified activation buffer
+     *
+     * @param input       network input vector
+     * @param activations activation buffer, one element for each slot
+     * @param output      array for network output
+     */
+    void calculate(float[] input, float[] activations, float[] output) {
+        checkInput(input.length);
+        for (int i = 0; i < inputSlots.length; i++) {
+            activations[inputSlots[i]] = input[i];
+        }
+        forward(activations);
+        for (int i = 0; i < outputSlots.length; i++) {
+            output[i] = activations[outputSlots[i]];
+        }
+    }
+
+    /**
+     * Calculates network output for double precision input and output vectors
+     *
+     * @param input       network input vector
+     * @param activations activation buffer, one element for each slot
+     * @param output      array for network output
+     */
+    void calculate(double[] input, float[] activations, double[] output) {
+        checkInput(input.length);
+        for (int i = 0; i < inputSlots.length; i++) {
+            activations[inputSlots[i]] = (float) input[i];
+        }
+        forward(activations);
+        for (int i = 0; i < outputSlots.length; i++) {
+            output[i] = activations[outputSlots[i]];
+        }
+    }
+
+    /**
+     * Calculates the batch in blocks of {@link FlatNetwork#BATCH_BLOCK} samples, using the specified activation buffer
+     *
+     * @param inputs      input vectors
+     * @param outputs     arrays for network outputs
+     * @param activations activation buffer, large enough for min(BATCH_BLOCK, inputs.length) samples
+     */
+    void calculate(float[][] inputs, float[][] outputs, float[] activations) {
+        for (float[] input : inputs) {
+            checkInput(input.length);
+        }
+
+        for (int start = 0; start < inputs.length; start += FlatNetwork.BATCH_BLOCK) {
+            int count = Math.min(FlatNetwork.BATCH_BLOCK, inputs.length - start);
+            for (int b = 0; b < count; b++) {
+                float[] input = inputs[start + b];
+                int base = b * slotsCount;
+                for (int i = 0; i < inputSlots.length; i++) {
+                    activations[base + inputSlots[i]] = input[i];
+                }
+                for (int i = 0; i < biasSlots.length; i++) {
+                    activations[base + biasSlots[i]] = 1f;
+                }
+            }
+            for (FloatLayer layer : layers) {
+                layer.forward(activations, count, slotsCount);
+            }
+            for (int b = 0; b < count; b++) {
+                float[] output = outputs[start + b];
+                int base = b * slotsCount;
+                for (int i = 0; i < outputSlots.length; i++) {
+                    output[i] = activations[base + outputSlots[i]];
+                }
+            }
+        }
+    }
+
+    private void checkInput(int length) {
+        if (length != inputSlots.length) {
+            throw new VectorSizeMismatchException("Input vector size does not match network input dimension!");
+        }
+    }
+
+    private void forward(float[] activations) {
+        for (int i = 0; i < biasSlots.length; i++) {
+            activations[biasSlots[i]] = 1f;
+        }
+        for (FloatLayer layer : layers) {
+            layer.forward(activations, 1, slotsCount);
+        }
+    }
+
+    /**
+     * Returns number of activation slots, one for each neuron
+     *
+     * @return number of activation slots
+     */
+    int getSlotsCount() {
+        return slotsCount;
+    }
+
+    /**
+     * Returns number of network inputs
+     *
+     * @return number of network inputs
+     */
+    public int getInputsCount() {
+        return inputSlots.length;
+    }
+
+    /**
+     * Returns number of network outputs
+     *
+     * @return number of network outputs
+     */
+    public int getOutputsCount() {
+        return outputSlots.length;
+    }
+
+    /**
+     * Returns number of compiled (non input) layers
+     *
+     * @return number of compiled layers
+     */
+    public int getLayersCount() {
+        return layers.length;
+    }
+
+    /**
+     * Returns total number of weights in all compiled layers
+     *
+     * @return total number of weights
+     */
+    public int getWeightsCount() {
+        int count = 0;
+        for (FloatLayer layer : layers) {
+            count += layer.weights.length;
+        }
+        return count;
+    }
+
+}
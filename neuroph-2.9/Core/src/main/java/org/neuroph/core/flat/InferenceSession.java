@@ -0,0 +1,127 @@
+/**
+ * Copyright 2014 Neuroph Project http://neuroph.sourceforge.net
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.neuroph.core.flat;
+
+/**
+ * 推理会话.
+ * <p>
+ * Execution context which holds all mutable state needed to calculate a
+ * {@link FlatNetwork}: neuron activations and output buffer.
+ * Compiled network itself is never modified during calculation, so many threads
+ * can score the same network at once, as long as each thread uses its own session.
+ * <pre>
+ * FlatNetwork flat = FlatNetwork.compile(network);
+ * // in each worker thread
+ * InferenceSession session = flat.createSession();
+ * double[] output = session.calculate(input);
+ * </pre>
+ * Session instances are not thread safe.
+ *
+ * @author Zoran Sevarac <sevarac@gmail.com>
+ * @see FlatNetwork#createSession()
+ */
+public class InferenceSession {
+
+    /**
+     * Compiled network calculated by this session
+     */
+    private final FlatNetwork network;
+
+    /**
+     * Neuron activations, one element for each activation slot
+     */
+    private final double[] activations;
+
+    /**
+     * Output buffer
+     */
+    private final double[] output;
+
+    /**
+     * Activation matrix for batch calculation, created on first use
+     */
+    private double[] batchActivations;
+
+    /**
+     * Creates new session for the specified compiled network
+     *
+     * @param network compiled network
+     */
+    public InferenceSession(FlatNetwork network) {
+        this.network = network;
+        this.activations = new double[network.getSlotsCount()];
+        this.output = new double[network.getOutputsCount()];
+    }
+
+    /**
+     * Calculates network output for the specified input.
+     * Returned array is the output buffer of this session, which is overwritten by the next call.
+     *
+     * @param input network input vector
+     * @return network output
+     */
+    public double[] calculate(double... input) {
+        network.calculate(input, activations, output);
+        return output;
+    }
+
+    /**
+     * Calculates network output for the specified input and copies it to the given array
+     *
+     * @param input  network input vector
+     * @param result array for network output
+     */
+    public void calculate(double[] input, double[] result) {
+        network.calculate(input, activations, result);
+    }
+
+    /**
+     * Calculates network outputs for all input vectors in the batch.
+     * Layers are calculated for a block of samples at once, which reuses
+     * weights from cache instead of streaming them once for each sample.
+     *
+     * @param inputs input vectors, one row for each sample
+     * @return new matrix with network outputs, one row for each sample
+     */
+    public double[][] calculate(double[][] inputs) {
+        double[][] outputs = new double[inputs.length][network.getOutputsCount()];
+        if (batchActivations == null) {
+            batchActivations = new double[FlatNetwork.BATCH_BLOCK * network.getSlotsCount()];
+        }
+        network.calculate(inputs, outputs, batchActivations);
+        return outputs;
+    }
+
+    /**
+     * Returns output of the last {@link #calculate(double...)} call
+     *
+     * @return output buffer of this session
+     */
+    public double[] getOutput() {
+        return output;
+    }
+
+    /**
+     * Returns compiled network calculated by this session
+     *
+     * @return compiled network
+     */
+    public FlatNetwork getNetwork() {
+        return network;
+    }
+
+}
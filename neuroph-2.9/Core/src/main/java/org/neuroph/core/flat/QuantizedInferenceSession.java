@@ -0,0 +1,105 @@
+/**
+ * Copyright 2014 Neuroph Project http://neuroph.sourceforge.net
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.neuroph.core.flat;
+
+/**
+ * 量化推理会话.
+ * <p>
+ * Execution context for calculating a {@link QuantizedNetwork}, which holds
+ * neuron activations, quantized layer input buffer and output buffer.
+ * Session instances are not thread safe, each thread should use its own session.
+ *
+ * @author Zoran Sevarac <sevarac@gmail.com>
+ * @see QuantizedNetwork#createSession()
+ * @see InferenceSession
+ */
+public class QuantizedInferenceSession {
+
+    /**
+     * Quantized network calculated by this session
+     */
+    private final QuantizedNetwork network;
+
+    /**
+     * Neuron activations, one element for each activation slot
+     */
+    private final double[] activations;
+
+    /**
+     * Quantized inputs of the layer being calculated
+     */
+    private final byte[] buffer;
+
+    /**
+     * Output buffer
+     */
+    private final double[] output;
+
+    /**
+     * Creates new session for the specified quantized network
+     *
+     * @param network quantized network
+     */
+    public QuantizedInferenceSession(QuantizedNetwork network) {
+        this.network = network;
+        this.activations = new double[network.getSlotsCount()];
+        this.buffer = new byte[network.getMaxInputCount()];
+        this.output = new double[network.getOutputsCount()];
+    }
+
+    /**
+     * Calculates network output for the specified input.
+     * Returned array is the output buffer of this session, which is overwritten by the next call.
+     *
+     * @param input network input vector
+     * @return network output
+     */
+    public double[] calculate(double... input) {
+        network.calculate(input, activations, buffer, output);
+        return output;
+    }
+
+    /**
+     * Calculates network output for the specified input and copies it to the given array
+     *
+     * @param input  network input vector
+     * @param result array for network output
+     */
+    public void calculate(double[] input, double[] result) {
+        network.calculate(input, activations, buffer, result);
+    }
+
+    /**
+     * Returns output of the last {@link #calculate(double...)} call
+     *
+     * @return output buffer of this session
+     */
+    public double[] getOutput() {
+        return output;
+    }
+
+    /**
+     * Returns quantized network calculated by this session
+     *
+     * @return quantized network
+     */
+    public QuantizedNetwork getNetwork() {
+        return network;
+    }
+
+}
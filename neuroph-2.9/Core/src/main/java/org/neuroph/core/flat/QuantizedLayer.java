@@ -0,0 +1,270 @@
+/**
+ * Copyright 2014 Neuroph Project http://neuroph.sourceforge.net
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.neuroph.core.flat;
+
+import org.neuroph.core.exceptions.NeurophException;
+
+import java.io.Serializable;
+
+/**
+ * 8 bit quantized copy of a {@link FlatLayer}, used by {@link QuantizedNetwork}.
+ * <p>
+ * Real values are represented with affine mapping real = scale * (q - zeroPoint),
+ * where q is signed byte. Weights have scale and zero point for each neuron
+ * (or one for the whole layer), and layer inputs have one scale and zero point
+ * calibrated from the range of source activations. Weighted sums are calculated
+ * with integer arithmetic:
+ * <pre>
+ * sum((qa - za) * (qw - zw)) = sum(qa * qw) - zw * sum(qa) - za * sum(qw) + n * za * zw
+ * </pre>
+ * where sum(qw) is precomputed for each neuron, and converted to real net input
+ * with one multiplication before the activation kernel is applied. Sparse
+ * layers keep their compressed rows, and quantize inputs of each connection
+ * as they are read.
+ *
+ * @author Zoran Sevarac <sevarac@gmail.com>
+ */
+final class QuantizedLayer implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Maximum number of inputs for which sum of byte products fits in int
+     */
+    static final int MAX_INPUTS = Integer.MAX_VALUE / (128 * 128);
+
+    /**
+     * Activation slot of the first neuron in this layer
+     */
+    final int targetOffset;
+
+    /**
+     * Number of computed neurons in this layer
+     */
+    final int size;
+
+    /**
+     * Number of inputs of each neuron in dense layer, 0 in sparse layer
+     */
+    final int inputCount;
+
+    /**
+     * Activation slots read by each neuron, in connection order, or source slot of each weight in sparse layer
+     */
+    final int[] sources;
+
+    /**
+     * Index of the first weight of each neuron in sparse layer, null for dense layer
+     */
+    final int[] rowOffsets;
+
+    /**
+     * Quantized weight block, size x inputCount, or weights of all connections in sparse layer
+     */
+    final byte[] weights;
+
+    /**
+     * Weight scale for each neuron
+     */
+    final double[] weightScales;
+
+    /**
+     * Weight zero point for each neuron
+     */
+    final int[] weightZeroPoints;
+
+    /**
+     * Sum of quantized weights for each neuron
+     */
+    final int[] weightSums;
+
+    /**
+     * Scale of quantized layer inputs
+     */
+    final double inputScale;
+
+    /**
+     * Zero point of quantized layer inputs
+     */
+    final int inputZeroPoint;
+
+    /**
+     * Activation kernel for each neuron
+     */
+    final ActivationKernel[] kernels;
+
+    /**
+     * Creates quantized copy of the specified layer
+     *
+     * @param layer     compiled layer
+     * @param inputMin  minimum calibrated value of layer inputs
+     * @param inputMax  maximum calibrated value of layer inputs
+     * @param perNeuron true to use separate weight scale for each neuron, false for one scale per layer
+     */
+    QuantizedLayer(FlatLayer layer, double inputMin, double inputMax, boolean perNeuron) {
+        for (int i = 0; i < layer.size; i++) {
+            if (layer.rowEnd(i) - layer.rowStart(i) > MAX_INPUTS) {
+                throw new NeurophException("Cannot quantize layer with more than " + MAX_INPUTS + " inputs");
+            }
+        }
+        this.targetOffset = layer.targetOffset;
+        this.size = layer.size;
+        this.inputCount = layer.inputCount;
+        this.sources = layer.sources;
+        this.rowOffsets = layer.rowOffsets;
+        this.kernels = layer.kernels;
+
+        double[] inputRange = range(inputMin, inputMax);
+        this.inputScale = inputRange[0];
+        this.inputZeroPoint = (int) inputRange[1];
+
+        this.weights = new byte[layer.weights.length];
+        this.weightScales = new double[size];
+        this.weightZeroPoints = new int[size];
+        this.weightSums = new int[size];
+
+        double[] w = layer.weights;
+        double layerMin = 0d;
+        double layerMax = 0d;
+        for (double value : w) {
+            layerMin = Math.min(layerMin, value);
+            layerMax = Math.max(layerMax, value);
+        }
+        for (int i = 0; i < size; i++) {
+            int start = layer.rowStart(i);
+            int end = layer.rowEnd(i);
+            double min = layerMin;
+            double max = layerMax;
+            if (perNeuron) {
+                min = 0d;
+                max = 0d;
+                for (int k = start; k < end; k++) {
+                    min = Math.min(min, w[k]);
+                    max = Math.max(max, w[k]);
+                }
+            }
+            double[] weightRange = range(min, max);
+            weightScales[i] = weightRange[0];
+            weightZeroPoints[i] = (int) weightRange[1];
+            int sum = 0;
+            for (int k = start; k < end; k++) {
+                byte q = quantize(w[k], weightScales[i], weightZeroPoints[i]);
+                weights[k] = q;
+                sum += q;
+            }
+            weightSums[i] = sum;
+        }
+    }
+
+    /**
+     * Returns scale and zero point which map the range extended to include zero onto [-128, 127]
+     *
+     * @param min minimum real value
+     * @param max maximum real value
+     * @return array with scale and zero point
+     */
+    private static double[] range(double min, double max) {
+        min = Math.min(min, 0d);
+        max = Math.max(max, 0d);
+        if (max - min == 0d) {
+            return new double[]{1d, 0d};
+        }
+        double scale = (max - min) / 255d;
+        double zeroPoint = Math.max(-128, Math.min(127, Math.round(-128d - min / scale)));
+        return new double[]{scale, zeroPoint};
+    }
+
+    static byte quantize(double value, double scale, int zeroPoint) {
+        long q = Math.round(value / scale) + zeroPoint;
+        if (q < -128) {
+            return -128;
+        } else if (q > 127) {
+            return 127;
+        }
+        return (byte) q;
+    }
+
+    /**
+     * Calculates outputs of this layer for one sample
+     *
+     * @param activations activation slots
+     * @param input       buffer for quantized inputs, at least inputCount long
+     */
+    void forward(double[] activations, byte[] input) {
+        if (rowOffsets != null) {
+            sparseForward(activations);
+            return;
+        }
+        final int n = inputCount;
+        final byte[] w = weights;
+
+        int inputSum = 0;
+        for (int j = 0; j < n; j++) {
+            byte q = quantize(activations[sources[j]], inputScale, inputZeroPoint);
+            input[j] = q;
+            inputSum += q;
+        }
+
+        for (int i = 0, row = 0; i < size; i++, row += n) {
+            int acc = 0;
+            for (int j = 0; j < n; j++) {
+                acc += input[j] * w[row + j];
+            }
+            long zw = weightZeroPoints[i];
+            long sum = acc - zw * inputSum - (long) inputZeroPoint * weightSums[i] + n * zw * inputZeroPoint;
+            double net = inputScale * weightScales[i] * sum;
+            activations[targetOffset + i] = kernels[i].apply(net);
+        }
+    }
+
+    private void sparseForward(double[] activations) {
+        final byte[] w = weights;
+        final int[] s = sources;
+
+        for (int i = 0; i < size; i++) {
+            final int start = rowOffsets[i];
+            final int end = rowOffsets[i + 1];
+            int acc = 0;
+            int inputSum = 0;
+            for (int k = start; k < end; k++) {
+                byte q = quantize(activations[s[k]], inputScale, inputZeroPoint);
+                acc += q * w[k];
+                inputSum += q;
+            }
+            long zw = weightZeroPoints[i];
+            long sum = acc - zw * inputSum - (long) inputZeroPoint * weightSums[i] + (end - start) * zw * inputZeroPoint;
+            double net = inputScale * weightScales[i] * sum;
+            activations[targetOffset + i] = kernels[i].apply(net);
+        }
+    }
+
+    /**
+     * Returns index of the first weight of the specified neuron
+     */
+    int rowStart(int i) {
+        return rowOffsets != null ? rowOffsets[i] : i * inputCount;
+    }
+
+    /**
+     * Returns index after the last weight of the specified neuron
+     */
+    int rowEnd(int i) {
+        return rowOffsets != null ? rowOffsets[i + 1] : (i + 1) * inputCount;
+    }
+
+}
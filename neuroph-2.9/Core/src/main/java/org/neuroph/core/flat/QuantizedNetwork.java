@@ -0,0 +1,330 @@
+/**
+ * Copyright 2014 Neuroph Project http://neuroph.sourceforge.net
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.neuroph.core.flat;
+
+import org.neuroph.core.NeuralNetwork;
+import org.neuroph.core.data.DataSet;
+import org.neuroph.core.data.DataSetRow;
+import org.neuroph.core.exceptions.NeurophException;
+import org.neuroph.core.exceptions.VectorSizeMismatchException;
+
+import java.io.Serializable;
+
+/**
+ * 量化网络.
+ * <p>
+ * Post-training 8 bit quantization of a compiled network. Weights are stored as
+ * signed bytes with scale and zero point for each neuron or for each layer, and
+ * inputs of each layer are quantized to bytes with scale and zero point
+ * calibrated on a sample data set, so weighted sums are calculated with integer
+ * arithmetic only. Net inputs are converted back to real values before transfer
+ * functions are applied, and outputs are returned as doubles.
+ * <pre>
+ * QuantizedNetwork quantized = QuantizedNetwork.quantize(network, calibrationSet);
+ * QuantizationReport report = QuantizationReport.create(network, quantized, testSet);
+ * </pre>
+ * Quantized network is a snapshot: it is not attached to the source network
+ * and should be quantized again after the source network is trained. Like
+ * {@link FlatNetwork}, instances can be shared by threads, each with its own
+ * {@link QuantizedInferenceSession}.
+ * Supported networks are the same as for {@link FlatNetwork#compile(NeuralNetwork)}: networks
+ * whose neurons calculate weighted sums of their input connections, like {@link org.neuroph.nnet.MultiLayerPerception}.
+ * Networks with layers which keep their own parameters (see {@link org.neuroph.core.Layer#getParameters()}),
+ * like tensor layers of {@link org.neuroph.nnet.ConvolutionalNetwork}, are not quantized and are rejected
+ * with {@link NeurophException}.
+ *
+ * @author Zoran Sevarac <sevarac@gmail.com>
+ * @see org.neuroph.eval.QuantizationReport
+ */
+public class QuantizedNetwork implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Granularity of weight scale and zero point
+     */
+    public enum Granularity {
+        /**
+         * One scale and zero point for all weights of a layer
+         */
+        PER_LAYER,
+        /**
+         * Separate scale and zero point for input weights of each neuron
+         */
+        PER_NEURON
+    }
+
+    /**
+     * Total number of activation slots
+     */
+    private final int slotsCount;
+
+    /**
+     * Activation slots of network input neurons
+     */
+    private final int[] inputSlots;
+
+    /**
+     * Activation slots of network output neurons
+     */
+    private final int[] outputSlots;
+
+    /**
+     * Activation slots of bias neurons, which always have output 1
+     */
+    private final int[] biasSlots;
+
+    /**
+     * Quantized layers in calculation order
+     */
+    private final QuantizedLayer[] layers;
+
+    /**
+     * Granularity used to quantize weights
+     */
+    private final Granularity granularity;
+
+    QuantizedNetwork(int slotsCount, int[] inputSlots, int[] outputSlots, int[] biasSlots, QuantizedLayer[] layers, Granularity granularity) {
+        this.slotsCount = slotsCount;
+        this.inputSlots = inputSlots;
+        this.outputSlots = outputSlots;
+        this.biasSlots = biasSlots;
+        this.layers = layers;
+        this.granularity = granularity;
+    }
+
+    /**
+     * Quantizes specified network with separate weight scale for each neuron
+     *
+     * @param network        trained neural network
+     * @param calibrationSet sample inputs used to calibrate activation ranges
+     * @return quantized network
+     * @throws NeurophException if network structure is not supported, like convolutional network with tensor layers
+     */
+    public static QuantizedNetwork quantize(NeuralNetwork<?> network, DataSet calibrationSet) {
+        return quantize(network, calibrationSet, Granularity.PER_NEURON);
+    }
+
+    /**
+     * Quantizes specified network
+     *
+     * @param network        trained neural network
+     * @param calibrationSet sample inputs used to calibrate activation ranges
+     * @param granularity    granularity of weight scale and zero point
+     * @return quantized network
+     * @throws NeurophException if network structure is not supported, like convolutional network with tensor layers
+     */
+    public static QuantizedNetwork quantize(NeuralNetwork<?> network, DataSet calibrationSet, Granularity granularity) {
+        for (int l = 0; l < network.getLayersCount(); l++) {
+            if (network.getLayerAt(l).getParameters().length > 0) {
+                throw new NeurophException("Cannot quantize network: layer " + l + " has its own parameters, like convolution kernels");
+            }
+        }
+        return FlatNetwork.compile(network).quantize(calibrationSet, granularity);
+    }
+
+    /**
+     * Creates new session for calculating this network. Each thread should use its own session.
+     *
+     * @return new inference session
+     */
+    public QuantizedInferenceSession createSession() {
+        return new QuantizedInferenceSession(this);
+    }
+
+    /**
+     * Calculates network output for the specified input.
+     * This method allocates new buffers on each call, use
+     * {@link QuantizedInferenceSession} to calculate many inputs.
+     *
+     * @param input network input vector
+     * @return new array with network output
+     */
+    public double[] calculate(double... input) {
+        double[] output = new double[outputSlots.length];
+        calculate(input, new double[slotsCount], new byte[getMaxInputCount()], output);
+        return output;
+    }
+
+    /**
+     * Calculates network outputs for all input vectors in the batch
+     *
+     * @param inputs input vectors, one row for each sample
+     * @return network outputs, one row for each sample
+     */
+    public double[][] calculate(double[][] inputs) {
+        double[][] outputs = new double[inputs.length][outputSlots.length];
+        double[] activations = new double[slotsCount];
+        byte[] buffer = new byte[getMaxInputCount()];
+        for (int i = 0; i < inputs.length; i++) {
+            calculate(inputs[i], activations, buffer, outputs[i]);
+        }
+        return outputs;
+    }
+
+    /**
+     * Calculates network output using the specified buffers
+     *
+     * @param input       network input vector
+     * @param activations activation buffer, one element for each slot
+     * @param buffer      buffer for quantized layer inputs, {@link #getMaxInputCount()} long
+     * @param output      array for network output
+     */
+    void calculate(double[] input, double[] activations, byte[] buffer, double[] output) {
+        if (input.length != inputSlots.length) {
+            throw new VectorSizeMismatchException("Input vector size does not match network input dimension!");
+        }
+        for (int i = 0; i < inputSlots.length; i++) {
+            activations[inputSlots[i]] = input[i];
+        }
+        for (int i = 0; i < biasSlots.length; i++) {
+            activations[biasSlots[i]] = 1d;
+        }
+        for (QuantizedLayer layer : layers) {
+            layer.forward(activations, buffer);
+        }
+        for (int i = 0; i < outputSlots.length; i++) {
+            output[i] = activations[outputSlots[i]];
+        }
+    }
+
+    /**
+     * Returns largest number of inputs of any layer
+     *
+     * @return size of quantized input buffer
+     */
+    int getMaxInputCount() {
+        int max = 0;
+        for (QuantizedLayer layer : layers) {
+            max = Math.max(max, layer.inputCount);
+        }
+        return max;
+    }
+
+    /**
+     * Returns number of activation slots, one for each neuron
+     *
+     * @return number of activation slots
+     */
+    int getSlotsCount() {
+        return slotsCount;
+    }
+
+    /**
+     * Returns number of network inputs
+     *
+     * @return number of network inputs
+     */
+    public int getInputsCount() {
+        return inputSlots.length;
+    }
+
+    /**
+     * Returns number of network outputs
+     *
+     * @return number of network outputs
+     */
+    public int getOutputsCount() {
+        return outputSlots.length;
+    }
+
+    /**
+     * Returns number of quantized (non input) layers
+     *
+     * @return number of quantized layers
+     */
+    public int getLayersCount() {
+        return layers.length;
+    }
+
+    /**
+     * Returns total number of weights in all quantized layers
+     *
+     * @return total number of weights
+     */
+    public int getWeightsCount() {
+        int count = 0;
+        for (QuantizedLayer layer : layers) {
+            count += layer.weights.length;
+        }
+        return count;
+    }
+
+    /**
+     * Returns granularity used to quantize weights
+     *
+     * @return weight granularity
+     */
+    public Granularity getGranularity() {
+        return granularity;
+    }
+
+    /**
+     * Returns real values of quantized weights of the specified layer, in the
+     * order of {@link FlatNetwork#getSourceWeights()}
+     *
+     * @param layerIdx index of quantized layer
+     * @return dequantized weights of the layer
+     */
+    public double[] getWeights(int layerIdx) {
+        QuantizedLayer layer = layers[layerIdx];
+        double[] result = new double[layer.weights.length];
+        for (int i = 0; i < layer.size; i++) {
+            for (int k = layer.rowStart(i), end = layer.rowEnd(i); k < end; k++) {
+                result[k] = layer.weightScales[i] * (layer.weights[k] - layer.weightZeroPoints[i]);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Calibrates input ranges of all layers of the specified network
+     *
+     * @param network        compiled network
+     * @param layers         compiled layers
+     * @param calibrationSet sample inputs
+     * @return minimum and maximum input of each layer
+     */
+    static double[][] calibrate(FlatNetwork network, FlatLayer[] layers, DataSet calibrationSet) {
+        if (calibrationSet == null || calibrationSet.isEmpty()) {
+            throw new IllegalArgumentException("Calibration data set cannot be empty!");
+        }
+        double[][] ranges = new double[layers.length][2];
+        for (double[] range : ranges) {
+            range[0] = Double.POSITIVE_INFINITY;
+            range[1] = Double.NEGATIVE_INFINITY;
+        }
+        double[] activations = new double[network.getSlotsCount()];
+        double[] output = new double[network.getOutputsCount()];
+        for (int r = 0; r < calibrationSet.size(); r++) {
+            DataSetRow row = calibrationSet.getRowAt(r);
+            network.calculate(row.getInput(), activations, output);
+            for (int l = 0; l < layers.length; l++) {
+                int[] sources = layers[l].sources;
+                double[] range = ranges[l];
+                for (int j = 0; j < sources.length; j++) {
+                    double value = activations[sources[j]];
+                    range[0] = Math.min(range[0], value);
+                    range[1] = Math.max(range[1], value);
+                }
+            }
+        }
+        return ranges;
+    }
+
+}
@@ -0,0 +1,165 @@
+/**
+ * Copyright 2014 Neuroph Project http://neuroph.sourceforge.net
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.neuroph.core.flat;
+
+import java.util.Arrays;
+
+/**
+ * 训练会话.
+ * <p>
+ * Execution context for calculating weight gradients of a {@link FlatNetwork}.
+ * Session keeps activations, net inputs and errors of one sample, and a private
+ * gradient buffer where gradients of all samples processed since the last
+ * {@link #clearGradients()} are summed. Gradient of each weight is
+ * delta * input, in the order of {@link FlatNetwork#getSourceWeights()}.
+ * <p>
+ * Like {@link InferenceSession}, each thread should use its own session, so many
+ * threads can process parts of the same batch and merge their gradients afterwards.
+ *
+ * @author Zoran Sevarac <sevarac@gmail.com>
+ * @see FlatNetwork#createTrainingSession()
+ */
+public class TrainingSession {
+
+    /**
+     * Compiled network trained by this session
+     */
+    private final FlatNetwork network;
+
+    /**
+     * Neuron activations, one element for each activation slot
+     */
+    private final double[] activations;
+
+    /**
+     * Neuron net inputs, one element for each activation slot
+     */
+    private final double[] netInputs;
+
+    /**
+     * Back propagated errors, one element for each activation slot
+     */
+    private final double[] errors;
+
+    /**
+     * Output buffer
+     */
+    private final double[] output;
+
+    /**
+     * Sum of weight gradients, one element for each weight
+     */
+    private final double[] gradients;
+
+    /**
+     * Creates new session for the specified compiled network
+     *
+     * @param network compiled network
+     */
+    public TrainingSession(FlatNetwork network) {
+        this.network = network;
+        this.activations = new double[network.getSlotsCount()];
+        this.netInputs = new double[network.getSlotsCount()];
+        this.errors = new double[network.getSlotsCount()];
+        this.output = new double[network.getOutputsCount()];
+        this.gradients = new double[network.getWeightsCount()];
+    }
+
+    /**
+     * Calculates network output for the specified input.
+     * Returned array is the output buffer of this session, which is overwritten by the next call.
+     *
+     * @param input network input vector
+     * @return network output
+     */
+    public double[] forward(double[] input) {
+        network.forward(input, activations, netInputs, output);
+        return output;
+    }
+
+    /**
+     * Back propagates output error of the last {@link #forward(double[])} call
+     * and adds weight gradients to the gradient buffer
+     *
+     * @param outputError output error (actual - desired output) for each network output
+     */
+    public void backward(double[] outputError) {
+        network.backward(outputError, activations, netInputs, errors, gradients);
+    }
+
+    /**
+     * Back propagates output error of the last {@link #forward(double[])} call and applies
+     * weight changes -learningRate * delta * input directly to the weights of the compiled
+     * network. Weights are shared by all sessions and updated without locks, so concurrent
+     * sessions may overwrite each other's changes (Hogwild style training).
+     * Call {@link FlatNetwork#flush()} to copy trained weights to the source network.
+     *
+     * @param outputError  output error (actual - desired output) for each network output
+     * @param learningRate learning rate
+     */
+    public void backward(double[] outputError, double learningRate) {
+        network.backward(outputError, activations, netInputs, errors, learningRate);
+    }
+
+    /**
+     * Returns sum of weight gradients since the last {@link #clearGradients()} call
+     *
+     * @return gradient buffer of this session
+     */
+    public double[] getGradients() {
+        return gradients;
+    }
+
+    /**
+     * Sets all gradients to zero
+     */
+    public void clearGradients() {
+        Arrays.fill(gradients, 0d);
+    }
+
+    /**
+     * Adds gradients of the other session to gradients of this session
+     *
+     * @param other session of the same network
+     */
+    public void addGradients(TrainingSession other) {
+        double[] otherGradients = other.gradients;
+        for (int i = 0; i < gradients.length; i++) {
+            gradients[i] += otherGradients[i];
+        }
+    }
+
+    /**
+     * Returns output of the last {@link #forward(double[])} call
+     *
+     * @return output buffer of this session
+     */
+    public double[] getOutput() {
+        return output;
+    }
+
+    /**
+     * Returns compiled network trained by this session
+     *
+     * @return compiled network
+     */
+    public FlatNetwork getNetwork() {
+        return network;
+    }
+
+}
@@ -0,0 +1,5 @@
+/**
+ * Provides compiled, array backed execution of neural networks.
+ */
+
+package org.neuroph.core.flat;
@@ -32,8 +32,8 @@ public class WeightedSum extends InputFunction {
     public double getOutput(List<Connection> inputConnections) {
         double output = 0d;
 
-        for (Connection connection : inputConnections) {
-            output += connection.getWeightedInput();
+        for (int i = 0; i < inputConnections.size(); i++) {
+            output += inputConnections.get(i).getWeightedInput();
         }
 
         return output;
@@ -119,6 +119,16 @@ abstract public class IterativeLearning extends LearningRule implements Serializ
         return iterationsLimited;
     }
 
+    /**
+     * Sets whether learning stops after max iterations. Used to restore the limit
+     * after {@link #setMaxIterations(int)} was used for a temporary limit.
+     *
+     * @param iterationsLimited true if learning stops after max iterations
+     */
+    public void setIterationsLimited(boolean iterationsLimited) {
+        this.iterationsLimited = iterationsLimited;
+    }
+
     /**
      * Returns current iteration of this learning algorithm
      *
@@ -193,6 +203,7 @@ abstract public class IterativeLearning extends LearningRule implements Serializ
             this.currentIteration++;
             // afterEpoch()的过程中batchMode==true模式下会触发权值更新.
             afterEpoch();
+            weightsChanged();
 
             // todo 迭代后置处理结束的内容是否可以归纳总结为一个新的方法.
             // todo 后置处理是否可以链式调用约束，必须完成前一个阶段的处理才可以进入下一个阶段的处理.
@@ -266,6 +277,7 @@ abstract public class IterativeLearning extends LearningRule implements Serializ
         beforeEpoch();
         doLearningEpoch(trainingSet);
         afterEpoch();
+        weightsChanged();
         // notify listeners        
         fireLearningEvent(new LearningEvent(this, LearningEvent.Type.LEARNING_STOPPED));
     }
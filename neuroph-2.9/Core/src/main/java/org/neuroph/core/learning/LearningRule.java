@@ -122,11 +122,20 @@ abstract public class LearningRule implements Serializable {
     protected void onStop() {
     }
 
+    /**
+     * Tells the network that its weights were changed by this rule, so they are copied to its compiled version
+     */
+    protected final void weightsChanged() {
+        if (neuralNetwork != null) {
+            neuralNetwork.weightsChanged();
+        }
+    }
+
     /**
      * Stops learning
      */
-    public synchronized void stopLearning() {
-        // note: as long as all this method does is assign stopLearning, it doesn't need to be synchronized if stopLearning is a VOLATILE field. - Jon Tait 6-19-2010
+    public void stopLearning() {
+        // stopLearning is a volatile field, so no lock is needed - this is checked for each training pattern
         this.stopLearning = true;
     }
 
@@ -135,8 +144,8 @@ abstract public class LearningRule implements Serializable {
      *
      * @return true if learning has stopped, false otherwise
      */
-    public synchronized boolean isStopped() {
-        // note: as long as all this method does is return stopLearning, it doesn't need to be synchronized if stopLearning is a VOLATILE field. - Jon Tait 6-19-2010
+    public boolean isStopped() {
+        // stopLearning is a volatile field, so no lock is needed - this is checked for each training pattern
         return this.stopLearning;
     }
 
@@ -177,4 +186,4 @@ abstract public class LearningRule implements Serializable {
      * @param trainingSet training set
      */
     abstract public void learn(DataSet trainingSet);
-}
\ No newline at end of file
+}
\ No newline at end of file
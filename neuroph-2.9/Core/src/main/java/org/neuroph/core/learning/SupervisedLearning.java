@@ -16,8 +16,10 @@
 package org.neuroph.core.learning;
 
 import java.io.Serializable;
+import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Random;
 
 import org.neuroph.core.Connection;
 import org.neuroph.core.Layer;
@@ -36,7 +38,9 @@ import org.neuroph.core.learning.stop.MaxErrorStop;
  * It extends IterativeLearning, and provides general supervised learning principles.
  * Based on Template Method Pattern with abstract method calculateWeightChanges
  * <p>
- * TODO: random pattern order
+ * Weights can be updated after each pattern (online), after each epoch (batch mode),
+ * or after every batchSize patterns (mini-batch mode), and training patterns can be
+ * shuffled before each epoch.
  *
  * @author Zoran Sevarac <sevarac@gmail.com>
  * @modifier caogl<caogaoli058 @ gmail.com>
@@ -83,6 +87,38 @@ abstract public class SupervisedLearning extends IterativeLearning implements Se
      */
     private boolean batchMode = false;
 
+    /**
+     * Number of patterns after which weights are updated in batch mode.
+     * Zero means that weights are updated once per epoch.
+     */
+    private int batchSize = 0;
+
+    /**
+     * Number of patterns whose weight changes have been accumulated since the last update in batch mode
+     */
+    private transient int batchPatternsCount;
+
+    /**
+     * Setting to determine if training patterns are shuffled before each epoch.
+     * False by default.
+     */
+    private boolean shuffle = false;
+
+    /**
+     * Random number generator used for shuffling
+     */
+    private Random random = new Random();
+
+    /**
+     * Pattern order for the current epoch, used when shuffling
+     */
+    private transient int[] patternOrder;
+
+    /**
+     * Row reused for patterns learned in shuffled order
+     */
+    private transient DataSetRow patternRow;
+
     // 误差计算函数.
     private ErrorFunction errorFunction;
 
@@ -140,6 +176,7 @@ abstract public class SupervisedLearning extends IterativeLearning implements Se
         super.onStart();
         minErrorChangeIterationsCount = 0;
         previousEpochError = 0d;
+        batchPatternsCount = 0;
     }
 
     @Override
@@ -158,9 +195,10 @@ abstract public class SupervisedLearning extends IterativeLearning implements Se
             minErrorChangeIterationsCount = 0;
         }
 
-        // if learning is performed in batch mode, apply accumulated weight changes from this epoch        
-        if (batchMode == true) {
+        // if learning is performed in batch mode, apply weight changes accumulated since the last update
+        if (batchMode && batchPatternsCount > 0) {
             doBatchWeightsUpdate();
+            batchPatternsCount = 0;
         }
     }
 
@@ -176,6 +214,19 @@ abstract public class SupervisedLearning extends IterativeLearning implements Se
      */
     @Override
     public void doLearningEpoch(DataSet trainingSet) {
+        if (shuffle) {
+            // iterate training set in random order, without changing the data set itself
+            int[] order = shufflePatternOrder(trainingSet.size());
+            DataSetRow row = patternRow(trainingSet);
+            for (int i = 0; i < order.length && !isStopped(); i++) {
+                // values are copied to reusable row, so dense data sets do not create row for each pattern
+                trainingSet.getInput(order[i], row.getInput());
+                trainingSet.getDesiredOutput(order[i], row.getDesiredOutput());
+                learnPattern(row);
+            }
+            return;
+        }
+
         Iterator<DataSetRow> iterator = trainingSet.iterator();
         // 遍历全部的训练集数据，进行模型训练.
         // iterate all elements from training set - maybe remove isStopped from here
@@ -187,6 +238,36 @@ abstract public class SupervisedLearning extends IterativeLearning implements Se
         }
     }
 
+    private DataSetRow patternRow(DataSet trainingSet) {
+        if (patternRow == null || patternRow.getInput().length != trainingSet.getInputSize()
+                || patternRow.getDesiredOutput().length != trainingSet.getOutputSize()) {
+            patternRow = new DataSetRow(new double[trainingSet.getInputSize()], new double[trainingSet.getOutputSize()]);
+        }
+        return patternRow;
+    }
+
+    /**
+     * Returns random permutation of pattern indexes, using Fisher-Yates shuffle
+     *
+     * @param size number of patterns
+     * @return shuffled pattern indexes
+     */
+    protected int[] shufflePatternOrder(int size) {
+        if (patternOrder == null || patternOrder.length != size) {
+            patternOrder = new int[size];
+        }
+        for (int i = 0; i < size; i++) {
+            patternOrder[i] = i;
+        }
+        for (int i = size - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int tmp = patternOrder[i];
+            patternOrder[i] = patternOrder[j];
+            patternOrder[j] = tmp;
+        }
+        return patternOrder;
+    }
+
     /**
      * Trains network with the input and desired output pattern from the specified training element
      *
@@ -216,6 +297,10 @@ abstract public class SupervisedLearning extends IterativeLearning implements Se
         if (!batchMode) {
             // batch mode updates are done i doBatchWeightsUpdate
             applyWeightChanges();
+        } else if (++batchPatternsCount == batchSize) {
+            // mini-batch is complete, apply accumulated weight changes
+            doBatchWeightsUpdate();
+            batchPatternsCount = 0;
         }
     }
 
@@ -224,19 +309,18 @@ abstract public class SupervisedLearning extends IterativeLearning implements Se
      * and it will be trigger off the weight update operation after each patten finish learning operation。
      */
     private void applyWeightChanges() {
-        List<Layer> layers = neuralNetwork.getLayers();
         for (int i = neuralNetwork.getLayersCount() - 1; i > 0; i--) {
             // iterate neurons at each layer
-            for (Neuron neuron : layers.get(i)) {
+            Layer layer = neuralNetwork.getLayerAt(i);
+            for (int n = 0; n < layer.getNeuronsCount(); n++) {
+                Neuron neuron = layer.getNeuronAt(n);
                 // iterate connections/weights for each neuron
-                for (Connection connection : neuron.getInputConnections()) {
+                List<Connection> connections = neuron.getInputConnections();
+                for (int c = 0; c < connections.size(); c++) {
+                    Connection connection = connections.get(c);
                     // for each connection weight apply accumulated weight change
                     Weight weight = connection.getWeight();
-                    if (!isBatchMode()) {
-                        weight.value += weight.weightChange;
-                    } else {
-                        weight.value += (weight.weightChange / getTrainingSet().size());
-                    }
+                    weight.value += weight.weightChange;
                     // reset deltaWeight
                     weight.weightChange = 0;
                 }
@@ -246,28 +330,65 @@ abstract public class SupervisedLearning extends IterativeLearning implements Se
 
     /**
      * This method updates network weights in batch mode - use accumulated weights change stored in Weight.deltaWeight
-     * It is executed after each learning epoch, only if learning is done in batch mode.
+     * It is executed after each mini-batch and at the end of each learning epoch, only if learning is done in batch mode.
+     * Accumulated changes are averaged over the number of patterns in the batch.
      *
      * @see SupervisedLearning#doLearningEpoch(org.neuroph.core.data.DataSet)
      */
     protected void doBatchWeightsUpdate() {
         // iterate layers from output to input
-        List<Layer> layers = neuralNetwork.getLayers();
         for (int i = neuralNetwork.getLayersCount() - 1; i > 0; i--) {
             // iterate neurons at each layer
-            for (Neuron neuron : layers.get(i).getNeurons()) {
+            Layer layer = neuralNetwork.getLayerAt(i);
+            for (int n = 0; n < layer.getNeuronsCount(); n++) {
+                Neuron neuron = layer.getNeuronAt(n);
                 // iterate connections/weights for each neuron
-                for (Connection connection : neuron.getInputConnections()) {
+                List<Connection> connections = neuron.getInputConnections();
+                for (int c = 0; c < connections.size(); c++) {
+                    Connection connection = connections.get(c);
                     // for each connection weight apply accumulated weight change
                     Weight weight = connection.getWeight();
-                    // apply delta weight which is the sum of delta weights in batch mode    - TODO: add mini batch
-                    weight.value += weight.weightChange / getTrainingSet().size();
+                    // apply delta weight which is the sum of delta weights in batch mode
+                    weight.value += weight.weightChange / batchPatternsCount;
                     weight.weightChange = 0; // reset deltaWeight
                 }
             }
         }
     }
 
+    /**
+     * Assigns stable index to each distinct network weight, in the order of layers, neurons
+     * and input connections. Weight shared by several connections gets one index.
+     * Learning rules keep per weight state in primitive arrays indexed by {@link Weight#getIndex()},
+     * instead of allocating a training data object for each weight.
+     *
+     * @return distinct network weights in index order
+     */
+    protected Weight[] indexWeights() {
+        List<Layer> layers = neuralNetwork.getLayers();
+        for (Layer layer : layers) {
+            for (Neuron neuron : layer.getNeurons()) {
+                for (Connection connection : neuron.getInputConnections()) {
+                    connection.getWeight().setIndex(-1);
+                }
+            }
+        }
+
+        List<Weight> weights = new ArrayList<>();
+        for (Layer layer : layers) {
+            for (Neuron neuron : layer.getNeurons()) {
+                for (Connection connection : neuron.getInputConnections()) {
+                    Weight weight = connection.getWeight();
+                    if (weight.getIndex() < 0) {
+                        weight.setIndex(weights.size());
+                        weights.add(weight);
+                    }
+                }
+            }
+        }
+        return weights.toArray(new Weight[weights.size()]);
+    }
+
     /**
      * Returns true if learning is performed in batch mode, false otherwise
      *
@@ -286,6 +407,66 @@ abstract public class SupervisedLearning extends IterativeLearning implements Se
         this.batchMode = batchMode;
     }
 
+    /**
+     * Returns number of patterns after which weights are updated in batch mode
+     *
+     * @return mini-batch size, or zero if weights are updated once per epoch
+     */
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    /**
+     * Sets number of patterns after which weights are updated, and turns batch mode on.
+     * Zero means that weights are updated once per epoch.
+     *
+     * @param batchSize mini-batch size
+     */
+    public void setBatchSize(int batchSize) {
+        if (batchSize < 0) {
+            throw new IllegalArgumentException("Batch size cannot be negative: " + batchSize);
+        }
+        this.batchSize = batchSize;
+        setBatchMode(true);
+    }
+
+    /**
+     * Returns number of patterns whose weight changes are accumulated for the next batch update
+     *
+     * @return number of patterns in current batch
+     */
+    protected int getBatchPatternsCount() {
+        return batchPatternsCount;
+    }
+
+    /**
+     * Returns true if training patterns are shuffled before each epoch
+     *
+     * @return true if training patterns are shuffled
+     */
+    public boolean isShuffle() {
+        return shuffle;
+    }
+
+    /**
+     * Sets shuffling of training patterns before each epoch on/off (true/false).
+     * Data set itself is not changed.
+     *
+     * @param shuffle shuffle setting
+     */
+    public void setShuffle(boolean shuffle) {
+        this.shuffle = shuffle;
+    }
+
+    /**
+     * Sets random number generator used for shuffling training patterns
+     *
+     * @param random random number generator
+     */
+    public void setRandom(Random random) {
+        this.random = random;
+    }
+
     /**
      * Sets allowed network error, which indicates when to stopLearning training
      *
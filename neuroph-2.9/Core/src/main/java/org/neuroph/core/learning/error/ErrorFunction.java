@@ -37,7 +37,7 @@ public interface ErrorFunction {
      *
      * @param predictedOutput actual network output
      * @param targetOutput    target/desired output
-     * @return returns pattern error vector
+     * @return returns pattern error vector, which may be reused by the next call
      */
     public double[] addPatternError(double[] predictedOutput, double[] targetOutput);
 
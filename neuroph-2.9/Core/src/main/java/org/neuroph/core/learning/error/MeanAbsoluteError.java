@@ -37,6 +37,11 @@ public final class MeanAbsoluteError implements ErrorFunction, Serializable {
      */
     private transient int patternCount;
 
+    /**
+     * Pattern error buffer, reused for all patterns of the same size
+     */
+    private transient double[] patternError;
+
     public MeanAbsoluteError() {
         reset();
     }
@@ -45,7 +50,9 @@ public final class MeanAbsoluteError implements ErrorFunction, Serializable {
     public double[] addPatternError(double[] predictedOutput, double[] targetOutput) {
         // suggest add assert.
         assert predictedOutput.length == targetOutput.length;
-        double[] patternError = new double[targetOutput.length];
+        if (patternError == null || patternError.length != targetOutput.length) {
+            patternError = new double[targetOutput.length];
+        }
 
         for (int i = 0; i < predictedOutput.length; i++) {
             patternError[i] = predictedOutput[i] - targetOutput[i];
@@ -36,6 +36,11 @@ public final class MeanSquaredError implements ErrorFunction, Serializable {
      */
     private transient float patternCount;
 
+    /**
+     * Pattern error buffer, reused for all patterns of the same size
+     */
+    private transient double[] patternError;
+
     public MeanSquaredError() {
         reset();
     }
@@ -44,7 +49,9 @@ public final class MeanSquaredError implements ErrorFunction, Serializable {
     @Override
     public double[] addPatternError(double[] predictedOutput, double[] targetOutput) {
         assert predictedOutput.length == targetOutput.length;
-        double[] patternError = new double[targetOutput.length];
+        if (patternError == null || patternError.length != targetOutput.length) {
+            patternError = new double[targetOutput.length];
+        }
 
         for (int i = 0; i < predictedOutput.length; i++) {
             patternError[i] = predictedOutput[i] - targetOutput[i];
@@ -0,0 +1,185 @@
+/**
+ * Copyright 2014 Neuroph Project http://neuroph.sourceforge.net
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.neuroph.core.transfer;
+
+/**
+ * 快速近似数学函数.
+ * <p></p>
+ * Table based approximations of the elementary functions used by the
+ * transfer functions in fast math mode. Each function reads two neighbouring
+ * entries from a precomputed table and interpolates linearly between them,
+ * which is several times cheaper than {@link Math#exp(double)} and
+ * {@link Math#log(double)} while staying well below the precision that
+ * matters for training. The maximum absolute error of each function is
+ * published as a constant next to it.
+ * <p>
+ * Tables are shared by all threads and never modified after class
+ * initialization, so the functions are safe to call concurrently.
+ *
+ * @see Sigmoid#setFastMath(boolean)
+ * @see Tanh#setFastMath(boolean)
+ * @see Gaussian#setFastMath(boolean)
+ * @see Log#setFastMath(boolean)
+ */
+public final class FastMath {
+
+    /**
+     * Maximum absolute error of {@link #sigmoid(double)}
+     */
+    public static final double SIGMOID_MAX_ERROR = 1e-6;
+
+    /**
+     * Maximum absolute error of {@link #tanh(double)}
+     */
+    public static final double TANH_MAX_ERROR = 2e-6;
+
+    /**
+     * Maximum relative error of {@link #exp(double)}
+     */
+    public static final double EXP_MAX_ERROR = 2e-7;
+
+    /**
+     * Maximum absolute error of {@link #log(double)}
+     */
+    public static final double LOG_MAX_ERROR = 2e-7;
+
+    /**
+     * Sigmoid is tabulated on [-SIGMOID_RANGE, SIGMOID_RANGE] and saturated outside
+     */
+    private static final double SIGMOID_RANGE = 16d;
+
+    /**
+     * Number of sigmoid table entries per unit of input
+     */
+    private static final double SIGMOID_SCALE = 128d;
+
+    /**
+     * Number of entries per unit of the 2^x and ln(x) tables
+     */
+    private static final int FRACTION_SCALE = 1024;
+
+    private static final double LN2 = Math.log(2d);
+
+    private static final double LOG2E = 1d / LN2;
+
+    // tables for sigmoid and 2^x have one spare entry past the end of the
+    // range, since rounding can move the index onto the last point
+
+    private static final double[] SIGMOID = new double[(int) (2 * SIGMOID_RANGE * SIGMOID_SCALE) + 2];
+
+    /**
+     * 2^x for x in [0, 1]
+     */
+    private static final double[] EXP2 = new double[FRACTION_SCALE + 2];
+
+    /**
+     * ln(x) for x in [1, 2]
+     */
+    private static final double[] LN = new double[FRACTION_SCALE + 1];
+
+    static {
+        for (int i = 0; i < SIGMOID.length; i++) {
+            SIGMOID[i] = 1d / (1d + Math.exp(-(i / SIGMOID_SCALE - SIGMOID_RANGE)));
+        }
+        for (int i = 0; i < EXP2.length; i++) {
+            EXP2[i] = Math.pow(2d, (double) i / FRACTION_SCALE);
+        }
+        for (int i = 0; i < LN.length; i++) {
+            LN[i] = Math.log(1d + (double) i / FRACTION_SCALE);
+        }
+    }
+
+    private FastMath() {
+    }
+
+    /**
+     * Returns approximation of 1 / (1 + e^(-x)).
+     *
+     * @param x function argument
+     * @return sigmoid of x, within {@link #SIGMOID_MAX_ERROR}
+     */
+    public static double sigmoid(double x) {
+        if (x >= SIGMOID_RANGE) {
+            return 1d;
+        } else if (x <= -SIGMOID_RANGE) {
+            return 0d;
+        } else if (x != x) {
+            return Double.NaN;
+        }
+        double t = (x + SIGMOID_RANGE) * SIGMOID_SCALE;
+        int i = (int) t;
+        double low = SIGMOID[i];
+        return low + (t - i) * (SIGMOID[i + 1] - low);
+    }
+
+    /**
+     * Returns approximation of the hyperbolic tangent, computed as
+     * 2 * sigmoid(2x) - 1.
+     *
+     * @param x function argument
+     * @return tanh of x, within {@link #TANH_MAX_ERROR}
+     */
+    public static double tanh(double x) {
+        return 2d * sigmoid(2d * x) - 1d;
+    }
+
+    /**
+     * Returns approximation of e^x. The argument is split into integer and
+     * fractional power of two; the fractional part is interpolated from the
+     * table and the integer part is put directly into the exponent bits.
+     *
+     * @param x function argument
+     * @return e^x, within {@link #EXP_MAX_ERROR} relative error
+     */
+    public static double exp(double x) {
+        if (x < -708d) {
+            return 0d;
+        } else if (!(x < 709d)) {
+            // overflow or NaN
+            return Math.exp(x);
+        }
+        double t = x * LOG2E;
+        double k = Math.floor(t);
+        double f = (t - k) * FRACTION_SCALE;
+        int i = (int) f;
+        double low = EXP2[i];
+        double fraction = low + (f - i) * (EXP2[i + 1] - low);
+        return fraction * Double.longBitsToDouble(((long) k + 1023) << 52);
+    }
+
+    /**
+     * Returns approximation of the natural logarithm. The argument is split
+     * into binary exponent and mantissa in [1, 2), and the logarithm of the
+     * mantissa is interpolated from the table. Arguments which are not
+     * positive normal numbers are delegated to {@link Math#log(double)}.
+     *
+     * @param x function argument
+     * @return ln(x), within {@link #LOG_MAX_ERROR}
+     */
+    public static double log(double x) {
+        if (!(x >= Double.MIN_NORMAL) || x == Double.POSITIVE_INFINITY) {
+            return Math.log(x);
+        }
+        long bits = Double.doubleToRawLongBits(x);
+        int exponent = (int) (bits >>> 52) - 1023;
+        double m = (Double.longBitsToDouble((bits & 0x000fffffffffffffL) | 0x3ff0000000000000L) - 1d) * FRACTION_SCALE;
+        int i = (int) m;
+        double low = LN[i];
+        return exponent * LN2 + low + (m - i) * (LN[i + 1] - low);
+    }
+
+}
@@ -42,6 +42,11 @@ public class Gaussian extends TransferFunction implements Serializable {
      */
     private double sigma = 0.5d;
 
+    /**
+     * Use table based approximation from {@link FastMath}
+     */
+    private boolean fastMath;
+
     /**
      * Creates an instance of Gaussian neuron transfer
      */
@@ -62,10 +67,18 @@ public class Gaussian extends TransferFunction implements Serializable {
         } catch (NumberFormatException e) {
             System.err.println("Invalid transfer function properties! Using default values.");
         }
+        Object fast = properties.getProperty("transferFunction.fastMath");
+        if (fast instanceof Boolean) {
+            this.fastMath = (Boolean) fast;
+        }
     }
 
     @Override
     public double getOutput(double totalInput) {
+        if (fastMath) {
+            output = FastMath.exp(-(totalInput * totalInput) / (2 * sigma * sigma));
+            return output;
+        }
         output = Math.exp(-Math.pow(totalInput, 2) / (2 * Math.pow(sigma, 2)));
         //  output = Math.exp(-0.5d * Math.pow(net, 2));
         return output;
@@ -96,4 +109,23 @@ public class Gaussian extends TransferFunction implements Serializable {
         this.sigma = sigma;
     }
 
+    /**
+     * Returns true if this function uses fast approximate math
+     *
+     * @return true if fast math mode is enabled
+     */
+    public boolean isFastMath() {
+        return fastMath;
+    }
+
+    /**
+     * Enables or disables fast math mode. In fast math mode output is
+     * approximated with {@link FastMath}, within {@link FastMath#EXP_MAX_ERROR}.
+     *
+     * @param fastMath true to use fast approximate math
+     */
+    public void setFastMath(boolean fastMath) {
+        this.fastMath = fastMath;
+    }
+
 }
@@ -15,6 +15,8 @@
  */
 package org.neuroph.core.transfer;
 
+import org.neuroph.util.Properties;
+
 /**
  * <pre>
  * Log neuron transfer function.
@@ -26,8 +28,54 @@ package org.neuroph.core.transfer;
  */
 public class Log extends TransferFunction {
 
+    /**
+     * Use table based approximation from {@link FastMath}
+     */
+    private boolean fastMath;
+
+    /**
+     * Creates an instance of Log neuron transfer function
+     */
+    public Log() {
+    }
+
+    /**
+     * Creates an instance of Log neuron transfer function with the
+     * specified properties.
+     *
+     * @param properties properties of the Log function
+     */
+    public Log(Properties properties) {
+        Object fast = properties.getProperty("transferFunction.fastMath");
+        if (fast instanceof Boolean) {
+            this.fastMath = (Boolean) fast;
+        }
+    }
+
+    /**
+     * Returns true if this function uses fast approximate math
+     *
+     * @return true if fast math mode is enabled
+     */
+    public boolean isFastMath() {
+        return fastMath;
+    }
+
+    /**
+     * Enables or disables fast math mode. In fast math mode output is
+     * approximated with {@link FastMath}, within {@link FastMath#LOG_MAX_ERROR}.
+     *
+     * @param fastMath true to use fast approximate math
+     */
+    public void setFastMath(boolean fastMath) {
+        this.fastMath = fastMath;
+    }
+
     @Override
     public double getOutput(double net) {
+        if (fastMath) {
+            return FastMath.log(net);
+        }
         return Math.log(net);
     }
 
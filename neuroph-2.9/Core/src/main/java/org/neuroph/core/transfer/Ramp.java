@@ -175,4 +175,13 @@ public class Ramp extends TransferFunction implements Serializable {
         this.yHigh = y;
     }
 
+    /**
+     * Returns the slope of the linear part of this function
+     *
+     * @return slope of the linear part of this function
+     */
+    public double getSlope() {
+        return this.slope;
+    }
+
 }
\ No newline at end of file
@@ -41,6 +41,11 @@ public class Sigmoid extends TransferFunction implements Serializable {
      */
     private double slope = 1d;
 
+    /**
+     * Use table based approximation from {@link FastMath}
+     */
+    private boolean fastMath;
+
     // TODO: add ampliture?
 
     /**
@@ -74,6 +79,10 @@ public class Sigmoid extends TransferFunction implements Serializable {
         } catch (NumberFormatException e) {
             System.err.println("Invalid transfer function properties! Using default values.");
         }
+        Object fast = properties.getProperty("transferFunction.fastMath");
+        if (fast instanceof Boolean) {
+            this.fastMath = (Boolean) fast;
+        }
     }
 
     /**
@@ -94,6 +103,25 @@ public class Sigmoid extends TransferFunction implements Serializable {
         this.slope = slope;
     }
 
+    /**
+     * Returns true if this function uses fast approximate math
+     *
+     * @return true if fast math mode is enabled
+     */
+    public boolean isFastMath() {
+        return fastMath;
+    }
+
+    /**
+     * Enables or disables fast math mode. In fast math mode output is
+     * approximated with {@link FastMath}, within {@link FastMath#SIGMOID_MAX_ERROR}.
+     *
+     * @param fastMath true to use fast approximate math
+     */
+    public void setFastMath(boolean fastMath) {
+        this.fastMath = fastMath;
+    }
+
     @Override
     public double getOutput(double netInput) {
         // conditional logic helps to avoid NaN
@@ -103,6 +131,11 @@ public class Sigmoid extends TransferFunction implements Serializable {
             return 0.0;
         }
 
+        if (fastMath) {
+            this.output = FastMath.sigmoid(this.slope * netInput);
+            return this.output;
+        }
+
         double den = 1 + Math.exp(-this.slope * netInput);
         this.output = (1d / den);
 
@@ -47,6 +47,11 @@ public class Tanh extends TransferFunction implements Serializable {
      */
     private double amplitude = 1d;
 
+    /**
+     * Use table based approximation from {@link FastMath}
+     */
+    private boolean fastMath;
+
     /**
      * The output of the getDerivative() function;
      */
@@ -85,6 +90,10 @@ public class Tanh extends TransferFunction implements Serializable {
         } catch (NumberFormatException e) {
             System.err.println("Invalid transfer function properties! Using default values.");
         }
+        Object fast = properties.getProperty("transferFunction.fastMath");
+        if (fast instanceof Boolean) {
+            this.fastMath = (Boolean) fast;
+        }
     }
 
     /**
@@ -100,6 +109,11 @@ public class Tanh extends TransferFunction implements Serializable {
             return Math.signum(input) * 1.0d;
         }
 
+        if (fastMath) {
+            output = amplitude * FastMath.tanh(slope * input);
+            return output;
+        }
+
         //a*tanh(s*x) = a*[(e^(2*s*x) - 1) / (e^(2*s*x) - 1)]
         double E_x = Math.exp(2.0d * slope * input);
         output = amplitude * ((E_x - 1.0d) / (E_x + 1.0d));
@@ -123,6 +137,12 @@ public class Tanh extends TransferFunction implements Serializable {
             return 0.0d;
         }
 
+        if (fastMath) {
+            double tanhsx = FastMath.tanh(slope * input);
+            derivativeOutput = amplitude * slope * (1.0d - tanhsx * tanhsx);
+            return derivativeOutput;
+        }
+
         //output here is a*tanh^2(s*x)
         double E_x = Math.exp(2 * slope * input);   // we coul duse buffered output here, but in that case we ignor input parameter and it shoul dbe removed to avoid confusion
         double tanhsx = (E_x - 1d) / (E_x + 1d);
@@ -166,4 +186,23 @@ public class Tanh extends TransferFunction implements Serializable {
         this.amplitude = amplitude;
     }
 
+    /**
+     * Returns true if this function uses fast approximate math
+     *
+     * @return true if fast math mode is enabled
+     */
+    public boolean isFastMath() {
+        return fastMath;
+    }
+
+    /**
+     * Enables or disables fast math mode. In fast math mode output is
+     * approximated with {@link FastMath}, within {@link FastMath#TANH_MAX_ERROR}.
+     *
+     * @param fastMath true to use fast approximate math
+     */
+    public void setFastMath(boolean fastMath) {
+        this.fastMath = fastMath;
+    }
+
 }
\ No newline at end of file
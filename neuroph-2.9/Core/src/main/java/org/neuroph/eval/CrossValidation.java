@@ -15,7 +15,6 @@ import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 
-import org.apache.commons.lang3.SerializationUtils;
 import org.neuroph.core.learning.error.MeanSquaredError;
 import org.neuroph.util.data.sample.SubSampling;
 
@@ -154,7 +153,7 @@ public class CrossValidation {
 
         @Override
         public EvaluationResult call() {
-            NeuralNetwork neuralNet = SerializationUtils.clone(this.neuralNetwork);
+            NeuralNetwork neuralNet = this.neuralNetwork.copy();
 
             DataSet trainingSet = new DataSet(dataSet.size() - foldSize);
             DataSet testSet = new DataSet(foldSize);
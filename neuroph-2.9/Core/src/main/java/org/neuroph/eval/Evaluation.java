@@ -20,6 +20,11 @@ public final class Evaluation {
 
     private static final Logger LOGGER = LoggerFactory.getLogger("neuroph");
 
+    /**
+     * Number of data set rows calculated together
+     */
+    private static final int BATCH_SIZE = 256;
+
     private final Map<Class<?>, Evaluator> evaluators = new HashMap<>();
 
     public Evaluation() {
@@ -35,24 +40,74 @@ public final class Evaluation {
      * @return
      */
     public EvaluationResult evaluateDataSet(NeuralNetwork neuralNetwork, DataSet dataSet) {
-        // first reset all evaluators
-        for (Evaluator evaluator : evaluators.values()) { // for now we have only classification metrics and mse
-            evaluator.reset();
+        resetEvaluators();
+
+        // network outputs are calculated in chunks of rows, so inputs of the whole data set are not collected at once
+        int batchSize = Math.min(BATCH_SIZE, dataSet.size());
+        double[][] inputs = new double[batchSize][dataSet.getInputSize()];
+        double[][] desiredOutputs = new double[batchSize][dataSet.getOutputSize()];
+        int count = 0;
+        for (DataSetRow row : dataSet) {
+            // rows of dense data sets are reused by their iterator, so their values are copied
+            System.arraycopy(row.getInput(), 0, inputs[count], 0, inputs[count].length);
+            System.arraycopy(row.getDesiredOutput(), 0, desiredOutputs[count], 0, desiredOutputs[count].length);
+            if (++count == batchSize) {
+                processOutputs(neuralNetwork.calculate(inputs), desiredOutputs, count);
+                count = 0;
+            }
+        }
+        if (count > 0) {
+            processOutputs(neuralNetwork.calculate(Arrays.copyOf(inputs, count)), desiredOutputs, count);
         }
 
-        for (DataSetRow dataRow : dataSet.getRows()) {      // iterate all dataset rows
-            neuralNetwork.setInput(dataRow.getInput());    // apply input to neural network
-            neuralNetwork.calculate();                     // and calculate neural network
+        EvaluationResult result = createResult(dataSet);
+        result.setNeuralNetwork(neuralNetwork);
+        return result;
+    }
+
+    /**
+     * Runs evaluation procedure for outputs which were already calculated for the given data set,
+     * by neural network or by some other model like {@link org.neuroph.core.flat.QuantizedNetwork}
+     *
+     * @param outputs model outputs, one row for each data set row
+     * @param dataSet test data set used for evaluation
+     * @return evaluation result
+     */
+    public EvaluationResult evaluateOutputs(double[][] outputs, DataSet dataSet) {
+        resetEvaluators();
 
+        List<DataSetRow> rows = dataSet.getRows();
+        for (int i = 0; i < outputs.length; i++) {
             // feed actual neural network output and desired output to all evaluators
             for (Evaluator evaluator : evaluators.values()) { // for now we have only kfold and mse
-                evaluator.processNetworkResult(neuralNetwork.getOutput(), dataRow.getDesiredOutput());
+                evaluator.processNetworkResult(outputs[i], rows.get(i).getDesiredOutput());
             }
         }
 
+        return createResult(dataSet);
+    }
+
+    private void resetEvaluators() {
+        for (Evaluator evaluator : evaluators.values()) { // for now we have only classification metrics and mse
+            evaluator.reset();
+        }
+    }
+
+    private void processOutputs(double[][] outputs, double[][] desiredOutputs, int count) {
+        for (int i = 0; i < count; i++) {
+            for (Evaluator evaluator : evaluators.values()) {
+                evaluator.processNetworkResult(outputs[i], desiredOutputs[i]);
+            }
+        }
+    }
+
+    /**
+     * Collects results of evaluators which have processed all rows of the specified data set
+     */
+    private EvaluationResult createResult(DataSet dataSet) {
         // we should iterate all evaluators and get results here- its hardcoded for now
         ConfusionMatrix confusionMatrix;
-        if (neuralNetwork.getOutputsCount() > 1) {
+        if (dataSet.getOutputSize() > 1) {
             confusionMatrix = getEvaluator(ClassifierEvaluator.MultiClass.class).getResult();
         } else {
             confusionMatrix = getEvaluator(ClassifierEvaluator.Binary.class).getResult();
@@ -0,0 +1,145 @@
+/**
+ * Copyright 2014 Neuroph Project http://neuroph.sourceforge.net
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.neuroph.eval;
+
+import org.neuroph.core.NeuralNetwork;
+import org.neuroph.core.data.DataSet;
+import org.neuroph.core.flat.QuantizedNetwork;
+import org.neuroph.eval.classification.ConfusionMatrix;
+
+/**
+ * 量化评估报告.
+ * <p>
+ * Compares a {@link QuantizedNetwork} with the network it was quantized from
+ * on the same test data set, using {@link Evaluation} with
+ * {@link ClassifierEvaluator}. Networks with one output are evaluated as binary
+ * classifiers with threshold 0.5, and networks with more outputs as multi
+ * class classifiers.
+ *
+ * @author Zoran Sevarac <sevarac@gmail.com>
+ */
+public class QuantizationReport {
+
+    /**
+     * Evaluation result of the original network
+     */
+    private final EvaluationResult originalResult;
+
+    /**
+     * Evaluation result of the quantized network
+     */
+    private final EvaluationResult quantizedResult;
+
+    private QuantizationReport(EvaluationResult originalResult, EvaluationResult quantizedResult) {
+        this.originalResult = originalResult;
+        this.quantizedResult = quantizedResult;
+    }
+
+    /**
+     * Evaluates original and quantized network on the specified test set
+     *
+     * @param network   original network
+     * @param quantized quantized network
+     * @param testSet   test data set
+     * @return comparison report
+     */
+    public static QuantizationReport create(NeuralNetwork<?> network, QuantizedNetwork quantized, DataSet testSet) {
+        Evaluation evaluation = new Evaluation();
+        int outputSize = testSet.getOutputSize();
+        if (outputSize > 1) {
+            String[] classLabels = new String[outputSize];
+            String[] columnNames = testSet.getColumnNames();
+            for (int i = 0; i < outputSize; i++) {
+                int column = testSet.getInputSize() + i;
+                classLabels[i] = columnNames != null && columnNames.length > column ? columnNames[column] : "Class " + (i + 1);
+            }
+            evaluation.addEvaluator(new ClassifierEvaluator.MultiClass(classLabels));
+        } else {
+            evaluation.addEvaluator(new ClassifierEvaluator.Binary(0.5));
+        }
+
+        EvaluationResult originalResult = evaluation.evaluateDataSet(network, testSet);
+
+        double[][] inputs = new double[testSet.size()][];
+        for (int i = 0; i < inputs.length; i++) {
+            inputs[i] = testSet.getRowAt(i).getInput();
+        }
+        EvaluationResult quantizedResult = evaluation.evaluateOutputs(quantized.calculate(inputs), testSet);
+
+        return new QuantizationReport(originalResult, quantizedResult);
+    }
+
+    /**
+     * Returns fraction of correctly classified rows in the confusion matrix
+     */
+    private static double accuracy(EvaluationResult result) {
+        ConfusionMatrix matrix = result.getConfusionMatrix();
+        int total = matrix.getTotal();
+        if (total == 0) {
+            return 0d;
+        }
+        int correct = 0;
+        for (int i = 0; i < matrix.getClassLabels().length; i++) {
+            correct += matrix.getTruePositive(i);
+        }
+        return (double) correct / total;
+    }
+
+    public EvaluationResult getOriginalResult() {
+        return originalResult;
+    }
+
+    public EvaluationResult getQuantizedResult() {
+        return quantizedResult;
+    }
+
+    public double getOriginalAccuracy() {
+        return accuracy(originalResult);
+    }
+
+    public double getQuantizedAccuracy() {
+        return accuracy(quantizedResult);
+    }
+
+    /**
+     * Returns change of accuracy caused by quantization, negative if quantized network is less accurate
+     *
+     * @return quantized accuracy - original accuracy
+     */
+    public double getAccuracyDelta() {
+        return getQuantizedAccuracy() - getOriginalAccuracy();
+    }
+
+    /**
+     * Returns change of mean squared error caused by quantization
+     *
+     * @return quantized error - original error
+     */
+    public double getMeanSquareErrorDelta() {
+        return quantizedResult.getMeanSquareError() - originalResult.getMeanSquareError();
+    }
+
+    @Override
+    public String toString() {
+        return "QuantizationReport{originalAccuracy=" + getOriginalAccuracy()
+                + ", quantizedAccuracy=" + getQuantizedAccuracy()
+                + ", accuracyDelta=" + getAccuracyDelta()
+                + ", meanSquareErrorDelta=" + getMeanSquareErrorDelta() + "}";
+    }
+
+}
@@ -18,7 +18,6 @@ package org.neuroph.nnet;
 
 import org.neuroph.core.Layer;
 import org.neuroph.core.input.WeightedSum;
-import org.neuroph.nnet.comp.ConvolutionalUtils;
 import org.neuroph.nnet.comp.layer.*;
 import org.neuroph.nnet.learning.ConvolutionalBackpropagation;
 import org.neuroph.core.NeuralNetwork;
@@ -31,11 +30,19 @@ import org.neuroph.nnet.comp.neuron.BiasNeuron;
 import org.neuroph.util.ConnectionFactory;
 import org.neuroph.util.NeuronProperties;
 import org.neuroph.util.TransferFunctionType;
+import org.neuroph.util.random.WeightsRandomizer;
 
 /**
  * Convolutional neural network with backpropagation algorithm modified for
  * convolutional networks.
  * <p/>
+ * Builder creates {@link TensorConvolutionalLayer} and {@link TensorPoolingLayer},
+ * which are calculated directly over feature map tensors. Connection based
+ * {@link ConvolutionalLayer} and {@link PoolingLayer} can still be added with
+ * {@link org.neuroph.nnet.comp.ConvolutionalUtils#fullConnectMapLayers(FeatureMapsLayer, FeatureMapsLayer)}.
+ * Built network is randomized with {@link WeightsRandomizer}, randomize it again with a seeded
+ * randomizer for reproducible weights.
+ * <p/>
  * TODO: provide Hiton, LeCun, AndrewNg implementation specific features
  *
  * @author Boris Fulurija
@@ -96,32 +103,24 @@ public class ConvolutionalNetwork extends NeuralNetwork<ConvolutionalBackpropaga
             return this;
         }
 
+        // convolution and pooling layers are calculated over feature map tensors, without connections
         public Builder withConvolutionLayer(int kernelWidth, int kernelHeight, int numberOfMaps) {
             FeatureMapsLayer prevLayer = getLastFeatureMapLayer();
-            ConvolutionalLayer convolutionLayer = new ConvolutionalLayer(prevLayer, new Dimension2D(kernelWidth, kernelHeight), numberOfMaps);
-
-            network.addLayer(convolutionLayer);
-            ConvolutionalUtils.fullConnectMapLayers(prevLayer, convolutionLayer);
+            network.addLayer(new TensorConvolutionalLayer(prevLayer, new Dimension2D(kernelWidth, kernelHeight), numberOfMaps));
 
             return this;
         }
 
         public Builder withConvolutionLayer(final Dimension2D kernelDimension, int numberOfMaps, Class<? extends TransferFunction> transferFunction) {
             FeatureMapsLayer prevLayer = getLastFeatureMapLayer();
-            ConvolutionalLayer convolutionLayer = new ConvolutionalLayer(prevLayer, kernelDimension, numberOfMaps, transferFunction);
-
-            network.addLayer(convolutionLayer);
-            ConvolutionalUtils.fullConnectMapLayers(prevLayer, convolutionLayer);
+            network.addLayer(new TensorConvolutionalLayer(prevLayer, kernelDimension, numberOfMaps, transferFunction));
 
             return this;
         }
 
         public Builder withPoolingLayer(int width, int height) {
             FeatureMapsLayer lastLayer = getLastFeatureMapLayer();
-            PoolingLayer poolingLayer = new PoolingLayer(lastLayer, new Dimension2D(width, height));
-
-            network.addLayer(poolingLayer);
-            ConvolutionalUtils.fullConnectMapLayers(lastLayer, poolingLayer);
+            network.addLayer(new TensorPoolingLayer(lastLayer, new Dimension2D(width, height)));
 
             return this;
         }
@@ -148,6 +147,8 @@ public class ConvolutionalNetwork extends NeuralNetwork<ConvolutionalBackpropaga
             network.setInputNeurons(network.getLayerAt(0).getNeurons());
             network.setOutputNeurons(getLastLayer().getNeurons());
             network.setLearningRule(new ConvolutionalBackpropagation());
+            // kernels of tensor layers are zero until randomized
+            network.randomizeWeights(new WeightsRandomizer());
             return network;
         }
 
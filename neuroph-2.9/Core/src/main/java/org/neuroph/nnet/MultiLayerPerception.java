@@ -128,6 +128,22 @@ public class MultiLayerPerception extends NeuralNetwork<BackPropagation> {
         // set network type
         this.setNetworkType(NeuralNetworkType.MULTI_LAYER_PERCEPTION);
 
+        // no events while network is built
+        this.setEventsSuppressed(true);
+        try {
+            createLayers(neuronsInLayers, neuronProperties);
+        } finally {
+            this.setEventsSuppressed(false);
+        }
+    }
+
+    /**
+     * Creates and connects layers, sets learning rule and randomizes weights
+     *
+     * @param neuronsInLayers  collection of neuron numbers in getLayersIterator
+     * @param neuronProperties neuron properties
+     */
+    private void createLayers(List<Integer> neuronsInLayers, NeuronProperties neuronProperties) {
         // create input layer
         NeuronProperties inputNeuronProperties = new NeuronProperties(InputNeuron.class, Linear.class);
         Layer layer = LayerFactory.createLayer(neuronsInLayers.get(0), inputNeuronProperties);
@@ -158,9 +174,10 @@ public class MultiLayerPerception extends NeuralNetwork<BackPropagation> {
 
             // add created layer to network
             this.addLayer(layer);
-            // createLayer full connectivity between previous and this layer
+            // createLayer full connectivity between previous and this layer,
+            // layer is new so there are no existing connections to check
             if (prevLayer != null) {
-                ConnectionFactory.fullConnect(prevLayer, layer);
+                ConnectionFactory.fullConnectUnique(prevLayer, layer);
             }
 
             prevLayer = layer;
@@ -175,7 +192,6 @@ public class MultiLayerPerception extends NeuralNetwork<BackPropagation> {
         // this.setLearningRule(new DynamicBackPropagation());
 
         this.randomizeWeights(new RangeRandomizer(-0.7, 0.7));
-
     }
 
     public void connectInputsToOutputs() {
@@ -0,0 +1,284 @@
+/**
+ * Copyright 2014 Neuroph Project http://neuroph.sourceforge.net
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.neuroph.nnet.comp.layer;
+
+import java.util.Random;
+
+import org.neuroph.core.Layer;
+import org.neuroph.core.Neuron;
+import org.neuroph.core.transfer.TransferFunction;
+import org.neuroph.nnet.comp.Dimension2D;
+import org.neuroph.util.NeuronProperties;
+
+/**
+ * 张量卷积层.
+ * <p>
+ * Convolutional layer calculated directly over feature map tensors. Each feature map
+ * has one kernel for every input map and one bias, and all neurons of the map share
+ * them. Kernels are kept in a single {@code double[]} tensor, kernel value at
+ * position (kx, ky) between input map c and map m has index
+ * {@code ((m * inputMaps + c) * kernelHeight + ky) * kernelWidth + kx}.
+ * <p>
+ * Unlike {@link ConvolutionalLayer}, no connections are created, so memory use does not
+ * grow with the number of kernel positions. Kernels and biases are zero when layer is created,
+ * they are randomized together with network weights by {@link org.neuroph.util.random.WeightsRandomizer}. Kernel weights are not network connection
+ * weights, they are returned by {@link #getParameters()} and follow the connection weights in
+ * {@link org.neuroph.core.NeuralNetwork#getWeights()} and {@link org.neuroph.core.WeightVector}.
+ *
+ * @author Zoran Sevarac <sevarac@gmail.com>
+ * @see ConvolutionalLayer
+ */
+public class TensorConvolutionalLayer extends TensorLayer {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Dimensions of all kernels
+     */
+    private final Dimension2D kernelDimension;
+
+    /**
+     * Kernels of all maps
+     */
+    private final double[] weights;
+
+    /**
+     * Bias of each map
+     */
+    private final double[] biases;
+
+    private transient double[] weightGradients;
+    private transient double[] biasGradients;
+    private transient double[] previousWeightChanges;
+    private transient double[] previousBiasChanges;
+
+    /**
+     * Creates convolutional layer with specified kernel, and specified number of
+     * feature maps with default neuron settings for convolutional layer.
+     *
+     * @param fromLayer       previous layer, which provides input maps
+     * @param kernelDimension kernel for all feature maps
+     * @param numberOfMaps    number of feature maps to create in this layer
+     */
+    public TensorConvolutionalLayer(FeatureMapsLayer fromLayer, Dimension2D kernelDimension, int numberOfMaps) {
+        this(fromLayer, kernelDimension, numberOfMaps, ConvolutionalLayer.DEFAULT_NEURON_PROP);
+    }
+
+    /**
+     * Creates convolutional layer with specified kernel, number of feature maps and transfer function.
+     *
+     * @param fromLayer        previous layer, which provides input maps
+     * @param kernelDimension  kernel for all feature maps
+     * @param numberOfMaps     number of feature maps to create in this layer
+     * @param transferFunction neuron's transfer function to use
+     */
+    public TensorConvolutionalLayer(FeatureMapsLayer fromLayer, Dimension2D kernelDimension, int numberOfMaps, Class<? extends TransferFunction> transferFunction) {
+        this(fromLayer, kernelDimension, numberOfMaps, new NeuronProperties(Neuron.class, transferFunction));
+    }
+
+    /**
+     * Creates convolutional layer with specified kernel, number of feature maps and neuron properties.
+     *
+     * @param fromLayer       previous layer, which provides input maps
+     * @param kernelDimension kernel for all feature maps
+     * @param numberOfMaps    number of feature maps to create in this layer
+     * @param neuronProp      settings for neurons in feature maps
+     */
+    public TensorConvolutionalLayer(FeatureMapsLayer fromLayer, Dimension2D kernelDimension, int numberOfMaps, NeuronProperties neuronProp) {
+        super(fromLayer, new Dimension2D(fromLayer.getMapDimensions().getWidth() - kernelDimension.getWidth() + 1,
+                fromLayer.getMapDimensions().getHeight() - kernelDimension.getHeight() + 1), numberOfMaps, neuronProp);
+        this.kernelDimension = kernelDimension;
+        this.weights = new double[numberOfMaps * inputMapsCount * kernelDimension.getWidth() * kernelDimension.getHeight()];
+        this.biases = new double[numberOfMaps];
+    }
+
+    /**
+     * Initializes kernels and biases with random values from the specified range
+     *
+     * @param min    minimum value
+     * @param max    maximum value
+     * @param random random generator to use
+     */
+    public void initWeights(double min, double max, Random random) {
+        for (int i = 0; i < weights.length; i++) {
+            weights[i] = min + random.nextDouble() * (max - min);
+        }
+        for (int i = 0; i < biases.length; i++) {
+            biases[i] = min + random.nextDouble() * (max - min);
+        }
+    }
+
+    @Override
+    protected void forward() {
+        int inputWidth = inputDimensions.getWidth();
+        int inputHeight = inputDimensions.getHeight();
+        int width = mapDimensions.getWidth();
+        int height = mapDimensions.getHeight();
+        int kernelWidth = kernelDimension.getWidth();
+        int kernelHeight = kernelDimension.getHeight();
+        int kernelSize = inputMapsCount * kernelWidth * kernelHeight;
+
+        int o = 0;
+        for (int m = 0; m < biases.length; m++) {
+            for (int y = 0; y < height; y++) {
+                for (int x = 0; x < width; x++) {
+                    double sum = biases[m];
+                    int w = m * kernelSize;
+                    for (int c = 0; c < inputMapsCount; c++) {
+                        for (int ky = 0; ky < kernelHeight; ky++) {
+                            int i = (c * inputHeight + y + ky) * inputWidth + x;
+                            for (int kx = 0; kx < kernelWidth; kx++) {
+                                sum += weights[w++] * input[i + kx];
+                            }
+                        }
+                    }
+                    netInput[o++] = sum;
+                }
+            }
+        }
+    }
+
+    @Override
+    protected void backward(boolean propagate) {
+        int inputWidth = inputDimensions.getWidth();
+        int inputHeight = inputDimensions.getHeight();
+        int width = mapDimensions.getWidth();
+        int height = mapDimensions.getHeight();
+        int kernelWidth = kernelDimension.getWidth();
+        int kernelHeight = kernelDimension.getHeight();
+        int kernelSize = inputMapsCount * kernelWidth * kernelHeight;
+
+        int o = 0;
+        for (int m = 0; m < biases.length; m++) {
+            for (int y = 0; y < height; y++) {
+                for (int x = 0; x < width; x++) {
+                    double delta = deltas[o++];
+                    if (delta == 0) {
+                        continue;
+                    }
+                    biasGradients[m] += delta;
+                    int w = m * kernelSize;
+                    for (int c = 0; c < inputMapsCount; c++) {
+                        for (int ky = 0; ky < kernelHeight; ky++) {
+                            int i = (c * inputHeight + y + ky) * inputWidth + x;
+                            for (int kx = 0; kx < kernelWidth; kx++, w++) {
+                                weightGradients[w] += delta * input[i + kx];
+                                if (propagate) {
+                                    inputGradients[i + kx] += delta * weights[w];
+                                }
+                            }
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    @Override
+    public void applyGradients(double learningRate, double momentum, int patternsCount) {
+        initBuffers();
+        for (int i = 0; i < weights.length; i++) {
+            double weightChange = -learningRate * weightGradients[i] / patternsCount + momentum * previousWeightChanges[i];
+            weights[i] += weightChange;
+            previousWeightChanges[i] = weightChange;
+            weightGradients[i] = 0;
+        }
+        for (int i = 0; i < biases.length; i++) {
+            double biasChange = -learningRate * biasGradients[i] / patternsCount + momentum * previousBiasChanges[i];
+            biases[i] += biasChange;
+            previousBiasChanges[i] = biasChange;
+            biasGradients[i] = 0;
+        }
+    }
+
+    @Override
+    public void clearGradients() {
+        weightGradients = null;
+        initBuffers();
+    }
+
+    @Override
+    protected void initBuffers() {
+        super.initBuffers();
+        if (weightGradients == null) {
+            weightGradients = new double[weights.length];
+            biasGradients = new double[biases.length];
+            previousWeightChanges = new double[weights.length];
+            previousBiasChanges = new double[biases.length];
+        }
+    }
+
+    /**
+     * Returns kernels of all maps. Changes of returned values change kernels of this layer.
+     *
+     * @return kernel tensor
+     */
+    public double[] getWeights() {
+        return weights;
+    }
+
+    /**
+     * Returns bias of each map. Changes of returned values change biases of this layer.
+     *
+     * @return map biases
+     */
+    public double[] getBiases() {
+        return biases;
+    }
+
+    /**
+     * Returns kernels and biases of all maps
+     *
+     * @return kernel tensor and map biases
+     */
+    @Override
+    public double[][] getParameters() {
+        return new double[][]{weights, biases};
+    }
+
+    /**
+     * Copies kernels and biases from the specified convolutional layer with the same kernels and maps
+     *
+     * @param layer layer to copy kernels and biases from
+     * @throws IllegalArgumentException if layer is not convolutional layer with the same kernels
+     */
+    @Override
+    public void copyParametersFrom(Layer layer) {
+        if (!(layer instanceof TensorConvolutionalLayer)) {
+            throw new IllegalArgumentException("Kernels can be copied only from convolutional layer!");
+        }
+        TensorConvolutionalLayer source = (TensorConvolutionalLayer) layer;
+        if (kernelDimension.getWidth() != source.kernelDimension.getWidth()
+                || kernelDimension.getHeight() != source.kernelDimension.getHeight()
+                || weights.length != source.weights.length
+                || biases.length != source.biases.length) {
+            throw new IllegalArgumentException("Layers do not have the same kernels!");
+        }
+        System.arraycopy(source.weights, 0, weights, 0, weights.length);
+        System.arraycopy(source.biases, 0, biases, 0, biases.length);
+    }
+
+    /**
+     * Returns dimensions of kernels
+     *
+     * @return kernel dimensions
+     */
+    public Dimension2D getKernelDimension() {
+        return kernelDimension;
+    }
+
+}
@@ -0,0 +1,254 @@
+/**
+ * Copyright 2014 Neuroph Project http://neuroph.sourceforge.net
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.neuroph.nnet.comp.layer;
+
+import java.util.Arrays;
+
+import org.neuroph.core.Neuron;
+import org.neuroph.core.flat.ActivationKernel;
+import org.neuroph.nnet.comp.Dimension2D;
+import org.neuroph.nnet.comp.neuron.BiasNeuron;
+import org.neuroph.util.NeuronProperties;
+
+/**
+ * 张量特征图层.
+ * <p>
+ * Feature maps layer which is calculated directly over feature map tensors, instead
+ * of through neuron connections. Input maps of the previous layer are read into a
+ * {@code double[]} tensor, where value at position (x, y) of map c has index
+ * {@code (c * height + y) * width + x}, and the output tensor uses the same layout.
+ * Layer neurons have no input connections, they only hold the calculated outputs, so
+ * that the next layer can be fully connected to them.
+ * <p>
+ * Tensor layers are trained by {@link org.neuroph.nnet.learning.ConvolutionalBackpropagation}:
+ * {@link #backward(double[])} calculates neuron deltas and gradients of the input tensor,
+ * which are passed to the previous tensor layer.
+ *
+ * @author Zoran Sevarac <sevarac@gmail.com>
+ * @see TensorConvolutionalLayer
+ * @see TensorPoolingLayer
+ */
+public abstract class TensorLayer extends FeatureMapsLayer {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Layer which provides input maps
+     */
+    private final FeatureMapsLayer fromLayer;
+
+    /**
+     * Dimensions of input maps
+     */
+    protected final Dimension2D inputDimensions;
+
+    /**
+     * Number of input maps
+     */
+    protected final int inputMapsCount;
+
+    /**
+     * Activation applied to net input of each neuron
+     */
+    protected final ActivationKernel activation;
+
+    /**
+     * Input tensor of the last calculated pattern
+     */
+    protected transient double[] input;
+
+    /**
+     * Net input and output of each neuron
+     */
+    protected transient double[] netInput;
+    protected transient double[] output;
+
+    /**
+     * Error derivative by net input of each neuron (neuron delta)
+     */
+    protected transient double[] deltas;
+
+    /**
+     * Error derivative by each value of the input tensor
+     */
+    protected transient double[] inputGradients;
+
+    /**
+     * Buffer for error derivatives by neuron outputs
+     */
+    private transient double[] outputGradients;
+
+    /**
+     * Creates tensor layer with the specified number of feature maps
+     *
+     * @param fromLayer        layer which provides input maps
+     * @param mapDimensions    dimensions of feature maps in this layer
+     * @param mapCount         number of feature maps
+     * @param neuronProperties properties of neurons in feature maps, their transfer function is used as activation
+     */
+    protected TensorLayer(FeatureMapsLayer fromLayer, Dimension2D mapDimensions, int mapCount, NeuronProperties neuronProperties) {
+        super(checkDimensions(mapDimensions, mapCount), mapCount, neuronProperties);
+        this.fromLayer = fromLayer;
+        this.inputDimensions = fromLayer.getMapDimensions();
+        this.inputMapsCount = fromLayer.getNumberOfMaps();
+        this.activation = ActivationKernel.of(getNeuronAt(0).getTransferFunction());
+    }
+
+    private static Dimension2D checkDimensions(Dimension2D mapDimensions, int mapCount) {
+        if (mapDimensions.getWidth() < 1 || mapDimensions.getHeight() < 1 || mapCount < 1) {
+            throw new IllegalArgumentException("Layer must have at least one map and neuron: " + mapDimensions + ", maps " + mapCount);
+        }
+        return mapDimensions;
+    }
+
+    /**
+     * Calculates output tensor, and sets net input and output of layer neurons
+     */
+    @Override
+    public void calculate() {
+        initBuffers();
+        readInput();
+        forward();
+        for (int i = 0; i < netInput.length; i++) {
+            output[i] = activation.apply(netInput[i]);
+            Neuron neuron = neurons.get(i);
+            neuron.setInput(netInput[i]);
+            neuron.setOutput(output[i]);
+        }
+    }
+
+    /**
+     * Back propagates error of the last calculated pattern. Calculates neuron deltas,
+     * accumulates weight gradients and, if the previous layer is also a tensor layer,
+     * gradients of the input tensor.
+     *
+     * @param outputGradients error derivative by output of each neuron
+     */
+    public void backward(double[] outputGradients) {
+        for (int i = 0; i < deltas.length; i++) {
+            deltas[i] = outputGradients[i] * activation.derivative(netInput[i], output[i]);
+            neurons.get(i).setDelta(deltas[i]);
+        }
+        boolean propagate = fromLayer instanceof TensorLayer;
+        if (propagate) {
+            Arrays.fill(inputGradients, 0d);
+        }
+        backward(propagate);
+    }
+
+    /**
+     * Calculates net input tensor from the input tensor
+     */
+    protected abstract void forward();
+
+    /**
+     * Accumulates weight gradients from neuron deltas, and adds gradients of the input tensor if required
+     *
+     * @param propagate true if gradients of the input tensor should be calculated
+     */
+    protected abstract void backward(boolean propagate);
+
+    /**
+     * Applies weight gradients accumulated since the last update, and clears them.
+     * Layers without weights do nothing.
+     *
+     * @param learningRate  learning rate
+     * @param momentum      momentum factor
+     * @param patternsCount number of patterns since the last update
+     */
+    public void applyGradients(double learningRate, double momentum, int patternsCount) {
+    }
+
+    /**
+     * Clears accumulated gradients and momentum state before training
+     */
+    public void clearGradients() {
+    }
+
+    /**
+     * Allocates tensors, subclasses allocate their own buffers after calling this method
+     */
+    protected void initBuffers() {
+        if (input != null) {
+            return;
+        }
+        int size = getNeuronsCount();
+        input = new double[inputMapsCount * inputDimensions.getWidth() * inputDimensions.getHeight()];
+        netInput = new double[size];
+        output = new double[size];
+        deltas = new double[size];
+        outputGradients = new double[size];
+        inputGradients = new double[input.length];
+    }
+
+    private void readInput() {
+        if (fromLayer instanceof TensorLayer) {
+            double[] fromOutput = ((TensorLayer) fromLayer).output;
+            System.arraycopy(fromOutput, 0, input, 0, input.length);
+            return;
+        }
+        // bias neurons may be added to maps by connection based layers
+        int i = 0;
+        for (int m = 0; m < inputMapsCount; m++) {
+            FeatureMapLayer map = fromLayer.getFeatureMap(m);
+            for (int n = 0; n < map.getNeuronsCount(); n++) {
+                Neuron neuron = map.getNeuronAt(n);
+                if (!(neuron instanceof BiasNeuron)) {
+                    input[i++] = neuron.getOutput();
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns layer which provides input maps
+     *
+     * @return previous feature maps layer
+     */
+    public FeatureMapsLayer getFromLayer() {
+        return fromLayer;
+    }
+
+    /**
+     * Returns error derivatives by values of the input tensor, calculated by the last
+     * {@link #backward(double[])} call if the previous layer is a tensor layer
+     *
+     * @return gradients of the input tensor
+     */
+    public double[] getInputGradients() {
+        return inputGradients;
+    }
+
+    /**
+     * Returns buffer which can be used to pass error derivatives by neuron outputs to {@link #backward(double[])}
+     *
+     * @return buffer with one value for each neuron
+     */
+    public double[] getOutputGradients() {
+        initBuffers();
+        return outputGradients;
+    }
+
+    /**
+     * Connections are not used by tensor layers, it does nothing
+     */
+    @Override
+    public void connectMaps(FeatureMapLayer fromMap, FeatureMapLayer toMap) {
+        // maps are connected through tensors
+    }
+
+}
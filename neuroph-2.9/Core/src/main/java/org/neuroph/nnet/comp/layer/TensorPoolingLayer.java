@@ -0,0 +1,128 @@
+/**
+ * Copyright 2014 Neuroph Project http://neuroph.sourceforge.net
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.neuroph.nnet.comp.layer;
+
+import org.neuroph.core.Neuron;
+import org.neuroph.core.input.WeightedSum;
+import org.neuroph.core.transfer.Linear;
+import org.neuroph.nnet.comp.Dimension2D;
+import org.neuroph.util.NeuronProperties;
+
+/**
+ * 张量池化层.
+ * <p>
+ * Max pooling layer calculated directly over feature map tensors. Each neuron
+ * outputs maximum of a non overlapping kernel window in the input map with the
+ * same index, and error is propagated back only to the position of that maximum.
+ *
+ * @author Zoran Sevarac <sevarac@gmail.com>
+ * @see PoolingLayer
+ */
+public class TensorPoolingLayer extends TensorLayer {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Default neuron properties for tensor pooling layer, pooled maximum is passed without transfer function
+     */
+    public static final NeuronProperties DEFAULT_NEURON_PROP = new NeuronProperties();
+
+    static {
+        DEFAULT_NEURON_PROP.setProperty("neuronType", Neuron.class);
+        DEFAULT_NEURON_PROP.setProperty("inputFunction", WeightedSum.class);
+        DEFAULT_NEURON_PROP.setProperty("transferFunction", Linear.class);
+    }
+
+    /**
+     * Dimensions of pooling window
+     */
+    private final Dimension2D kernelDimension;
+
+    /**
+     * Input tensor index of maximum for each neuron
+     */
+    private transient int[] maxIndexes;
+
+    /**
+     * Creates pooling layer with specified kernel, with one feature map for each map of previous layer.
+     *
+     * @param fromLayer previous layer, which provides input maps
+     * @param kernelDim pooling window for all feature maps
+     */
+    public TensorPoolingLayer(FeatureMapsLayer fromLayer, Dimension2D kernelDim) {
+        super(fromLayer, new Dimension2D(fromLayer.getMapDimensions().getWidth() / kernelDim.getWidth(),
+                fromLayer.getMapDimensions().getHeight() / kernelDim.getHeight()), fromLayer.getNumberOfMaps(), DEFAULT_NEURON_PROP);
+        this.kernelDimension = kernelDim;
+    }
+
+    @Override
+    protected void forward() {
+        int inputWidth = inputDimensions.getWidth();
+        int inputHeight = inputDimensions.getHeight();
+        int width = mapDimensions.getWidth();
+        int height = mapDimensions.getHeight();
+        int kernelWidth = kernelDimension.getWidth();
+        int kernelHeight = kernelDimension.getHeight();
+
+        int o = 0;
+        for (int m = 0; m < inputMapsCount; m++) {
+            for (int y = 0; y < height; y++) {
+                for (int x = 0; x < width; x++) {
+                    int maxIndex = (m * inputHeight + y * kernelHeight) * inputWidth + x * kernelWidth;
+                    for (int ky = 0; ky < kernelHeight; ky++) {
+                        int i = (m * inputHeight + y * kernelHeight + ky) * inputWidth + x * kernelWidth;
+                        for (int kx = 0; kx < kernelWidth; kx++) {
+                            if (input[i + kx] > input[maxIndex]) {
+                                maxIndex = i + kx;
+                            }
+                        }
+                    }
+                    maxIndexes[o] = maxIndex;
+                    netInput[o++] = input[maxIndex];
+                }
+            }
+        }
+    }
+
+    @Override
+    protected void backward(boolean propagate) {
+        if (!propagate) {
+            return;
+        }
+        for (int o = 0; o < deltas.length; o++) {
+            inputGradients[maxIndexes[o]] += deltas[o];
+        }
+    }
+
+    @Override
+    protected void initBuffers() {
+        super.initBuffers();
+        if (maxIndexes == null) {
+            maxIndexes = new int[getNeuronsCount()];
+        }
+    }
+
+    /**
+     * Returns dimensions of pooling window
+     *
+     * @return pooling window dimensions
+     */
+    public Dimension2D getKernelDimension() {
+        return kernelDimension;
+    }
+
+}
@@ -46,6 +46,11 @@ public class BiasNeuron extends Neuron {
         this.output = 1;
     }
 
+    @Override
+    public boolean isBias() {
+        return true;
+    }
+
     @Override
     public void addInputConnection(Connection connection) {
 
@@ -61,4 +66,9 @@ public class BiasNeuron extends Neuron {
 
     }
 
+    @Override
+    public void addUniqueInputConnection(Connection connection) {
+
+    }
+
 }
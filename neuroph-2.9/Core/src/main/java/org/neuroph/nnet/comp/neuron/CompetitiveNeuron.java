@@ -16,6 +16,9 @@
 
 package org.neuroph.nnet.comp.neuron;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
@@ -89,6 +92,16 @@ public class CompetitiveNeuron extends DelayedNeuron {
     @Override
     public void addInputConnection(Connection connection) {
         super.addInputConnection(connection);
+        addToConnectionGroup(connection);
+    }
+
+    @Override
+    public void addUniqueInputConnection(Connection connection) {
+        super.addUniqueInputConnection(connection);
+        addToConnectionGroup(connection);
+    }
+
+    private void addToConnectionGroup(Connection connection) {
         if (connection.getFromNeuron().getParentLayer() == this.getParentLayer()) {
             // this.connectionsFromThisLayer =  Arrays.copyOf(connectionsFromThisLayer, connectionsFromThisLayer.length+1);
             // grow existing connections  array to make space for new connection
@@ -138,4 +151,27 @@ public class CompetitiveNeuron extends DelayedNeuron {
         this.isCompeting = isCompeting;
     }
 
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        if (!isSerializedWithNetwork(out)) {
+            out.defaultWriteObject();
+            return;
+        }
+        // groups are filled again when network adds connections from its connection table
+        ObjectOutputStream.PutField fields = out.putFields();
+        fields.put("isCompeting", isCompeting);
+        fields.put("connectionsFromOtherLayers", null);
+        fields.put("connectionsFromThisLayer", null);
+        out.writeFields();
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        if (connectionsFromOtherLayers == null) {
+            connectionsFromOtherLayers = new ArrayList<>();
+        }
+        if (connectionsFromThisLayer == null) {
+            connectionsFromThisLayer = new ArrayList<>();
+        }
+    }
+
 }
@@ -51,4 +51,9 @@ public class InputNeuron extends Neuron {
     public void calculate() {
     }
 
+    @Override
+    public boolean isInput() {
+        return true;
+    }
+
 }
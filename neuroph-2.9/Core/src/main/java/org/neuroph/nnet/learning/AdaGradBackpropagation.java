@@ -0,0 +1,67 @@
+/**
+ * Copyright 2014 Neuroph Project http://neuroph.sourceforge.net
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.neuroph.nnet.learning;
+
+/**
+ * AdaGrad learning rule. Divides the learning rate of each weight by the root
+ * of the sum of all its squared gradients, so frequently changed weights get
+ * smaller steps than rarely changed ones.
+ */
+public class AdaGradBackpropagation extends AdaptiveBackpropagation {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Small value which prevents division by zero
+     */
+    private double epsilon = 1e-8d;
+
+    /**
+     * Sum of squared gradients for each weight
+     */
+    private transient double[] squaredGradients;
+
+    /**
+     * Creates new instance of AdaGrad learning with learning rate 0.01
+     */
+    public AdaGradBackpropagation() {
+        super(0.01d);
+    }
+
+    @Override
+    protected void onStart() {
+        super.onStart();
+        squaredGradients = new double[weights.length];
+    }
+
+    @Override
+    protected double calculateWeightChange(int index, double gradient) {
+        double cache = squaredGradients[index] + gradient * gradient;
+        squaredGradients[index] = cache;
+        return -learningRate * gradient / (Math.sqrt(cache) + epsilon);
+    }
+
+    public double getEpsilon() {
+        return epsilon;
+    }
+
+    public void setEpsilon(double epsilon) {
+        this.epsilon = epsilon;
+    }
+
+}
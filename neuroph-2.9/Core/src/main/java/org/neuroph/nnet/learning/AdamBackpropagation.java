@@ -0,0 +1,113 @@
+/**
+ * Copyright 2014 Neuroph Project http://neuroph.sourceforge.net
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.neuroph.nnet.learning;
+
+/**
+ * Adam learning rule (adaptive moment estimation). Keeps exponentially decaying
+ * averages of past gradients and squared gradients for each weight, and corrects
+ * their bias towards zero in early updates.
+ */
+public class AdamBackpropagation extends AdaptiveBackpropagation {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Decay rate of the first moment estimate
+     */
+    private double beta1 = 0.9d;
+
+    /**
+     * Decay rate of the second moment estimate
+     */
+    private double beta2 = 0.999d;
+
+    /**
+     * Small value which prevents division by zero
+     */
+    private double epsilon = 1e-8d;
+
+    /**
+     * First moment estimate (mean of gradients) for each weight
+     */
+    private transient double[] firstMoments;
+
+    /**
+     * Second moment estimate (mean of squared gradients) for each weight
+     */
+    private transient double[] secondMoments;
+
+    /**
+     * Bias corrections for the current update
+     */
+    private transient double firstCorrection;
+    private transient double secondCorrection;
+
+    /**
+     * Creates new instance of Adam learning with learning rate 0.001
+     */
+    public AdamBackpropagation() {
+        super(0.001d);
+    }
+
+    @Override
+    protected void onStart() {
+        super.onStart();
+        firstMoments = new double[weights.length];
+        secondMoments = new double[weights.length];
+    }
+
+    @Override
+    protected void beforeWeightsUpdate(int updatesCount) {
+        firstCorrection = 1d / (1d - Math.pow(beta1, updatesCount));
+        secondCorrection = 1d / (1d - Math.pow(beta2, updatesCount));
+    }
+
+    @Override
+    protected double calculateWeightChange(int index, double gradient) {
+        double m = beta1 * firstMoments[index] + (1d - beta1) * gradient;
+        double v = beta2 * secondMoments[index] + (1d - beta2) * gradient * gradient;
+        firstMoments[index] = m;
+        secondMoments[index] = v;
+        return -learningRate * (m * firstCorrection) / (Math.sqrt(v * secondCorrection) + epsilon);
+    }
+
+    public double getBeta1() {
+        return beta1;
+    }
+
+    public void setBeta1(double beta1) {
+        this.beta1 = beta1;
+    }
+
+    public double getBeta2() {
+        return beta2;
+    }
+
+    public void setBeta2(double beta2) {
+        this.beta2 = beta2;
+    }
+
+    public double getEpsilon() {
+        return epsilon;
+    }
+
+    public void setEpsilon(double epsilon) {
+        this.epsilon = epsilon;
+    }
+
+}
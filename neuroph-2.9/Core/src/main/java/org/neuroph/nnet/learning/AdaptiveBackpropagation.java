@@ -0,0 +1,150 @@
+/**
+ * Copyright 2014 Neuroph Project http://neuroph.sourceforge.net
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.neuroph.nnet.learning;
+
+import java.util.List;
+
+import org.neuroph.core.Connection;
+import org.neuroph.core.Neuron;
+import org.neuroph.core.Weight;
+
+/**
+ * 自适应反向传播.
+ * <p>
+ * Base class for back propagation rules which adapt the step of each weight,
+ * like Adam, RMSProp, AdaGrad and Nesterov momentum. Subclasses calculate weight
+ * change from the gradient dE/dw = delta * input, and keep their state in primitive
+ * arrays indexed by {@link Weight#getIndex()}.
+ * <p>
+ * Gradients are summed for each weight index, so weights shared by several connections
+ * are changed once with their summed gradient. In online mode weights are changed after each
+ * pattern. In batch and mini-batch mode weights are changed once per batch using the average gradient.
+ */
+public abstract class AdaptiveBackpropagation extends BackPropagation {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Distinct network weights, indexed by {@link Weight#getIndex()}
+     */
+    protected transient Weight[] weights;
+
+    /**
+     * Sum of gradients of the current pattern or batch for each weight
+     */
+    private transient double[] gradients;
+
+    /**
+     * Number of weight updates since the training has started
+     */
+    private transient int updatesCount;
+
+    /**
+     * Creates new adaptive back propagation learning with the specified learning rate
+     *
+     * @param learningRate learning rate
+     */
+    protected AdaptiveBackpropagation(double learningRate) {
+        super();
+        setLearningRate(learningRate);
+    }
+
+    /**
+     * Calculates weight change for the specified weight and gradient, and updates weight state
+     *
+     * @param index    weight index
+     * @param gradient gradient dE/dw, averaged over the batch in batch mode
+     * @return weight change
+     */
+    protected abstract double calculateWeightChange(int index, double gradient);
+
+    /**
+     * Called once before each round of weight updates. Subclasses can override it to
+     * precalculate values which are the same for all weights.
+     *
+     * @param updatesCount number of this update, starting from 1
+     */
+    protected void beforeWeightsUpdate(int updatesCount) {
+    }
+
+    @Override
+    protected void onStart() {
+        super.onStart();
+        weights = indexWeights();
+        gradients = new double[weights.length];
+        updatesCount = 0;
+    }
+
+    @Override
+    protected void calculateWeightChanges(double[] outputError) {
+        super.calculateWeightChanges(outputError);
+        if (!isBatchMode()) {
+            // weight changes are applied to connections after the pattern, shared weights get their change once
+            beforeWeightsUpdate(++updatesCount);
+            for (int i = 0; i < weights.length; i++) {
+                weights[i].weightChange = calculateWeightChange(i, gradients[i]);
+                gradients[i] = 0;
+            }
+        }
+    }
+
+    /**
+     * Sums gradients of the single neuron weights. Weight changes are calculated from the sums
+     * after the pattern in online mode, and in {@link #doBatchWeightsUpdate()} in batch mode.
+     *
+     * @param neuron neuron to update weights
+     */
+    @Override
+    public void calculateWeightChanges(Neuron neuron) {
+        double delta = neuron.getDelta();
+        List<Connection> connections = neuron.getInputConnections();
+        for (int c = 0; c < connections.size(); c++) {
+            Connection connection = connections.get(c);
+            Weight weight = connection.getWeight();
+            gradients[weight.getIndex()] += delta * connection.getInput();
+        }
+    }
+
+    @Override
+    protected void doBatchWeightsUpdate() {
+        beforeWeightsUpdate(++updatesCount);
+        int patternsCount = getBatchPatternsCount();
+        for (int i = 0; i < weights.length; i++) {
+            weights[i].value += calculateWeightChange(i, gradients[i] / patternsCount);
+            gradients[i] = 0;
+        }
+    }
+
+    @Override
+    protected void applyGradientSums(Weight[] weights, double[] gradients, int patternsCount) {
+        beforeWeightsUpdate(++updatesCount);
+        for (int i = 0; i < weights.length; i++) {
+            weights[i].value += calculateWeightChange(weights[i].getIndex(), gradients[i] / patternsCount);
+        }
+    }
+
+    /**
+     * Returns number of weight updates since the training has started
+     *
+     * @return number of weight updates
+     */
+    protected int getUpdatesCount() {
+        return updatesCount;
+    }
+
+}
@@ -0,0 +1,261 @@
+/**
+ * Copyright 2014 Neuroph Project http://neuroph.sourceforge.net
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.neuroph.nnet.learning;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.neuroph.core.data.DataSet;
+import org.neuroph.core.data.DataSetRow;
+import org.neuroph.core.exceptions.NeurophException;
+import org.neuroph.core.flat.FlatNetwork;
+import org.neuroph.core.flat.TrainingSession;
+import org.neuroph.core.learning.error.ErrorFunction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * 异步反向传播.
+ * <p>
+ * Asynchronous (Hogwild style) back propagation. Several worker threads take
+ * patterns from the shared training set and apply online weight changes to
+ * the shared weights of the compiled {@link FlatNetwork} without any locks.
+ * Threads may occasionally overwrite each other's changes, which does not hurt
+ * convergence when updates are sparse, ie. when most inputs are zero and each
+ * pattern changes only a few weights.
+ * <p>
+ * Training is driven by {@link org.neuroph.core.learning.IterativeLearning}, so
+ * iterations, stop conditions and learning events work as usual. Trained weights
+ * are copied to the network at the end of each epoch. Networks which cannot be
+ * compiled are trained sequentially with plain online back propagation.
+ * <p>
+ * Learning is always online, and pattern error is the difference between actual
+ * and desired output, which is the pattern error of the built-in error functions.
+ *
+ * @author Zoran Sevarac <sevarac@gmail.com>
+ * @see BackPropagation#setThreadCount(int)
+ */
+public class AsynchronousBackPropagation extends BackPropagation {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(AsynchronousBackPropagation.class);
+
+    /**
+     * Number of consecutive patterns taken by a worker at once
+     */
+    static final int CHUNK_SIZE = 64;
+
+    /**
+     * Compiled network with weights shared by all workers
+     */
+    private transient FlatNetwork flatNetwork;
+
+    private transient ExecutorService executor;
+
+    /**
+     * True if network could not be compiled, so asynchronous training is not used
+     */
+    private transient boolean asynchronousUnsupported;
+
+    /**
+     * Number of patterns learned since the training has started
+     */
+    private transient long patternsCount;
+
+    /**
+     * Time spent in learning epochs since the training has started, in nanoseconds
+     */
+    private transient long trainingTime;
+
+    /**
+     * Creates new instance of AsynchronousBackPropagation learning, which uses all available processors
+     */
+    public AsynchronousBackPropagation() {
+        super();
+        setThreadCount(Runtime.getRuntime().availableProcessors());
+    }
+
+    @Override
+    protected void onStart() {
+        super.onStart();
+        releaseWorkers();
+        patternsCount = 0;
+        trainingTime = 0;
+    }
+
+    @Override
+    protected void onStop() {
+        super.onStop();
+        releaseWorkers();
+    }
+
+    @Override
+    public void doLearningEpoch(DataSet trainingSet) {
+        long start = System.nanoTime();
+        if (!isAsynchronous()) {
+            super.doLearningEpoch(trainingSet);
+            patternsCount += trainingSet.size();
+        } else {
+            doAsynchronousEpoch(trainingSet);
+        }
+        trainingTime += System.nanoTime() - start;
+    }
+
+    private void doAsynchronousEpoch(DataSet trainingSet) {
+        int size = trainingSet.size();
+        int[] order = isShuffle() ? shufflePatternOrder(size) : null;
+        AtomicInteger cursor = new AtomicInteger();
+
+        List<Future<Integer>> results = new ArrayList<>();
+        for (int i = 0; i < getThreadCount(); i++) {
+            results.add(executor.submit(() -> learnPatterns(trainingSet, order, cursor)));
+        }
+        try {
+            for (Future<Integer> result : results) {
+                patternsCount += result.get();
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            stopLearning();
+        } catch (ExecutionException ex) {
+            throw new NeurophException("Asynchronous training failed", ex.getCause());
+        } finally {
+            // make weights trained so far visible in the network
+            flatNetwork.flush();
+        }
+    }
+
+    /**
+     * Worker loop: takes chunks of patterns until the epoch is done or learning is stopped
+     *
+     * @return number of learned patterns
+     */
+    private int learnPatterns(DataSet trainingSet, int[] order, AtomicInteger cursor) {
+        TrainingSession session = flatNetwork.createTrainingSession();
+        int size = trainingSet.size();
+        int outputsCount = flatNetwork.getOutputsCount();
+        double[][] outputs = new double[CHUNK_SIZE][outputsCount];
+        DataSetRow[] rows = new DataSetRow[CHUNK_SIZE];
+        int learned = 0;
+
+        int start;
+        while ((start = cursor.getAndAdd(CHUNK_SIZE)) < size && !isStopped()) {
+            int count = Math.min(CHUNK_SIZE, size - start);
+            for (int k = 0; k < count; k++) {
+                DataSetRow row = trainingSet.getRowAt(order != null ? order[start + k] : start + k);
+                double[] output = session.forward(row.getInput());
+                double[] desiredOutput = row.getDesiredOutput();
+                for (int i = 0; i < outputsCount; i++) {
+                    outputs[k][i] = output[i];
+                    output[i] -= desiredOutput[i];
+                }
+                session.backward(output, learningRate);
+                rows[k] = row;
+            }
+            addPatternErrors(outputs, rows, count);
+            learned += count;
+        }
+        return learned;
+    }
+
+    /**
+     * Error function is not thread safe, so pattern errors of a chunk are added under its lock
+     */
+    private void addPatternErrors(double[][] outputs, DataSetRow[] rows, int count) {
+        ErrorFunction errorFunction = getErrorFunction();
+        synchronized (errorFunction) {
+            for (int k = 0; k < count; k++) {
+                errorFunction.addPatternError(outputs[k], rows[k].getDesiredOutput());
+            }
+        }
+    }
+
+    /**
+     * Returns true if the current epoch should be trained asynchronously, and prepares workers
+     *
+     * @return true if patterns are learned by worker threads
+     */
+    private boolean isAsynchronous() {
+        if (getThreadCount() < 2 || asynchronousUnsupported) {
+            return false;
+        }
+        if (flatNetwork == null) {
+            try {
+                flatNetwork = FlatNetwork.compile(neuralNetwork);
+            } catch (NeurophException ex) {
+                LOGGER.debug("Network cannot be compiled, using sequential training: " + ex.getMessage());
+                asynchronousUnsupported = true;
+                return false;
+            }
+            executor = Executors.newFixedThreadPool(getThreadCount(), runnable -> {
+                Thread thread = new Thread(runnable, "neuroph-async-learning");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return true;
+    }
+
+    private void releaseWorkers() {
+        if (executor != null) {
+            executor.shutdown();
+        }
+        executor = null;
+        flatNetwork = null;
+        asynchronousUnsupported = false;
+    }
+
+    /**
+     * Returns training throughput since the training has started
+     *
+     * @return number of learned patterns per second, for all threads together
+     */
+    public double getPatternsPerSecond() {
+        return trainingTime == 0 ? 0d : patternsCount * 1e9d / trainingTime;
+    }
+
+    /**
+     * Returns number of patterns learned since the training has started
+     *
+     * @return number of learned patterns
+     */
+    public long getPatternsCount() {
+        return patternsCount;
+    }
+
+    @Override
+    public void setThreadCount(int threadCount) {
+        super.setThreadCount(threadCount);
+        releaseWorkers();
+    }
+
+    @Override
+    public void setBatchMode(boolean batchMode) {
+        if (batchMode) {
+            throw new IllegalStateException("Asynchronous back propagation runs only in online mode!");
+        }
+        super.setBatchMode(false);
+    }
+
+}
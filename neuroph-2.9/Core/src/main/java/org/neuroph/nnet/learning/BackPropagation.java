@@ -16,15 +16,34 @@
 
 package org.neuroph.nnet.learning;
 
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 import org.neuroph.core.Connection;
 import org.neuroph.core.Layer;
 import org.neuroph.core.Neuron;
+import org.neuroph.core.Weight;
+import org.neuroph.core.data.DataSet;
+import org.neuroph.core.data.DataSetRow;
+import org.neuroph.core.exceptions.NeurophException;
+import org.neuroph.core.flat.FlatNetwork;
+import org.neuroph.core.flat.TrainingSession;
 import org.neuroph.core.transfer.TransferFunction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 /**
  * Back Propagation learning rule for Multi Layer Perceptron neural networks.
+ * <p>
+ * In batch mode with more than one thread (see {@link #setThreadCount(int)}), each
+ * (mini-)batch is split across worker threads. Every worker calculates the compiled
+ * {@link FlatNetwork} with its own {@link TrainingSession} and sums gradients into a
+ * private buffer; buffers are merged by tree reduction and weights are updated once
+ * per batch by {@link #applyGradientSums(Weight[], double[], int)}. Networks which cannot
+ * be compiled are trained sequentially. Parallel training back propagates the difference
+ * between actual and desired output, which is the pattern error of the built-in error functions.
  *
  * @author Zoran Sevarac <sevarac@gmail.com>
  */
@@ -36,6 +55,50 @@ public class BackPropagation extends LMS {
      */
     private static final long serialVersionUID = 1L;
 
+    private static final Logger LOGGER = LoggerFactory.getLogger(BackPropagation.class);
+
+    /**
+     * Number of threads used to calculate gradients in batch mode
+     */
+    private int threadCount = 1;
+
+    /**
+     * Compiled network used for parallel training
+     */
+    private transient FlatNetwork flatNetwork;
+
+    /**
+     * Distinct network weights updated by parallel training
+     */
+    private transient Weight[] gradientWeights;
+
+    /**
+     * Index in gradientWeights for each compiled weight, null if no weight is shared
+     */
+    private transient int[] gradientIndex;
+
+    /**
+     * Gradient sums for gradientWeights, used only if some weights are shared
+     */
+    private transient double[] weightGradients;
+
+    /**
+     * Training session of each worker
+     */
+    private transient TrainingSession[] sessions;
+
+    /**
+     * Network outputs for the patterns of the current batch
+     */
+    private transient double[][] batchOutputs;
+
+    private transient ForkJoinPool pool;
+
+    /**
+     * True if network could not be compiled, so parallel training is not used
+     */
+    private transient boolean parallelUnsupported;
+
     /**
      * Creates new instance of BackPropagation learning
      */
@@ -43,6 +106,231 @@ public class BackPropagation extends LMS {
         super();
     }
 
+    @Override
+    protected void onStart() {
+        super.onStart();
+        releaseParallelResources();
+    }
+
+    @Override
+    protected void onStop() {
+        super.onStop();
+        releaseParallelResources();
+    }
+
+    /**
+     * This method implements one learning epoch. In batch mode with more than one thread,
+     * gradients of each batch are calculated in parallel, otherwise patterns are learned sequentially.
+     *
+     * @param trainingSet training set for training network
+     */
+    @Override
+    public void doLearningEpoch(DataSet trainingSet) {
+        if (!isParallel(trainingSet.size())) {
+            super.doLearningEpoch(trainingSet);
+            return;
+        }
+
+        int size = trainingSet.size();
+        int[] order = isShuffle() ? shufflePatternOrder(size) : null;
+        int batchSize = getBatchSize() > 0 ? getBatchSize() : size;
+
+        for (int start = 0; start < size && !isStopped(); start += batchSize) {
+            int count = Math.min(batchSize, size - start);
+            flatNetwork.refresh();
+            pool.invoke(new GradientTask(trainingSet, order, start, count, 0, sessions.length));
+
+            // error statistics are collected in pattern order
+            for (int k = 0; k < count; k++) {
+                DataSetRow row = trainingSet.getRowAt(order != null ? order[start + k] : start + k);
+                getErrorFunction().addPatternError(batchOutputs[k], row.getDesiredOutput());
+            }
+
+            applyGradientSums(gradientWeights, sumGradients(sessions[0].getGradients()), count);
+        }
+    }
+
+    /**
+     * Returns true if the current epoch should be trained in parallel, and prepares worker sessions
+     *
+     * @param size number of training patterns
+     * @return true if gradients are calculated in parallel
+     */
+    private boolean isParallel(int size) {
+        if (threadCount < 2 || !isBatchMode() || parallelUnsupported) {
+            return false;
+        }
+        if (flatNetwork == null) {
+            try {
+                flatNetwork = FlatNetwork.compile(neuralNetwork);
+            } catch (NeurophException ex) {
+                LOGGER.debug("Network cannot be compiled, using sequential training: " + ex.getMessage());
+                parallelUnsupported = true;
+                return false;
+            }
+            initGradientWeights(flatNetwork.getSourceWeights());
+            sessions = new TrainingSession[threadCount];
+            for (int i = 0; i < threadCount; i++) {
+                sessions[i] = flatNetwork.createTrainingSession();
+            }
+            pool = new ForkJoinPool(threadCount);
+        }
+
+        int batchSize = getBatchSize() > 0 ? Math.min(getBatchSize(), size) : size;
+        if (batchOutputs == null || batchOutputs.length < batchSize) {
+            batchOutputs = new double[batchSize][flatNetwork.getOutputsCount()];
+        }
+        return true;
+    }
+
+    /**
+     * Maps compiled weights to distinct weights, since weight shared by several
+     * connections gets gradients of all of them, but must be updated only once
+     */
+    private void initGradientWeights(Weight[] flatWeights) {
+        gradientWeights = indexWeights();
+        int[] index = new int[flatWeights.length];
+        boolean identity = flatWeights.length == gradientWeights.length;
+        for (int i = 0; i < flatWeights.length; i++) {
+            index[i] = flatWeights[i].getIndex();
+            identity &= index[i] == i;
+        }
+        gradientIndex = identity ? null : index;
+        weightGradients = identity ? null : new double[gradientWeights.length];
+    }
+
+    private double[] sumGradients(double[] gradients) {
+        if (gradientIndex == null) {
+            return gradients;
+        }
+        Arrays.fill(weightGradients, 0d);
+        for (int i = 0; i < gradients.length; i++) {
+            weightGradients[gradientIndex[i]] += gradients[i];
+        }
+        return weightGradients;
+    }
+
+    private void releaseParallelResources() {
+        if (pool != null) {
+            pool.shutdown();
+        }
+        pool = null;
+        flatNetwork = null;
+        sessions = null;
+        batchOutputs = null;
+        gradientWeights = null;
+        gradientIndex = null;
+        weightGradients = null;
+        parallelUnsupported = false;
+    }
+
+    /**
+     * Updates weights with gradients summed over one batch. Gradient of each weight
+     * is the sum of delta * input over all patterns in the batch. This implementation
+     * applies the average of weight changes -learningRate * delta * input, like
+     * {@link #doBatchWeightsUpdate()}; subclasses override it to apply their own update rule.
+     *
+     * @param weights       distinct network weights, in index order
+     * @param gradients     sum of gradients for each weight
+     * @param patternsCount number of patterns in the batch
+     */
+    protected void applyGradientSums(Weight[] weights, double[] gradients, int patternsCount) {
+        for (int i = 0; i < weights.length; i++) {
+            weights[i].value += -learningRate * gradients[i] / patternsCount;
+        }
+    }
+
+    /**
+     * Returns worker threads of parallel training, so that subclasses can also
+     * split their weight update. Returns null if the current epoch is trained sequentially.
+     *
+     * @return pool of worker threads or null
+     */
+    protected ForkJoinPool getWorkerPool() {
+        return pool;
+    }
+
+    /**
+     * Returns number of threads used to calculate gradients in batch mode
+     *
+     * @return number of threads
+     */
+    public int getThreadCount() {
+        return threadCount;
+    }
+
+    /**
+     * Sets number of threads used to calculate gradients in batch mode.
+     * Thread count 1 (default) trains sequentially.
+     *
+     * @param threadCount number of threads
+     */
+    public void setThreadCount(int threadCount) {
+        if (threadCount < 1) {
+            throw new IllegalArgumentException("Thread count must be positive: " + threadCount);
+        }
+        this.threadCount = threadCount;
+        releaseParallelResources();
+    }
+
+    /**
+     * Calculates gradients for a range of workers. Each worker processes its own
+     * part of the batch; after both halves are done, gradients of the right half
+     * are added to the left one, so worker lo ends up with the sum of the whole range.
+     */
+    private final class GradientTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final DataSet trainingSet;
+        private final int[] order;
+        private final int start;
+        private final int count;
+        private final int lo;
+        private final int hi;
+
+        GradientTask(DataSet trainingSet, int[] order, int start, int count, int lo, int hi) {
+            this.trainingSet = trainingSet;
+            this.order = order;
+            this.start = start;
+            this.count = count;
+            this.lo = lo;
+            this.hi = hi;
+        }
+
+        @Override
+        protected void compute() {
+            if (hi - lo == 1) {
+                calculateGradients();
+                return;
+            }
+            int mid = (lo + hi) >>> 1;
+            invokeAll(new GradientTask(trainingSet, order, start, count, lo, mid),
+                    new GradientTask(trainingSet, order, start, count, mid, hi));
+            sessions[lo].addGradients(sessions[mid]);
+        }
+
+        private void calculateGradients() {
+            TrainingSession session = sessions[lo];
+            session.clearGradients();
+            int workers = sessions.length;
+            int from = (int) ((long) count * lo / workers);
+            int to = (int) ((long) count * (lo + 1) / workers);
+            for (int k = from; k < to; k++) {
+                DataSetRow row = trainingSet.getRowAt(order != null ? order[start + k] : start + k);
+                double[] output = session.forward(row.getInput());
+                double[] desiredOutput = row.getDesiredOutput();
+                double[] outputCopy = batchOutputs[k];
+                for (int i = 0; i < output.length; i++) {
+                    outputCopy[i] = output[i];
+                    output[i] -= desiredOutput[i];
+                }
+                // output buffer now holds output error
+                session.backward(output);
+            }
+        }
+    }
+
 
     /**
      * This method implements weight update procedure for the whole network
@@ -70,7 +358,8 @@ public class BackPropagation extends LMS {
         int i = 0;
         // for all output neurons
         final List<Neuron> outputNeurons = neuralNetwork.getOutputNeurons();
-        for (Neuron neuron : outputNeurons) {
+        for (int n = 0; n < outputNeurons.size(); n++) {
+            Neuron neuron = outputNeurons.get(n);
             // if error is zero, just set zero error and continue to next neuron
             // 如何误差为0，则delta 权值为0.
             if (outputError[i] == 0) {
@@ -96,10 +385,11 @@ public class BackPropagation extends LMS {
      * This method implements weights adjustment for the hidden layers
      */
     protected void calculateErrorAndUpdateHiddenNeurons() {
-        List<Layer> layers = neuralNetwork.getLayers();
         // 反向计算，起点就是隐藏层.
-        for (int layerIdx = layers.size() - 2; layerIdx > 0; layerIdx--) {
-            for (Neuron neuron : layers.get(layerIdx).getNeurons()) {
+        for (int layerIdx = neuralNetwork.getLayersCount() - 2; layerIdx > 0; layerIdx--) {
+            Layer layer = neuralNetwork.getLayerAt(layerIdx);
+            for (int n = 0; n < layer.getNeuronsCount(); n++) {
+                Neuron neuron = layer.getNeuronAt(n);
                 // calculate the neuron's error (delta)
                 final double delta = calculateHiddenNeuronError(neuron);
                 neuron.setDelta(delta);
@@ -117,7 +407,9 @@ public class BackPropagation extends LMS {
      */
     protected double calculateHiddenNeuronError(Neuron neuron) {
         double deltaSum = 0d;
-        for (Connection connection : neuron.getOutConnections()) {
+        List<Connection> connections = neuron.getOutConnections();
+        for (int c = 0; c < connections.size(); c++) {
+            Connection connection = connections.get(c);
             double delta = connection.getToNeuron().getDelta() * connection.getWeight().value;
             deltaSum += delta; // weighted delta sum from the next layer
         } // for
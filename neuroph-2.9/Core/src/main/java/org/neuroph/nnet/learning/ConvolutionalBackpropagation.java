@@ -3,48 +3,115 @@ package org.neuroph.nnet.learning;
 import java.util.List;
 
 import org.neuroph.core.Connection;
-import org.neuroph.nnet.comp.layer.ConvolutionalLayer;
-import org.neuroph.nnet.comp.layer.FeatureMapLayer;
 import org.neuroph.core.Layer;
 import org.neuroph.core.Neuron;
-import org.neuroph.core.transfer.TransferFunction;
+import org.neuroph.nnet.comp.layer.PoolingLayer;
+import org.neuroph.nnet.comp.layer.TensorLayer;
 
+/**
+ * Back propagation with momentum for convolutional networks.
+ * <p>
+ * Connection based layers are trained like in {@link MomentumBackpropagation},
+ * except that {@link PoolingLayer} only passes error to the previous layer.
+ * {@link TensorLayer}s calculate their own gradients: error is passed to them as
+ * gradients of neuron outputs, and from one tensor layer to the previous one as
+ * gradients of its input tensor. Kernels of tensor layers are updated after each
+ * pattern, or at the end of (mini) batch in batch mode.
+ *
+ * @author Boris Fulurija
+ * @author Zoran Sevarac
+ */
 public class ConvolutionalBackpropagation extends MomentumBackpropagation {
 
     private static final long serialVersionUID = -7134947805154423695L;
 
+    @Override
+    protected void onStart() {
+        super.onStart();
+        for (int i = 0; i < neuralNetwork.getLayersCount(); i++) {
+            Layer layer = neuralNetwork.getLayerAt(i);
+            if (layer instanceof TensorLayer) {
+                ((TensorLayer) layer).clearGradients();
+            }
+        }
+    }
+
     @Override
     protected void calculateErrorAndUpdateHiddenNeurons() {
         List<Layer> layers = neuralNetwork.getLayers();
         for (int layerIdx = layers.size() - 2; layerIdx > 0; layerIdx--) {
-            for (Neuron neuron : layers.get(layerIdx).getNeurons()) {
+            Layer layer = layers.get(layerIdx);
+            if (layer instanceof TensorLayer) {
+                backward((TensorLayer) layer, layers.get(layerIdx + 1));
+                continue;
+            }
+            for (Neuron neuron : layer.getNeurons()) {
                 double neuronError = this.calculateHiddenNeuronError(neuron);
                 neuron.setDelta(neuronError);
-                if (layers.get(layerIdx) instanceof ConvolutionalLayer) { // if it is convolutional layer c=adapt weughts, dont touch pooling. Pooling just propagate the error
+                if (!(layer instanceof PoolingLayer)) { // adapt weights of all layers but pooling. Pooling just propagate the error
                     this.calculateWeightChanges(neuron);
                 }
             } // for
         } // for
     }
 
+    /**
+     * Back propagates error through the tensor layer
+     *
+     * @param layer     tensor layer
+     * @param nextLayer layer after the tensor layer
+     */
+    private void backward(TensorLayer layer, Layer nextLayer) {
+        double[] outputGradients;
+        if (nextLayer instanceof TensorLayer) {
+            outputGradients = ((TensorLayer) nextLayer).getInputGradients();
+        } else {
+            // next layer is connected to the neurons of tensor layer
+            outputGradients = layer.getOutputGradients();
+            for (int i = 0; i < outputGradients.length; i++) {
+                outputGradients[i] = weightedDeltaSum(layer.getNeuronAt(i));
+            }
+        }
+        layer.backward(outputGradients);
+        if (!isBatchMode()) {
+            layer.applyGradients(learningRate, momentum, 1);
+        }
+    }
+
+    @Override
+    protected void doBatchWeightsUpdate() {
+        int patternsCount = getBatchPatternsCount();
+        super.doBatchWeightsUpdate();
+        for (int i = 0; i < neuralNetwork.getLayersCount(); i++) {
+            Layer layer = neuralNetwork.getLayerAt(i);
+            if (layer instanceof TensorLayer) {
+                ((TensorLayer) layer).applyGradients(learningRate, momentum, patternsCount);
+            }
+        }
+    }
 
     // ova mora da se overriduje jer glavna uzima izvod
     // ali ova treba samo za pooling sloj
     @Override
     protected double calculateHiddenNeuronError(Neuron neuron) {
 
-        // for convolutional layers use standard backprop formula
-        if (neuron.getParentLayer() instanceof ConvolutionalLayer) {
+        // for convolutional and fully connected layers use standard backprop formula
+        if (!(neuron.getParentLayer() instanceof PoolingLayer)) {
             return super.calculateHiddenNeuronError(neuron);
         }
 
         // for pooling layer just transfer error without using tranfer function derivative
+        return weightedDeltaSum(neuron);
+    }
+
+    private double weightedDeltaSum(Neuron neuron) {
         double deltaSum = 0d;
-        for (Connection connection : neuron.getOutConnections()) {
+        List<Connection> connections = neuron.getOutConnections();
+        for (int c = 0; c < connections.size(); c++) {
+            Connection connection = connections.get(c);
             double delta = connection.getToNeuron().getDelta() * connection.getWeight().value;
             deltaSum += delta; // weighted delta sum from the next layer
         } // for
-
         return deltaSum;
     }
 
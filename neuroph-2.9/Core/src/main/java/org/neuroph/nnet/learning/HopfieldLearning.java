@@ -74,6 +74,7 @@ public class HopfieldLearning extends LearningRule {
                 cji.getWeight().setValue(w);
             } // j
         } // i
+        weightsChanged();
 
     }
 
@@ -63,6 +63,7 @@ public class KohonenLearning extends LearningRule {
                     learnPattern(trainingSetRow, nR[phase]);
                 } // while
                 currentIteration = k;
+                weightsChanged();
                 fireLearningEvent(new LearningEvent(this, LearningEvent.Type.EPOCH_ENDED));
                 if (isStopped()) return;
             } // for k
@@ -60,7 +60,8 @@ public class LMS extends SupervisedLearning implements Serializable {
         int i = 0;
         // for each neuron in output layer
         List<Neuron> outputNeurons = neuralNetwork.getOutputNeurons();
-        for (Neuron neuron : outputNeurons) {
+        for (int n = 0; n < outputNeurons.size(); n++) {
+            Neuron neuron = outputNeurons.get(n);
             // set the neuron error, as difference between desired and actual output
             neuron.setDelta(outputError[i]);
             // and update neuron weights -- this should be renamed to calculate weight changes
@@ -95,7 +96,9 @@ public class LMS extends SupervisedLearning implements Serializable {
         // double neuronError = Math.tanh(neuron.getError());
 
         // iterate through all neuron's input connections
-        for (Connection connection : neuron.getInputConnections()) {
+        List<Connection> connections = neuron.getInputConnections();
+        for (int c = 0; c < connections.size(); c++) {
+            Connection connection = connections.get(c);
             // get the input from current connection
             final double input = connection.getInput();
             // calculate the weight change
@@ -1,5 +1,7 @@
 package org.neuroph.nnet.learning;
 
+import java.util.List;
+
 import org.neuroph.core.Connection;
 import org.neuroph.core.Neuron;
 import org.neuroph.core.Weight;
@@ -17,7 +19,9 @@ public class ManhattanPropagation extends BackPropagation {
         double delta = neuron.getDelta();
 
         // iterate through all neuron's input connections
-        for (Connection connection : neuron.getInputConnections()) {
+        List<Connection> connections = neuron.getInputConnections();
+        for (int c = 0; c < connections.size(); c++) {
+            Connection connection = connections.get(c);
             // get the input from current connection
             double input = connection.getInput();
             // calculate the weight change
@@ -35,4 +39,14 @@ public class ManhattanPropagation extends BackPropagation {
         }
     }
 
+    /**
+     * Applies fixed step in the direction opposite to the sign of the gradient summed over the batch
+     */
+    @Override
+    protected void applyGradientSums(Weight[] weights, double[] gradients, int patternsCount) {
+        for (int i = 0; i < weights.length; i++) {
+            weights[i].value += -learningRate * Math.signum(gradients[i]);
+        }
+    }
+
 }
@@ -18,7 +18,6 @@ package org.neuroph.nnet.learning;
 import java.util.List;
 
 import org.neuroph.core.Connection;
-import org.neuroph.core.Layer;
 import org.neuroph.core.Neuron;
 import org.neuroph.core.Weight;
 
@@ -40,36 +39,20 @@ public class MomentumBackpropagation extends BackPropagation {
     protected double momentum = 0.25d;
 
     /**
-     * Creates new instance of MomentumBackpropagation learning
+     * Distinct network weights, indexed by {@link Weight#getIndex()}
      */
-    public MomentumBackpropagation() {
-        super();
-    }
+    protected transient Weight[] weights;
 
     /**
-     * This method implements weights adjustment for the hidden layers
-     * Uses parallel processing on each layer with 100 or more neurons and a regular loop if less.
+     * Previous weight change for each weight
      */
-    protected void calculateErrorAndUpdateHiddenNeurons() {
-        List<Layer> layers = neuralNetwork.getLayers();
-        for (int layerIdx = layers.size() - 2; layerIdx > 0; layerIdx--) {
-            List<Neuron> layerNeurons = layers.get(layerIdx).getNeurons();
-            if (layerNeurons.size() >= 100) {
-                layerNeurons.parallelStream().forEach(neuron -> {
-                    // calculate the neuron's error (delta)
-                    double delta = calculateHiddenNeuronError(neuron);
-                    neuron.setDelta(delta);
-                    calculateWeightChanges(neuron);
-                });
-            } else {
-                for (Neuron neuron : layerNeurons) {
-                    // calculate the neuron's error (delta)
-                    double delta = calculateHiddenNeuronError(neuron);
-                    neuron.setDelta(delta);
-                    calculateWeightChanges(neuron);
-                }
-            }
-        } // for
+    protected transient double[] previousWeightChanges;
+
+    /**
+     * Creates new instance of MomentumBackpropagation learning
+     */
+    public MomentumBackpropagation() {
+        super();
     }
 
     /**
@@ -80,7 +63,9 @@ public class MomentumBackpropagation extends BackPropagation {
      */
     @Override
     public void calculateWeightChanges(Neuron neuron) {
-        for (Connection connection : neuron.getInputConnections()) {
+        List<Connection> connections = neuron.getInputConnections();
+        for (int c = 0; c < connections.size(); c++) {
+            Connection connection = connections.get(c);
             double input = connection.getInput();
             if (input == 0) {
                 continue;
@@ -93,23 +78,52 @@ public class MomentumBackpropagation extends BackPropagation {
             // suggested at https://sourceforge.net/tracker/?func=detail&atid=1107579&aid=3130561&group_id=238532
             // double neuronError = Math.tanh(neuron.getError());
 
-            Weight<MomentumTrainingData> weight = connection.getWeight();
-            MomentumTrainingData weightTrainingData = weight.getTrainingData();
-
-            //double currentWeightValue = weight.getValue();
-            double weightChange = -learningRate * neuronDelta * input + momentum * weightTrainingData.previousWeightChange;
-            weightTrainingData.previousWeightChange = weight.weightChange;
+            Weight weight = connection.getWeight();
+            int index = weight.getIndex();
 
-
-            // if the learning is in batch mode apply the weight change immediately
             if (isBatchMode() == false) {
+                // if the learning is not in batch mode apply the weight change immediately
+                //double currentWeightValue = weight.getValue();
+                double weightChange = -learningRate * neuronDelta * input + momentum * previousWeightChanges[index];
+                previousWeightChanges[index] = weight.weightChange;
                 weight.weightChange = weightChange;
-            } else { // otherwise, sum the weight changes and apply them after at the end of epoch
-                weight.weightChange += weightChange;
+            } else {
+                // otherwise, sum the weight changes and apply them with momentum at the end of (mini) batch
+                weight.weightChange += -learningRate * neuronDelta * input;
             }
         }
     }
 
+    /**
+     * Applies average weight change accumulated in the current batch, together
+     * with momentum term. Momentum is applied once per batch, not once per pattern.
+     */
+    @Override
+    protected void doBatchWeightsUpdate() {
+        int patternsCount = getBatchPatternsCount();
+        // distinct weights, so shared weights (like convolution kernels) are updated only once
+        for (int i = 0; i < weights.length; i++) {
+            Weight weight = weights[i];
+            double weightChange = weight.weightChange / patternsCount + momentum * previousWeightChanges[i];
+            weight.value += weightChange;
+            previousWeightChanges[i] = weightChange;
+            weight.weightChange = 0;
+        }
+    }
+
+    /**
+     * Applies average weight change of the batch calculated by parallel training, together with momentum term
+     */
+    @Override
+    protected void applyGradientSums(Weight[] weights, double[] gradients, int patternsCount) {
+        for (int i = 0; i < weights.length; i++) {
+            int index = weights[i].getIndex();
+            double weightChange = -learningRate * gradients[i] / patternsCount + momentum * previousWeightChanges[index];
+            weights[i].value += weightChange;
+            previousWeightChanges[index] = weightChange;
+        }
+    }
+
     /**
      * Returns the momentum factor
      *
@@ -128,20 +142,22 @@ public class MomentumBackpropagation extends BackPropagation {
         this.momentum = momentum;
     }
 
-    public static class MomentumTrainingData {
-        public double previousWeightChange;
-    }
-
     @Override
     protected void onStart() {
         super.onStart();
-        // create MomentumTrainingData objects that will be used during the training to store previous weight value
-        for (Layer layer : neuralNetwork.getLayers()) {
-            for (Neuron neuron : layer.getNeurons()) {
-                for (Connection connection : neuron.getInputConnections()) {
-                    connection.getWeight().setTrainingData(new MomentumTrainingData());
-                }
-            } // for
-        } // for
+        // momentum state is kept in array indexed by weight index
+        weights = indexWeights();
+        previousWeightChanges = new double[weights.length];
+    }
+
+    /**
+     * Momentum state of one weight, which was kept as weight training data.
+     *
+     * @deprecated momentum state is kept in array indexed by weight index,
+     * and is no longer set as training data of weights
+     */
+    @Deprecated
+    public static class MomentumTrainingData {
+        public double previousWeightChange;
     }
 }
@@ -0,0 +1,78 @@
+/**
+ * Copyright 2014 Neuroph Project http://neuroph.sourceforge.net
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.neuroph.nnet.learning;
+
+/**
+ * Back propagation with Nesterov momentum. Velocity is updated as in momentum
+ * back propagation, but the weight change looks ahead along the new velocity:
+ * change = (1 + momentum) * v(t) - momentum * v(t-1).
+ */
+public class NesterovBackpropagation extends AdaptiveBackpropagation {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Momentum factor
+     */
+    private double momentum = 0.9d;
+
+    /**
+     * Velocity for each weight
+     */
+    private transient double[] velocities;
+
+    /**
+     * Creates new instance of Nesterov momentum learning with learning rate 0.1
+     */
+    public NesterovBackpropagation() {
+        super(0.1d);
+    }
+
+    @Override
+    protected void onStart() {
+        super.onStart();
+        velocities = new double[weights.length];
+    }
+
+    @Override
+    protected double calculateWeightChange(int index, double gradient) {
+        double previousVelocity = velocities[index];
+        double velocity = momentum * previousVelocity - learningRate * gradient;
+        velocities[index] = velocity;
+        return (1d + momentum) * velocity - momentum * previousVelocity;
+    }
+
+    /**
+     * Returns the momentum factor
+     *
+     * @return momentum factor
+     */
+    public double getMomentum() {
+        return momentum;
+    }
+
+    /**
+     * Sets the momentum factor
+     *
+     * @param momentum momentum factor
+     */
+    public void setMomentum(double momentum) {
+        this.momentum = momentum;
+    }
+
+}
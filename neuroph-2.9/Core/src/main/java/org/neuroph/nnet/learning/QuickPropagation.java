@@ -1,11 +1,16 @@
 package org.neuroph.nnet.learning;
 
+import java.util.List;
+
 import org.neuroph.core.Connection;
-import org.neuroph.core.Layer;
 import org.neuroph.core.Neuron;
 import org.neuroph.core.Weight;
 
 /**
+ * Quick propagation learning rule. In online mode quick propagation step is taken for each pattern.
+ * In batch mode gradients are summed over the batch and one step is taken for the average gradient,
+ * the same way for sequential and parallel training.
+ *
  * @author Mladen
  */
 public class QuickPropagation extends BackPropagation {
@@ -15,97 +20,142 @@ public class QuickPropagation extends BackPropagation {
     //  private final static double shrinkFactor = maximumGrowthFactor / (1.0 + maximumGrowthFactor);
     // hes mapu koristim da cuvam vrednosti prethodnih iteracija - koristi training data
 
+    // vrednosti prethodnih iteracija for each weight, indexed by weight index
+    private transient double[] previousWeightChanges;
+    private transient double[] prevGradients;
+
+    /**
+     * Distinct network weights and sums of their gradients in current batch, indexed by weight index
+     */
+    private transient Weight[] weights;
+    private transient double[] gradientSums;
+
     @Override
     public void calculateWeightChanges(Neuron neuron) {
         double delta = neuron.getDelta();
-        for (Connection con : neuron.getInputConnections()) {
+        List<Connection> connections = neuron.getInputConnections();
+        for (int c = 0; c < connections.size(); c++) {
+            Connection con = connections.get(c);
 
-            Weight<QuickPropData> w = con.getWeight();
-            QuickPropData qpData = w.getTrainingData();
+            Weight w = con.getWeight();
 
             double input = con.getInput();
             if (input == 0) continue;
 
             double gradient = delta * input;
-            double previousWeightChange = qpData.previousWeightChange;  //  this is positive gradiend dE/dw  (ili ipak -dE/dw)
-
-            // neuronError je delta  a ne gradijent
-            //double previousError = qpData.previousError;                // delta    dE/dy * y'  - ovo bi morao da bude gradijent - ne sadrzi input
-            double prevGradient = qpData.prevGradient;
-
-            double currentWeightChange = 0;
-
-
-            //1. tekuci gradijent i prethdoni gradijent  su istog znaka, i tekuci gradijent je manji od prethodnog gradijenta
-            //∆w(t) = (S(t)/(S(t-1)-S(t))) * ∆w(t−1)
-            //
-            //
-            //2. tekuci gradijent i prethdoni gradijent nisu istog znaka,  (i tekuci gradijent je manji od prethodnog gradijent - da li vazi i ovaj uslov, mislim d amora inace menja znak, ali izgleda da nema veze)
-            //∆w(t) = (S(t)/(S(t-1)-S(t))) * ∆w(t−1)
-            //
-            //
-            //3. tekuci gradijent i prethdoni gradijent su istog znaka, i tekuci delta je jednak ili veci od prethodnog delta 
-
-            //1. tekuci delta i prethdoni delta su istog znaka, i tekuci delta je manji od prethodnog delta
-            if ((prevGradient * gradient > 0) && (gradient < prevGradient)) {    // gradijenti istog znaka i tekuci gradijent je manji od prethodnog (1 slucaj)
-                currentWeightChange = (gradient / (prevGradient - gradient)) * previousWeightChange; // quick prop  // ovde bi trebalo dodati epsilon
-                // currentWeightChange = learningRate * error * input;
-                if (Math.abs(currentWeightChange) >= Math.abs((maximumGrowthFactor * previousWeightChange))) {
-                    currentWeightChange = maximumGrowthFactor * previousWeightChange;
-                }
+            if (isBatchMode()) {
+                // one step is taken for the batch in doBatchWeightsUpdate
+                gradientSums[w.getIndex()] += gradient;
+            } else {
+                w.weightChange += calculateWeightChange(w.getIndex(), gradient);
             }
-            //3. tekuci delta i prethdoni delta su istog znaka, i tekuci delta je jednak ili veci od prethodnog delta
-            else if ((prevGradient * gradient > 0) && (gradient >= prevGradient)) { // gradijenti istog znaka i tekuci gradijent je veci od prethodnog (3 slucaj)
-                currentWeightChange = maximumGrowthFactor * previousWeightChange; // ???
-                //  currentWeightChange = previousWeightChange; // ???
-
-            } else if (prevGradient * gradient < 0) { // gradijenti razlicitog znaka (2 slucaj)
-                currentWeightChange = (gradient / (prevGradient - gradient)) * previousWeightChange; // quick prop 
-
-                // sta kad ej negativno
-                if (Math.abs(currentWeightChange) >= Math.abs((maximumGrowthFactor * previousWeightChange))) {
-                    currentWeightChange = maximumGrowthFactor * previousWeightChange;
-                }
-            } else { // gradijent je 0, standardni backprop
-                currentWeightChange = -learningRate * delta * input;
+        }
+
+    }
+
+    /**
+     * Calculates quick propagation weight change for the specified gradient (delta * input),
+     * and stores gradient and weight change for the next step
+     *
+     * @param index    weight index
+     * @param gradient current gradient
+     * @return weight change
+     */
+    private double calculateWeightChange(int index, double gradient) {
+        double previousWeightChange = previousWeightChanges[index];  //  this is positive gradiend dE/dw  (ili ipak -dE/dw)
+
+        // neuronError je delta  a ne gradijent
+        //double previousError = qpData.previousError;                // delta    dE/dy * y'  - ovo bi morao da bude gradijent - ne sadrzi input
+        double prevGradient = prevGradients[index];
+
+        double currentWeightChange = 0;
+
+
+        //1. tekuci gradijent i prethdoni gradijent  su istog znaka, i tekuci gradijent je manji od prethodnog gradijenta
+        //∆w(t) = (S(t)/(S(t-1)-S(t))) * ∆w(t−1)
+        //
+        //
+        //2. tekuci gradijent i prethdoni gradijent nisu istog znaka,  (i tekuci gradijent je manji od prethodnog gradijent - da li vazi i ovaj uslov, mislim d amora inace menja znak, ali izgleda da nema veze)
+        //∆w(t) = (S(t)/(S(t-1)-S(t))) * ∆w(t−1)
+        //
+        //
+        //3. tekuci gradijent i prethdoni gradijent su istog znaka, i tekuci delta je jednak ili veci od prethodnog delta 
+
+        //1. tekuci delta i prethdoni delta su istog znaka, i tekuci delta je manji od prethodnog delta
+        if ((prevGradient * gradient > 0) && (gradient < prevGradient)) {    // gradijenti istog znaka i tekuci gradijent je manji od prethodnog (1 slucaj)
+            currentWeightChange = (gradient / (prevGradient - gradient)) * previousWeightChange; // quick prop  // ovde bi trebalo dodati epsilon
+            // currentWeightChange = learningRate * error * input;
+            if (Math.abs(currentWeightChange) >= Math.abs((maximumGrowthFactor * previousWeightChange))) {
+                currentWeightChange = maximumGrowthFactor * previousWeightChange;
             }
+        }
+        //3. tekuci delta i prethdoni delta su istog znaka, i tekuci delta je jednak ili veci od prethodnog delta
+        else if ((prevGradient * gradient > 0) && (gradient >= prevGradient)) { // gradijenti istog znaka i tekuci gradijent je veci od prethodnog (3 slucaj)
+            currentWeightChange = maximumGrowthFactor * previousWeightChange; // ???
+            //  currentWeightChange = previousWeightChange; // ???
 
-            w.weightChange += currentWeightChange;
-            //   System.out.println("currentWeightChange: " + currentWeightChange);
-//            if (currentWeightChange > 10) {
-//                System.out.println(getCurrentIteration() + " iteration : "+ currentWeightChange);
-//            }
-            qpData.previousWeightChange = currentWeightChange;
-            qpData.prevGradient = gradient;
-            //   qpData.previousError = delta;
+        } else if (prevGradient * gradient < 0) { // gradijenti razlicitog znaka (2 slucaj)
+            currentWeightChange = (gradient / (prevGradient - gradient)) * previousWeightChange; // quick prop 
 
+            // sta kad ej negativno
+            if (Math.abs(currentWeightChange) >= Math.abs((maximumGrowthFactor * previousWeightChange))) {
+                currentWeightChange = maximumGrowthFactor * previousWeightChange;
+            }
+        } else { // gradijent je 0, standardni backprop
+            currentWeightChange = -learningRate * gradient;
         }
 
+        previousWeightChanges[index] = currentWeightChange;
+        prevGradients[index] = gradient;
+        return currentWeightChange;
     }
 
+    /**
+     * Applies quick propagation step for the average gradient of the batch
+     */
     @Override
-    protected void onStart() {
-        super.onStart(); //To change body of generated methods, choose Tools | Templates.
-        for (Layer layers : neuralNetwork.getLayers()) {
-            for (Neuron neuron : layers.getNeurons()) {
-                for (Connection connection : neuron.getInputConnections()) {
-                    //connection.getWeight().setTrainingData(new QuickPropData());
-                    Weight<QuickPropData> qpWeight = new Weight<>();
-                    qpWeight.setTrainingData(new QuickPropData());
-                    connection.setWeight(qpWeight);
-                }
-            }
+    protected void doBatchWeightsUpdate() {
+        int patternsCount = getBatchPatternsCount();
+        for (int i = 0; i < weights.length; i++) {
+            weights[i].value += calculateWeightChange(i, gradientSums[i] / patternsCount);
+            gradientSums[i] = 0;
         }
+    }
 
+    /**
+     * Applies quick propagation step for the average gradient of the batch calculated by parallel training
+     */
+    @Override
+    protected void applyGradientSums(Weight[] weights, double[] gradients, int patternsCount) {
+        for (int i = 0; i < weights.length; i++) {
+            weights[i].value += calculateWeightChange(weights[i].getIndex(), gradients[i] / patternsCount);
+        }
     }
 
+    @Override
+    protected void onStart() {
+        super.onStart();
+        // network weights are kept, quick prop state is stored in arrays indexed by weight index
+        weights = indexWeights();
+        int weightsCount = weights.length;
+        previousWeightChanges = new double[weightsCount];
+        prevGradients = new double[weightsCount];
+        gradientSums = new double[weightsCount];
+    }
+
+    /**
+     * Quickprop state of one weight, which was kept as weight training data.
+     *
+     * @deprecated state is kept in arrays indexed by weight index,
+     * and is no longer set as training data of weights
+     */
+    @Deprecated
     public static class QuickPropData {
         private double previousWeightChange;
-        private double previousError; // we dont need this for weight
+        private double previousError;
         private double prevGradient;
     }
 
-
 }
 // strata implementacija
 //            if (previousWeightChange < 0) { // gradijenti su razliciti
@@ -0,0 +1,79 @@
+/**
+ * Copyright 2014 Neuroph Project http://neuroph.sourceforge.net
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.neuroph.nnet.learning;
+
+/**
+ * RMSProp learning rule. Divides the learning rate of each weight by the root
+ * of exponentially decaying average of its squared gradients.
+ */
+public class RMSPropBackpropagation extends AdaptiveBackpropagation {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Decay rate of the squared gradient average
+     */
+    private double decayRate = 0.9d;
+
+    /**
+     * Small value which prevents division by zero
+     */
+    private double epsilon = 1e-8d;
+
+    /**
+     * Average of squared gradients for each weight
+     */
+    private transient double[] squaredGradients;
+
+    /**
+     * Creates new instance of RMSProp learning with learning rate 0.001
+     */
+    public RMSPropBackpropagation() {
+        super(0.001d);
+    }
+
+    @Override
+    protected void onStart() {
+        super.onStart();
+        squaredGradients = new double[weights.length];
+    }
+
+    @Override
+    protected double calculateWeightChange(int index, double gradient) {
+        double cache = decayRate * squaredGradients[index] + (1d - decayRate) * gradient * gradient;
+        squaredGradients[index] = cache;
+        return -learningRate * gradient / (Math.sqrt(cache) + epsilon);
+    }
+
+    public double getDecayRate() {
+        return decayRate;
+    }
+
+    public void setDecayRate(double decayRate) {
+        this.decayRate = decayRate;
+    }
+
+    public double getEpsilon() {
+        return epsilon;
+    }
+
+    public void setEpsilon(double epsilon) {
+        this.epsilon = epsilon;
+    }
+
+}
@@ -1,9 +1,11 @@
 package org.neuroph.nnet.learning;
 
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 import org.neuroph.core.Connection;
-import org.neuroph.core.Layer;
 import org.neuroph.core.Neuron;
 import org.neuroph.core.Weight;
 
@@ -11,18 +13,72 @@ import org.neuroph.core.Weight;
  * Resilient Propagation learning rule used for Multi Layer Perceptron neural networks.
  * Its one of the most efficent learning rules for this type of networks, and it does not require
  * setting of learning rule parameter.
+ * <p>
+ * Classic Rprop with weight backtracking is used by default; the improved variants
+ * iRprop+ and iRprop- described by Igel and H&uuml;sken can be selected with
+ * {@link #setVariant(Variant)}. Resilient state is kept in arrays indexed by weight,
+ * and with more than one thread (see {@link #setThreadCount(int)}) gradients are
+ * summed by parallel workers and the sign based update runs over chunks of
+ * these arrays in parallel.
  *
  * @author Borislav Markov
  * @author Zoran Sevarac
  */
 public class ResilientPropagation extends BackPropagation {
 
+    /**
+     * Rprop variants, which differ in the handling of a weight whose gradient changed sign
+     */
+    public enum Variant {
+        /**
+         * Rprop+, reverts the previous weight change (weight backtracking)
+         */
+        RPROP_PLUS,
+        /**
+         * Rprop-, makes a step with the decreased delta and keeps the gradient
+         */
+        RPROP_MINUS,
+        /**
+         * iRprop+, reverts the previous weight change only if network error has increased
+         */
+        IRPROP_PLUS,
+        /**
+         * iRprop-, skips the weight change and forgets the gradient
+         */
+        IRPROP_MINUS
+    }
+
+    /**
+     * Number of weights updated by one task, smaller updates run in the calling thread
+     */
+    private static final int UPDATE_CHUNK_SIZE = 1024;
+
     private double decreaseFactor = 0.5;
     private double increaseFactor = 1.2;
     private double initialDelta = 0.1;
     private double maxDelta = 1;
     private double minDelta = 1e-6;
     private static final double ZERO_TOLERANCE = 1e-27; // the lowest limit when something is considered to be zero -it should be bigger liek 1e-17
+    private Variant variant = Variant.RPROP_PLUS;
+
+    /**
+     * Distinct network weights, indexed by {@link Weight#getIndex()}
+     */
+    private transient Weight[] weights;
+
+    // resilient training data for each weight, indexed by weight index
+    private transient double[] gradients; // dE / dw(t)
+    private transient double[] previousGradients; // dE / dw(t-1)
+    private transient double[] previousWeightChanges; // deltaWeight(t-1)
+    private transient double[] previousDeltas; // svaki weight ima svooj delta param a ne jedan zajednicki
+
+    /**
+     * Number of patterns in current epoch before the last update and sum of their errors, used to get error
+     * of the patterns of each update, which iRprop+ compares with error of the previous update
+     */
+    private transient int updatedPatterns;
+    private transient double updatedErrorSum;
+    private transient double previousUpdateError;
 
     public ResilientPropagation() {
         super();
@@ -43,14 +99,21 @@ public class ResilientPropagation extends BackPropagation {
     protected void onStart() {
         super.onStart(); // init all stuff from superclasses
 
-        // create ResilientWeightTrainingtData objects that will hold additional data (resilient specific) during the training 
-        for (Layer layer : this.neuralNetwork.getLayers()) {
-            for (Neuron neuron : layer.getNeurons()) {
-                for (Connection connection : neuron.getInputConnections()) {
-                    connection.getWeight().setTrainingData(new ResilientWeightTrainingtData());
-                }
-            }
-        }
+        // create arrays that will hold additional data (resilient specific) during the training
+        weights = indexWeights();
+        gradients = new double[weights.length];
+        previousGradients = new double[weights.length];
+        previousWeightChanges = new double[weights.length];
+        previousDeltas = new double[weights.length];
+        Arrays.fill(previousDeltas, initialDelta);
+        previousUpdateError = Double.POSITIVE_INFINITY;
+    }
+
+    @Override
+    protected void beforeEpoch() {
+        super.beforeEpoch();
+        updatedPatterns = 0;
+        updatedErrorSum = 0;
     }
 
     /**
@@ -60,7 +123,9 @@ public class ResilientPropagation extends BackPropagation {
      */
     @Override
     public void calculateWeightChanges(Neuron neuron) {
-        for (Connection connection : neuron.getInputConnections()) {
+        List<Connection> connections = neuron.getInputConnections();
+        for (int c = 0; c < connections.size(); c++) {
+            Connection connection = connections.get(c);
             double input = connection.getInput();
             if (input == 0) {
                 continue;
@@ -68,30 +133,59 @@ public class ResilientPropagation extends BackPropagation {
 
             // get the error for specified neuron,
             double neuronError = neuron.getDelta();
-            // get the current connection's weight
-            Weight weight = connection.getWeight();
-            // ... and get the object that stores reislient training data for that weight
-            ResilientWeightTrainingtData weightData = (ResilientWeightTrainingtData) weight.getTrainingData();
+            // get the index of current connection's weight
+            int index = connection.getWeight().getIndex();
 
             // calculate the weight gradient (and sum gradients since learning is done in batch mode)
-            weightData.gradient += -neuronError * input;  // - ili + ovde ? bilo je +
+            gradients[index] += -neuronError * input;  // - ili + ovde ? bilo je +
         }
     }
 
     @Override
     protected void doBatchWeightsUpdate() {
-        // iterate layers from output to input
-        List<Layer> layers = neuralNetwork.getLayers();
-        for (int i = neuralNetwork.getLayersCount() - 1; i > 0; i--) {
-            // iterate neurons at each layer
-            for (Neuron neuron : layers.get(i).getNeurons()) {
-                // iterate connections/weights for each neuron
-                for (Connection connection : neuron.getInputConnections()) {
-                    // for each connection weight apply following changes
-                    Weight weight = connection.getWeight();
-                    resillientWeightUpdate(weight);
-                }
+        updateWeights(null, getBatchPatternsCount());
+    }
+
+    /**
+     * Applies gradients of the batch calculated by parallel training
+     */
+    @Override
+    protected void applyGradientSums(Weight[] weights, double[] gradients, int patternsCount) {
+        // weights are distinct and in index order, so gradients match resilient arrays
+        updateWeights(gradients, patternsCount);
+    }
+
+    /**
+     * Updates all weights, in parallel chunks if worker threads are available
+     *
+     * @param gradientSums  gradients of the batch summed by parallel training, or null if already in gradients
+     * @param patternsCount number of patterns in the batch
+     */
+    private void updateWeights(double[] gradientSums, int patternsCount) {
+        // iRprop+ backtracks only if error is increasing, compare error of the patterns of this update with
+        // error of the previous update. Error function gives mean error of the patterns in current epoch.
+        int epochPatterns = updatedPatterns + patternsCount;
+        double errorSum = getErrorFunction().getTotalError() * epochPatterns;
+        double updateError = (errorSum - updatedErrorSum) / patternsCount;
+        boolean errorIncreased = updateError > previousUpdateError;
+        previousUpdateError = updateError;
+        updatedPatterns = epochPatterns;
+        updatedErrorSum = errorSum;
+
+        ForkJoinPool pool = getWorkerPool();
+        if (pool == null || weights.length < 2 * UPDATE_CHUNK_SIZE) {
+            updateWeights(gradientSums, 0, weights.length, errorIncreased);
+        } else {
+            pool.invoke(new UpdateTask(gradientSums, 0, weights.length, errorIncreased));
+        }
+    }
+
+    private void updateWeights(double[] gradientSums, int from, int to, boolean errorIncreased) {
+        for (int i = from; i < to; i++) {
+            if (gradientSums != null) {
+                gradients[i] -= gradientSums[i];
             }
+            updateWeight(i, errorIncreased);
         }
     }
 
@@ -102,12 +196,19 @@ public class ResilientPropagation extends BackPropagation {
      * @param weight
      */
     protected void resillientWeightUpdate(Weight weight) {
-        // get resilient training data for the current weight
-        ResilientWeightTrainingtData weightData = (ResilientWeightTrainingtData) weight.getTrainingData();
+        updateWeight(weight.getIndex(), getErrorFunction().getTotalError() > previousEpochError);
+    }
 
+    /**
+     * Updates weight with the specified index using its resilient training data
+     *
+     * @param i              weight index
+     * @param errorIncreased true if network error has increased, used by iRprop+
+     */
+    private void updateWeight(int i, boolean errorIncreased) {
         // multiply the current and previous gradient, and take the sign. 
         // We want to see if the gradient has changed its sign.            
-        int gradientSignChange = sign(weightData.previousGradient * weightData.gradient);
+        int gradientSignChange = sign(previousGradients[i] * gradients[i]);
 
         double weightChange = 0; // weight change to apply (delta weight)
         double delta; //  adaptation factor - svaka tezina treba da ima svoj delta i d ag apamti - u tom ej epoenta!!!!
@@ -115,37 +216,53 @@ public class ResilientPropagation extends BackPropagation {
         if (gradientSignChange > 0) {
             // if the gradient has retained its sign, then we increase delta (adaptation factor) so that it will converge faster
             delta = Math.min(
-                    weightData.previousDelta * increaseFactor,
+                    previousDeltas[i] * increaseFactor,
                     maxDelta);
-            // weightChange = -sign(weightData.gradient) * delta;
+            // weightChange = -sign(gradients[i]) * delta;
             // if error is increasing (gradient is positive) then subtract delta, if error is decreasing (gradient negative) then add delta
             // note that our gradient has different sign eg. -dE_dw so we omit the minus here
-            weightChange = sign(weightData.gradient) * delta;
-            weightData.previousDelta = delta;
+            weightChange = sign(gradients[i]) * delta;
+            previousDeltas[i] = delta;
         } else if (gradientSignChange < 0) {
             // if gradientSignChange<0, then the sign has changed, and the last weight change was too big                
             delta = Math.max(
-                    weightData.previousDelta * decreaseFactor,
+                    previousDeltas[i] * decreaseFactor,
                     minDelta);
-            // weightChange = - weightData.previousDelta;// 0;// -delta  - weightData.previousDelta; // ovo je problematicno treba da bude weightChange          
-            weightChange = -weightData.previousWeightChange; // if it skipped min in previous step go back
-            // avoid double punishment
-            weightData.gradient = 0;
-            weightData.previousGradient = 0;
+            switch (variant) {
+                case RPROP_MINUS:
+                    // no backtracking, step with decreased delta
+                    weightChange = sign(gradients[i]) * delta;
+                    break;
+                case IRPROP_MINUS:
+                    // no step in this epoch
+                    weightChange = 0;
+                    gradients[i] = 0;
+                    break;
+                case IRPROP_PLUS:
+                    // go back only if the last step made the whole network worse
+                    weightChange = errorIncreased ? -previousWeightChanges[i] : 0;
+                    gradients[i] = 0;
+                    break;
+                default:
+                    // weightChange = - previousDeltas[i];// 0;// -delta  - previousDeltas[i]; // ovo je problematicno treba da bude weightChange          
+                    weightChange = -previousWeightChanges[i]; // if it skipped min in previous step go back
+                    // avoid double punishment
+                    gradients[i] = 0;
+            }
 
             //move values in the past
-            weightData.previousDelta = delta;
+            previousDeltas[i] = delta;
         } else if (gradientSignChange == 0) {
             // if gradientSignChange==0 then there is no change to the delta
-            delta = weightData.previousDelta;
-            //delta = weightData.previousGradient; // note that encog does this
-            weightChange = sign(weightData.gradient) * delta;
+            delta = previousDeltas[i];
+            //delta = previousGradients[i]; // note that encog does this
+            weightChange = sign(gradients[i]) * delta;
         }
 
-        //weight.value += weightChange; -- ovo mora da se radi simultano
-        weightData.previousWeightChange = weightChange;
-        weightData.previousGradient = weightData.gradient; // as in moveNowValuesToPreviousEpochValues
-        weightData.gradient = 0;
+        weights[i].value += weightChange;
+        previousWeightChanges[i] = weightChange;
+        previousGradients[i] = gradients[i]; // as in moveNowValuesToPreviousEpochValues
+        gradients[i] = 0;
     }
 
     public double getDecreaseFactor() {
@@ -188,17 +305,70 @@ public class ResilientPropagation extends BackPropagation {
         this.minDelta = minDelta;
     }
 
+    public Variant getVariant() {
+        return variant;
+    }
+
+    /**
+     * Sets the Rprop variant, classic Rprop+ is used by default
+     *
+     * @param variant Rprop variant
+     */
+    public void setVariant(Variant variant) {
+        if (variant == null) {
+            throw new IllegalArgumentException("Variant cannot be null!");
+        }
+        this.variant = variant;
+    }
+
     @Override
     public void setBatchMode(boolean batchMode) {
         if (batchMode == false) throw new IllegalStateException("Resilient propagation runs only in batch mode!");
     }
 
-
+    /**
+     * Resilient propagation state of one weight, which was kept as weight training data.
+     *
+     * @deprecated state is kept in arrays indexed by weight index,
+     * and is no longer set as training data of weights
+     */
+    @Deprecated
     public class ResilientWeightTrainingtData {
         public double gradient; // dE / dw(t)
         public double previousGradient; // dE / dw(t-1)
         public double previousWeightChange; // deltaWeight(t-1)
         public double previousDelta = initialDelta;
-        // add deltaij - svaki weight ima svooj delta param a ne jedan zajednicki 
     }
-}
+
+    /**
+     * Updates a range of weights, splitting it in halves until it fits in one chunk
+     */
+    private final class UpdateTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final double[] gradientSums;
+        private final int lo;
+        private final int hi;
+        private final boolean errorIncreased;
+
+        UpdateTask(double[] gradientSums, int lo, int hi, boolean errorIncreased) {
+            this.gradientSums = gradientSums;
+            this.lo = lo;
+            this.hi = hi;
+            this.errorIncreased = errorIncreased;
+        }
+
+        @Override
+        protected void compute() {
+            if (hi - lo <= UPDATE_CHUNK_SIZE) {
+                updateWeights(gradientSums, lo, hi, errorIncreased);
+                return;
+            }
+            int mid = (lo + hi) >>> 1;
+            invokeAll(new UpdateTask(gradientSums, lo, mid, errorIncreased),
+                    new UpdateTask(gradientSums, mid, hi, errorIncreased));
+        }
+    }
+
+}
\ No newline at end of file
@@ -3,10 +3,10 @@ package org.neuroph.nnet.learning;
 import java.util.Iterator;
 
 import org.neuroph.core.NeuralNetwork;
+import org.neuroph.core.WeightVector;
 import org.neuroph.core.data.DataSet;
 import org.neuroph.core.data.DataSetRow;
 import org.neuroph.core.learning.SupervisedLearning;
-import org.neuroph.util.NeuralNetworkCODEC;
 
 /**
  * This class implements a simulated annealing learning rule for supervised
@@ -65,6 +65,11 @@ public class SimulatedAnnealingLearning extends SupervisedLearning {
      */
     private double[] bestWeights;
 
+    /**
+     * Weights of the neural network, in the same order as weights arrays
+     */
+    private transient WeightVector weightVector;
+
     /**
      * Construct a simulated annleaing trainer for a feedforward neural network.
      *
@@ -80,20 +85,21 @@ public class SimulatedAnnealingLearning extends SupervisedLearning {
         this.startTemperature = startTemp;
         this.stopTemperature = stopTemp;
         this.cycles = cycles;
-
-        this.weights = new double[NeuralNetworkCODEC
-                .determineArraySize(network)];
-        this.bestWeights = new double[NeuralNetworkCODEC
-                .determineArraySize(network)];
-
-        NeuralNetworkCODEC.network2array(network, this.weights);
-        NeuralNetworkCODEC.network2array(network, this.bestWeights);
     }
 
     public SimulatedAnnealingLearning(final NeuralNetwork network) {
         this(network, 10, 2, 1000);
     }
 
+    @Override
+    public void setNeuralNetwork(NeuralNetwork neuralNetwork) {
+        super.setNeuralNetwork(neuralNetwork);
+        // weight buffers are created for weights of the new network
+        this.weightVector = neuralNetwork.getWeightVector();
+        this.weights = weightVector.toArray();
+        this.bestWeights = weightVector.toArray();
+    }
+
     /**
      * Get the best network from the training.
      *
@@ -121,7 +127,14 @@ public class SimulatedAnnealingLearning extends SupervisedLearning {
                 this.weights[i] = this.weights[i] + add;
             }
 
-        NeuralNetworkCODEC.array2network(this.weights, getNetwork());
+        getWeightVector().set(this.weights);
+    }
+
+    private WeightVector getWeightVector() {
+        if (weightVector == null) {
+            weightVector = getNetwork().getWeightVector();
+        }
+        return weightVector;
     }
 
     /**
@@ -170,6 +183,9 @@ public class SimulatedAnnealingLearning extends SupervisedLearning {
         double bestError = determineError(trainingSet);
 
         this.temperature = this.startTemperature;
+        final double ratio = Math.exp(Math.log(this.stopTemperature
+                / this.startTemperature)
+                / (this.cycles - 1));
 
         for (int i = 0; i < this.cycles; i++) {
 
@@ -180,15 +196,13 @@ public class SimulatedAnnealingLearning extends SupervisedLearning {
                 System.arraycopy(this.weights, 0, this.bestWeights, 0,
                         this.weights.length);
                 bestError = currentError;
-            } else
+            } else {
                 System.arraycopy(this.bestWeights, 0, this.weights, 0,
                         this.weights.length);
+                // network keeps current weights when they are accepted
+                getWeightVector().set(this.bestWeights);
+            }
 
-            NeuralNetworkCODEC.array2network(this.bestWeights, getNetwork());
-
-            final double ratio = Math.exp(Math.log(this.stopTemperature
-                    / this.startTemperature)
-                    / (this.cycles - 1));
             this.temperature *= ratio;
         }
 
@@ -5,7 +5,6 @@ import java.util.Collections;
 import java.util.List;
 
 import org.neuroph.core.data.DataSet;
-import org.neuroph.core.data.DataSetRow;
 
 /**
  * 1. Pick an initial set of K centroids (this can be random or any other means)
@@ -42,12 +41,10 @@ public class KMeansClustering {
         // iterate dataset and create dataVectors field
         this.dataVectors = new KVector[dataSet.size()];
         // iterate dataset and create dataVectors field
-        int i = 0;
-        for (DataSetRow row : dataSet.getRows()) {
-            KVector vector = new KVector(row.getInput());
+        // rows returned by iterator may be reused, like in DenseDataSet
+        for (int i = 0; i < dataSet.size(); i++) {
+            KVector vector = new KVector(dataSet.getRowAt(i).getInput());
             this.dataVectors[i] = vector;
-            i++;
-
         }
     }
 
@@ -56,12 +53,10 @@ public class KMeansClustering {
         this.numberOfClusters = numberOfClusters;
         this.dataVectors = new KVector[dataSet.size()];
         // iterate dataset and create dataVectors field
-        int i = 0;
-        for (DataSetRow row : dataSet.getRows()) {
-            KVector vector = new KVector(row.getInput());
+        // rows returned by iterator may be reused, like in DenseDataSet
+        for (int i = 0; i < dataSet.size(); i++) {
+            KVector vector = new KVector(dataSet.getRowAt(i).getInput());
             this.dataVectors[i] = vector;
-            i++;
-
         }
     }
 
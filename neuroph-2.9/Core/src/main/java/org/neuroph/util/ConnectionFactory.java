@@ -104,6 +104,47 @@ public class ConnectionFactory {
         }
     }
 
+    /**
+     * 批量全连接.
+     * Creates full connectivity between two layers which are not connected yet.
+     * Connection lists are presized and connections are added without checking
+     * for existing connections between the same neurons, which makes this linear
+     * in number of created connections, while {@link #fullConnect(Layer, Layer)}
+     * scans existing connections for each one. Use it only for layers which have
+     * no connections between them, such as newly created layers.
+     *
+     * @param fromLayer layer to connect
+     * @param toLayer   layer to connect to
+     */
+    public static void fullConnectUnique(Layer fromLayer, Layer toLayer) {
+        int fromCount = fromLayer.getNeuronsCount();
+        int toCount = toLayer.getNeuronsCount();
+        int targetsCount = 0;
+        for (int j = 0; j < toCount; j++) {
+            Neuron toNeuron = toLayer.getNeuronAt(j);
+            // bias neurons do not accept input connections
+            if (!toNeuron.isBias()) {
+                toNeuron.ensureConnectionsCapacity(toNeuron.getInputConnections().size() + fromCount, 0);
+                targetsCount++;
+            }
+        }
+        // same order as fullConnect, so weights are initialized in the same order
+        for (int i = 0; i < fromCount; i++) {
+            Neuron fromNeuron = fromLayer.getNeuronAt(i);
+            fromNeuron.ensureConnectionsCapacity(0, fromNeuron.getOutConnections().size() + targetsCount);
+            for (int j = 0; j < toCount; j++) {
+                Neuron toNeuron = toLayer.getNeuronAt(j);
+                if (!toNeuron.isBias()) {
+                    toNeuron.addUniqueInputConnection(new Connection(fromNeuron, toNeuron));
+                }
+            }
+        }
+        // compiled network is discarded once for all added connections
+        if (toLayer.getParentNetwork() != null) {
+            toLayer.getParentNetwork().invalidateFlatNetwork();
+        }
+    }
+
     /**
      * Creates full connectivity between the two specified layers
      *
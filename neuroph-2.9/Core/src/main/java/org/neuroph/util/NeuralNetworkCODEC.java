@@ -15,12 +15,7 @@
  */
 package org.neuroph.util;
 
-import java.util.List;
-
-import org.neuroph.core.Connection;
-import org.neuroph.core.Layer;
 import org.neuroph.core.NeuralNetwork;
-import org.neuroph.core.Neuron;
 
 /**
  * A CODEC encodes and decodes neural networks, much like the more standard
@@ -42,21 +37,13 @@ public class NeuralNetworkCODEC {
     }
 
     /**
-     * Encode a network to an array.
+     * Encode a network to an array. Weights are in canonical order of
+     * {@link org.neuroph.core.WeightVector}.
      *
      * @param network The network to encode.
      */
     public static void network2array(NeuralNetwork network, double[] array) {
-        int index = 0;
-
-        List<Layer> layers = network.getLayers();
-        for (Layer layer : layers) {
-            for (Neuron neuron : layer.getNeurons()) {
-                for (Connection connection : neuron.getOutConnections()) {
-                    array[index++] = connection.getWeight().getValue();
-                }
-            }
-        }
+        network.getWeightVector().get(array, 0);
     }
 
     /**
@@ -66,17 +53,7 @@ public class NeuralNetworkCODEC {
      * @param network The network to decode into.
      */
     public static void array2network(double[] array, NeuralNetwork network) {
-        int index = 0;
-
-        List<Layer> layers = network.getLayers();
-        for (Layer layer : layers) {
-            for (Neuron neuron : layer.getNeurons()) {
-                for (Connection connection : neuron.getOutConnections()) {
-                    connection.getWeight().setValue(array[index++]);
-                    //connection.getWeight().setPreviousValue(array[index++]);
-                }
-            }
-        }
+        network.getWeightVector().set(array, 0);
     }
 
     /**
@@ -86,14 +63,6 @@ public class NeuralNetworkCODEC {
      * @return The size of the array necessary to hold that network.
      */
     public static int determineArraySize(NeuralNetwork network) {
-        int result = 0;
-
-        List<Layer> layers = network.getLayers();
-        for (Layer layer : layers) {
-            for (Neuron neuron : layer.getNeurons()) {
-                result += neuron.getOutConnections().size();
-            }
-        }
-        return result;
+        return network.getWeightsCount();
     }
 }
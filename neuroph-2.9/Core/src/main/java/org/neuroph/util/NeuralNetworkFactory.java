@@ -36,11 +36,15 @@ import org.neuroph.nnet.RBFNetwork;
 import org.neuroph.nnet.SupervisedHebbianNetwork;
 import org.neuroph.nnet.UnsupervisedHebbianNetwork;
 import org.neuroph.nnet.comp.neuron.BiasNeuron;
+import org.neuroph.nnet.learning.AdaGradBackpropagation;
+import org.neuroph.nnet.learning.AdamBackpropagation;
 import org.neuroph.nnet.learning.BackPropagation;
 import org.neuroph.nnet.learning.BinaryDeltaRule;
 import org.neuroph.nnet.learning.DynamicBackPropagation;
 import org.neuroph.nnet.learning.MomentumBackpropagation;
+import org.neuroph.nnet.learning.NesterovBackpropagation;
 import org.neuroph.nnet.learning.PerceptionLearning;
+import org.neuroph.nnet.learning.RMSPropBackpropagation;
 import org.neuroph.nnet.learning.ResilientPropagation;
 
 /**
@@ -131,6 +135,14 @@ public class NeuralNetworkFactory {
             nnet.setLearningRule(new DynamicBackPropagation());
         } else if (learningRule.getName().equals(ResilientPropagation.class.getName())) {
             nnet.setLearningRule(new ResilientPropagation());
+        } else if (learningRule.getName().equals(AdamBackpropagation.class.getName())) {
+            nnet.setLearningRule(new AdamBackpropagation());
+        } else if (learningRule.getName().equals(RMSPropBackpropagation.class.getName())) {
+            nnet.setLearningRule(new RMSPropBackpropagation());
+        } else if (learningRule.getName().equals(AdaGradBackpropagation.class.getName())) {
+            nnet.setLearningRule(new AdaGradBackpropagation());
+        } else if (learningRule.getName().equals(NesterovBackpropagation.class.getName())) {
+            nnet.setLearningRule(new NesterovBackpropagation());
         }
 
         // connect io
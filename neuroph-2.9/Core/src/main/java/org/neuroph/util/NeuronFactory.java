@@ -147,12 +147,15 @@ public class NeuronFactory {
                     argList[0] = tfProperties;
                     transferFunction = (TransferFunction) ct.newInstance(argList);
                     break;
-                } else if (paramTypes.length == 0) { // use constructor without params
-                    transferFunction = (TransferFunction) tfClass.newInstance();
-                    break;
                 }
             }
 
+            // use constructor without params, checked after the loop since
+            // constructors are not returned in any particular order
+            if (transferFunction == null) {
+                transferFunction = (TransferFunction) tfClass.newInstance();
+            }
+
             return transferFunction;
 
         } catch (NoSuchMethodException e) {
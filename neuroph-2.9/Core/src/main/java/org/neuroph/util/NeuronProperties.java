@@ -68,7 +68,7 @@ public class NeuronProperties extends Properties {
     public NeuronProperties(Class<? extends Neuron> neuronClass, TransferFunctionType transferFunctionType) {
         initKeys();
         this.setProperty("inputFunction", WeightedSum.class);
-        this.setProperty("transferFunction", transferFunctionType.getTypeClass());
+        this.setProperty("transferFunction", transferFunctionType);
         this.setProperty("neuronType", neuronClass);
     }
 
@@ -77,7 +77,7 @@ public class NeuronProperties extends Properties {
 //		this.setProperty("weightsFunction", WeightedInput.class);
 //		this.setProperty("summingFunction", Sum.class);
         this.setProperty("inputFunction", WeightedSum.class);
-        this.setProperty("transferFunction", transferFunctionType.getTypeClass());
+        this.setProperty("transferFunction", transferFunctionType);
         this.setProperty("useBias", useBias);
         this.setProperty("neuronType", Neuron.class);
     }
@@ -122,7 +122,12 @@ public class NeuronProperties extends Properties {
 //                    throw new RuntimeException("Unknown property key: "+key);
 
         if (value instanceof TransferFunctionType) {
-            value = ((TransferFunctionType) value).getTypeClass();
+            TransferFunctionType type = (TransferFunctionType) value;
+            value = type.getTypeClass();
+            if (key.equals("transferFunction")) {
+                // picked up by transfer function constructor through getTransferFunctionProperties()
+                this.put("transferFunction.fastMath", type.isFastMath());
+            }
         }
         //      if (value instanceof InputFunctionType) value = ((InputFunctionType)value).getTypeClass();
 
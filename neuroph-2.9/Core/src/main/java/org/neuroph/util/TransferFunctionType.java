@@ -30,6 +30,9 @@ import org.neuroph.core.transfer.Trapezoid;
 
 /**
  * Contains transfer functions types and labels.
+ * Types with FAST_ prefix create the same transfer function in fast math
+ * mode, which uses table based approximations from
+ * {@link org.neuroph.core.transfer.FastMath}.
  */
 public enum TransferFunctionType {
     LINEAR("Linear"),
@@ -42,18 +45,38 @@ public enum TransferFunctionType {
     SGN("Sgn"),
     SIN("Sin"),
     LOG("Log"),
-    RECTIFIED("RectifiedLinear");
+    RECTIFIED("RectifiedLinear"),
+    FAST_SIGMOID("Fast Sigmoid", true),
+    FAST_TANH("Fast Tanh", true),
+    FAST_GAUSSIAN("Fast Gaussian", true),
+    FAST_LOG("Fast Log", true);
 
     private String typeLabel;
 
+    private boolean fastMath;
+
     private TransferFunctionType(String typeLabel) {
+        this(typeLabel, false);
+    }
+
+    private TransferFunctionType(String typeLabel, boolean fastMath) {
         this.typeLabel = typeLabel;
+        this.fastMath = fastMath;
     }
 
     public String getTypeLabel() {
         return typeLabel;
     }
 
+    /**
+     * Returns true if transfer function of this type should use fast math mode
+     *
+     * @return true for FAST_ types
+     */
+    public boolean isFastMath() {
+        return fastMath;
+    }
+
     public Class getTypeClass() {
         switch (this) {
             case LINEAR:
@@ -63,18 +86,22 @@ public enum TransferFunctionType {
             case RAMP:
                 return Ramp.class;
             case SIGMOID:
+            case FAST_SIGMOID:
                 return Sigmoid.class;
             case TANH:
+            case FAST_TANH:
                 return Tanh.class;
             case TRAPEZOID:
                 return Trapezoid.class;
             case GAUSSIAN:
+            case FAST_GAUSSIAN:
                 return Gaussian.class;
             case SGN:
                 return Sgn.class;
             case SIN:
                 return Sin.class;
             case LOG:
+            case FAST_LOG:
                 return Log.class;
             case RECTIFIED:
                 return RectifiedLinear.class;
@@ -0,0 +1,420 @@
+/**
+ * Copyright 2014 Neuroph Project http://neuroph.sourceforge.net
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.neuroph.util.io;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileReader;
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+import org.neuroph.core.data.DataSet;
+import org.neuroph.core.data.DataSetRow;
+import org.neuroph.core.data.DenseDataSet;
+import org.neuroph.core.exceptions.NeurophException;
+import org.neuroph.core.exceptions.VectorSizeMismatchException;
+import org.neuroph.util.DataSetColumnType;
+
+/**
+ * 二进制数据集文件.
+ * <p>
+ * Saves data sets in versioned binary format, which is read through memory mapping
+ * as {@link MappedDataSet}. The file consists of:
+ * <ul>
+ * <li>64 byte little-endian header: magic "NDSF", format version, input and output size,
+ * precision of values, number of rows, and offsets of the sections</li>
+ * <li>metadata section: data set label, column names and column types</li>
+ * <li>rows section, 8 byte aligned: fixed width rows of little-endian doubles or floats,
+ * with input values of each row followed by its desired output</li>
+ * </ul>
+ * Rows are written in a stream, so files can be converted from csv files larger than heap.
+ * Existing data sets saved with {@link DataSet#save(String)} and csv files read by
+ * {@link DataSet#createFromFile(String, int, int, String, boolean)} can be converted to this format.
+ *
+ * @author Zoran Sevarac <sevarac@gmail.com>
+ * @see MappedDataSet
+ */
+public final class BinaryDataSetFile {
+
+    /**
+     * Current format version
+     */
+    public static final int VERSION = 1;
+
+    /**
+     * Bytes "NDSF" read as little-endian int
+     */
+    private static final int MAGIC = 0x4653444E;
+
+    private static final int HEADER_SIZE = 64;
+
+    private static final int DOUBLE_VALUES = 0;
+
+    private static final int FLOAT_VALUES = 1;
+
+    /**
+     * Size of buffer used to write rows
+     */
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    private BinaryDataSetFile() {
+    }
+
+    /**
+     * Saves data set with values stored as doubles
+     *
+     * @param dataSet  data set to save
+     * @param filePath path of the file
+     */
+    public static void save(DataSet dataSet, String filePath) {
+        save(dataSet, new File(filePath), DenseDataSet.Precision.DOUBLE);
+    }
+
+    /**
+     * Saves data set with values stored with the specified precision
+     *
+     * @param dataSet   data set to save
+     * @param file      file to write to
+     * @param precision primitive type used to store values
+     */
+    public static void save(DataSet dataSet, File file, DenseDataSet.Precision precision) {
+        try (RowWriter writer = new RowWriter(file, dataSet, precision)) {
+            for (DataSetRow row : dataSet.getRows()) {
+                writer.write(row.getInput(), row.getDesiredOutput());
+            }
+            writer.finish();
+        } catch (IOException ex) {
+            throw new NeurophException("Could not write data set file!", ex);
+        }
+    }
+
+    /**
+     * Converts data set saved with {@link DataSet#save(String)} to binary data set file
+     *
+     * @param source    file with serialized data set
+     * @param target    binary data set file to write
+     * @param precision primitive type used to store values
+     */
+    public static void convertSavedDataSet(File source, File target, DenseDataSet.Precision precision) {
+        save(DataSet.load(source.getPath()), target, precision);
+    }
+
+    /**
+     * Converts csv file to binary data set file, in the same way as
+     * {@link DataSet#createFromFile(String, int, int, String, boolean)} reads it.
+     * Rows are converted one by one, so csv file does not have to fit in heap.
+     *
+     * @param source          csv file
+     * @param inputsCount     number of inputs
+     * @param outputsCount    number of outputs
+     * @param delimiter       delimiter of values
+     * @param loadColumnNames true if csv file contains column names in first line, false otherwise
+     * @param target          binary data set file to write
+     * @param precision       primitive type used to store values
+     */
+    public static void convertCsv(File source, int inputsCount, int outputsCount, String delimiter, boolean loadColumnNames,
+                                  File target, DenseDataSet.Precision precision) {
+        if (inputsCount <= 0) throw new IllegalArgumentException("Number of inputs cannot be <= 0 : " + inputsCount);
+        if (outputsCount < 0) throw new IllegalArgumentException("Number of outputs cannot be < 0 : " + outputsCount);
+        if ((delimiter == null) || delimiter.isEmpty())
+            throw new IllegalArgumentException("Delimiter cannot be null or empty!");
+
+        int lineNumber = 0;
+        try (BufferedReader reader = new BufferedReader(new FileReader(source))) {
+            // empty data set holds column metadata
+            DataSet metadata = outputsCount > 0 ? new DataSet(inputsCount, outputsCount) : new DataSet(inputsCount);
+            String line;
+            if (loadColumnNames) {
+                line = reader.readLine();
+                lineNumber++;
+                if (line != null) {
+                    metadata.setColumnNames(line.split(delimiter));
+                }
+            }
+
+            double[] inputs = new double[inputsCount];
+            double[] outputs = new double[outputsCount];
+            try (RowWriter writer = new RowWriter(target, metadata, precision)) {
+                while ((line = reader.readLine()) != null) {
+                    lineNumber++;
+                    String[] values = line.split(delimiter);
+                    if (values[0].equals("")) {
+                        continue; // skip if line was empty
+                    }
+                    if (values.length < inputsCount + outputsCount) {
+                        throw new VectorSizeMismatchException("Not enough values in line " + lineNumber + " of csv file!");
+                    }
+                    for (int i = 0; i < inputsCount; i++) {
+                        inputs[i] = Double.parseDouble(values[i]);
+                    }
+                    for (int i = 0; i < outputsCount; i++) {
+                        outputs[i] = Double.parseDouble(values[inputsCount + i]);
+                    }
+                    writer.write(inputs, outputs);
+                }
+                writer.finish();
+            }
+        } catch (FileNotFoundException ex) {
+            throw new NeurophException("Could not find data set file!", ex);
+        } catch (IOException ex) {
+            throw new NeurophException("Could not convert data set file!", ex);
+        } catch (NumberFormatException ex) {
+            throw new NeurophException("Bad number format in line " + lineNumber + " of data set file!", ex);
+        }
+    }
+
+    /**
+     * Opens binary data set file as memory mapped data set
+     *
+     * @param filePath path of the file
+     * @return mapped data set
+     */
+    public static MappedDataSet load(String filePath) {
+        return load(new File(filePath));
+    }
+
+    /**
+     * Opens binary data set file as memory mapped data set. Only the header and metadata
+     * are read, rows are read from mapped file when they are used.
+     *
+     * @param file file to read from
+     * @return mapped data set
+     */
+    public static MappedDataSet load(File file) {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            ByteBuffer header = read(channel, 0, HEADER_SIZE);
+            if (header.getInt() != MAGIC) {
+                throw new NeurophException("Not a binary data set file!");
+            }
+            int version = header.getInt();
+            if (version > VERSION) {
+                throw new NeurophException("Unsupported binary data set file version " + version);
+            }
+            int inputSize = header.getInt();
+            int outputSize = header.getInt();
+            int valuesType = header.getInt();
+            header.getInt();
+            long rowsCount = header.getLong();
+            long metadataOffset = header.getLong();
+            long metadataLength = header.getLong();
+            long rowsOffset = header.getLong();
+
+            if (inputSize <= 0 || outputSize < 0 || (valuesType != DOUBLE_VALUES && valuesType != FLOAT_VALUES)
+                    || rowsCount < 0 || rowsCount > Integer.MAX_VALUE || metadataLength > Integer.MAX_VALUE) {
+                throw new NeurophException("Corrupted binary data set file!");
+            }
+            DenseDataSet.Precision precision = valuesType == FLOAT_VALUES ? DenseDataSet.Precision.FLOAT : DenseDataSet.Precision.DOUBLE;
+            long rowBytes = (long) (inputSize + outputSize) * (valuesType == FLOAT_VALUES ? 4 : 8);
+            if (rowsCount > 0 && channel.size() < rowsOffset + rowsCount * rowBytes) {
+                throw new NeurophException("Binary data set file is truncated!");
+            }
+
+            MappedDataSet dataSet = new MappedDataSet(new MappedDataSet.MappedRows(channel, rowsOffset, (int) rowsCount, inputSize, outputSize, precision));
+            readMetadata(read(channel, metadataOffset, (int) metadataLength), dataSet);
+            dataSet.setFilePath(file.getPath());
+            return dataSet;
+        } catch (IOException ex) {
+            throw new NeurophException("Could not read data set file!", ex);
+        }
+    }
+
+    private static ByteBuffer read(FileChannel channel, long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new NeurophException("Binary data set file is truncated!");
+            }
+        }
+        ((Buffer) buffer).flip();
+        return buffer;
+    }
+
+    private static byte[] writeMetadata(DataSet dataSet) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeBoolean(dataSet.getLabel() != null);
+        if (dataSet.getLabel() != null) {
+            out.writeUTF(dataSet.getLabel());
+        }
+        String[] columnNames = dataSet.getColumnNames();
+        out.writeInt(columnNames != null ? columnNames.length : -1);
+        if (columnNames != null) {
+            for (String columnName : columnNames) {
+                out.writeUTF(columnName != null ? columnName : "");
+            }
+        }
+        DataSetColumnType[] columnTypes = dataSet.getColumnTypes();
+        out.writeInt(columnTypes != null ? columnTypes.length : -1);
+        if (columnTypes != null) {
+            for (DataSetColumnType columnType : columnTypes) {
+                out.writeUTF(columnType != null ? columnType.name() : "");
+            }
+        }
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    private static void readMetadata(ByteBuffer buffer, DataSet dataSet) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(buffer.array(), 0, buffer.limit()));
+        if (in.readBoolean()) {
+            dataSet.setLabel(in.readUTF());
+        }
+        int namesCount = in.readInt();
+        if (namesCount >= 0) {
+            String[] columnNames = new String[namesCount];
+            for (int i = 0; i < namesCount; i++) {
+                columnNames[i] = in.readUTF();
+            }
+            dataSet.setColumnNames(columnNames);
+        }
+        int typesCount = in.readInt();
+        for (int i = 0; i < typesCount; i++) {
+            String type = in.readUTF();
+            if (!type.isEmpty() && i < dataSet.getColumnTypes().length) {
+                dataSet.setColumnType(i, DataSetColumnType.valueOf(type));
+            }
+        }
+    }
+
+    /**
+     * Writes header, metadata and rows of binary data set file
+     */
+    private static final class RowWriter implements AutoCloseable {
+
+        private final FileChannel channel;
+
+        private final ByteBuffer buffer;
+
+        private final int inputSize;
+
+        private final int outputSize;
+
+        private final boolean floats;
+
+        private final long metadataLength;
+
+        private final long rowsOffset;
+
+        private long rowsCount;
+
+        RowWriter(File file, DataSet metadata, DenseDataSet.Precision precision) throws IOException {
+            if (precision == null) {
+                throw new IllegalArgumentException("Precision can't be null!");
+            }
+            this.inputSize = metadata.getInputSize();
+            this.outputSize = metadata.isSupervised() ? metadata.getOutputSize() : 0;
+            if (inputSize <= 0) {
+                throw new IllegalArgumentException("Binary data set file must have fixed input size!");
+            }
+            this.floats = precision == DenseDataSet.Precision.FLOAT;
+            int rowBytes = (inputSize + outputSize) * (floats ? 4 : 8);
+            this.buffer = ByteBuffer.allocateDirect(Math.max(BUFFER_SIZE, rowBytes)).order(ByteOrder.LITTLE_ENDIAN);
+
+            byte[] metadataBytes = writeMetadata(metadata);
+            this.metadataLength = metadataBytes.length;
+            this.rowsOffset = (HEADER_SIZE + metadataLength + 7) & ~7L;
+
+            this.channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+            try {
+                writeFully(ByteBuffer.wrap(metadataBytes), HEADER_SIZE);
+                channel.position(rowsOffset);
+            } catch (IOException ex) {
+                channel.close();
+                throw ex;
+            }
+        }
+
+        void write(double[] input, double[] output) throws IOException {
+            if (input.length != inputSize || (outputSize > 0 && (output == null || output.length != outputSize))) {
+                throw new VectorSizeMismatchException("Row size does not match data set input and output size!");
+            }
+            if (rowsCount == Integer.MAX_VALUE) {
+                throw new NeurophException("Too many rows for binary data set file!");
+            }
+            if (buffer.remaining() < (inputSize + outputSize) * (floats ? 4 : 8)) {
+                flush();
+            }
+            if (floats) {
+                for (double value : input) {
+                    buffer.putFloat((float) value);
+                }
+                for (int i = 0; i < outputSize; i++) {
+                    buffer.putFloat((float) output[i]);
+                }
+            } else {
+                for (double value : input) {
+                    buffer.putDouble(value);
+                }
+                for (int i = 0; i < outputSize; i++) {
+                    buffer.putDouble(output[i]);
+                }
+            }
+            rowsCount++;
+        }
+
+        private void flush() throws IOException {
+            ((Buffer) buffer).flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            ((Buffer) buffer).clear();
+        }
+
+        private void writeFully(ByteBuffer data, long position) throws IOException {
+            while (data.hasRemaining()) {
+                position += channel.write(data, position);
+            }
+        }
+
+        /**
+         * Writes remaining rows and the header, which is written last, so incomplete file is not valid
+         */
+        void finish() throws IOException {
+            flush();
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(MAGIC);
+            header.putInt(VERSION);
+            header.putInt(inputSize);
+            header.putInt(outputSize);
+            header.putInt(floats ? FLOAT_VALUES : DOUBLE_VALUES);
+            header.putInt(0);
+            header.putLong(rowsCount);
+            header.putLong(HEADER_SIZE);
+            header.putLong(metadataLength);
+            header.putLong(rowsOffset);
+            ((Buffer) header).position(HEADER_SIZE);
+            ((Buffer) header).flip();
+            writeFully(header, 0);
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+
+}
@@ -0,0 +1,575 @@
+/**
+ * Copyright 2014 Neuroph Project http://neuroph.sourceforge.net
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.neuroph.util.io;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.NotSerializableException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.neuroph.core.Connection;
+import org.neuroph.core.ConnectionTable;
+import org.neuroph.core.Layer;
+import org.neuroph.core.NeuralNetwork;
+import org.neuroph.core.Neuron;
+import org.neuroph.core.Weight;
+import org.neuroph.core.exceptions.NeurophException;
+import org.neuroph.core.flat.FlatNetwork;
+import org.neuroph.nnet.comp.DelayedConnection;
+
+/**
+ * 二进制网络文件.
+ * <p>
+ * Saves and loads neural networks in versioned binary format, which keeps
+ * weights as raw little-endian blocks instead of serializing the whole
+ * object graph. The file consists of:
+ * <ul>
+ * <li>64 byte little-endian header: magic "NNBF", format version, and offsets and lengths of the sections</li>
+ * <li>topology section: network, layers and neurons serialized without connections and weights,
+ * followed by connection pattern of each neuron (source neurons and weight indices,
+ * stored as ranges where possible)</li>
+ * <li>compiled structure of the network, when network can be compiled to {@link FlatNetwork}</li>
+ * <li>weight block, 8 byte aligned little-endian doubles, in compiled weight order when network can be compiled</li>
+ * </ul>
+ * Since connections are not part of serialized object graph, saving and loading does not
+ * recurse through neurons and connections, and works for networks of any depth.
+ * Weights which are shared by several connections stay shared after loading.
+ * <p>
+ * Weight block is memory mapped when file is read. {@link #loadFlatNetwork(File)} reads only
+ * the compiled structure and copies weight blocks directly from mapped file, without creating
+ * neuron, connection and weight objects, so large networks are quickly ready for calculation.
+ *
+ * @author Zoran Sevarac <sevarac@gmail.com>
+ * @see NeuralNetwork#save(String)
+ */
+public final class BinaryNetworkFile {
+
+    /**
+     * Current format version
+     */
+    public static final int VERSION = 1;
+
+    /**
+     * Bytes "NNBF" read as little-endian int
+     */
+    private static final int MAGIC = 0x46424E4E;
+
+    private static final int HEADER_SIZE = 64;
+
+    /**
+     * Neuron has the same source neurons as previous neuron
+     */
+    private static final int SAME_SOURCES = 1;
+
+    /**
+     * Source neurons of neuron have consecutive indices
+     */
+    private static final int CONSECUTIVE_SOURCES = 2;
+
+    /**
+     * Weights of neuron have consecutive indices
+     */
+    private static final int CONSECUTIVE_WEIGHTS = 4;
+
+    /**
+     * Neuron has delayed connections, delay is stored for each connection
+     */
+    private static final int DELAYED = 8;
+
+    private BinaryNetworkFile() {
+    }
+
+    /**
+     * Saves neural network to the specified file
+     *
+     * @param network  neural network to save
+     * @param filePath path of the file
+     */
+    public static void save(NeuralNetwork<?> network, String filePath) {
+        save(network, new File(filePath));
+    }
+
+    /**
+     * Saves neural network to the specified file
+     *
+     * @param network neural network to save
+     * @param file    file to write to
+     */
+    public static void save(NeuralNetwork<?> network, File file) {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            write(network, channel);
+        } catch (IOException ex) {
+            throw new NeurophException("Could not write neural network file!", ex);
+        }
+    }
+
+    /**
+     * Loads neural network from the specified file
+     *
+     * @param filePath path of the file
+     * @return loaded neural network
+     */
+    public static NeuralNetwork<?> load(String filePath) {
+        return load(new File(filePath));
+    }
+
+    /**
+     * Loads neural network from the specified file
+     *
+     * @param file file to read from
+     * @return loaded neural network
+     */
+    public static NeuralNetwork<?> load(File file) {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long[] header = readHeader(channel);
+            MappedDoubles weights = new MappedDoubles(channel, header[4], header[5]);
+            channel.position(header[0]);
+            DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel), 1 << 16));
+            return readGraph(in, weights);
+        } catch (IOException ex) {
+            throw new NeurophException("Could not read neural network file!", ex);
+        }
+    }
+
+    /**
+     * Loads compiled network from the specified file, without creating the object graph.
+     * Returned network is not attached to source network, so it can be used only for calculation.
+     *
+     * @param file file to read from
+     * @return compiled network
+     * @throws NeurophException if network in the file could not be compiled when it was saved
+     */
+    public static FlatNetwork loadFlatNetwork(File file) {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long[] header = readHeader(channel);
+            if (header[2] == 0) {
+                throw new NeurophException("File does not contain compiled network, structure of the saved network is not supported by FlatNetwork");
+            }
+            final MappedDoubles weights = new MappedDoubles(channel, header[4], header[5]);
+            channel.position(header[2]);
+            InputStream in = new BufferedInputStream(Channels.newInputStream(channel), 1 << 16);
+            return FlatNetwork.readStructure(in, (target, offset) -> weights.get(offset, target, 0, target.length));
+        } catch (IOException ex) {
+            throw new NeurophException("Could not read neural network file!", ex);
+        }
+    }
+
+    /**
+     * Reads header and returns graph offset, graph length, flat offset, flat length, weights offset and weights count
+     */
+    private static long[] readHeader(FileChannel channel) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, buffer.position()) < 0) {
+                throw new NeurophException("Not a binary neural network file!");
+            }
+        }
+        ((Buffer) buffer).flip();
+        if (buffer.getInt() != MAGIC) {
+            throw new NeurophException("Not a binary neural network file!");
+        }
+        int version = buffer.getInt();
+        if (version > VERSION) {
+            throw new NeurophException("Unsupported binary neural network file version " + version);
+        }
+        long[] header = new long[6];
+        for (int i = 0; i < header.length; i++) {
+            header[i] = buffer.getLong();
+        }
+        return header;
+    }
+
+    private static void write(NeuralNetwork<?> network, FileChannel channel) throws IOException {
+        List<Neuron> neurons = new ArrayList<>();
+        Map<Neuron, Integer> neuronIndex = new IdentityHashMap<>();
+        for (int l = 0; l < network.getLayersCount(); l++) {
+            Layer layer = network.getLayerAt(l);
+            for (int i = 0; i < layer.getNeuronsCount(); i++) {
+                neuronIndex.put(layer.getNeuronAt(i), neurons.size());
+                neurons.add(layer.getNeuronAt(i));
+            }
+        }
+
+        writeSections(network, channel, neurons, neuronIndex);
+    }
+
+    private static void writeSections(NeuralNetwork<?> network, FileChannel channel,
+                                      List<Neuron> neurons, Map<Neuron, Integer> neuronIndex) throws IOException {
+        // weights of compiled network come first, so compiled layers can be read as contiguous blocks.
+        // Positions of weights are kept in identity map, since network may be used by other threads while it is saved
+        List<Weight> weights = new ArrayList<>();
+        Map<Weight, Integer> weightIndex = new IdentityHashMap<>(network.getWeightsCount());
+        FlatNetwork flat = network.getFlatNetwork();
+        if (flat != null) {
+            Weight[] sourceWeights = flat.getSourceWeights();
+            weights.addAll(Arrays.asList(sourceWeights));
+            for (int k = 0; k < sourceWeights.length; k++) {
+                if (!weightIndex.containsKey(sourceWeights[k])) {
+                    weightIndex.put(sourceWeights[k], k);
+                }
+            }
+        }
+        for (int l = 0; l < network.getLayersCount(); l++) {
+            Layer layer = network.getLayerAt(l);
+            for (int i = 0; i < layer.getNeuronsCount(); i++) {
+                for (Connection connection : layer.getNeuronAt(i).getInputConnections()) {
+                    Weight weight = connection.getWeight();
+                    if (!weightIndex.containsKey(weight)) {
+                        weightIndex.put(weight, weights.size());
+                        weights.add(weight);
+                    }
+                }
+            }
+        }
+
+        channel.position(HEADER_SIZE);
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16));
+
+        // network without connections, weights are replaced by their indices
+        ByteArrayOutputStream skeleton = new ByteArrayOutputStream();
+        ObjectOutputStream oos = new SkeletonOutputStream(skeleton, weights, weightIndex);
+        oos.writeObject(network);
+        oos.close();
+        out.writeInt(skeleton.size());
+        skeleton.writeTo(out);
+
+        out.writeInt(neurons.size());
+        int[] previousSources = null;
+        for (Neuron neuron : neurons) {
+            previousSources = writeConnections(neuron, previousSources, out, neuronIndex, weightIndex);
+        }
+        out.flush();
+        long graphLength = channel.position() - HEADER_SIZE;
+
+        long flatOffset = 0;
+        long flatLength = 0;
+        if (flat != null) {
+            flatOffset = channel.position();
+            flat.writeStructure(out);
+            out.flush();
+            flatLength = channel.position() - flatOffset;
+        }
+
+        long weightsOffset = (channel.position() + 7) & ~7L;
+        ByteBuffer buffer = ByteBuffer.allocate(1 << 16).order(ByteOrder.LITTLE_ENDIAN);
+        ((Buffer) buffer).position((int) (weightsOffset - channel.position()));
+        for (Weight weight : weights) {
+            if (buffer.remaining() < 8) {
+                writeFully(channel, buffer);
+            }
+            buffer.putDouble(weight.value);
+        }
+        writeFully(channel, buffer);
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(MAGIC).putInt(VERSION)
+                .putLong(HEADER_SIZE).putLong(graphLength)
+                .putLong(flatOffset).putLong(flatLength)
+                .putLong(weightsOffset).putLong(weights.size());
+        ((Buffer) header).flip();
+        while (header.hasRemaining()) {
+            channel.write(header, header.position());
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        ((Buffer) buffer).flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        ((Buffer) buffer).clear();
+    }
+
+    /**
+     * Writes connection pattern of the neuron and returns its source neurons
+     */
+    private static int[] writeConnections(Neuron neuron, int[] previousSources, DataOutputStream out,
+                                          Map<Neuron, Integer> neuronIndex,
+                                          Map<Weight, Integer> weightIndex) throws IOException {
+        List<Connection> connections = neuron.getInputConnections();
+        int count = connections.size();
+        out.writeInt(count);
+        if (count == 0) {
+            return previousSources;
+        }
+
+        int[] sources = new int[count];
+        int[] weightIndices = new int[count];
+        int[] delays = new int[count];
+        boolean delayed = false;
+        for (int j = 0; j < count; j++) {
+            Connection connection = connections.get(j);
+            Integer source = neuronIndex.get(connection.getFromNeuron());
+            if (source == null) {
+                throw new NeurophException("Cannot save network: connection from neuron which is not in any layer");
+            }
+            sources[j] = source;
+
+            weightIndices[j] = weightIndex.get(connection.getWeight());
+
+            if (connection.getClass() == DelayedConnection.class) {
+                delays[j] = ((DelayedConnection) connection).getDelay();
+                delayed = true;
+            } else if (connection.getClass() == Connection.class) {
+                delays[j] = -1;
+            } else {
+                throw new NeurophException("Cannot save network: unsupported connection " + connection.getClass().getName());
+            }
+        }
+
+        int flags = 0;
+        if (previousSources != null && Arrays.equals(previousSources, sources)) {
+            flags |= SAME_SOURCES;
+        } else if (isConsecutive(sources)) {
+            flags |= CONSECUTIVE_SOURCES;
+        }
+        if (isConsecutive(weightIndices)) {
+            flags |= CONSECUTIVE_WEIGHTS;
+        }
+        if (delayed) {
+            flags |= DELAYED;
+        }
+        out.writeByte(flags);
+
+        if ((flags & SAME_SOURCES) == 0) {
+            writeIndices(out, sources, (flags & CONSECUTIVE_SOURCES) != 0);
+        }
+        writeIndices(out, weightIndices, (flags & CONSECUTIVE_WEIGHTS) != 0);
+        if (delayed) {
+            writeIndices(out, delays, false);
+        }
+        return sources;
+    }
+
+    private static boolean isConsecutive(int[] indices) {
+        for (int j = 1; j < indices.length; j++) {
+            if (indices[j] != indices[0] + j) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void writeIndices(DataOutputStream out, int[] indices, boolean consecutive) throws IOException {
+        if (consecutive) {
+            out.writeInt(indices[0]);
+        } else {
+            for (int index : indices) {
+                out.writeInt(index);
+            }
+        }
+    }
+
+    private static int[] readIndices(DataInputStream in, int count, boolean consecutive) throws IOException {
+        int[] indices = new int[count];
+        if (consecutive) {
+            int first = in.readInt();
+            for (int j = 0; j < count; j++) {
+                indices[j] = first + j;
+            }
+        } else {
+            for (int j = 0; j < count; j++) {
+                indices[j] = in.readInt();
+            }
+        }
+        return indices;
+    }
+
+    private static NeuralNetwork<?> readGraph(DataInputStream in, MappedDoubles weightValues) throws IOException {
+        if (weightValues.size() > Integer.MAX_VALUE) {
+            throw new NeurophException("Too many weights for network object graph: " + weightValues.size());
+        }
+        Weight[] weights = new Weight[(int) weightValues.size()];
+
+        byte[] skeleton = new byte[in.readInt()];
+        in.readFully(skeleton);
+        NeuralNetwork<?> network;
+        try (ObjectInputStream ois = new SkeletonInputStream(new ByteArrayInputStream(skeleton), weights, weightValues)) {
+            network = (NeuralNetwork<?>) ois.readObject();
+        } catch (ClassNotFoundException | ClassCastException ex) {
+            throw new NeurophException("Class not found while trying to read neural network from file!", ex);
+        }
+
+        List<Neuron> neurons = new ArrayList<>();
+        for (int l = 0; l < network.getLayersCount(); l++) {
+            Layer layer = network.getLayerAt(l);
+            for (int i = 0; i < layer.getNeuronsCount(); i++) {
+                neurons.add(layer.getNeuronAt(i));
+            }
+        }
+        if (in.readInt() != neurons.size()) {
+            throw new NeurophException("Corrupted neural network file: number of neurons does not match");
+        }
+
+        int[] previousSources = null;
+        for (Neuron neuron : neurons) {
+            int count = in.readInt();
+            if (count == 0) {
+                continue;
+            }
+            int flags = in.readByte();
+            int[] sources = (flags & SAME_SOURCES) != 0
+                    ? previousSources
+                    : readIndices(in, count, (flags & CONSECUTIVE_SOURCES) != 0);
+            int[] weightIndices = readIndices(in, count, (flags & CONSECUTIVE_WEIGHTS) != 0);
+            int[] delays = (flags & DELAYED) != 0 ? readIndices(in, count, false) : null;
+            if (sources == null || sources.length != count) {
+                throw new NeurophException("Corrupted neural network file: invalid connection pattern");
+            }
+
+            neuron.ensureConnectionsCapacity(count, 0);
+            for (int j = 0; j < count; j++) {
+                Neuron from = neurons.get(sources[j]);
+                Weight weight = weightAt(weightIndices[j], weights, weightValues);
+                Connection connection;
+                if (delays != null && delays[j] >= 0) {
+                    connection = new DelayedConnection(from, neuron, 0, delays[j]);
+                    connection.setWeight(weight);
+                } else {
+                    connection = new Connection(from, neuron, weight);
+                }
+                neuron.addUniqueInputConnection(connection);
+            }
+            previousSources = sources;
+        }
+        // connections are added without discarding compiled network for each of them
+        network.invalidateFlatNetwork();
+        return network;
+    }
+
+    private static Weight weightAt(int index, Weight[] weights, MappedDoubles weightValues) {
+        Weight weight = weights[index];
+        if (weight == null) {
+            weight = new Weight(weightValues.get(index));
+            weights[index] = weight;
+        }
+        return weight;
+    }
+
+    /**
+     * Writes network object graph without connections. Connection table of the network is
+     * left out and lists of connections are replaced with empty lists, which are filled from
+     * connection patterns when network is read, and weights are replaced with their index in weight block.
+     */
+    private static final class SkeletonOutputStream extends ObjectOutputStream {
+
+        private final List<Weight> weights;
+        /**
+         * Positions of weights in weight block, weights which are not used by any connection are added while written
+         */
+        private final Map<Weight, Integer> weightIndex;
+
+        SkeletonOutputStream(OutputStream out, List<Weight> weights, Map<Weight, Integer> weightIndex) throws IOException {
+            super(out);
+            this.weights = weights;
+            this.weightIndex = weightIndex;
+            enableReplaceObject(true);
+        }
+
+        @Override
+        protected Object replaceObject(Object obj) throws IOException {
+            if (obj instanceof ConnectionTable) {
+                return null;
+            }
+            if (obj instanceof Weight) {
+                Integer index = weightIndex.get(obj);
+                if (index == null) {
+                    index = weights.size();
+                    weightIndex.put((Weight) obj, index);
+                    weights.add((Weight) obj);
+                }
+                return new WeightRef(index);
+            }
+            if (obj instanceof List && !((List<?>) obj).isEmpty() && ((List<?>) obj).get(0) instanceof Connection) {
+                return new ConnectionList();
+            }
+            if (obj instanceof Connection) {
+                throw new NotSerializableException("Connection referenced outside of connection list: " + obj.getClass().getName());
+            }
+            return obj;
+        }
+    }
+
+    private static final class SkeletonInputStream extends ObjectInputStream {
+
+        private final Weight[] weights;
+        private final MappedDoubles weightValues;
+
+        SkeletonInputStream(InputStream in, Weight[] weights, MappedDoubles weightValues) throws IOException {
+            super(in);
+            this.weights = weights;
+            this.weightValues = weightValues;
+            enableResolveObject(true);
+        }
+
+        @Override
+        protected Object resolveObject(Object obj) {
+            if (obj instanceof WeightRef) {
+                return weightAt(((WeightRef) obj).index, weights, weightValues);
+            }
+            if (obj instanceof ConnectionList) {
+                return new ArrayList<Connection>();
+            }
+            return obj;
+        }
+    }
+
+    /**
+     * Placeholder for weight in serialized network
+     */
+    private static final class WeightRef implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int index;
+
+        WeightRef(int index) {
+            this.index = index;
+        }
+    }
+
+    /**
+     * Placeholder for list of connections in serialized network
+     */
+    private static final class ConnectionList implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+    }
+}
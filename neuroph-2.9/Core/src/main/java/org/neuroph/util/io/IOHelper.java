@@ -18,6 +18,8 @@ package org.neuroph.util.io;
 
 import org.neuroph.core.NeuralNetwork;
 
+import java.util.Arrays;
+
 /**
  * <pre>
  * This class is helper for feeding neural network with data using some InputAdapter
@@ -30,6 +32,11 @@ import org.neuroph.core.NeuralNetwork;
  */
 public class IOHelper {
 
+    /**
+     * Number of input vectors calculated together
+     */
+    private static final int BATCH_SIZE = 256;
+
     /**
      * Feeds specified neural network with data from InputAdapter and writes
      * output using OutputAdapter
@@ -40,16 +47,28 @@ public class IOHelper {
      */
     public static void process(NeuralNetwork neuralNet, InputAdapter in, OutputAdapter out) {
 
+        double[][] batch = new double[BATCH_SIZE][];
+        int count = 0;
         double[] input;
         while ((input = in.readInput()) != null) {
-            neuralNet.setInput(input);
-            neuralNet.calculate();
-            double[] output = neuralNet.getOutput();
-            out.writeOutput(output);
+            batch[count++] = input.clone(); // adapters may reuse input buffer
+            if (count == BATCH_SIZE) {
+                writeOutputs(neuralNet.calculate(batch), count, out);
+                count = 0;
+            }
+        }
+        if (count > 0) {
+            writeOutputs(neuralNet.calculate(Arrays.copyOf(batch, count)), count, out);
         }
 
         in.close();
         out.close();
     }
 
+    private static void writeOutputs(double[][] outputs, int count, OutputAdapter out) {
+        for (int i = 0; i < count; i++) {
+            out.writeOutput(outputs[i]);
+        }
+    }
+
 }
@@ -0,0 +1,343 @@
+/**
+ * Copyright 2014 Neuroph Project http://neuroph.sourceforge.net
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.neuroph.util.io;
+
+import java.io.IOException;
+import java.io.ObjectStreamException;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.FloatBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.AbstractList;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.RandomAccess;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.neuroph.core.data.DataSet;
+import org.neuroph.core.data.DataSetRow;
+import org.neuroph.core.data.DenseDataSet;
+
+/**
+ * 内存映射数据集.
+ * <p>
+ * Read only data set whose rows are read directly from memory mapped {@link BinaryDataSetFile}.
+ * Rows are not loaded to heap, so data set can be larger than heap, it is opened almost instantly,
+ * and several processes training on the same file share it in the operating system page cache.
+ * <p>
+ * Rows are handed out like in {@link DenseDataSet}: iterator reuses one row for the whole
+ * iteration, while {@link #getRowAt(int)} returns new row with its own copy of values.
+ * Adding, removing or changing rows is not supported, normalize data set before it is saved.
+ * Shuffling changes only the order in which rows are read, file is not changed.
+ * When mapped data set is serialized, it is written as {@link DenseDataSet}.
+ *
+ * @author Zoran Sevarac <sevarac@gmail.com>
+ * @see BinaryDataSetFile#load(java.io.File)
+ */
+public final class MappedDataSet extends DataSet {
+
+    private static final long serialVersionUID = 1L;
+
+    private final transient MappedRows mappedRows;
+
+    MappedDataSet(MappedRows mappedRows) {
+        super(mappedRows.inputSize, mappedRows.outputSize, mappedRows);
+        this.mappedRows = mappedRows;
+    }
+
+    /**
+     * Returns primitive type of values in data set file
+     *
+     * @return precision of stored values
+     */
+    public DenseDataSet.Precision getPrecision() {
+        return mappedRows.floats != null ? DenseDataSet.Precision.FLOAT : DenseDataSet.Precision.DOUBLE;
+    }
+
+    /**
+     * Copies input vector of the specified row to the specified array, without creating row object
+     *
+     * @param rowIdx row index
+     * @param input  array for input vector
+     */
+    @Override
+    public void getInput(int rowIdx, double[] input) {
+        mappedRows.read(mappedRows.checkIndex(rowIdx), input, null);
+    }
+
+    /**
+     * Copies desired output of the specified row to the specified array, without creating row object
+     *
+     * @param rowIdx        row index
+     * @param desiredOutput array for desired output vector
+     */
+    @Override
+    public void getDesiredOutput(int rowIdx, double[] desiredOutput) {
+        mappedRows.read(mappedRows.checkIndex(rowIdx), null, desiredOutput);
+    }
+
+    /**
+     * Returns value in the specified row and column, where input columns are followed by output columns
+     *
+     * @param rowIdx row index
+     * @param column column index
+     * @return value
+     */
+    public double getValue(int rowIdx, int column) {
+        if (column < 0 || column >= mappedRows.width) {
+            throw new IndexOutOfBoundsException("Column: " + column + ", Columns: " + mappedRows.width);
+        }
+        return mappedRows.getValue(mappedRows.checkIndex(rowIdx), column);
+    }
+
+    /**
+     * Shuffles order of rows, without changing mapped file
+     */
+    @Override
+    public void shuffle() {
+        mappedRows.shuffle();
+    }
+
+    private Object writeReplace() throws ObjectStreamException {
+        return DenseDataSet.copyOf(this, getPrecision());
+    }
+
+    /**
+     * Rows of mapped file, which is mapped in chunks of whole rows,
+     * since one mapped buffer cannot be larger than 2GB
+     */
+    static final class MappedRows extends AbstractList<DataSetRow> implements RandomAccess {
+
+        /**
+         * Maximum number of bytes in one mapped chunk
+         */
+        private static final int CHUNK_BYTES = 1 << 30;
+
+        final int inputSize;
+
+        final int outputSize;
+
+        final int width;
+
+        private final int size;
+
+        private final int rowsPerChunk;
+
+        /**
+         * Chunks with double values, or null when file contains floats
+         */
+        final DoubleBuffer[] doubles;
+
+        /**
+         * Chunks with float values, or null when file contains doubles
+         */
+        final FloatBuffer[] floats;
+
+        /**
+         * Positions of rows in file in data set order, or null while rows are in file order
+         */
+        private int[] order;
+
+        /**
+         * Maps rows of data set file
+         *
+         * @param channel    open file channel
+         * @param position   file position of the first row
+         * @param size       number of rows
+         * @param inputSize  size of input vector
+         * @param outputSize size of output vector
+         * @param precision  type of values in file
+         * @throws IOException if file cannot be mapped
+         */
+        MappedRows(FileChannel channel, long position, int size, int inputSize, int outputSize, DenseDataSet.Precision precision) throws IOException {
+            this.inputSize = inputSize;
+            this.outputSize = outputSize;
+            this.width = inputSize + outputSize;
+            this.size = size;
+            int valueSize = precision == DenseDataSet.Precision.FLOAT ? 4 : 8;
+            long rowBytes = (long) width * valueSize;
+            this.rowsPerChunk = (int) Math.max(1, CHUNK_BYTES / rowBytes);
+            int chunksCount = (int) (((long) size + rowsPerChunk - 1) / rowsPerChunk);
+            doubles = valueSize == 8 ? new DoubleBuffer[chunksCount] : null;
+            floats = valueSize == 4 ? new FloatBuffer[chunksCount] : null;
+            for (int c = 0; c < chunksCount; c++) {
+                long first = (long) c * rowsPerChunk;
+                long count = Math.min(rowsPerChunk, size - first);
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, position + first * rowBytes, count * rowBytes);
+                buffer.order(ByteOrder.LITTLE_ENDIAN);
+                if (doubles != null) {
+                    doubles[c] = buffer.asDoubleBuffer();
+                } else {
+                    floats[c] = buffer.asFloatBuffer();
+                }
+            }
+        }
+
+        int checkIndex(int index) {
+            if (index < 0 || index >= size) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+            }
+            return index;
+        }
+
+        /**
+         * Shuffles data set order of rows
+         */
+        void shuffle() {
+            if (order == null) {
+                order = new int[size];
+                for (int i = 0; i < size; i++) {
+                    order[i] = i;
+                }
+            }
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            for (int i = size - 1; i > 0; i--) {
+                int j = random.nextInt(i + 1);
+                int position = order[i];
+                order[i] = order[j];
+                order[j] = position;
+            }
+        }
+
+        /**
+         * Copies values of the specified row to input and output arrays, which can be null
+         */
+        void read(int index, double[] input, double[] output) {
+            if (order != null) {
+                index = order[index];
+            }
+            int chunk = index / rowsPerChunk;
+            int offset = (index % rowsPerChunk) * width;
+            if (floats != null) {
+                FloatBuffer values = floats[chunk];
+                if (input != null) {
+                    for (int i = 0; i < inputSize; i++) {
+                        input[i] = values.get(offset + i);
+                    }
+                }
+                if (output != null) {
+                    offset += inputSize;
+                    for (int i = 0; i < outputSize; i++) {
+                        output[i] = values.get(offset + i);
+                    }
+                }
+            } else {
+                DoubleBuffer values = doubles[chunk];
+                if (input != null) {
+                    for (int i = 0; i < inputSize; i++) {
+                        input[i] = values.get(offset + i);
+                    }
+                }
+                if (output != null) {
+                    offset += inputSize;
+                    for (int i = 0; i < outputSize; i++) {
+                        output[i] = values.get(offset + i);
+                    }
+                }
+            }
+        }
+
+        double getValue(int index, int column) {
+            if (order != null) {
+                index = order[index];
+            }
+            int offset = (index % rowsPerChunk) * width + column;
+            return floats != null ? floats[index / rowsPerChunk].get(offset) : doubles[index / rowsPerChunk].get(offset);
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public DataSetRow get(int index) {
+            return new MappedRow(this, checkIndex(index));
+        }
+
+        @Override
+        public Iterator<DataSetRow> iterator() {
+            return new Iterator<DataSetRow>() {
+
+                private MappedRow row;
+
+                private int next;
+
+                @Override
+                public boolean hasNext() {
+                    return next < size;
+                }
+
+                @Override
+                public DataSetRow next() {
+                    if (next >= size) {
+                        throw new NoSuchElementException();
+                    }
+                    if (row == null) {
+                        row = new MappedRow(MappedRows.this, next);
+                    } else {
+                        row.moveTo(next);
+                    }
+                    next++;
+                    return row;
+                }
+            };
+        }
+    }
+
+    /**
+     * Read only view of one mapped row, with its own copy of row values
+     */
+    private static final class MappedRow extends DataSetRow {
+
+        private static final long serialVersionUID = 1L;
+
+        private final transient MappedRows rows;
+
+        MappedRow(MappedRows rows, int index) {
+            super(new double[rows.inputSize], rows.outputSize > 0 ? new double[rows.outputSize] : null);
+            this.rows = rows;
+            moveTo(index);
+        }
+
+        void moveTo(int index) {
+            rows.read(index, input, getDesiredOutput());
+        }
+
+        @Override
+        public void setInput(double[] input) {
+            throw new UnsupportedOperationException("Mapped data set is read only!");
+        }
+
+        @Override
+        public void setDesiredOutput(double[] desiredOutput) {
+            throw new UnsupportedOperationException("Mapped data set is read only!");
+        }
+
+        /**
+         * Rows are serialized as ordinary rows, detached from data set
+         */
+        private Object writeReplace() throws ObjectStreamException {
+            double[] output = getDesiredOutput();
+            DataSetRow row = output != null ? new DataSetRow(input.clone(), output.clone()) : new DataSetRow(input.clone());
+            row.setLabel(label);
+            return row;
+        }
+    }
+
+}
@@ -0,0 +1,96 @@
+/**
+ * Copyright 2014 Neuroph Project http://neuroph.sourceforge.net
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.neuroph.util.io;
+
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Little-endian double values of a file region, mapped to memory in chunks,
+ * since one mapped buffer cannot be larger than 2GB.
+ *
+ * @author Zoran Sevarac <sevarac@gmail.com>
+ */
+final class MappedDoubles {
+
+    /**
+     * Number of values in one mapped chunk
+     */
+    private static final int CHUNK_VALUES = 1 << 27;
+
+    private final DoubleBuffer[] chunks;
+
+    private final long size;
+
+    /**
+     * Maps specified number of values starting at the specified file position
+     *
+     * @param channel  open file channel
+     * @param position file position of the first value
+     * @param size     number of values
+     * @throws IOException if region cannot be mapped
+     */
+    MappedDoubles(FileChannel channel, long position, long size) throws IOException {
+        this.size = size;
+        int chunksCount = (int) ((size + CHUNK_VALUES - 1) / CHUNK_VALUES);
+        chunks = new DoubleBuffer[chunksCount];
+        for (int c = 0; c < chunksCount; c++) {
+            long first = (long) c * CHUNK_VALUES;
+            long count = Math.min(CHUNK_VALUES, size - first);
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, position + first * 8, count * 8);
+            chunks[c] = buffer.order(ByteOrder.LITTLE_ENDIAN).asDoubleBuffer();
+        }
+    }
+
+    long size() {
+        return size;
+    }
+
+    double get(long index) {
+        return chunks[(int) (index / CHUNK_VALUES)].get((int) (index % CHUNK_VALUES));
+    }
+
+    /**
+     * Copies values starting at the specified index to the target array
+     *
+     * @param index  index of the first value
+     * @param target array to fill
+     * @param offset first position in target array
+     * @param length number of values to copy
+     */
+    void get(long index, double[] target, int offset, int length) {
+        if (index < 0 || index + length > size) {
+            throw new IndexOutOfBoundsException("Values " + index + " - " + (index + length) + " out of " + size);
+        }
+        while (length > 0) {
+            int chunkIndex = (int) (index % CHUNK_VALUES);
+            DoubleBuffer chunk = chunks[(int) (index / CHUNK_VALUES)].duplicate();
+            int count = Math.min(length, chunk.limit() - chunkIndex);
+            // cast keeps Java 8 compatible method signature
+            ((Buffer) chunk).position(chunkIndex);
+            chunk.get(target, offset, count);
+            index += count;
+            offset += count;
+            length -= count;
+        }
+    }
+}
@@ -0,0 +1,461 @@
+/**
+ * Copyright 2014 Neuroph Project http://neuroph.sourceforge.net
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.neuroph.util.pruning;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.neuroph.core.Connection;
+import org.neuroph.core.Layer;
+import org.neuroph.core.NeuralNetwork;
+import org.neuroph.core.Neuron;
+import org.neuroph.core.data.DataSet;
+import org.neuroph.core.learning.IterativeLearning;
+import org.neuroph.core.learning.LearningRule;
+
+/**
+ * 网络剪枝.
+ * <p>
+ * Removes low magnitude connections or whole neurons from a trained network.
+ * Pruned connections are physically removed from neurons with
+ * {@link Neuron#removeInputConnectionFrom(Neuron)}, and pruned neurons are
+ * removed from their layers, so the pruned network is smaller both as object
+ * graph and when compiled: layers left with irregular connections are compiled
+ * to sparse rows by {@link org.neuroph.core.flat.FlatNetwork}.
+ * <p>
+ * Pruning can be done in several steps, each step removing part of the target
+ * sparsity, optionally followed by fine tuning with the learning rule of the network:
+ * <pre>
+ * Pruner pruner = new Pruner(Pruner.Scope.LAYER, 0.8);
+ * pruner.setSteps(4);
+ * pruner.setFineTuneIterations(50);
+ * PruningReport report = pruner.prune(network, trainingSet);
+ * </pre>
+ * Connections from bias neurons are not pruned unless {@link #setPruneBiases(boolean)}
+ * is set. Hidden neurons which are left without output connections are removed.
+ *
+ * @author Zoran Sevarac <sevarac@gmail.com>
+ * @see PruningReport
+ */
+public class Pruner {
+
+    /**
+     * What is pruned and how the target sparsity is applied
+     */
+    public enum Scope {
+        /**
+         * Connections with the smallest weights in the whole network
+         */
+        GLOBAL,
+        /**
+         * Connections with the smallest weights in each layer, same sparsity for every layer
+         */
+        LAYER,
+        /**
+         * Hidden neurons with the smallest output weights, same fraction in every hidden layer
+         */
+        NEURON
+    }
+
+    /**
+     * Duration of one inference time measurement
+     */
+    private static final long BENCHMARK_NANOS = 50000000L;
+
+    /**
+     * Number of rows used to measure inference time
+     */
+    private static final int BENCHMARK_ROWS = 256;
+
+    private static final Comparator<Connection> BY_MAGNITUDE = new Comparator<Connection>() {
+        @Override
+        public int compare(Connection c1, Connection c2) {
+            return Double.compare(Math.abs(c1.getWeight().value), Math.abs(c2.getWeight().value));
+        }
+    };
+
+    private Scope scope = Scope.LAYER;
+
+    /**
+     * Fraction of connections (or neurons) to remove
+     */
+    private double sparsity = 0.5d;
+
+    /**
+     * Number of steps in which target sparsity is reached
+     */
+    private int steps = 1;
+
+    /**
+     * Learning iterations after each step, 0 for no fine tuning
+     */
+    private int fineTuneIterations = 0;
+
+    private boolean pruneBiases = false;
+
+    /**
+     * Measure inference time before and after pruning
+     */
+    private boolean measureSpeedup = true;
+
+    /**
+     * Creates pruner which removes half of the connections in each layer
+     */
+    public Pruner() {
+    }
+
+    /**
+     * Creates pruner with the specified scope and target sparsity
+     *
+     * @param scope    what is pruned
+     * @param sparsity fraction of connections or neurons to remove, in [0, 1)
+     */
+    public Pruner(Scope scope, double sparsity) {
+        setScope(scope);
+        setSparsity(sparsity);
+    }
+
+    /**
+     * Prunes specified network without fine tuning
+     *
+     * @param network trained network
+     * @return pruning report
+     */
+    public PruningReport prune(NeuralNetwork<?> network) {
+        return prune(network, null);
+    }
+
+    /**
+     * Prunes specified network. If fine tuning iterations are set, network is
+     * trained with its own learning rule on the training set after each step.
+     *
+     * @param network     trained network
+     * @param trainingSet training set used for fine tuning and speed measurement, may be null
+     * @return pruning report
+     */
+    public PruningReport prune(NeuralNetwork<?> network, DataSet trainingSet) {
+        double[][] samples = measureSpeedup ? sampleInputs(network, trainingSet) : null;
+        double timeBefore = measureSpeedup ? measure(network, samples) : 0d;
+        int connectionsBefore = countConnections(network);
+        int neuronsBefore = countNeurons(network);
+
+        int layersCount = network.getLayersCount();
+        int[] initialCounts = new int[layersCount];
+        for (int l = 0; l < layersCount; l++) {
+            initialCounts[l] = scope == Scope.NEURON
+                    ? hiddenNeurons(network, l).size()
+                    : prunableConnections(network, l).size();
+        }
+
+        for (int step = 1; step <= steps; step++) {
+            double target = sparsity * step / steps;
+            if (scope == Scope.GLOBAL) {
+                List<Connection> connections = new ArrayList<>();
+                int initialCount = 0;
+                for (int l = 0; l < layersCount; l++) {
+                    connections.addAll(prunableConnections(network, l));
+                    initialCount += initialCounts[l];
+                }
+                removeConnections(connections, initialCount, target);
+            } else {
+                for (int l = 0; l < layersCount; l++) {
+                    if (scope == Scope.LAYER) {
+                        removeConnections(prunableConnections(network, l), initialCounts[l], target);
+                    } else {
+                        removeNeurons(network, l, initialCounts[l], target);
+                    }
+                }
+            }
+            removeDeadNeurons(network);
+            network.invalidateFlatNetwork();
+
+            if (fineTuneIterations > 0 && trainingSet != null) {
+                fineTune(network, trainingSet);
+            }
+        }
+
+        double timeAfter = measureSpeedup ? measure(network, samples) : 0d;
+        return new PruningReport(connectionsBefore, countConnections(network), neuronsBefore, countNeurons(network),
+                timeBefore, timeAfter);
+    }
+
+    /**
+     * Removes connections with the smallest weights, so that the given fraction of initial connections is removed
+     */
+    private static void removeConnections(List<Connection> connections, int initialCount, double target) {
+        int toRemove = (int) Math.round(target * initialCount) - (initialCount - connections.size());
+        if (toRemove <= 0) {
+            return;
+        }
+        Collections.sort(connections, BY_MAGNITUDE);
+        for (int i = 0; i < toRemove && i < connections.size(); i++) {
+            Connection connection = connections.get(i);
+            connection.getToNeuron().removeInputConnectionFrom(connection.getFromNeuron());
+        }
+    }
+
+    /**
+     * Removes hidden neurons of the layer with the smallest norm of output weights
+     */
+    private static void removeNeurons(NeuralNetwork<?> network, int layerIdx, int initialCount, double target) {
+        final List<Neuron> neurons = hiddenNeurons(network, layerIdx);
+        int toRemove = (int) Math.round(target * initialCount) - (initialCount - neurons.size());
+        // keep at least one neuron in layer
+        toRemove = Math.min(toRemove, neurons.size() - 1);
+        if (toRemove <= 0) {
+            return;
+        }
+        final IdentityHashMap<Neuron, Double> norms = new IdentityHashMap<>();
+        for (Neuron neuron : neurons) {
+            double sum = 0d;
+            for (Connection connection : neuron.getOutConnections()) {
+                sum += connection.getWeight().value * connection.getWeight().value;
+            }
+            norms.put(neuron, sum);
+        }
+        Collections.sort(neurons, new Comparator<Neuron>() {
+            @Override
+            public int compare(Neuron n1, Neuron n2) {
+                return Double.compare(norms.get(n1), norms.get(n2));
+            }
+        });
+        for (int i = 0; i < toRemove; i++) {
+            removeNeuron(network.getLayerAt(layerIdx), neurons.get(i));
+        }
+    }
+
+    /**
+     * Removes hidden neurons which have no output connections, since they do not affect network output
+     */
+    private static void removeDeadNeurons(NeuralNetwork<?> network) {
+        // go backwards, so neurons which lost all outputs in the next layer are found in the same pass
+        for (int l = network.getLayersCount() - 1; l >= 0; l--) {
+            List<Neuron> neurons = hiddenNeurons(network, l);
+            int remaining = neurons.size();
+            for (Neuron neuron : neurons) {
+                if (remaining > 1 && neuron.getOutConnections().isEmpty()) {
+                    removeNeuron(network.getLayerAt(l), neuron);
+                    remaining--;
+                }
+            }
+        }
+    }
+
+    private static void removeNeuron(Layer layer, Neuron neuron) {
+        for (Connection connection : new ArrayList<>(neuron.getInputConnections())) {
+            neuron.removeInputConnectionFrom(connection.getFromNeuron());
+        }
+        for (Connection connection : new ArrayList<>(neuron.getOutConnections())) {
+            connection.getToNeuron().removeInputConnectionFrom(neuron);
+        }
+        layer.removeNeuron(neuron);
+    }
+
+    /**
+     * Returns input connections of all neurons in the layer which can be pruned
+     */
+    private List<Connection> prunableConnections(NeuralNetwork<?> network, int layerIdx) {
+        Layer layer = network.getLayerAt(layerIdx);
+        List<Connection> connections = new ArrayList<>();
+        for (int i = 0; i < layer.getNeuronsCount(); i++) {
+            List<Connection> inputConnections = layer.getNeuronAt(i).getInputConnections();
+            for (int j = 0; j < inputConnections.size(); j++) {
+                Connection connection = inputConnections.get(j);
+                if (pruneBiases || !connection.getFromNeuron().isBias()) {
+                    connections.add(connection);
+                }
+            }
+        }
+        return connections;
+    }
+
+    /**
+     * Returns neurons of the layer which are neither network inputs, outputs nor bias neurons
+     */
+    private static List<Neuron> hiddenNeurons(NeuralNetwork<?> network, int layerIdx) {
+        Set<Neuron> excluded = Collections.newSetFromMap(new IdentityHashMap<Neuron, Boolean>());
+        excluded.addAll(network.getInputNeurons());
+        excluded.addAll(network.getOutputNeurons());
+
+        Layer layer = network.getLayerAt(layerIdx);
+        List<Neuron> neurons = new ArrayList<>();
+        for (int i = 0; i < layer.getNeuronsCount(); i++) {
+            Neuron neuron = layer.getNeuronAt(i);
+            if (!excluded.contains(neuron) && !neuron.isBias()) {
+                neurons.add(neuron);
+            }
+        }
+        return neurons;
+    }
+
+    private void fineTune(NeuralNetwork<?> network, DataSet trainingSet) {
+        LearningRule rule = network.getLearningRule();
+        if (rule instanceof IterativeLearning) {
+            IterativeLearning iterativeRule = (IterativeLearning) rule;
+            int maxIterations = iterativeRule.getMaxIterations();
+            boolean iterationsLimited = iterativeRule.isIterationsLimited();
+            iterativeRule.learn(trainingSet, fineTuneIterations);
+            // setMaxIterations also limits iterations, so the flag is restored too
+            iterativeRule.setMaxIterations(maxIterations);
+            iterativeRule.setIterationsLimited(iterationsLimited);
+        } else {
+            network.learn(trainingSet);
+        }
+    }
+
+    private static int countConnections(NeuralNetwork<?> network) {
+        int count = 0;
+        for (int l = 0; l < network.getLayersCount(); l++) {
+            Layer layer = network.getLayerAt(l);
+            for (int i = 0; i < layer.getNeuronsCount(); i++) {
+                count += layer.getNeuronAt(i).getInputConnections().size();
+            }
+        }
+        return count;
+    }
+
+    private static int countNeurons(NeuralNetwork<?> network) {
+        int count = 0;
+        for (int l = 0; l < network.getLayersCount(); l++) {
+            count += network.getLayerAt(l).getNeuronsCount();
+        }
+        return count;
+    }
+
+    private static double[][] sampleInputs(NeuralNetwork<?> network, DataSet dataSet) {
+        if (dataSet != null && !dataSet.isEmpty()) {
+            double[][] inputs = new double[Math.min(BENCHMARK_ROWS, dataSet.size())][];
+            for (int i = 0; i < inputs.length; i++) {
+                inputs[i] = dataSet.getRowAt(i).getInput();
+            }
+            return inputs;
+        }
+        Random random = new Random(0);
+        double[][] inputs = new double[BENCHMARK_ROWS][network.getInputsCount()];
+        for (double[] input : inputs) {
+            for (int j = 0; j < input.length; j++) {
+                input[j] = random.nextDouble();
+            }
+        }
+        return inputs;
+    }
+
+    /**
+     * Returns average time of batch calculation in nanoseconds per sample
+     */
+    private static double measure(NeuralNetwork<?> network, double[][] samples) {
+        network.calculate(samples); // warm up
+        long start = System.nanoTime();
+        long elapsed;
+        int rounds = 0;
+        do {
+            network.calculate(samples);
+            rounds++;
+            elapsed = System.nanoTime() - start;
+        } while (elapsed < BENCHMARK_NANOS);
+        return (double) elapsed / ((double) rounds * samples.length);
+    }
+
+    public Scope getScope() {
+        return scope;
+    }
+
+    public void setScope(Scope scope) {
+        if (scope == null) {
+            throw new IllegalArgumentException("Scope cannot be null!");
+        }
+        this.scope = scope;
+    }
+
+    public double getSparsity() {
+        return sparsity;
+    }
+
+    /**
+     * Sets fraction of connections, or neurons for {@link Scope#NEURON}, to remove
+     *
+     * @param sparsity target sparsity in [0, 1)
+     */
+    public void setSparsity(double sparsity) {
+        if (!(sparsity >= 0d && sparsity < 1d)) {
+            throw new IllegalArgumentException("Sparsity must be in [0, 1)!");
+        }
+        this.sparsity = sparsity;
+    }
+
+    public int getSteps() {
+        return steps;
+    }
+
+    /**
+     * Sets number of steps in which target sparsity is reached. Each step
+     * removes equal part of connections and is followed by fine tuning.
+     *
+     * @param steps number of pruning steps
+     */
+    public void setSteps(int steps) {
+        if (steps < 1) {
+            throw new IllegalArgumentException("Number of steps must be positive!");
+        }
+        this.steps = steps;
+    }
+
+    public int getFineTuneIterations() {
+        return fineTuneIterations;
+    }
+
+    /**
+     * Sets number of learning iterations run after each pruning step. Max iterations
+     * setting of the learning rule is restored after fine tuning.
+     *
+     * @param fineTuneIterations learning iterations, 0 to disable fine tuning
+     */
+    public void setFineTuneIterations(int fineTuneIterations) {
+        if (fineTuneIterations < 0) {
+            throw new IllegalArgumentException("Number of fine tune iterations cannot be negative!");
+        }
+        this.fineTuneIterations = fineTuneIterations;
+    }
+
+    public boolean isPruneBiases() {
+        return pruneBiases;
+    }
+
+    public void setPruneBiases(boolean pruneBiases) {
+        this.pruneBiases = pruneBiases;
+    }
+
+    public boolean isMeasureSpeedup() {
+        return measureSpeedup;
+    }
+
+    /**
+     * Sets whether inference time is measured before and after pruning
+     *
+     * @param measureSpeedup true to measure speedup
+     */
+    public void setMeasureSpeedup(boolean measureSpeedup) {
+        this.measureSpeedup = measureSpeedup;
+    }
+
+}
@@ -0,0 +1,106 @@
+/**
+ * Copyright 2014 Neuroph Project http://neuroph.sourceforge.net
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.neuroph.util.pruning;
+
+/**
+ * 剪枝报告.
+ * <p>
+ * Size of the network before and after pruning, and measured inference time
+ * of the network in nanoseconds per sample. Inference time is zero when it was
+ * not measured.
+ *
+ * @author Zoran Sevarac <sevarac@gmail.com>
+ * @see Pruner
+ */
+public class PruningReport {
+
+    private final int connectionsBefore;
+    private final int connectionsAfter;
+    private final int neuronsBefore;
+    private final int neuronsAfter;
+    private final double nanosPerSampleBefore;
+    private final double nanosPerSampleAfter;
+
+    public PruningReport(int connectionsBefore, int connectionsAfter, int neuronsBefore, int neuronsAfter,
+                         double nanosPerSampleBefore, double nanosPerSampleAfter) {
+        this.connectionsBefore = connectionsBefore;
+        this.connectionsAfter = connectionsAfter;
+        this.neuronsBefore = neuronsBefore;
+        this.neuronsAfter = neuronsAfter;
+        this.nanosPerSampleBefore = nanosPerSampleBefore;
+        this.nanosPerSampleAfter = nanosPerSampleAfter;
+    }
+
+    public int getConnectionsBefore() {
+        return connectionsBefore;
+    }
+
+    public int getConnectionsAfter() {
+        return connectionsAfter;
+    }
+
+    public int getNeuronsBefore() {
+        return neuronsBefore;
+    }
+
+    public int getNeuronsAfter() {
+        return neuronsAfter;
+    }
+
+    public double getNanosPerSampleBefore() {
+        return nanosPerSampleBefore;
+    }
+
+    public double getNanosPerSampleAfter() {
+        return nanosPerSampleAfter;
+    }
+
+    public int getRemovedConnections() {
+        return connectionsBefore - connectionsAfter;
+    }
+
+    public int getRemovedNeurons() {
+        return neuronsBefore - neuronsAfter;
+    }
+
+    /**
+     * Returns fraction of all connections which were removed
+     *
+     * @return achieved sparsity
+     */
+    public double getSparsity() {
+        return connectionsBefore == 0 ? 0d : (double) getRemovedConnections() / connectionsBefore;
+    }
+
+    /**
+     * Returns ratio of inference time before and after pruning
+     *
+     * @return speedup, or 0 if inference time was not measured
+     */
+    public double getSpeedup() {
+        return nanosPerSampleAfter == 0d ? 0d : nanosPerSampleBefore / nanosPerSampleAfter;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Connections: %d -> %d (sparsity %.3f), neurons: %d -> %d, time per sample: %.1f ns -> %.1f ns (speedup %.2f)",
+                connectionsBefore, connectionsAfter, getSparsity(), neuronsBefore, neuronsAfter,
+                nanosPerSampleBefore, nanosPerSampleAfter, getSpeedup());
+    }
+
+}
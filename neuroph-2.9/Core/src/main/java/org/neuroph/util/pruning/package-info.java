@@ -0,0 +1,4 @@
+/**
+ * Provides pruning of trained networks
+ */
+package org.neuroph.util.pruning;
@@ -16,6 +16,8 @@
 
 package org.neuroph.util.random;
 
+import java.util.SplittableRandom;
+
 import org.neuroph.core.Connection;
 import org.neuroph.core.Neuron;
 
@@ -43,6 +45,18 @@ public class DistortRandomizer extends WeightsRandomizer {
         this.distortionFactor = distortionFactor;
     }
 
+    /**
+     * Create a new instance of DistortRandomizer with specified distortion factor,
+     * which distorts each neuron with its own stream split from the specified generator
+     *
+     * @param distortionFactor amount to distort existing weights
+     * @param splittableRandom random generator to split streams from
+     */
+    public DistortRandomizer(double distortionFactor, SplittableRandom splittableRandom) {
+        super(splittableRandom);
+        this.distortionFactor = distortionFactor;
+    }
+
     /**
      * Iterate all layers, neurons and connection weight and apply distort randomization
      *
@@ -56,6 +70,14 @@ public class DistortRandomizer extends WeightsRandomizer {
         }
     }
 
+    @Override
+    protected void randomize(Neuron neuron, SplittableRandom random) {
+        for (Connection connection : neuron.getInputConnections()) {
+            double weight = connection.getWeight().getValue();
+            connection.getWeight().setValue(weight + (this.distortionFactor - (random.nextDouble() * this.distortionFactor * 2)));
+        }
+    }
+
 
     /**
      * Returns distorted weight value
@@ -16,6 +16,12 @@
 
 package org.neuroph.util.random;
 
+import java.util.List;
+import java.util.SplittableRandom;
+
+import org.neuroph.core.Connection;
+import org.neuroph.core.Neuron;
+
 /**
  * This class provides Gaussian randomization technique using Box Muller method.
  * Based on GaussianRandomizer from Encog
@@ -42,6 +48,20 @@ public class GaussianRandomizer extends WeightsRandomizer {
         this.standardDeviation = standardDeviation;
     }
 
+    /**
+     * Creates Gaussian randomizer which randomizes each layer and neuron with
+     * its own stream split from the specified generator
+     *
+     * @param mean              mean of the weights
+     * @param standardDeviation standard deviation of the weights
+     * @param splittableRandom  random generator to split streams from
+     */
+    public GaussianRandomizer(double mean, double standardDeviation, SplittableRandom splittableRandom) {
+        super(splittableRandom);
+        this.mean = mean;
+        this.standardDeviation = standardDeviation;
+    }
+
     /**
      * Compute a Gaussian random number.
      *
@@ -76,4 +96,38 @@ public class GaussianRandomizer extends WeightsRandomizer {
     protected double nextRandomWeight() {
         return boxMuller(mean, standardDeviation);
     }
+
+    /**
+     * Box Muller method gives two values at once, the second one is kept in
+     * local variable since this is called concurrently for different neurons
+     */
+    @Override
+    protected void randomize(Neuron neuron, SplittableRandom random) {
+        List<Connection> connections = neuron.getInputConnections();
+        for (int i = 0; i < connections.size(); i += 2) {
+            double x1, x2, w;
+            do {
+                x1 = 2.0 * random.nextDouble() - 1.0;
+                x2 = 2.0 * random.nextDouble() - 1.0;
+                w = x1 * x1 + x2 * x2;
+            } while (w >= 1.0 || w == 0.0);
+            w = Math.sqrt((-2.0 * Math.log(w)) / w);
+
+            connections.get(i).getWeight().setValue(mean + x1 * w * standardDeviation);
+            if (i + 1 < connections.size()) {
+                connections.get(i + 1).getWeight().setValue(mean + x2 * w * standardDeviation);
+            }
+        }
+    }
+
+    @Override
+    protected double nextRandomWeight(SplittableRandom random) {
+        double x1, x2, w;
+        do {
+            x1 = 2.0 * random.nextDouble() - 1.0;
+            x2 = 2.0 * random.nextDouble() - 1.0;
+            w = x1 * x1 + x2 * x2;
+        } while (w >= 1.0 || w == 0.0);
+        return mean + x1 * Math.sqrt((-2.0 * Math.log(w)) / w) * standardDeviation;
+    }
 }
@@ -1,5 +1,7 @@
 package org.neuroph.util.random;
 
+import java.util.SplittableRandom;
+
 import org.neuroph.core.Connection;
 import org.neuroph.core.Neuron;
 
@@ -13,6 +15,12 @@ import org.neuroph.core.Neuron;
  */
 public class HeZhangRenSunUniformWeightsRandomizer extends WeightsRandomizer {
 
+    public HeZhangRenSunUniformWeightsRandomizer() {
+    }
+
+    public HeZhangRenSunUniformWeightsRandomizer(SplittableRandom splittableRandom) {
+        super(splittableRandom);
+    }
 
     /**
      * "He" uniform distribution [-limit, limit] where limit is 3 * sqrt(2 / fan in)
@@ -30,4 +38,14 @@ public class HeZhangRenSunUniformWeightsRandomizer extends WeightsRandomizer {
             connection.getWeight().setValue(newRandomWeight);
         }
     }
+
+    @Override
+    protected void randomize(Neuron neuron, SplittableRandom random) {
+        final int numberOfInputConnections = neuron.getInputConnections().size();
+        if (numberOfInputConnections == 0) return;
+        final double limit = 3 * Math.sqrt(2D / numberOfInputConnections);
+        for (Connection connection : neuron.getInputConnections()) {
+            connection.getWeight().setValue((2 * limit * random.nextDouble()) - limit);
+        }
+    }
 }
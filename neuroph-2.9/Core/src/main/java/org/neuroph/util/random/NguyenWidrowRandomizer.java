@@ -17,6 +17,7 @@
 package org.neuroph.util.random;
 
 import java.util.List;
+import java.util.SplittableRandom;
 
 import org.neuroph.core.Connection;
 import org.neuroph.core.Layer;
@@ -36,6 +37,10 @@ public class NguyenWidrowRandomizer extends RangeRandomizer {
         super(min, max);
     }
 
+    public NguyenWidrowRandomizer(double min, double max, SplittableRandom splittableRandom) {
+        super(min, max, splittableRandom);
+    }
+
     @Override
     public void randomize(NeuralNetwork neuralNetwork) {
         super.randomize(neuralNetwork);
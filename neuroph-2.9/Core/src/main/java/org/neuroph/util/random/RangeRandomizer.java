@@ -17,6 +17,7 @@
 package org.neuroph.util.random;
 
 import java.util.Random;
+import java.util.SplittableRandom;
 
 /**
  * This class provides ranged weights randomizer, which randomize weights in specified [min, max] range.
@@ -53,6 +54,20 @@ public class RangeRandomizer extends WeightsRandomizer {
         this.max = max;
     }
 
+    /**
+     * Creates a new instance of RangeRandomizer which randomizes each layer and
+     * neuron with its own stream split from the specified generator
+     *
+     * @param min              min weight value
+     * @param max              max weight value
+     * @param splittableRandom random generator to split streams from
+     */
+    public RangeRandomizer(double min, double max, SplittableRandom splittableRandom) {
+        super(splittableRandom);
+        this.min = min;
+        this.max = max;
+    }
+
     /**
      * Generates next random value within [min, max] range determined by the settings in this randomizer
      *
@@ -62,4 +77,9 @@ public class RangeRandomizer extends WeightsRandomizer {
     protected double nextRandomWeight() {
         return min + randomGen.nextDouble() * (max - min);
     }
+
+    @Override
+    protected double nextRandomWeight(SplittableRandom random) {
+        return min + random.nextDouble() * (max - min);
+    }
 }
@@ -16,15 +16,42 @@
 
 package org.neuroph.util.random;
 
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 
 import org.neuroph.core.Connection;
 import org.neuroph.core.Layer;
 import org.neuroph.core.NeuralNetwork;
 import org.neuroph.core.Neuron;
+import org.neuroph.core.Weight;
+import org.neuroph.core.exceptions.NeurophException;
 
 /**
- * Basic weights randomizer, iterates and randomizes all connection weights in network.
+ * Basic weights randomizer, iterates and randomizes all connection weights in network,
+ * and {@link Layer#getParameters() parameters} of layers, like kernels of tensor layers.
+ * <p>
+ * When created with {@link SplittableRandom}, each layer and each neuron get their
+ * own random stream, split from the given generator in network order before any
+ * weight is set. Neurons can then be randomized in parallel (see {@link #setThreadCount(int)})
+ * and the same seed gives the same weights regardless of number of threads. Networks with
+ * weights shared by several neurons (like kernels of connection based convolutional layers)
+ * are randomized by one thread, so shared weights get the value of their last neuron in network order:
+ * <pre>
+ * WeightsRandomizer randomizer = new WeightsRandomizer(new SplittableRandom(123));
+ * randomizer.setThreadCount(4);
+ * network.randomizeWeights(randomizer);
+ * </pre>
+ * Randomizers which override {@link #randomize(Neuron)} or {@link #nextRandomWeight()}
+ * should also override their stream counterparts {@link #randomize(Neuron, SplittableRandom)}
+ * and {@link #nextRandomWeight(SplittableRandom)}.
  *
  * @author Zoran Sevarac <sevarac@gmail.com>
  */
@@ -35,6 +62,21 @@ public class WeightsRandomizer {
      */
     protected Random randomGen;
 
+    /**
+     * Generator from which streams for layers and neurons are split, null if streams are not used
+     */
+    private SplittableRandom splittableRandom;
+
+    /**
+     * Number of threads used to randomize neurons, when streams are used
+     */
+    private int threadCount = 1;
+
+    /**
+     * Minimal number of neurons randomized by one parallel task
+     */
+    private static final int MIN_TASK_NEURONS = 64;
+
     /**
      * Create a new instance of WeightsRandomizer
      */
@@ -52,32 +94,164 @@ public class WeightsRandomizer {
         this.randomGen = randomGen;
     }
 
+    /**
+     * Create a new instance of WeightsRandomizer which randomizes each layer and
+     * neuron with its own stream split from the specified generator.
+     * If you use generators with the same seed, you'll get the same weights.
+     *
+     * @param splittableRandom random generator to split streams from
+     */
+    public WeightsRandomizer(SplittableRandom splittableRandom) {
+        if (splittableRandom == null) {
+            throw new IllegalArgumentException("Random generator cannot be null!");
+        }
+        this.splittableRandom = splittableRandom;
+        // generator for subclasses which use it, seeded from the given generator to stay reproducible
+        this.randomGen = new Random(splittableRandom.nextLong());
+    }
+
     public Random getRandomGen() {
         return randomGen;
     }
 
+    public SplittableRandom getSplittableRandom() {
+        return splittableRandom;
+    }
+
+    public int getThreadCount() {
+        return threadCount;
+    }
+
+    /**
+     * Sets number of threads used to randomize neurons. Used only by randomizers
+     * created with {@link SplittableRandom}, since a shared {@link Random} cannot
+     * give the same sequence when used from several threads.
+     *
+     * @param threadCount number of threads
+     */
+    public void setThreadCount(int threadCount) {
+        if (threadCount < 1) {
+            throw new IllegalArgumentException("Thread count must be positive!");
+        }
+        this.threadCount = threadCount;
+    }
+
     /**
      * Iterates and randomizes all layers in specified network
      *
      * @param neuralNetwork neural network to randomize
      */
     public void randomize(NeuralNetwork<?> neuralNetwork) {
+        if (splittableRandom != null) {
+            randomizeStreams(neuralNetwork);
+            return;
+        }
         for (Layer layer : neuralNetwork.getLayers()) {
             randomize(layer);
         }
     }
 
+    /**
+     * Splits stream for each layer and neuron, and randomizes neurons with their streams
+     */
+    private void randomizeStreams(NeuralNetwork<?> neuralNetwork) {
+        final List<Neuron> neurons = new ArrayList<>();
+        final List<SplittableRandom> streams = new ArrayList<>();
+        // streams are split in network order, so they do not depend on the order neurons are randomized in
+        for (int l = 0; l < neuralNetwork.getLayersCount(); l++) {
+            Layer layer = neuralNetwork.getLayerAt(l);
+            SplittableRandom layerRandom = splittableRandom.split();
+            double[][] parameters = layer.getParameters();
+            if (parameters.length > 0) {
+                randomizeParameters(parameters, layerRandom.split());
+            }
+            for (int i = 0; i < layer.getNeuronsCount(); i++) {
+                neurons.add(layer.getNeuronAt(i));
+                streams.add(layerRandom.split());
+            }
+        }
+
+        int tasksCount = Math.min(threadCount, neurons.size() / MIN_TASK_NEURONS);
+        if (tasksCount < 2 || hasSharedWeights(neurons)) {
+            randomize(neurons, streams, 0, neurons.size());
+            return;
+        }
+
+        List<Callable<Void>> tasks = new ArrayList<>(tasksCount);
+        for (int t = 0; t < tasksCount; t++) {
+            final int from = (int) ((long) neurons.size() * t / tasksCount);
+            final int to = (int) ((long) neurons.size() * (t + 1) / tasksCount);
+            tasks.add(new Callable<Void>() {
+                @Override
+                public Void call() {
+                    randomize(neurons, streams, from, to);
+                    return null;
+                }
+            });
+        }
+        ForkJoinPool pool = new ForkJoinPool(threadCount);
+        try {
+            for (Future<Void> future : pool.invokeAll(tasks)) {
+                future.get();
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new NeurophException("Weights randomization interrupted", ex);
+        } catch (ExecutionException ex) {
+            throw new NeurophException("Weights randomization failed", ex.getCause());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Returns true if some weight is used by connections of several neurons
+     */
+    private static boolean hasSharedWeights(List<Neuron> neurons) {
+        Map<Weight, Neuron> owners = new IdentityHashMap<>();
+        for (Neuron neuron : neurons) {
+            for (Connection connection : neuron.getInputConnections()) {
+                Neuron owner = owners.put(connection.getWeight(), neuron);
+                if (owner != null && owner != neuron) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private void randomize(List<Neuron> neurons, List<SplittableRandom> streams, int from, int to) {
+        for (int i = from; i < to; i++) {
+            randomize(neurons.get(i), streams.get(i));
+        }
+    }
+
     /**
      * Iterate and randomizes all neurons in specified layer
      *
      * @param layer layer to randomize
      */
     protected void randomize(Layer layer) {
+        randomizeParameters(layer.getParameters(), null);
         for (Neuron neuron : layer.getNeurons()) {
             randomize(neuron);
         }
     }
 
+    /**
+     * Randomizes layer parameters, which are not connection weights
+     *
+     * @param parameters layer parameters to randomize
+     * @param random     stream to use, or null to use random generator of this randomizer
+     */
+    private void randomizeParameters(double[][] parameters, SplittableRandom random) {
+        for (double[] values : parameters) {
+            for (int i = 0; i < values.length; i++) {
+                values[i] = random == null ? nextRandomWeight() : nextRandomWeight(random);
+            }
+        }
+    }
+
     /**
      * Iterates and randomizes all connection weights in specified neuron
      *
@@ -105,4 +279,28 @@ public class WeightsRandomizer {
     protected double nextRandomWeight() {
         return randomGen.nextDouble() - 0.5;
     }
+
+    /**
+     * Randomizes all connection weights in specified neuron using its own stream.
+     * Called concurrently for different neurons, so it must not change state of the randomizer.
+     *
+     * @param neuron neuron to randomize
+     * @param random random stream of the neuron
+     */
+    protected void randomize(Neuron neuron, SplittableRandom random) {
+        List<Connection> connections = neuron.getInputConnections();
+        for (int i = 0; i < connections.size(); i++) {
+            connections.get(i).getWeight().setValue(nextRandomWeight(random));
+        }
+    }
+
+    /**
+     * Returns next random value from the specified stream, that will be used to initialize weight
+     *
+     * @param random random stream to use
+     * @return next random value from the stream
+     */
+    protected double nextRandomWeight(SplittableRandom random) {
+        return random.nextDouble() - 0.5;
+    }
 }
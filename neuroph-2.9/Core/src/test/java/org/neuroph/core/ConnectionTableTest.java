@@ -0,0 +1,225 @@
+package org.neuroph.core;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.lang3.SerializationUtils;
+import org.junit.Test;
+import org.neuroph.nnet.MultiLayerPerception;
+import org.neuroph.nnet.comp.DelayedConnection;
+import org.neuroph.util.LayerFactory;
+import org.neuroph.util.TransferFunctionType;
+import org.neuroph.util.random.WeightsRandomizer;
+
+public class ConnectionTableTest {
+
+    private MultiLayerPerception createNetwork() {
+        MultiLayerPerception network = new MultiLayerPerception(TransferFunctionType.TANH, 4, 7, 3);
+        network.randomizeWeights(new WeightsRandomizer(new Random(123)));
+        return network;
+    }
+
+    @Test
+    public void testCloneKeepsConnections() {
+        MultiLayerPerception network = createNetwork();
+        NeuralNetwork<?> copy = SerializationUtils.clone(network);
+
+        assertArrayEquals(network.getWeights(), copy.getWeights());
+        for (int l = 0; l < network.getLayersCount(); l++) {
+            for (int i = 0; i < network.getLayerAt(l).getNeuronsCount(); i++) {
+                Neuron neuron = network.getLayerAt(l).getNeuronAt(i);
+                Neuron copied = copy.getLayerAt(l).getNeuronAt(i);
+                assertEquals(neuron.getInputConnections().size(), copied.getInputConnections().size());
+                assertEquals(neuron.getOutConnections().size(), copied.getOutConnections().size());
+                for (Connection connection : copied.getInputConnections()) {
+                    assertSame(copied, connection.getToNeuron());
+                    assertTrue(connection.getFromNeuron().getOutConnections().contains(connection));
+                }
+            }
+        }
+
+        double[] input = {0.1, -0.4, 0.7, 0.2};
+        network.setInput(input);
+        network.calculate();
+        copy.setInput(input);
+        copy.calculate();
+        assertArrayEquals(network.getOutput(), copy.getOutput(), 0);
+    }
+
+    @Test
+    public void testSharedWeightsStayShared() {
+        MultiLayerPerception network = createNetwork();
+        Connection first = network.getLayerAt(2).getNeuronAt(0).getInputConnections().get(0);
+        Connection second = network.getLayerAt(2).getNeuronAt(1).getInputConnections().get(0);
+        second.setWeight(first.getWeight());
+        first.getWeight().setIndex(5);
+
+        NeuralNetwork<?> copy = SerializationUtils.clone(network);
+
+        assertSame(copy.getLayerAt(2).getNeuronAt(0).getInputConnections().get(0).getWeight(),
+                copy.getLayerAt(2).getNeuronAt(1).getInputConnections().get(0).getWeight());
+        assertArrayEquals(network.getWeights(), copy.getWeights());
+        // indices used by learning rules are not changed by serialization
+        assertEquals(5, first.getWeight().getIndex());
+    }
+
+    @Test
+    public void testDelayedConnections() {
+        NeuralNetwork<?> network = new NeuralNetwork<>();
+        network.addLayer(LayerFactory.createLayer(2, TransferFunctionType.LINEAR));
+        network.addLayer(LayerFactory.createLayer(1, TransferFunctionType.LINEAR));
+        Neuron to = network.getLayerAt(1).getNeuronAt(0);
+        to.addInputConnection(network.getLayerAt(0).getNeuronAt(0), 0.25);
+        to.addInputConnection(new DelayedConnection(network.getLayerAt(0).getNeuronAt(1), to, 0.5, 2));
+
+        NeuralNetwork<?> copy = SerializationUtils.clone(network);
+
+        List<Connection> connections = copy.getLayerAt(1).getNeuronAt(0).getInputConnections();
+        assertEquals(2, connections.size());
+        assertSame(Connection.class, connections.get(0).getClass());
+        assertEquals(0.25, connections.get(0).getWeight().getValue(), 0);
+        assertTrue(connections.get(1) instanceof DelayedConnection);
+        assertEquals(2, ((DelayedConnection) connections.get(1)).getDelay());
+        assertEquals(0.5, connections.get(1).getWeight().getValue(), 0);
+    }
+
+    @Test
+    public void testConnectionSubclass() {
+        NeuralNetwork<?> network = new NeuralNetwork<>();
+        network.addLayer(LayerFactory.createLayer(2, TransferFunctionType.LINEAR));
+        network.addLayer(LayerFactory.createLayer(1, TransferFunctionType.LINEAR));
+        Neuron to = network.getLayerAt(1).getNeuronAt(0);
+        to.addInputConnection(new LabeledConnection(network.getLayerAt(0).getNeuronAt(0), to, 0.75, "first"));
+        to.addInputConnection(network.getLayerAt(0).getNeuronAt(1), 0.25);
+
+        for (NeuralNetwork<?> copy : new NeuralNetwork<?>[]{SerializationUtils.clone(network), network.copy()}) {
+            List<Connection> connections = copy.getLayerAt(1).getNeuronAt(0).getInputConnections();
+            assertEquals(2, connections.size());
+            assertTrue(connections.get(0) instanceof LabeledConnection);
+            assertEquals("first", ((LabeledConnection) connections.get(0)).label);
+            assertSame(copy.getLayerAt(0).getNeuronAt(0), connections.get(0).getFromNeuron());
+            assertTrue(copy.getLayerAt(0).getNeuronAt(0).getOutConnections().contains(connections.get(0)));
+            assertArrayEquals(network.getWeights(), copy.getWeights());
+        }
+    }
+
+    private static class LabeledConnection extends Connection {
+
+        private final String label;
+
+        LabeledConnection(Neuron fromNeuron, Neuron toNeuron, double weight, String label) {
+            super(fromNeuron, toNeuron, weight);
+            this.label = label;
+        }
+    }
+
+    @Test
+    public void testWritingDoesNotChangeNetwork() throws Exception {
+        final MultiLayerPerception network = createNetwork();
+        final List<Integer> counts = connectionsCounts(network);
+        final List<Object> written = new ArrayList<>();
+
+        // checks connections of the network before each object is written
+        ObjectOutputStream out = new ObjectOutputStream(new ByteArrayOutputStream()) {
+            {
+                enableReplaceObject(true);
+            }
+
+            @Override
+            protected Object replaceObject(Object obj) {
+                assertEquals(counts, connectionsCounts(network));
+                written.add(obj);
+                return obj;
+            }
+        };
+        out.writeObject(network);
+        out.close();
+
+        assertFalse(written.isEmpty());
+        assertEquals(counts, connectionsCounts(network));
+    }
+
+    @Test
+    public void testConcurrentCopies() throws Exception {
+        final MultiLayerPerception network = new MultiLayerPerception(TransferFunctionType.TANH, 20, 60, 60, 5);
+        network.randomizeWeights(new WeightsRandomizer(new Random(123)));
+        final Double[] weights = network.getWeights();
+        final List<Integer> counts = connectionsCounts(network);
+        final AtomicInteger copying = new AtomicInteger(4);
+
+        List<Callable<Void>> tasks = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            tasks.add(new Callable<Void>() {
+                @Override
+                public Void call() {
+                    try {
+                        for (int i = 0; i < 20; i++) {
+                            NeuralNetwork<?> copy = network.copy();
+                            assertArrayEquals(weights, copy.getWeights());
+                        }
+                    } finally {
+                        copying.decrementAndGet();
+                    }
+                    return null;
+                }
+            });
+        }
+        // connections of the network which is copied are used by other threads at the same time
+        tasks.add(new Callable<Void>() {
+            @Override
+            public Void call() {
+                while (copying.get() > 0) {
+                    assertEquals(counts, connectionsCounts(network));
+                }
+                return null;
+            }
+        });
+
+        ExecutorService executor = Executors.newFixedThreadPool(tasks.size());
+        try {
+            for (Future<Void> future : executor.invokeAll(tasks)) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(counts, connectionsCounts(network));
+        assertArrayEquals(weights, network.getWeights());
+    }
+
+    private static List<Integer> connectionsCounts(NeuralNetwork<?> network) {
+        List<Integer> counts = new ArrayList<>();
+        for (int l = 0; l < network.getLayersCount(); l++) {
+            for (Neuron neuron : network.getLayerAt(l).getNeurons()) {
+                counts.add(neuron.getWeights().length);
+                counts.add(neuron.getOutConnections().size());
+            }
+        }
+        return counts;
+    }
+
+    @Test
+    public void testDeepNetwork() {
+        List<Integer> neurons = new ArrayList<>();
+        for (int i = 0; i < 3000; i++) {
+            neurons.add(2);
+        }
+        MultiLayerPerception network = new MultiLayerPerception(neurons, TransferFunctionType.LINEAR);
+
+        NeuralNetwork<?> copy = SerializationUtils.clone(network);
+
+        assertEquals(3000, copy.getLayersCount());
+        assertArrayEquals(network.getWeights(), copy.getWeights());
+    }
+
+}
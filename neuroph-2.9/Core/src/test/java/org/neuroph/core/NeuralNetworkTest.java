@@ -15,6 +15,7 @@ import org.junit.Test;
 import org.junit.rules.ExpectedException;
 import org.mockito.Mockito;
 import org.neuroph.core.data.DataSet;
+import org.neuroph.core.data.DataSetRow;
 import org.neuroph.core.events.NeuralNetworkEvent;
 import org.neuroph.core.events.NeuralNetworkEventListener;
 import org.neuroph.core.learning.LearningRule;
@@ -577,4 +578,192 @@ public class NeuralNetworkTest {
         assertEquals(nn.getLabel(), "TestNetLabel");
     }
 
+    @Test
+    public void testCalculateBatch() {
+        org.neuroph.nnet.MultiLayerPerception mlp = new org.neuroph.nnet.MultiLayerPerception(3, 7, 2);
+        mlp.randomizeWeights(new WeightsRandomizer(new Random(123)));
+        double[][] inputs = new double[70][3];
+        Random random = new Random(5);
+        for (double[] input : inputs) {
+            for (int i = 0; i < input.length; i++) {
+                input[i] = random.nextDouble();
+            }
+        }
+
+        double[][] outputs = mlp.calculate(inputs);
+
+        assertEquals(inputs.length, outputs.length);
+        for (int i = 0; i < inputs.length; i++) {
+            mlp.setInput(inputs[i]);
+            mlp.calculate();
+            assertArrayEquals(mlp.getOutput(), outputs[i], 0d);
+        }
+    }
+
+    @Test
+    public void testCalculateBatchUsesCurrentWeights() {
+        org.neuroph.nnet.MultiLayerPerception mlp = new org.neuroph.nnet.MultiLayerPerception(2, 3, 1);
+        double[][] inputs = {{0.2, 0.7}};
+        mlp.calculate(inputs);
+
+        mlp.randomizeWeights(new WeightsRandomizer(new Random(321)));
+        mlp.setInput(inputs[0]);
+        mlp.calculate();
+
+        assertArrayEquals(mlp.getOutput(), mlp.calculate(inputs)[0], 0d);
+    }
+
+    @Test
+    public void testCalculateBatchRefreshesOnlyChangedWeights() {
+        org.neuroph.nnet.MultiLayerPerception mlp = new org.neuroph.nnet.MultiLayerPerception(2, 3, 1);
+        mlp.randomizeWeights(new WeightsRandomizer(new Random(123)));
+        double[][] inputs = {{0.2, 0.7}, {0.9, -0.4}};
+        org.neuroph.core.flat.FlatNetwork flat = mlp.getFlatNetwork();
+        assertCalculateBatch(mlp, inputs);
+
+        // weight changed directly is copied after the network is told about the change
+        Weight weight = mlp.getLayerAt(2).getNeuronAt(0).getInputConnections().get(0).getWeight();
+        double[] before = mlp.calculate(inputs)[0];
+        weight.setValue(weight.getValue() + 1);
+        assertArrayEquals(before, mlp.calculate(inputs)[0], 0d);
+        mlp.weightsChanged();
+        assertCalculateBatch(mlp, inputs);
+
+        double[] weights = mlp.getWeightVector().toArray();
+        weights[0] += 0.5;
+        mlp.setWeights(weights);
+        assertCalculateBatch(mlp, inputs);
+
+        DataSet trainingSet = new DataSet(2, 1);
+        trainingSet.addRow(new DataSetRow(inputs[0], new double[]{1}));
+        mlp.getLearningRule().setMaxIterations(3);
+        mlp.learn(trainingSet);
+        assertCalculateBatch(mlp, inputs);
+        assertSame(flat, mlp.getFlatNetwork());
+    }
+
+    @Test
+    public void testCalculateBatchForRecurrentNetwork() {
+        org.neuroph.nnet.ElmanNetwork elman = new org.neuroph.nnet.ElmanNetwork(2, 3, 4, 1);
+        assertNull(elman.getFlatNetwork());
+
+        double[][] outputs = elman.calculate(new double[][]{{0, 1}, {1, 0}});
+        assertEquals(2, outputs.length);
+        assertEquals(1, outputs[0].length);
+    }
+
+    @Test
+    public void testCalculateBatchAfterConnectionsChanged() {
+        org.neuroph.nnet.MultiLayerPerception mlp = new org.neuroph.nnet.MultiLayerPerception(2, 3, 1);
+        mlp.randomizeWeights(new WeightsRandomizer(new Random(123)));
+        double[][] inputs = {{0.2, 0.7}, {0.9, -0.4}};
+        mlp.calculate(inputs);
+
+        Neuron output = mlp.getLayerAt(2).getNeuronAt(0);
+        output.removeInputConnectionFrom(mlp.getLayerAt(1).getNeuronAt(0));
+        assertCalculateBatch(mlp, inputs);
+
+        mlp.getLayerAt(1).getNeuronAt(1).setTransferFunction(new org.neuroph.core.transfer.Tanh());
+        assertCalculateBatch(mlp, inputs);
+
+        output.getInputConnections().get(0).setWeight(new Weight(0.75));
+        assertCalculateBatch(mlp, inputs);
+
+        mlp.connectInputsToOutputs();
+        assertCalculateBatch(mlp, inputs);
+    }
+
+    private static void assertCalculateBatch(NeuralNetwork<?> network, double[][] inputs) {
+        double[][] outputs = network.calculate(inputs);
+        for (int i = 0; i < inputs.length; i++) {
+            network.setInput(inputs[i]);
+            network.calculate();
+            assertArrayEquals(network.getOutput(), outputs[i], 0d);
+        }
+    }
+
+    @Test
+    public void testCalculateBatchUsesOverriddenCalculate() {
+        final int[] calculated = {0};
+        org.neuroph.nnet.ElmanNetwork elman = new org.neuroph.nnet.ElmanNetwork(2, 3, 4, 1) {
+            @Override
+            public void calculate() {
+                calculated[0]++;
+                super.calculate();
+            }
+        };
+
+        elman.calculate(new double[][]{{0, 1}, {1, 0}, {1, 1}});
+
+        assertEquals(3, calculated[0]);
+    }
+
+    @Test
+    public void testCopy() {
+        org.neuroph.nnet.MultiLayerPerception mlp = new org.neuroph.nnet.MultiLayerPerception(3, 7, 2);
+        mlp.randomizeWeights(new WeightsRandomizer(new Random(123)));
+        mlp.setLabel("copied");
+        Connection first = mlp.getLayerAt(2).getNeuronAt(0).getInputConnections().get(0);
+        mlp.getLayerAt(2).getNeuronAt(1).getInputConnections().get(0).setWeight(first.getWeight());
+
+        NeuralNetwork<?> copy = mlp.copy();
+
+        assertEquals("copied", copy.getLabel());
+        assertArrayEquals(mlp.getWeights(), copy.getWeights());
+        assertSame(copy, copy.getLearningRule().getNeuralNetwork());
+        Weight shared = copy.getLayerAt(2).getNeuronAt(0).getInputConnections().get(0).getWeight();
+        assertSame(shared, copy.getLayerAt(2).getNeuronAt(1).getInputConnections().get(0).getWeight());
+        assertNotSame(first.getWeight(), shared);
+
+        double[] input = {0.3, 0.1, 0.9};
+        mlp.setInput(input);
+        mlp.calculate();
+        copy.setInput(input);
+        copy.calculate();
+        assertArrayEquals(mlp.getOutput(), copy.getOutput(), 0d);
+
+        // weights of the copy are independent
+        copy.randomizeWeights(new WeightsRandomizer(new Random(7)));
+        mlp.calculate();
+        copy.calculate();
+        assertTrue(mlp.getOutput()[0] != copy.getOutput()[0]);
+    }
+
+    @Test
+    public void testCopyWeightsFrom() {
+        org.neuroph.nnet.MultiLayerPerception mlp = new org.neuroph.nnet.MultiLayerPerception(3, 7, 2);
+        NeuralNetwork<?> copy = mlp.copy();
+        mlp.randomizeWeights(new WeightsRandomizer(new Random(123)));
+
+        copy.copyWeightsFrom(mlp);
+
+        assertArrayEquals(mlp.getWeights(), copy.getWeights());
+    }
+
+    @Test
+    public void testCopyWeightsFromConvolutionalNetwork() {
+        org.neuroph.nnet.ConvolutionalNetwork network = new org.neuroph.nnet.ConvolutionalNetwork.Builder()
+                .withInputLayer(6, 5, 2)
+                .withConvolutionLayer(3, 2, 3)
+                .withPoolingLayer(2, 2)
+                .withFullConnectedLayer(1)
+                .build();
+        NeuralNetwork<?> copy = network.copy();
+        network.randomizeWeights(new WeightsRandomizer(new Random(123)));
+
+        copy.copyWeightsFrom(network);
+
+        assertArrayEquals(network.getWeightVector().toArray(), copy.getWeightVector().toArray(), 0);
+        org.neuroph.nnet.comp.layer.TensorConvolutionalLayer convolution =
+                (org.neuroph.nnet.comp.layer.TensorConvolutionalLayer) copy.getLayerAt(1);
+        assertArrayEquals(((org.neuroph.nnet.comp.layer.TensorConvolutionalLayer) network.getLayerAt(1)).getWeights(),
+                convolution.getWeights(), 0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testCopyWeightsFromDifferentNetwork() {
+        org.neuroph.nnet.MultiLayerPerception mlp = new org.neuroph.nnet.MultiLayerPerception(3, 7, 2);
+        mlp.copyWeightsFrom(new org.neuroph.nnet.MultiLayerPerception(3, 6, 2));
+    }
+
 }
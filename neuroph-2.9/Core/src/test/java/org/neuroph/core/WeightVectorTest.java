@@ -0,0 +1,135 @@
+package org.neuroph.core;
+
+import static org.junit.Assert.*;
+
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.neuroph.core.exceptions.VectorSizeMismatchException;
+import org.neuroph.core.flat.FlatNetwork;
+import org.neuroph.nnet.ConvolutionalNetwork;
+import org.neuroph.nnet.MultiLayerPerception;
+import org.neuroph.nnet.comp.layer.TensorConvolutionalLayer;
+import org.neuroph.util.NeuralNetworkCODEC;
+import org.neuroph.util.TransferFunctionType;
+import org.neuroph.util.random.WeightsRandomizer;
+
+public class WeightVectorTest {
+
+    MultiLayerPerception network;
+
+    @Before
+    public void setUp() {
+        network = new MultiLayerPerception(TransferFunctionType.SIGMOID, 3, 4, 2);
+        network.randomizeWeights(new WeightsRandomizer(new Random(123)));
+    }
+
+    private static double[] toPrimitive(Double[] weights) {
+        double[] result = new double[weights.length];
+        for (int i = 0; i < weights.length; i++) {
+            result[i] = weights[i];
+        }
+        return result;
+    }
+
+    @Test
+    public void testCanonicalOrder() {
+        WeightVector vector = network.getWeightVector();
+        double[] expected = toPrimitive(network.getWeights());
+
+        assertEquals(network.getWeightsCount(), vector.size());
+        assertArrayEquals(expected, vector.toArray(), 0);
+
+        double[] weights = new double[network.getWeightsCount()];
+        network.getWeights(weights);
+        assertArrayEquals(expected, weights, 0);
+
+        double[] codec = new double[NeuralNetworkCODEC.determineArraySize(network)];
+        NeuralNetworkCODEC.network2array(network, codec);
+        assertArrayEquals(expected, codec, 0);
+
+        double[] flat = new double[vector.size()];
+        FlatNetwork.compile(network).getWeights(flat);
+        assertArrayEquals(expected, flat, 0);
+
+        // first weight of the first hidden neuron
+        assertSame(network.getLayerAt(1).getNeuronAt(0).getInputConnections().get(0).getWeight(), vector.getWeight(0));
+    }
+
+    @Test
+    public void testSetIsLive() {
+        WeightVector vector = network.getWeightVector();
+        double[] values = new double[vector.size() + 2];
+        for (int i = 0; i < vector.size(); i++) {
+            values[i + 2] = i * 0.1;
+        }
+        vector.set(values, 2);
+        assertEquals(0.1, network.getLayerAt(1).getNeuronAt(0).getInputConnections().get(1).getWeight().getValue(), 0);
+
+        vector.set(3, 7);
+        assertEquals(7, network.getWeights()[3], 0);
+        assertEquals(7, vector.get(3), 0);
+
+        double[] copy = new double[vector.size() + 2];
+        vector.get(copy, 2);
+        assertEquals(7, copy[5], 0);
+    }
+
+    private static ConvolutionalNetwork convolutionalNetwork() {
+        return new ConvolutionalNetwork.Builder()
+                .withInputLayer(6, 5, 2)
+                .withConvolutionLayer(3, 2, 3)
+                .withPoolingLayer(2, 2)
+                .withFullConnectedLayer(1)
+                .build();
+    }
+
+    @Test
+    public void testTensorLayerParameters() {
+        ConvolutionalNetwork convolutional = convolutionalNetwork();
+        TensorConvolutionalLayer layer = (TensorConvolutionalLayer) convolutional.getLayerAt(1);
+        WeightVector vector = convolutional.getWeightVector();
+        int connections = convolutional.getLayerAt(3).getNeuronAt(0).getInputConnections().size();
+
+        // kernels and biases follow connection weights
+        assertEquals(connections + layer.getWeights().length + layer.getBiases().length, vector.size());
+        assertEquals(vector.size(), convolutional.getWeightsCount());
+        assertEquals(layer.getWeights()[1], vector.get(connections + 1), 0);
+
+        double[] values = vector.toArray();
+        values[connections + layer.getWeights().length] = 0.5;
+        vector.set(values);
+        assertEquals(0.5, layer.getBiases()[0], 0);
+
+        vector.set(connections, -0.25);
+        assertEquals(-0.25, layer.getWeights()[0], 0);
+    }
+
+    @Test
+    public void testConvolutionalNetworkRoundTrip() {
+        ConvolutionalNetwork convolutional = convolutionalNetwork();
+        ConvolutionalNetwork other = convolutionalNetwork();
+        double[] weights = toPrimitive(convolutional.getWeights());
+        assertEquals(convolutional.getWeightsCount(), weights.length);
+
+        other.setWeights(weights);
+        assertArrayEquals(weights, other.getWeightVector().toArray(), 0);
+        assertArrayEquals(((TensorConvolutionalLayer) convolutional.getLayerAt(1)).getWeights(),
+                ((TensorConvolutionalLayer) other.getLayerAt(1)).getWeights(), 0);
+
+        double[] encoded = new double[NeuralNetworkCODEC.determineArraySize(convolutional)];
+        NeuralNetworkCODEC.network2array(convolutional, encoded);
+        assertArrayEquals(weights, encoded, 0);
+        double[] copied = new double[convolutional.getWeightsCount()];
+        other.getWeights(copied);
+        assertArrayEquals(weights, copied, 0);
+    }
+
+    @Test(expected = VectorSizeMismatchException.class)
+    public void testWrongSize() {
+        WeightVector vector = network.getWeightVector();
+        vector.set(new double[vector.size() - 1]);
+    }
+
+}
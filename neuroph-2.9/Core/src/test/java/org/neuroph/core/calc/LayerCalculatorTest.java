@@ -0,0 +1,72 @@
+package org.neuroph.core.calc;
+
+import static org.junit.Assert.*;
+
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.neuroph.nnet.Hopfield;
+import org.neuroph.nnet.MultiLayerPerception;
+import org.neuroph.nnet.comp.layer.CompetitiveLayer;
+import org.neuroph.util.NeuronProperties;
+import org.neuroph.util.TransferFunctionType;
+import org.neuroph.util.random.WeightsRandomizer;
+
+/**
+ * @author Zoran Sevarac <sevarac@gmail.com>
+ */
+public class LayerCalculatorTest {
+
+    MultiLayerPerception network;
+    double[] input;
+
+    @Before
+    public void setUp() {
+        network = new MultiLayerPerception(TransferFunctionType.SIGMOID, 10, 300, 5);
+        network.randomizeWeights(new WeightsRandomizer(new Random(123)));
+        input = new double[10];
+        Random random = new Random(3);
+        for (int i = 0; i < input.length; i++) {
+            input[i] = random.nextDouble();
+        }
+    }
+
+    private double[] calculate(LayerCalculator calculator) {
+        network.setCalculator(calculator);
+        network.setInput(input);
+        network.calculate();
+        return network.getOutput().clone();
+    }
+
+    @Test
+    public void testParallelCalculatorGivesSameOutput() {
+        double[] expected = calculate(new SequentialCalculator());
+        assertArrayEquals(expected, calculate(new ParallelCalculator(16)), 0d);
+    }
+
+    @Test
+    public void testAdaptiveCalculatorGivesSameOutput() {
+        double[] expected = calculate(new SequentialCalculator());
+        AdaptiveCalculator calculator = new AdaptiveCalculator(1000, new ParallelCalculator(16));
+
+        assertTrue(calculator.isParallel(network.getLayerAt(1)));
+        assertFalse(calculator.isParallel(network.getLayerAt(0)));
+        assertArrayEquals(expected, calculate(calculator), 0d);
+    }
+
+    @Test
+    public void testDependentLayersAreNotPartitioned() {
+        ParallelCalculator calculator = new ParallelCalculator(1);
+
+        assertTrue(calculator.isPartitionable(network.getLayerAt(1)));
+        assertFalse(calculator.isPartitionable(new Hopfield(5).getLayerAt(0)));
+        assertFalse(calculator.isPartitionable(new CompetitiveLayer(5, new NeuronProperties())));
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void testCalculatorCantBeNull() {
+        network.setCalculator(null);
+    }
+
+}
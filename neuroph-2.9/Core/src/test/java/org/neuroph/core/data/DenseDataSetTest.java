@@ -0,0 +1,144 @@
+package org.neuroph.core.data;
+
+import static org.junit.Assert.*;
+
+import java.util.Iterator;
+import java.util.Random;
+
+import org.apache.commons.lang3.SerializationUtils;
+import org.junit.Before;
+import org.junit.Test;
+import org.neuroph.core.exceptions.VectorSizeMismatchException;
+import org.neuroph.nnet.MultiLayerPerception;
+import org.neuroph.util.TransferFunctionType;
+import org.neuroph.util.data.norm.MaxNormalizer;
+import org.neuroph.util.random.WeightsRandomizer;
+
+public class DenseDataSetTest {
+
+    DataSet dataSet;
+
+    @Before
+    public void setUp() {
+        dataSet = new DataSet(2, 1);
+        dataSet.addRow(new double[]{0, 0}, new double[]{0});
+        dataSet.addRow(new double[]{0, 1}, new double[]{1});
+        dataSet.addRow(new double[]{1, 0}, new double[]{1});
+        dataSet.addRow(new double[]{1, 1}, new double[]{0});
+    }
+
+    private static void assertSameRows(DataSet expected, DataSet actual, double delta) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertArrayEquals(expected.getRowAt(i).getInput(), actual.getRowAt(i).getInput(), delta);
+            assertArrayEquals(expected.getRowAt(i).getDesiredOutput(), actual.getRowAt(i).getDesiredOutput(), delta);
+        }
+    }
+
+    @Test
+    public void testRows() {
+        DenseDataSet dense = DenseDataSet.copyOf(dataSet, DenseDataSet.Precision.DOUBLE);
+        assertSameRows(dataSet, dense, 0);
+        assertEquals(1, dense.getValue(2, 0), 0);
+        assertEquals(1, dense.getValue(2, 2), 0);
+
+        // rows from getRowAt have their own values
+        DataSetRow first = dense.getRowAt(0);
+        DataSetRow second = dense.getRowAt(1);
+        assertNotSame(first.getInput(), second.getInput());
+
+        // iterator reuses one row
+        Iterator<DataSetRow> iterator = dense.iterator();
+        DataSetRow row = iterator.next();
+        assertSame(row, iterator.next());
+        assertArrayEquals(new double[]{0, 1}, row.getInput(), 0);
+
+        dense.remove(0);
+        dense.add(3, new DataSetRow(new double[]{0.5, 0.5}, new double[]{0.25}));
+        assertEquals(4, dense.size());
+        assertArrayEquals(new double[]{0, 1}, dense.getRowAt(0).getInput(), 0);
+        assertArrayEquals(new double[]{0.25}, dense.getRowAt(3).getDesiredOutput(), 0);
+    }
+
+    @Test
+    public void testFloatPrecision() {
+        DenseDataSet dense = new DenseDataSet(2, 1, DenseDataSet.Precision.FLOAT);
+        dense.addRow(new double[]{0.1, 1e10}, new double[]{1});
+        assertEquals(DenseDataSet.Precision.FLOAT, dense.getPrecision());
+        assertEquals((float) 0.1, dense.getRowAt(0).getInput()[0], 0);
+        assertEquals(1e10, dense.getRowAt(0).getInput()[1], 1e3);
+    }
+
+    @Test(expected = VectorSizeMismatchException.class)
+    public void testWrongInputSize() {
+        new DenseDataSet(2, 1).addRow(new double[]{1}, new double[]{1});
+    }
+
+    @Test
+    public void testNormalizerChangesValues() {
+        DenseDataSet dense = DenseDataSet.copyOf(dataSet, DenseDataSet.Precision.DOUBLE);
+        dense.setValue(3, 0, 4);
+        new MaxNormalizer().normalize(dense);
+        assertEquals(0.25, dense.getValue(2, 0), 0);
+        assertEquals(1, dense.getValue(3, 0), 0);
+    }
+
+    @Test
+    public void testLearningMatchesDataSet() {
+        MultiLayerPerception network = new MultiLayerPerception(TransferFunctionType.SIGMOID, 2, 3, 1);
+        network.randomizeWeights(new WeightsRandomizer(new Random(123)));
+        MultiLayerPerception copy = (MultiLayerPerception) network.copy();
+        network.getLearningRule().setMaxIterations(100);
+        copy.getLearningRule().setMaxIterations(100);
+
+        network.learn(dataSet);
+        copy.learn(DenseDataSet.copyOf(dataSet, DenseDataSet.Precision.DOUBLE));
+
+        assertArrayEquals(network.getWeights(), copy.getWeights());
+    }
+
+    @Test
+    public void testShuffledLearningMatchesDataSet() {
+        MultiLayerPerception network = new MultiLayerPerception(TransferFunctionType.SIGMOID, 2, 3, 1);
+        network.randomizeWeights(new WeightsRandomizer(new Random(123)));
+        MultiLayerPerception copy = (MultiLayerPerception) network.copy();
+        for (MultiLayerPerception mlp : new MultiLayerPerception[]{network, copy}) {
+            mlp.getLearningRule().setShuffle(true);
+            mlp.getLearningRule().setRandom(new Random(7));
+            mlp.getLearningRule().setMaxIterations(100);
+        }
+
+        network.learn(dataSet);
+        copy.learn(DenseDataSet.copyOf(dataSet, DenseDataSet.Precision.DOUBLE));
+
+        assertArrayEquals(network.getWeights(), copy.getWeights());
+    }
+
+    @Test
+    public void testIndexedAccessors() {
+        DenseDataSet dense = DenseDataSet.copyOf(dataSet, DenseDataSet.Precision.DOUBLE);
+        double[] input = new double[2];
+        double[] output = new double[1];
+        for (DataSet data : new DataSet[]{dataSet, dense}) {
+            data.getInput(1, input);
+            data.getDesiredOutput(1, output);
+            assertArrayEquals(new double[]{0, 1}, input, 0);
+            assertArrayEquals(new double[]{1}, output, 0);
+        }
+    }
+
+    @Test
+    public void testSerializationAndShuffle() {
+        DenseDataSet dense = DenseDataSet.copyOf(dataSet, DenseDataSet.Precision.FLOAT);
+        DenseDataSet copy = SerializationUtils.clone(dense);
+        assertSameRows(dense, copy, 0);
+
+        copy.shuffle();
+        double sum = 0;
+        for (DataSetRow row : copy) {
+            sum += row.getInput()[0] * 2 + row.getInput()[1] + row.getDesiredOutput()[0] * 4;
+        }
+        assertEquals(0 + 5 + 6 + 3, sum, 0);
+    }
+
+}
@@ -0,0 +1,265 @@
+package org.neuroph.core.flat;
+
+import static org.junit.Assert.*;
+
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.neuroph.core.Layer;
+import org.neuroph.core.NeuralNetwork;
+import org.neuroph.core.Neuron;
+import org.neuroph.core.data.DataSet;
+import org.neuroph.core.data.DataSetRow;
+import org.neuroph.core.exceptions.NeurophException;
+import org.neuroph.core.input.WeightedSum;
+import org.neuroph.core.transfer.Linear;
+import org.neuroph.core.transfer.Sigmoid;
+import org.neuroph.nnet.ElmanNetwork;
+import org.neuroph.nnet.MultiLayerPerception;
+import org.neuroph.util.ConnectionFactory;
+import org.neuroph.util.NeuronProperties;
+import org.neuroph.util.TransferFunctionType;
+import org.neuroph.util.random.WeightsRandomizer;
+
+/**
+ * @author Zoran Sevarac <sevarac@gmail.com>
+ */
+public class FlatNetworkTest {
+
+    DataSet dataSet;
+
+    @Before
+    public void setUp() {
+        Random random = new Random(7);
+        dataSet = new DataSet(4, 3);
+        for (int i = 0; i < 50; i++) {
+            double[] input = new double[4];
+            for (int j = 0; j < input.length; j++) {
+                input[j] = random.nextDouble() * 2 - 1;
+            }
+            dataSet.addRow(new DataSetRow(input, new double[]{input[0] > 0 ? 1 : 0, input[1] > 0 ? 1 : 0, 0.5}));
+        }
+    }
+
+    private static void assertSameOutput(NeuralNetwork<?> network, FlatNetwork flat, DataSet dataSet) {
+        for (DataSetRow row : dataSet) {
+            network.setInput(row.getInput());
+            network.calculate();
+            assertArrayEquals(network.getOutput(), flat.calculate(row.getInput()), 0d);
+        }
+    }
+
+    @Test
+    public void testSetWeights() {
+        MultiLayerPerception network = new MultiLayerPerception(TransferFunctionType.SIGMOID, 4, 8, 3);
+        network.randomizeWeights(new WeightsRandomizer(new Random(123)));
+        FlatNetwork flat = FlatNetwork.compile(network);
+        MultiLayerPerception other = new MultiLayerPerception(TransferFunctionType.SIGMOID, 4, 8, 3);
+        other.randomizeWeights(new WeightsRandomizer(new Random(5)));
+
+        flat.setWeights(other.getWeightVector().toArray());
+        assertSameOutput(other, flat, dataSet);
+
+        flat.flush();
+        assertArrayEquals(other.getWeights(), network.getWeights());
+    }
+
+    @Test
+    public void testSigmoidOutputIsBitIdentical() {
+        MultiLayerPerception network = new MultiLayerPerception(TransferFunctionType.SIGMOID, 4, 8, 5, 3);
+        network.randomizeWeights(new WeightsRandomizer(new Random(123)));
+
+        FlatNetwork flat = FlatNetwork.compile(network);
+
+        assertEquals(4, flat.getInputsCount());
+        assertEquals(3, flat.getOutputsCount());
+        assertEquals(3, flat.getLayersCount());
+        assertEquals(network.getWeights().length, flat.getWeightsCount());
+        assertSameOutput(network, flat, dataSet);
+    }
+
+    @Test
+    public void testTanhOutputIsBitIdentical() {
+        MultiLayerPerception network = new MultiLayerPerception(TransferFunctionType.TANH, 4, 6, 3);
+        network.randomizeWeights(new WeightsRandomizer(new Random(123)));
+
+        assertSameOutput(network, FlatNetwork.compile(network), dataSet);
+    }
+
+    @Test
+    public void testFastMathOutputIsBitIdentical() {
+        MultiLayerPerception network = new MultiLayerPerception(TransferFunctionType.FAST_SIGMOID, 4, 6, 3);
+        network.randomizeWeights(new WeightsRandomizer(new Random(123)));
+        assertSameOutput(network, FlatNetwork.compile(network), dataSet);
+
+        network = new MultiLayerPerception(TransferFunctionType.FAST_TANH, 4, 6, 3);
+        network.randomizeWeights(new WeightsRandomizer(new Random(123)));
+        assertSameOutput(network, FlatNetwork.compile(network), dataSet);
+    }
+
+    private static MultiLayerPerception createPartiallyConnectedNetwork() {
+        MultiLayerPerception network = new MultiLayerPerception(TransferFunctionType.SIGMOID, 4, 8, 5, 3);
+        network.randomizeWeights(new WeightsRandomizer(new Random(123)));
+        for (int i = 0; i < 8; i++) {
+            network.getLayerAt(1).getNeuronAt(i).removeInputConnectionFrom(network.getLayerAt(0).getNeuronAt(i % 4));
+        }
+        Neuron disconnected = network.getLayerAt(2).getNeuronAt(0);
+        for (Neuron neuron : network.getLayerAt(1).getNeurons()) {
+            disconnected.removeInputConnectionFrom(neuron);
+        }
+        return network;
+    }
+
+    @Test
+    public void testSparseLayerOutputIsBitIdentical() {
+        MultiLayerPerception network = createPartiallyConnectedNetwork();
+        FlatNetwork flat = FlatNetwork.compile(network);
+
+        assertTrue(flat.isSparseLayer(0));
+        assertTrue(flat.isSparseLayer(1));
+        assertFalse(flat.isSparseLayer(2));
+        assertEquals(network.getWeights().length, flat.getWeightsCount());
+        assertSameOutput(network, flat, dataSet);
+
+        double[][] inputs = new double[dataSet.size()][];
+        for (int i = 0; i < inputs.length; i++) {
+            inputs[i] = dataSet.getRowAt(i).getInput();
+        }
+        double[][] outputs = flat.createSession().calculate(inputs);
+        for (int i = 0; i < inputs.length; i++) {
+            assertArrayEquals(flat.calculate(inputs[i]), outputs[i], 0d);
+        }
+    }
+
+    @Test
+    public void testSparseLayerTrainingMatchesObjectGraph() {
+        MultiLayerPerception sequential = createPartiallyConnectedNetwork();
+        sequential.getLearningRule().setBatchMode(true);
+        sequential.getLearningRule().setMaxIterations(10);
+        sequential.learn(dataSet);
+
+        MultiLayerPerception parallel = createPartiallyConnectedNetwork();
+        parallel.getLearningRule().setBatchMode(true);
+        parallel.getLearningRule().setThreadCount(4);
+        parallel.getLearningRule().setMaxIterations(10);
+        parallel.learn(dataSet);
+
+        Double[] expected = sequential.getWeights();
+        Double[] weights = parallel.getWeights();
+        for (int i = 0; i < weights.length; i++) {
+            assertEquals(expected[i], weights[i], 1e-9);
+        }
+    }
+
+    @Test
+    public void testInputsConnectedToOutputs() {
+        MultiLayerPerception network = new MultiLayerPerception(TransferFunctionType.SIGMOID, 4, 6, 3);
+        network.connectInputsToOutputs();
+        network.randomizeWeights(new WeightsRandomizer(new Random(123)));
+
+        FlatNetwork flat = FlatNetwork.compile(network);
+
+        assertEquals(network.getWeights().length, flat.getWeightsCount());
+        assertSameOutput(network, flat, dataSet);
+    }
+
+    @Test
+    public void testRefreshAfterTraining() {
+        MultiLayerPerception network = new MultiLayerPerception(TransferFunctionType.SIGMOID, 4, 6, 3);
+        network.randomizeWeights(new WeightsRandomizer(new Random(123)));
+        FlatNetwork flat = FlatNetwork.compile(network);
+
+        network.getLearningRule().setMaxIterations(20);
+        network.learn(dataSet);
+
+        network.setInput(dataSet.getRowAt(0).getInput());
+        network.calculate();
+        assertFalse(java.util.Arrays.equals(network.getOutput(), flat.calculate(dataSet.getRowAt(0).getInput())));
+
+        flat.refresh();
+        assertSameOutput(network, flat, dataSet);
+    }
+
+    @Test
+    public void testBatchOutputIsBitIdentical() {
+        MultiLayerPerception network = new MultiLayerPerception(TransferFunctionType.SIGMOID, 4, 8, 3);
+        network.connectInputsToOutputs();
+        network.randomizeWeights(new WeightsRandomizer(new Random(123)));
+        FlatNetwork flat = FlatNetwork.compile(network);
+
+        double[][] inputs = new double[dataSet.size()][];
+        for (int i = 0; i < inputs.length; i++) {
+            inputs[i] = dataSet.getRowAt(i).getInput();
+        }
+        double[][] outputs = flat.createSession().calculate(inputs);
+
+        for (int i = 0; i < inputs.length; i++) {
+            assertArrayEquals(flat.calculate(inputs[i]), outputs[i], 0d);
+        }
+    }
+
+    /**
+     * Input neuron which does not extend input neuron class of the library
+     */
+    static class CustomInputNeuron extends Neuron {
+        CustomInputNeuron() {
+            super(new WeightedSum(), new Linear());
+        }
+
+        @Override
+        public void calculate() {
+            output = totalInput;
+        }
+
+        @Override
+        public boolean isInput() {
+            return true;
+        }
+    }
+
+    /**
+     * Bias neuron which does not extend bias neuron class of the library
+     */
+    static class CustomBiasNeuron extends Neuron {
+        @Override
+        public void calculate() {
+            output = 1;
+        }
+
+        @Override
+        public boolean isBias() {
+            return true;
+        }
+    }
+
+    @Test
+    public void testCustomInputAndBiasNeurons() {
+        Layer inputLayer = new Layer();
+        inputLayer.addNeuron(new CustomInputNeuron());
+        inputLayer.addNeuron(new CustomInputNeuron());
+        inputLayer.addNeuron(new CustomBiasNeuron());
+        Layer outputLayer = new Layer(3, new NeuronProperties(Neuron.class, Sigmoid.class));
+        ConnectionFactory.fullConnect(inputLayer, outputLayer);
+        NeuralNetwork<?> network = new NeuralNetwork<>();
+        network.addLayer(inputLayer);
+        network.addLayer(outputLayer);
+        network.setInputNeurons(inputLayer.getNeurons().subList(0, 2));
+        network.setOutputNeurons(outputLayer.getNeurons());
+        network.randomizeWeights(new WeightsRandomizer(new Random(3)));
+
+        FlatNetwork flat = FlatNetwork.compile(network);
+        for (DataSetRow row : dataSet) {
+            double[] input = {row.getInput()[0], row.getInput()[1]};
+            network.setInput(input);
+            network.calculate();
+            assertArrayEquals(network.getOutput(), flat.calculate(input), 0d);
+        }
+    }
+
+    @Test(expected = NeurophException.class)
+    public void testRecurrentNetworkIsNotSupported() {
+        FlatNetwork.compile(new ElmanNetwork(4, 5, 6, 3));
+    }
+
+}
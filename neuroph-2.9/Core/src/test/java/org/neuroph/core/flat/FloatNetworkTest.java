@@ -0,0 +1,127 @@
+package org.neuroph.core.flat;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.neuroph.core.data.DataSet;
+import org.neuroph.core.data.DataSetRow;
+import org.neuroph.nnet.MultiLayerPerception;
+import org.neuroph.util.TransferFunctionType;
+import org.neuroph.util.random.WeightsRandomizer;
+
+public class FloatNetworkTest {
+
+    DataSet dataSet;
+    MultiLayerPerception network;
+
+    @Before
+    public void setUp() {
+        Random random = new Random(7);
+        dataSet = new DataSet(4, 3);
+        for (int i = 0; i < 50; i++) {
+            double[] input = new double[4];
+            for (int j = 0; j < input.length; j++) {
+                input[j] = random.nextDouble() * 2 - 1;
+            }
+            dataSet.addRow(new DataSetRow(input, new double[]{input[0] > 0 ? 1 : 0, input[1] > 0 ? 1 : 0, 0.5}));
+        }
+        network = new MultiLayerPerception(TransferFunctionType.TANH, 4, 8, 5, 3);
+        network.connectInputsToOutputs();
+        network.randomizeWeights(new WeightsRandomizer(new Random(123)));
+    }
+
+    private static float[] toFloat(double[] vector) {
+        float[] result = new float[vector.length];
+        for (int i = 0; i < vector.length; i++) {
+            result[i] = (float) vector[i];
+        }
+        return result;
+    }
+
+    private void assertCloseOutput(FloatNetwork floatNetwork) {
+        FloatInferenceSession session = floatNetwork.createSession();
+        double[] result = new double[3];
+        for (DataSetRow row : dataSet) {
+            network.setInput(row.getInput());
+            network.calculate();
+            double[] expected = network.getOutput();
+            float[] output = session.calculate(toFloat(row.getInput()));
+            session.calculate(row.getInput(), result);
+            for (int i = 0; i < expected.length; i++) {
+                assertEquals(expected[i], output[i], 1e-5);
+                assertEquals(output[i], result[i], 0d);
+            }
+        }
+    }
+
+    @Test
+    public void testOutputMatchesDoubleNetwork() {
+        FloatNetwork floatNetwork = FloatNetwork.compile(network);
+
+        assertEquals(4, floatNetwork.getInputsCount());
+        assertEquals(3, floatNetwork.getOutputsCount());
+        assertEquals(3, floatNetwork.getLayersCount());
+        assertEquals(network.getWeights().length, floatNetwork.getWeightsCount());
+        assertCloseOutput(floatNetwork);
+    }
+
+    @Test
+    public void testBatchOutputMatchesSingleOutput() {
+        FloatNetwork floatNetwork = FloatNetwork.compile(network);
+        float[][] inputs = new float[dataSet.size()][];
+        for (int i = 0; i < inputs.length; i++) {
+            inputs[i] = toFloat(dataSet.getRowAt(i).getInput());
+        }
+        float[][] outputs = floatNetwork.createSession().calculate(inputs);
+
+        for (int i = 0; i < inputs.length; i++) {
+            assertArrayEquals(floatNetwork.calculate(inputs[i]), outputs[i], 0f);
+        }
+    }
+
+    @Test
+    public void testRefreshAndFlush() {
+        FloatNetwork floatNetwork = FlatNetwork.compile(network).toFloat();
+        network.getLearningRule().setMaxIterations(20);
+        network.learn(dataSet);
+
+        floatNetwork.refresh();
+        assertCloseOutput(floatNetwork);
+
+        floatNetwork.flush();
+        for (Double weight : network.getWeights()) {
+            assertEquals(weight.floatValue(), weight, 0d);
+        }
+    }
+
+    @Test
+    public void testDeserializedNetworkIsDetached() throws Exception {
+        FloatNetwork floatNetwork = FloatNetwork.compile(network);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(floatNetwork);
+        }
+        FloatNetwork copy;
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            copy = (FloatNetwork) in.readObject();
+        }
+
+        assertTrue(floatNetwork.isAttached());
+        assertFalse(copy.isAttached());
+        assertCloseOutput(copy);
+        try {
+            copy.refresh();
+            fail("IllegalStateException expected");
+        } catch (IllegalStateException ex) {
+            // expected
+        }
+    }
+
+}
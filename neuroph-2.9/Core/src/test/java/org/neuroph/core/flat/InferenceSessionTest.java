@@ -0,0 +1,90 @@
+package org.neuroph.core.flat;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.neuroph.nnet.MultiLayerPerception;
+import org.neuroph.util.TransferFunctionType;
+import org.neuroph.util.random.WeightsRandomizer;
+
+/**
+ * @author Zoran Sevarac <sevarac@gmail.com>
+ */
+public class InferenceSessionTest {
+
+    MultiLayerPerception network;
+    double[][] inputs;
+
+    @Before
+    public void setUp() {
+        network = new MultiLayerPerception(TransferFunctionType.SIGMOID, 5, 10, 4);
+        network.randomizeWeights(new WeightsRandomizer(new Random(123)));
+
+        Random random = new Random(1);
+        inputs = new double[200][5];
+        for (double[] input : inputs) {
+            for (int j = 0; j < input.length; j++) {
+                input[j] = random.nextDouble();
+            }
+        }
+    }
+
+    @Test
+    public void testSessionOutputEqualsNetworkOutput() {
+        InferenceSession session = FlatNetwork.compile(network).createSession();
+
+        for (double[] input : inputs) {
+            network.setInput(input);
+            network.calculate();
+            assertArrayEquals(network.getOutput(), session.calculate(input), 0d);
+            assertSame(session.getOutput(), session.calculate(input));
+        }
+    }
+
+    @Test
+    public void testConcurrentSessions() throws Exception {
+        final FlatNetwork flat = FlatNetwork.compile(network);
+        final double[][] expected = new double[inputs.length][];
+        for (int i = 0; i < inputs.length; i++) {
+            expected[i] = flat.calculate(inputs[i]);
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                results.add(executor.submit(new Callable<Boolean>() {
+                    @Override
+                    public Boolean call() {
+                        InferenceSession session = flat.createSession();
+                        double[] output = new double[flat.getOutputsCount()];
+                        for (int repeat = 0; repeat < 50; repeat++) {
+                            for (int i = 0; i < inputs.length; i++) {
+                                session.calculate(inputs[i], output);
+                                if (!java.util.Arrays.equals(expected[i], output)) {
+                                    return false;
+                                }
+                            }
+                        }
+                        return true;
+                    }
+                }));
+            }
+            for (Future<Boolean> result : results) {
+                assertTrue(result.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+}
@@ -0,0 +1,113 @@
+package org.neuroph.core.flat;
+
+import static org.junit.Assert.*;
+
+import java.util.Random;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.neuroph.core.Weight;
+import org.neuroph.core.data.DataSet;
+import org.neuroph.core.exceptions.NeurophException;
+import org.neuroph.eval.QuantizationReport;
+import org.neuroph.nnet.ConvolutionalNetwork;
+import org.neuroph.nnet.MultiLayerPerception;
+import org.neuroph.nnet.learning.MomentumBackpropagation;
+import org.neuroph.util.TransferFunctionType;
+import org.neuroph.util.random.WeightsRandomizer;
+
+public class QuantizedNetworkTest {
+
+    static DataSet irisDataSet;
+    static MultiLayerPerception network;
+
+    @BeforeClass
+    public static void setUpClass() {
+        irisDataSet = DataSet.createFromFile("src/test/resources/iris_normalized.txt", 4, 3, ",", false);
+        network = new MultiLayerPerception(TransferFunctionType.SIGMOID, 4, 16, 3);
+        network.randomizeWeights(new WeightsRandomizer(new Random(123)));
+        MomentumBackpropagation rule = new MomentumBackpropagation();
+        rule.setLearningRate(0.2);
+        rule.setMaxIterations(300);
+        network.setLearningRule(rule);
+        network.learn(irisDataSet);
+    }
+
+    @Test
+    public void testOutputIsCloseToDoubleNetwork() {
+        QuantizedNetwork quantized = QuantizedNetwork.quantize(network, irisDataSet);
+        QuantizedInferenceSession session = quantized.createSession();
+
+        assertEquals(QuantizedNetwork.Granularity.PER_NEURON, quantized.getGranularity());
+        assertEquals(network.getWeights().length, quantized.getWeightsCount());
+        for (int r = 0; r < irisDataSet.size(); r++) {
+            double[] input = irisDataSet.getRowAt(r).getInput();
+            network.setInput(input);
+            network.calculate();
+            double[] output = session.calculate(input);
+            assertArrayEquals(quantized.calculate(input), output, 0d);
+            assertArrayEquals(network.getOutput(), output, 0.05);
+        }
+    }
+
+    @Test
+    public void testDequantizedWeightsWithinHalfStep() {
+        FlatNetwork flat = FlatNetwork.compile(network);
+        Weight[] weights = flat.getSourceWeights();
+        for (QuantizedNetwork.Granularity granularity : QuantizedNetwork.Granularity.values()) {
+            QuantizedNetwork quantized = flat.quantize(irisDataSet, granularity);
+            int offset = 0;
+            for (int l = 0; l < quantized.getLayersCount(); l++) {
+                double min = 0;
+                double max = 0;
+                double[] dequantized = quantized.getWeights(l);
+                for (int i = 0; i < dequantized.length; i++) {
+                    min = Math.min(min, weights[offset + i].value);
+                    max = Math.max(max, weights[offset + i].value);
+                }
+                double step = (max - min) / 255;
+                for (int i = 0; i < dequantized.length; i++) {
+                    assertEquals(granularity.toString(), weights[offset + i].value, dequantized[i], step / 2 + 1e-12);
+                }
+                offset += dequantized.length;
+            }
+        }
+    }
+
+    @Test
+    public void testReportAccuracyDelta() {
+        QuantizationReport report = QuantizationReport.create(network, QuantizedNetwork.quantize(network, irisDataSet,
+                QuantizedNetwork.Granularity.PER_LAYER), irisDataSet);
+
+        assertTrue(report.toString(), report.getOriginalAccuracy() > 0.9);
+        assertEquals(report.toString(), 0d, report.getAccuracyDelta(), 0.03);
+        assertEquals(report.toString(), 0d, report.getMeanSquareErrorDelta(), 0.01);
+        assertEquals(irisDataSet.size(), report.getQuantizedResult().getConfusionMatrix().getTotal());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testEmptyCalibrationSet() {
+        QuantizedNetwork.quantize(network, new DataSet(4, 3));
+    }
+
+    @Test
+    public void testConvolutionalNetworkIsNotSupported() {
+        ConvolutionalNetwork convolutionalNetwork = new ConvolutionalNetwork.Builder()
+                .withInputLayer(8, 8, 1)
+                .withConvolutionLayer(3, 3, 2)
+                .withFullConnectedLayer(2)
+                .build();
+        DataSet calibrationSet = new DataSet(64, 2);
+        calibrationSet.addRow(new double[64], new double[2]);
+        for (QuantizedNetwork.Granularity granularity : QuantizedNetwork.Granularity.values()) {
+            try {
+                QuantizedNetwork.quantize(convolutionalNetwork, calibrationSet, granularity);
+                fail("Convolutional network should be rejected");
+            } catch (NeurophException ex) {
+                // documented rejection of tensor layers, not a failure while compiling
+                assertTrue(ex.getMessage(), ex.getMessage().contains("layer 1"));
+            }
+        }
+    }
+
+}
@@ -0,0 +1,269 @@
+package org.neuroph.core.learning;
+
+import static org.junit.Assert.*;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+import org.neuroph.core.Connection;
+import org.neuroph.core.Layer;
+import org.neuroph.core.Neuron;
+import org.neuroph.core.Weight;
+import org.neuroph.core.data.DataSet;
+import org.neuroph.core.data.DataSetRow;
+import org.neuroph.nnet.MultiLayerPerception;
+import org.neuroph.nnet.learning.BackPropagation;
+import org.neuroph.nnet.learning.MomentumBackpropagation;
+import org.neuroph.nnet.learning.QuickPropagation;
+import org.neuroph.nnet.learning.ResilientPropagation;
+import org.neuroph.util.TransferFunctionType;
+import org.neuroph.util.random.WeightsRandomizer;
+
+/**
+ * @author Zoran Sevarac <sevarac@gmail.com>
+ */
+public class SupervisedLearningTest {
+
+    DataSet dataSet;
+    MultiLayerPerception network;
+
+    /**
+     * Back propagation which records batch sizes and learned patterns
+     */
+    static class RecordingBackPropagation extends BackPropagation {
+        List<Integer> batches = new ArrayList<>();
+        List<DataSetRow> patterns = new ArrayList<>();
+
+        @Override
+        protected void doBatchWeightsUpdate() {
+            batches.add(getBatchPatternsCount());
+            super.doBatchWeightsUpdate();
+        }
+
+        @Override
+        public void doLearningEpoch(DataSet trainingSet) {
+            super.doLearningEpoch(new DataSet(trainingSet.getInputSize(), trainingSet.getOutputSize()) {
+                @Override
+                public DataSetRow getRowAt(int idx) {
+                    return trainingSet.getRowAt(idx);
+                }
+
+                @Override
+                public void getInput(int rowIdx, double[] input) {
+                    // shuffled patterns are read by index
+                    patterns.add(trainingSet.getRowAt(rowIdx));
+                    super.getInput(rowIdx, input);
+                }
+
+                @Override
+                public int size() {
+                    return trainingSet.size();
+                }
+
+                @Override
+                public java.util.Iterator<DataSetRow> iterator() {
+                    patterns.addAll(trainingSet.getRows());
+                    return trainingSet.iterator();
+                }
+            });
+        }
+    }
+
+    @Before
+    public void setUp() {
+        dataSet = new DataSet(2, 1);
+        Random random = new Random(11);
+        for (int i = 0; i < 10; i++) {
+            double a = random.nextDouble();
+            double b = random.nextDouble();
+            dataSet.addRow(new DataSetRow(new double[]{a, b}, new double[]{a * b}));
+        }
+        network = new MultiLayerPerception(TransferFunctionType.SIGMOID, 2, 3, 1);
+        network.randomizeWeights(new WeightsRandomizer(new Random(123)));
+    }
+
+    @Test
+    public void testMiniBatchUpdates() {
+        RecordingBackPropagation rule = new RecordingBackPropagation();
+        rule.setBatchSize(4);
+        rule.setMaxIterations(2);
+        network.setLearningRule(rule);
+
+        network.learn(dataSet);
+
+        assertTrue(rule.isBatchMode());
+        assertEquals(Arrays.asList(4, 4, 2, 4, 4, 2), rule.batches);
+    }
+
+    @Test
+    public void testFullBatchUpdate() {
+        RecordingBackPropagation rule = new RecordingBackPropagation();
+        rule.setBatchMode(true);
+        rule.setMaxIterations(3);
+        network.setLearningRule(rule);
+
+        network.learn(dataSet);
+
+        assertEquals(Arrays.asList(10, 10, 10), rule.batches);
+    }
+
+    @Test
+    public void testBatchSizeOneEqualsOnlineLearning() {
+        MultiLayerPerception online = new MultiLayerPerception(TransferFunctionType.SIGMOID, 2, 3, 1);
+        online.randomizeWeights(new WeightsRandomizer(new Random(123)));
+        BackPropagation onlineRule = new BackPropagation();
+        onlineRule.setMaxIterations(5);
+        online.setLearningRule(onlineRule);
+        online.learn(dataSet);
+
+        BackPropagation rule = new BackPropagation();
+        rule.setBatchSize(1);
+        rule.setMaxIterations(5);
+        network.setLearningRule(rule);
+        network.learn(dataSet);
+
+        assertArrayEquals(online.getWeights(), network.getWeights());
+    }
+
+    @Test
+    public void testShuffleVisitsEachPatternOnce() {
+        List<DataSetRow> rows = new ArrayList<>(dataSet.getRows());
+        RecordingBackPropagation rule = new RecordingBackPropagation();
+        rule.setShuffle(true);
+        rule.setRandom(new Random(5));
+        rule.setMaxIterations(1);
+        network.setLearningRule(rule);
+
+        network.learn(dataSet);
+
+        assertEquals(rows, dataSet.getRows());
+        assertEquals(rows.size(), rule.patterns.size());
+        assertTrue(rule.patterns.containsAll(rows));
+        assertFalse(rows.equals(rule.patterns));
+    }
+
+    @Test
+    public void testMomentumMiniBatchReducesError() {
+        MomentumBackpropagation rule = new MomentumBackpropagation();
+        rule.setBatchSize(2);
+        rule.setShuffle(true);
+        rule.setRandom(new Random(5));
+        rule.setLearningRate(0.5);
+        rule.setMaxIterations(1);
+        network.setLearningRule(rule);
+        network.learn(dataSet);
+        double firstError = rule.getTotalNetworkError();
+
+        rule.setMaxIterations(200);
+        network.learn(dataSet);
+
+        assertTrue(rule.getTotalNetworkError() < firstError);
+    }
+
+    @Test
+    public void testResilientPropagationReducesError() {
+        ResilientPropagation rule = new ResilientPropagation();
+        rule.setMaxIterations(1);
+        network.setLearningRule(rule);
+        network.learn(dataSet);
+        double firstError = rule.getTotalNetworkError();
+
+        rule.setMaxIterations(100);
+        network.learn(dataSet);
+
+        assertTrue(rule.getTotalNetworkError() < firstError);
+    }
+
+    private List<Weight> connectionWeights() {
+        List<Weight> weights = new ArrayList<>();
+        for (Layer layer : network.getLayers()) {
+            for (Neuron neuron : layer.getNeurons()) {
+                for (Connection connection : neuron.getInputConnections()) {
+                    weights.add(connection.getWeight());
+                }
+            }
+        }
+        return weights;
+    }
+
+    @Test
+    public void testIndexWeights() {
+        BackPropagation rule = new BackPropagation();
+        network.setLearningRule(rule);
+        List<Connection> connections = network.getOutputNeurons().get(0).getInputConnections();
+        Weight shared = connections.get(0).getWeight();
+        connections.get(1).setWeight(shared);
+
+        Weight[] weights = rule.indexWeights();
+
+        assertEquals(connectionWeights().size() - 1, weights.length);
+        for (int i = 0; i < weights.length; i++) {
+            assertEquals(i, weights[i].getIndex());
+        }
+        assertSame(shared, weights[shared.getIndex()]);
+        assertEquals(shared.getIndex(), connections.get(1).getWeight().getIndex());
+        assertArrayEquals(weights, rule.indexWeights());
+    }
+
+    @Test
+    public void testQuickPropagationKeepsWeights() {
+        List<Weight> weights = connectionWeights();
+        QuickPropagation rule = new QuickPropagation();
+        rule.setMaxIterations(5);
+        network.setLearningRule(rule);
+        network.learn(dataSet);
+
+        List<Weight> trainedWeights = connectionWeights();
+        for (int i = 0; i < weights.size(); i++) {
+            assertSame(weights.get(i), trainedWeights.get(i));
+        }
+    }
+
+    /**
+     * Returns bytes allocated by the current thread while learning the given number of patterns
+     */
+    private long allocatedBytes(BackPropagation rule, int count) {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        long before = threads.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < count; i++) {
+            rule.learnPattern(dataSet.getRowAt(i % dataSet.size()));
+        }
+        return threads.getThreadAllocatedBytes(threadId) - before;
+    }
+
+    private void assertNoPatternAllocation(BackPropagation rule) {
+        Assume.assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean);
+        network.setLearningRule(rule);
+        ((LearningRule) rule).onStart();
+        // warm up, so that the loop is compiled and escape analysis is applied
+        allocatedBytes(rule, 20000);
+
+        // one array per pattern would take at least 24 bytes, i.e. 240 KB for all patterns,
+        // so fixed ceiling leaves room for incidental allocations of the JVM
+        int count = 10000;
+        long bytes = allocatedBytes(rule, count);
+        assertTrue("allocated " + bytes + " bytes for " + count + " patterns", bytes < 64 * 1024);
+
+        DataSetRow row = dataSet.getRowAt(0);
+        double[] patternError = rule.getErrorFunction().addPatternError(network.getOutput(), row.getDesiredOutput());
+        assertSame(patternError, rule.getErrorFunction().addPatternError(network.getOutput(), row.getDesiredOutput()));
+    }
+
+    @Test
+    public void testBackPropagationDoesNotAllocatePerPattern() {
+        assertNoPatternAllocation(new BackPropagation());
+    }
+
+    @Test
+    public void testMomentumBackpropagationDoesNotAllocatePerPattern() {
+        assertNoPatternAllocation(new MomentumBackpropagation());
+    }
+
+}
@@ -0,0 +1,104 @@
+package org.neuroph.core.transfer;
+
+import static org.junit.Assert.*;
+
+import java.util.Random;
+
+import org.junit.Test;
+import org.neuroph.core.data.DataSet;
+import org.neuroph.core.data.DataSetRow;
+import org.neuroph.nnet.MultiLayerPerception;
+import org.neuroph.nnet.learning.BackPropagation;
+import org.neuroph.util.NeuronProperties;
+import org.neuroph.util.TransferFunctionType;
+import org.neuroph.util.random.WeightsRandomizer;
+
+public class FastMathTest {
+
+    @Test
+    public void testSigmoidMaxError() {
+        for (double x = -20; x <= 20; x += 1e-4) {
+            double expected = 1d / (1d + Math.exp(-x));
+            assertEquals("x=" + x, expected, FastMath.sigmoid(x), FastMath.SIGMOID_MAX_ERROR);
+        }
+    }
+
+    @Test
+    public void testTanhMaxError() {
+        for (double x = -10; x <= 10; x += 1e-4) {
+            assertEquals("x=" + x, Math.tanh(x), FastMath.tanh(x), FastMath.TANH_MAX_ERROR);
+        }
+    }
+
+    @Test
+    public void testExpMaxError() {
+        for (double x = -700; x <= 700; x += 1e-3) {
+            double expected = Math.exp(x);
+            assertEquals("x=" + x, 1d, FastMath.exp(x) / expected, FastMath.EXP_MAX_ERROR);
+        }
+        assertEquals(1d, FastMath.exp(0), FastMath.EXP_MAX_ERROR);
+        assertEquals(1d, FastMath.exp(-1e-20), FastMath.EXP_MAX_ERROR);
+    }
+
+    @Test
+    public void testLogMaxError() {
+        for (double x = 1e-3; x <= 10; x += 1e-5) {
+            assertEquals("x=" + x, Math.log(x), FastMath.log(x), FastMath.LOG_MAX_ERROR);
+        }
+        for (double e = -300; e <= 300; e += 0.01) {
+            double x = Math.pow(10, e);
+            assertEquals("x=" + x, Math.log(x), FastMath.log(x), FastMath.LOG_MAX_ERROR);
+        }
+    }
+
+    @Test
+    public void testSpecialValues() {
+        assertTrue(Double.isNaN(FastMath.sigmoid(Double.NaN)));
+        assertEquals(1d, FastMath.sigmoid(Double.POSITIVE_INFINITY), 0d);
+        assertEquals(0d, FastMath.sigmoid(Double.NEGATIVE_INFINITY), 0d);
+        assertEquals(-1d, FastMath.tanh(Double.NEGATIVE_INFINITY), 0d);
+
+        assertTrue(Double.isNaN(FastMath.exp(Double.NaN)));
+        assertEquals(0d, FastMath.exp(Double.NEGATIVE_INFINITY), 0d);
+        assertEquals(Double.POSITIVE_INFINITY, FastMath.exp(Double.POSITIVE_INFINITY), 0d);
+
+        assertTrue(Double.isNaN(FastMath.log(-1)));
+        assertEquals(Double.NEGATIVE_INFINITY, FastMath.log(0), 0d);
+        assertEquals(Math.log(Double.MIN_VALUE), FastMath.log(Double.MIN_VALUE), 0d);
+        assertEquals(Double.POSITIVE_INFINITY, FastMath.log(Double.POSITIVE_INFINITY), 0d);
+    }
+
+    @Test
+    public void testTransferFunctionTypeSelectsFastMath() {
+        NeuronProperties properties = new NeuronProperties(TransferFunctionType.FAST_GAUSSIAN, true);
+        assertEquals(Gaussian.class, properties.getTransferFunction());
+        assertEquals(Boolean.TRUE, properties.getTransferFunctionProperties().getProperty("transferFunction.fastMath"));
+        assertTrue(new Gaussian(properties.getTransferFunctionProperties()).isFastMath());
+        assertTrue(new Log(new NeuronProperties(TransferFunctionType.FAST_LOG, true).getTransferFunctionProperties()).isFastMath());
+
+        MultiLayerPerception fast = new MultiLayerPerception(TransferFunctionType.FAST_TANH, 2, 3, 1);
+        assertTrue(((Tanh) fast.getLayerAt(1).getNeuronAt(0).getTransferFunction()).isFastMath());
+        MultiLayerPerception exact = new MultiLayerPerception(TransferFunctionType.TANH, 2, 3, 1);
+        assertFalse(((Tanh) exact.getLayerAt(1).getNeuronAt(0).getTransferFunction()).isFastMath());
+    }
+
+    @Test
+    public void testXorWithFastSigmoid() {
+        DataSet xorDataSet = new DataSet(2, 1);
+        xorDataSet.addRow(new DataSetRow(new double[]{0, 0}, new double[]{0}));
+        xorDataSet.addRow(new DataSetRow(new double[]{0, 1}, new double[]{1}));
+        xorDataSet.addRow(new DataSetRow(new double[]{1, 0}, new double[]{1}));
+        xorDataSet.addRow(new DataSetRow(new double[]{1, 1}, new double[]{0}));
+
+        MultiLayerPerception network = new MultiLayerPerception(TransferFunctionType.FAST_SIGMOID, 2, 3, 1);
+        network.randomizeWeights(new WeightsRandomizer(new Random(123)));
+        BackPropagation rule = new BackPropagation();
+        rule.setLearningRate(0.5);
+        rule.setMaxError(0.01);
+        network.setLearningRule(rule);
+        network.learn(xorDataSet);
+
+        assertTrue(rule.getTotalNetworkError() < 0.01);
+    }
+
+}
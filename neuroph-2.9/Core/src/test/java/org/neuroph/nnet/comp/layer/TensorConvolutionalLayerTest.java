@@ -0,0 +1,121 @@
+package org.neuroph.nnet.comp.layer;
+
+import static org.junit.Assert.*;
+
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.neuroph.core.Neuron;
+import org.neuroph.nnet.ConvolutionalNetwork;
+import org.neuroph.nnet.comp.Dimension2D;
+
+public class TensorConvolutionalLayerTest {
+
+    ConvolutionalNetwork network;
+    TensorConvolutionalLayer convolution;
+    TensorPoolingLayer pooling;
+    double[] input;
+
+    @Before
+    public void setUp() {
+        network = new ConvolutionalNetwork.Builder()
+                .withInputLayer(6, 5, 2)
+                .withConvolutionLayer(3, 2, 3)
+                .withPoolingLayer(2, 2)
+                .withFullConnectedLayer(1)
+                .build();
+        convolution = (TensorConvolutionalLayer) network.getLayerAt(1);
+        pooling = (TensorPoolingLayer) network.getLayerAt(2);
+
+        Random random = new Random(5);
+        input = new double[60];
+        for (int i = 0; i < input.length; i++) {
+            input[i] = random.nextDouble() - 0.5;
+        }
+        network.setInput(input);
+        network.calculate();
+    }
+
+    @Test
+    public void testDimensions() {
+        assertEquals(4, convolution.getMapDimensions().getWidth());
+        assertEquals(4, convolution.getMapDimensions().getHeight());
+        assertEquals(3, convolution.getNumberOfMaps());
+        assertEquals(3 * 2 * 3 * 2, convolution.getWeights().length);
+        assertEquals(2, pooling.getMapDimensions().getWidth());
+        assertEquals(3, pooling.getNumberOfMaps());
+        for (Neuron neuron : convolution.getNeurons()) {
+            assertFalse(neuron.hasInputConnections());
+        }
+    }
+
+    @Test
+    public void testConvolutionOutput() {
+        double[] weights = convolution.getWeights();
+        for (int m = 0; m < 3; m++) {
+            for (int y = 0; y < 4; y++) {
+                for (int x = 0; x < 4; x++) {
+                    double sum = convolution.getBiases()[m];
+                    for (int c = 0; c < 2; c++) {
+                        for (int ky = 0; ky < 2; ky++) {
+                            for (int kx = 0; kx < 3; kx++) {
+                                sum += weights[((m * 2 + c) * 2 + ky) * 3 + kx] * input[c * 30 + (y + ky) * 6 + x + kx];
+                            }
+                        }
+                    }
+                    Neuron neuron = convolution.getNeuronAt(x, y, m);
+                    assertEquals(sum, neuron.getNetInput(), 1e-12);
+                    assertEquals(Math.tanh(sum), neuron.getOutput(), 1e-12);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testPoolingOutput() {
+        for (int m = 0; m < 3; m++) {
+            for (int y = 0; y < 2; y++) {
+                for (int x = 0; x < 2; x++) {
+                    double max = Double.NEGATIVE_INFINITY;
+                    for (int dy = 0; dy < 2; dy++) {
+                        for (int dx = 0; dx < 2; dx++) {
+                            max = Math.max(max, convolution.getNeuronAt(2 * x + dx, 2 * y + dy, m).getOutput());
+                        }
+                    }
+                    assertEquals(max, pooling.getNeuronAt(x, y, m).getOutput(), 0.0);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testCopyParametersFrom() {
+        ConvolutionalNetwork other = new ConvolutionalNetwork.Builder()
+                .withInputLayer(6, 5, 2)
+                .withConvolutionLayer(3, 2, 3)
+                .build();
+        TensorConvolutionalLayer source = (TensorConvolutionalLayer) other.getLayerAt(1);
+        source.initWeights(0.5, 1, new Random(3));
+
+        convolution.copyParametersFrom(source);
+        assertArrayEquals(source.getWeights(), convolution.getWeights(), 0);
+        assertArrayEquals(source.getBiases(), convolution.getBiases(), 0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testCopyParametersFromDifferentKernel() {
+        // kernels have the same size, but different shape
+        ConvolutionalNetwork other = new ConvolutionalNetwork.Builder()
+                .withInputLayer(6, 5, 2)
+                .withConvolutionLayer(2, 3, 3)
+                .build();
+        convolution.copyParametersFrom(other.getLayerAt(1));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testKernelLargerThanInput() {
+        new TensorConvolutionalLayer(pooling, new Dimension2D(3, 3), 1);
+    }
+
+}
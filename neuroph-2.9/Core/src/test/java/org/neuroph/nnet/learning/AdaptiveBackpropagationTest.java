@@ -0,0 +1,155 @@
+package org.neuroph.nnet.learning;
+
+import static org.junit.Assert.*;
+
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.neuroph.core.Layer;
+import org.neuroph.core.Weight;
+import org.neuroph.core.data.DataSet;
+import org.neuroph.core.data.DataSetRow;
+import org.neuroph.nnet.MultiLayerPerception;
+import org.neuroph.util.TransferFunctionType;
+import org.neuroph.util.random.WeightsRandomizer;
+
+/**
+ * @author Zoran Sevarac <sevarac@gmail.com>
+ */
+public class AdaptiveBackpropagationTest {
+
+    DataSet xorDataSet;
+    DataSet irisDataSet;
+
+    @Before
+    public void setUp() {
+        xorDataSet = new DataSet(2, 1);
+        xorDataSet.addRow(new DataSetRow(new double[]{0, 0}, new double[]{0}));
+        xorDataSet.addRow(new DataSetRow(new double[]{0, 1}, new double[]{1}));
+        xorDataSet.addRow(new DataSetRow(new double[]{1, 0}, new double[]{1}));
+        xorDataSet.addRow(new DataSetRow(new double[]{1, 1}, new double[]{0}));
+        irisDataSet = DataSet.createFromFile("src/test/resources/iris_normalized.txt", 4, 3, ",", false);
+    }
+
+    private static MultiLayerPerception createNetwork(BackPropagation rule, int... layers) {
+        MultiLayerPerception network = new MultiLayerPerception(TransferFunctionType.SIGMOID, layers);
+        network.randomizeWeights(new WeightsRandomizer(new Random(123)));
+        network.setLearningRule(rule);
+        return network;
+    }
+
+    private void assertLearnsXor(AdaptiveBackpropagation rule) {
+        rule.setMaxError(0.01);
+        rule.setMaxIterations(5000);
+        createNetwork(rule, 2, 4, 1).learn(xorDataSet);
+        assertTrue(rule.getClass().getSimpleName() + " error " + rule.getTotalNetworkError(),
+                rule.getTotalNetworkError() < 0.01);
+    }
+
+    @Test
+    public void testAdamOnline() {
+        AdamBackpropagation rule = new AdamBackpropagation();
+        rule.setLearningRate(0.05);
+        assertLearnsXor(rule);
+    }
+
+    @Test
+    public void testAdamBatch() {
+        AdamBackpropagation rule = new AdamBackpropagation();
+        rule.setLearningRate(0.05);
+        rule.setBatchMode(true);
+        assertLearnsXor(rule);
+    }
+
+    @Test
+    public void testRMSPropMiniBatch() {
+        RMSPropBackpropagation rule = new RMSPropBackpropagation();
+        rule.setLearningRate(0.01);
+        rule.setBatchSize(2);
+        assertLearnsXor(rule);
+    }
+
+    @Test
+    public void testAdaGradBatch() {
+        AdaGradBackpropagation rule = new AdaGradBackpropagation();
+        rule.setLearningRate(0.2);
+        rule.setBatchMode(true);
+        assertLearnsXor(rule);
+    }
+
+    @Test
+    public void testNesterovOnline() {
+        NesterovBackpropagation rule = new NesterovBackpropagation();
+        rule.setLearningRate(0.1);
+        assertLearnsXor(rule);
+    }
+
+    private static MultiLayerPerception createSharedWeightsNetwork(BackPropagation rule) {
+        MultiLayerPerception network = createNetwork(rule, 2, 4, 1);
+        Layer hidden = network.getLayerAt(1);
+        Weight shared = hidden.getNeuronAt(0).getInputConnections().get(0).getWeight();
+        for (int n = 1; n < 4; n++) {
+            hidden.getNeuronAt(n).getInputConnections().get(0).setWeight(shared);
+        }
+        return network;
+    }
+
+    @Test
+    public void testOnlineSharedWeightsMatchSinglePatternBatches() {
+        AdamBackpropagation online = new AdamBackpropagation();
+        online.setLearningRate(0.05);
+        online.setMaxIterations(20);
+        MultiLayerPerception onlineNetwork = createSharedWeightsNetwork(online);
+        onlineNetwork.learn(xorDataSet);
+
+        AdamBackpropagation batches = new AdamBackpropagation();
+        batches.setLearningRate(0.05);
+        batches.setMaxIterations(20);
+        batches.setBatchSize(1);
+        MultiLayerPerception batchesNetwork = createSharedWeightsNetwork(batches);
+        batchesNetwork.learn(xorDataSet);
+
+        // shared weight gets one change from the gradient summed over its connections
+        assertArrayEquals(batchesNetwork.getWeightVector().toArray(), onlineNetwork.getWeightVector().toArray(), 1e-12);
+    }
+
+    @Test
+    public void testAdamNeedsFewerEpochsThanBackPropagation() {
+        BackPropagation backPropagation = new BackPropagation();
+        backPropagation.setMaxError(0.02);
+        backPropagation.setMaxIterations(10000);
+        createNetwork(backPropagation, 4, 8, 3).learn(irisDataSet);
+
+        AdamBackpropagation adam = new AdamBackpropagation();
+        adam.setLearningRate(0.02);
+        adam.setMaxError(0.02);
+        adam.setMaxIterations(10000);
+        createNetwork(adam, 4, 8, 3).learn(irisDataSet);
+
+        assertTrue(adam.getTotalNetworkError() < 0.02);
+        assertTrue(adam.getCurrentIteration() < backPropagation.getCurrentIteration() / 2);
+    }
+
+    @Test
+    public void testParallelAdamMatchesSequential() {
+        AdamBackpropagation sequential = new AdamBackpropagation();
+        sequential.setBatchSize(20);
+        sequential.setMaxIterations(10);
+        MultiLayerPerception sequentialNetwork = createNetwork(sequential, 4, 8, 3);
+        sequentialNetwork.learn(irisDataSet);
+
+        AdamBackpropagation parallel = new AdamBackpropagation();
+        parallel.setBatchSize(20);
+        parallel.setMaxIterations(10);
+        parallel.setThreadCount(4);
+        MultiLayerPerception parallelNetwork = createNetwork(parallel, 4, 8, 3);
+        parallelNetwork.learn(irisDataSet);
+
+        Double[] expected = sequentialNetwork.getWeights();
+        Double[] weights = parallelNetwork.getWeights();
+        for (int i = 0; i < weights.length; i++) {
+            assertEquals(expected[i], weights[i], 1e-9);
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package org.neuroph.nnet.learning;
+
+import static org.junit.Assert.*;
+
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.neuroph.core.events.LearningEvent;
+import org.neuroph.core.data.DataSet;
+import org.neuroph.nnet.ElmanNetwork;
+import org.neuroph.nnet.MultiLayerPerception;
+import org.neuroph.util.TransferFunctionType;
+import org.neuroph.util.random.WeightsRandomizer;
+
+/**
+ * @author Zoran Sevarac <sevarac@gmail.com>
+ */
+public class AsynchronousBackPropagationTest {
+
+    DataSet irisDataSet;
+    AsynchronousBackPropagation instance;
+
+    @Before
+    public void setUp() {
+        irisDataSet = DataSet.createFromFile("src/test/resources/iris_normalized.txt", 4, 3, ",", false);
+        instance = new AsynchronousBackPropagation();
+        instance.setThreadCount(4);
+        instance.setLearningRate(0.2);
+        instance.setMaxError(0.001);
+    }
+
+    @Test
+    public void testLearningReducesError() {
+        MultiLayerPerception network = new MultiLayerPerception(TransferFunctionType.SIGMOID, 4, 16, 3);
+        network.randomizeWeights(new WeightsRandomizer(new Random(123)));
+        network.setLearningRule(instance);
+
+        AtomicInteger epochs = new AtomicInteger();
+        instance.addListener(event -> {
+            if (event.getEventType() == LearningEvent.Type.EPOCH_ENDED) {
+                epochs.incrementAndGet();
+            }
+        });
+
+        instance.setMaxIterations(1);
+        network.learn(irisDataSet);
+        double firstEpochError = instance.getTotalNetworkError();
+
+        instance.setMaxIterations(100);
+        network.learn(irisDataSet);
+
+        assertEquals(100, instance.getCurrentIteration());
+        assertEquals(101, epochs.get());
+        assertEquals(100L * irisDataSet.size(), instance.getPatternsCount());
+        assertTrue(instance.getPatternsPerSecond() > 0);
+        assertTrue(instance.getTotalNetworkError() < firstEpochError / 2);
+    }
+
+    @Test
+    public void testWeightsAreCopiedToNetwork() {
+        MultiLayerPerception network = new MultiLayerPerception(TransferFunctionType.SIGMOID, 4, 8, 3);
+        network.randomizeWeights(new WeightsRandomizer(new Random(123)));
+        Double[] initialWeights = network.getWeights();
+        network.setLearningRule(instance);
+
+        instance.setMaxIterations(5);
+        network.learn(irisDataSet);
+
+        Double[] weights = network.getWeights();
+        int changed = 0;
+        for (int i = 0; i < weights.length; i++) {
+            if (!weights[i].equals(initialWeights[i])) {
+                changed++;
+            }
+        }
+        assertTrue(changed > weights.length / 2);
+    }
+
+    @Test
+    public void testRecurrentNetworkIsTrainedSequentially() {
+        DataSet dataSet = new DataSet(4, 3);
+        for (int i = 0; i < 10; i++) {
+            dataSet.addRow(irisDataSet.getRowAt(i * 15));
+        }
+        ElmanNetwork network = new ElmanNetwork(4, 5, 6, 3);
+        network.setLearningRule(instance);
+
+        instance.setMaxIterations(3);
+        network.learn(dataSet);
+
+        assertEquals(3, instance.getCurrentIteration());
+        assertEquals(30, instance.getPatternsCount());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testBatchModeIsNotSupported() {
+        instance.setBatchMode(true);
+    }
+}
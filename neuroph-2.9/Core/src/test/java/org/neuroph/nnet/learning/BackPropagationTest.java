@@ -252,4 +252,73 @@ public class BackPropagationTest {
         Mockito.verify(bp1).calculateErrorAndUpdateOutputNeurons(weigths);
         Mockito.verify(bp1).calculateErrorAndUpdateHiddenNeurons();
     }
+
+    private Double[] trainInBatches(BackPropagation rule, int threadCount, int batchSize) {
+        MultiLayerPerception network = new MultiLayerPerception(TransferFunctionType.SIGMOID, 4, 8, 3);
+        network.connectInputsToOutputs();
+        network.randomizeWeights(new WeightsRandomizer(new Random(123)));
+        rule.setThreadCount(threadCount);
+        rule.setBatchSize(batchSize);
+        rule.setMaxIterations(20);
+        network.setLearningRule(rule);
+        network.learn(irisDataSet);
+        return network.getWeights();
+    }
+
+    @Test
+    public void testParallelBatchMatchesSequential() {
+        Double[] sequential = trainInBatches(new BackPropagation(), 1, 16);
+        BackPropagation parallel = new BackPropagation();
+        Double[] weights = trainInBatches(parallel, 4, 16);
+
+        assertEquals(20, parallel.getCurrentIteration());
+        for (int i = 0; i < weights.length; i++) {
+            assertEquals(sequential[i], weights[i], 1e-9);
+        }
+    }
+
+    @Test
+    public void testParallelMomentumMatchesSequential() {
+        Double[] sequential = trainInBatches(new MomentumBackpropagation(), 1, 0);
+        Double[] weights = trainInBatches(new MomentumBackpropagation(), 3, 0);
+
+        for (int i = 0; i < weights.length; i++) {
+            assertEquals(sequential[i], weights[i], 1e-9);
+        }
+    }
+
+    @Test
+    public void testParallelResilientMatchesSequential() {
+        Double[] sequential = trainInBatches(new ResilientPropagation(), 1, 0);
+        Double[] weights = trainInBatches(new ResilientPropagation(), 4, 0);
+
+        for (int i = 0; i < weights.length; i++) {
+            assertEquals(sequential[i], weights[i], 1e-9);
+        }
+    }
+
+    @Test
+    public void testParallelQuickPropagationMatchesSequential() {
+        QuickPropagation sequentialRule = new QuickPropagation();
+        sequentialRule.setBatchMode(true);
+        Double[] sequential = trainInBatches(sequentialRule, 1, 16);
+        QuickPropagation parallelRule = new QuickPropagation();
+        parallelRule.setBatchMode(true);
+        Double[] weights = trainInBatches(parallelRule, 4, 16);
+
+        // gradients are summed in different order, which quick propagation step amplifies
+        for (int i = 0; i < weights.length; i++) {
+            assertEquals(sequential[i], weights[i], 1e-6 * Math.max(1, Math.abs(sequential[i])));
+        }
+    }
+
+    @Test
+    public void testThreadCountMustBePositive() {
+        try {
+            instance.setThreadCount(0);
+            fail("IllegalArgumentException expected");
+        } catch (IllegalArgumentException ex) {
+            assertEquals(1, instance.getThreadCount());
+        }
+    }
 }
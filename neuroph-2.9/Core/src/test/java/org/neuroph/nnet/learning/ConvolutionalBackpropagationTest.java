@@ -0,0 +1,132 @@
+package org.neuroph.nnet.learning;
+
+import static org.junit.Assert.*;
+
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.neuroph.core.data.DataSet;
+import org.neuroph.core.data.DataSetRow;
+import org.neuroph.nnet.ConvolutionalNetwork;
+import org.neuroph.nnet.comp.layer.TensorConvolutionalLayer;
+import org.neuroph.util.random.WeightsRandomizer;
+
+public class ConvolutionalBackpropagationTest {
+
+    ConvolutionalNetwork network;
+    DataSetRow row;
+
+    @Before
+    public void setUp() {
+        // tensor layers follow each other, so error is passed through input gradients
+        network = new ConvolutionalNetwork.Builder()
+                .withInputLayer(8, 8, 1)
+                .withConvolutionLayer(3, 3, 2)
+                .withPoolingLayer(2, 2)
+                .withConvolutionLayer(2, 2, 2)
+                .withFullConnectedLayer(2)
+                .build();
+        network.randomizeWeights(new WeightsRandomizer(new Random(7)));
+
+        Random random = new Random(3);
+        double[] input = new double[64];
+        for (int i = 0; i < input.length; i++) {
+            input[i] = random.nextDouble();
+        }
+        row = new DataSetRow(input, new double[]{0.2, 0.9});
+    }
+
+    private double error() {
+        network.setInput(row.getInput());
+        network.calculate();
+        double[] output = network.getOutput();
+        double error = 0;
+        for (int i = 0; i < output.length; i++) {
+            double diff = output[i] - row.getDesiredOutput()[i];
+            error += 0.5 * diff * diff;
+        }
+        return error;
+    }
+
+    private double[] numericalGradients(double[] values) {
+        double eps = 1e-6;
+        double[] gradients = new double[values.length];
+        for (int i = 0; i < values.length; i++) {
+            double value = values[i];
+            values[i] = value + eps;
+            double plus = error();
+            values[i] = value - eps;
+            double minus = error();
+            values[i] = value;
+            gradients[i] = (plus - minus) / (2 * eps);
+        }
+        return gradients;
+    }
+
+    @Test
+    public void testTensorGradientsMatchNumerical() {
+        for (int l : new int[]{1, 3}) {
+            setUp();
+            TensorConvolutionalLayer layer = (TensorConvolutionalLayer) network.getLayerAt(l);
+            double[] weights = layer.getWeights();
+            double[] biases = layer.getBiases();
+            double[] weightGradients = numericalGradients(weights);
+            double[] biasGradients = numericalGradients(biases);
+            double[] initialWeights = weights.clone();
+            double[] initialBiases = biases.clone();
+
+            // one batch with learning rate 1 changes kernels by minus gradient
+            ConvolutionalBackpropagation rule = new ConvolutionalBackpropagation();
+            rule.setBatchMode(true);
+            rule.setLearningRate(1);
+            rule.setMomentum(0);
+            rule.setMaxIterations(1);
+            network.setLearningRule(rule);
+            DataSet dataSet = new DataSet(64, 2);
+            dataSet.addRow(row);
+            network.learn(dataSet);
+
+            for (int i = 0; i < weights.length; i++) {
+                assertEquals(-weightGradients[i], weights[i] - initialWeights[i], 1e-7);
+            }
+            for (int i = 0; i < biases.length; i++) {
+                assertEquals(-biasGradients[i], biases[i] - initialBiases[i], 1e-7);
+            }
+        }
+    }
+
+    @Test
+    public void testLearnLineOrientation() {
+        ConvolutionalNetwork lines = new ConvolutionalNetwork.Builder()
+                .withInputLayer(5, 5, 1)
+                .withConvolutionLayer(3, 3, 4)
+                .withPoolingLayer(3, 3)
+                .withFullConnectedLayer(2)
+                .build();
+        lines.randomizeWeights(new WeightsRandomizer(new Random(123)));
+
+        DataSet dataSet = new DataSet(25, 2);
+        for (int k = 0; k < 5; k++) {
+            double[] horizontal = new double[25];
+            double[] vertical = new double[25];
+            for (int i = 0; i < 5; i++) {
+                horizontal[k * 5 + i] = 1;
+                vertical[i * 5 + k] = 1;
+            }
+            dataSet.addRow(new DataSetRow(horizontal, new double[]{1, 0}));
+            dataSet.addRow(new DataSetRow(vertical, new double[]{0, 1}));
+        }
+
+        ConvolutionalBackpropagation rule = new ConvolutionalBackpropagation();
+        rule.setLearningRate(0.1);
+        rule.setMomentum(0.5);
+        rule.setMaxError(0.01);
+        rule.setMaxIterations(5000);
+        lines.setLearningRule(rule);
+        lines.learn(dataSet);
+
+        assertTrue(rule.getTotalNetworkError() < 0.01);
+    }
+
+}
@@ -0,0 +1,125 @@
+package org.neuroph.nnet.learning;
+
+import static org.junit.Assert.*;
+
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.neuroph.core.data.DataSet;
+import org.neuroph.core.data.DataSetRow;
+import org.neuroph.nnet.MultiLayerPerception;
+import org.neuroph.util.TransferFunctionType;
+import org.neuroph.util.random.WeightsRandomizer;
+
+public class ResilientPropagationTest {
+
+    DataSet xorDataSet;
+    DataSet irisDataSet;
+    double maxError;
+
+    @Before
+    public void setUp() {
+        xorDataSet = new DataSet(2, 1);
+        xorDataSet.addRow(new DataSetRow(new double[]{0, 0}, new double[]{0}));
+        xorDataSet.addRow(new DataSetRow(new double[]{0, 1}, new double[]{1}));
+        xorDataSet.addRow(new DataSetRow(new double[]{1, 0}, new double[]{1}));
+        xorDataSet.addRow(new DataSetRow(new double[]{1, 1}, new double[]{0}));
+        maxError = 0.01;
+        String inputFileName = "src/test/resources/iris_normalized.txt";
+        irisDataSet = DataSet.createFromFile(inputFileName, 4, 3, ",", false);
+    }
+
+    private ResilientPropagation trainXor(ResilientPropagation.Variant variant) {
+        MultiLayerPerception myMlPerceptron = new MultiLayerPerception(TransferFunctionType.SIGMOID, 2, 3, 1);
+        myMlPerceptron.randomizeWeights(new WeightsRandomizer(new Random(123)));
+        ResilientPropagation rule = new ResilientPropagation();
+        rule.setVariant(variant);
+        rule.setMaxError(maxError);
+        rule.setMaxIterations(10000);
+        myMlPerceptron.setLearningRule(rule);
+        myMlPerceptron.learn(xorDataSet);
+        return rule;
+    }
+
+    @Test
+    public void testXorMaxError() {
+        for (ResilientPropagation.Variant variant : ResilientPropagation.Variant.values()) {
+            ResilientPropagation rule = trainXor(variant);
+            assertTrue(variant + " error " + rule.getTotalNetworkError(), rule.getTotalNetworkError() < maxError);
+        }
+    }
+
+    private Double[] trainIrpropPlus(DataSet dataSet, int batchSize, int iterations) {
+        MultiLayerPerception network = new MultiLayerPerception(TransferFunctionType.SIGMOID, 2, 3, 1);
+        network.randomizeWeights(new WeightsRandomizer(new Random(123)));
+        ResilientPropagation rule = new ResilientPropagation();
+        rule.setVariant(ResilientPropagation.Variant.IRPROP_PLUS);
+        rule.setBatchSize(batchSize);
+        rule.setMaxError(0);
+        rule.setMaxIterations(iterations);
+        network.setLearningRule(rule);
+        network.learn(dataSet);
+        return network.getWeights();
+    }
+
+    @Test
+    public void testIrpropPlusComparesErrorOfUpdates() {
+        // each mini-batch is the whole xor set, so each update is the same as one full batch epoch
+        DataSet twice = new DataSet(2, 1);
+        for (int i = 0; i < 2; i++) {
+            for (DataSetRow row : xorDataSet.getRows()) {
+                twice.addRow(new DataSetRow(row.getInput(), row.getDesiredOutput()));
+            }
+        }
+
+        Double[] fullBatch = trainIrpropPlus(xorDataSet, 0, 100);
+        Double[] miniBatches = trainIrpropPlus(twice, 4, 50);
+
+        assertArrayEquals(fullBatch, miniBatches);
+    }
+
+    @Test
+    public void testDefaultVariant() {
+        ResilientPropagation rule = new ResilientPropagation();
+        assertEquals(ResilientPropagation.Variant.RPROP_PLUS, rule.getVariant());
+        try {
+            rule.setVariant(null);
+            fail("IllegalArgumentException expected");
+        } catch (IllegalArgumentException ex) {
+            assertEquals(ResilientPropagation.Variant.RPROP_PLUS, rule.getVariant());
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testOnlineModeNotSupported() {
+        new ResilientPropagation().setBatchMode(false);
+    }
+
+    private Double[] trainIris(ResilientPropagation.Variant variant, int threadCount) {
+        // enough weights to split update in several chunks
+        MultiLayerPerception network = new MultiLayerPerception(TransferFunctionType.SIGMOID, 4, 500, 3);
+        network.randomizeWeights(new WeightsRandomizer(new Random(123)));
+        ResilientPropagation rule = new ResilientPropagation();
+        rule.setVariant(variant);
+        rule.setThreadCount(threadCount);
+        rule.setMaxIterations(10);
+        network.setLearningRule(rule);
+        network.learn(irisDataSet);
+        return network.getWeights();
+    }
+
+    @Test
+    public void testParallelUpdateMatchesSequential() {
+        for (ResilientPropagation.Variant variant : ResilientPropagation.Variant.values()) {
+            Double[] sequential = trainIris(variant, 1);
+            Double[] weights = trainIris(variant, 4);
+
+            assertTrue(weights.length > 2048);
+            for (int i = 0; i < weights.length; i++) {
+                assertEquals(variant.toString(), sequential[i], weights[i], 1e-9);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,99 @@
+package org.neuroph.util;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+import org.neuroph.core.Layer;
+import org.neuroph.core.Neuron;
+import org.neuroph.core.events.NeuralNetworkEvent;
+import org.neuroph.core.events.NeuralNetworkEventListener;
+import org.neuroph.nnet.MultiLayerPerception;
+import org.neuroph.nnet.comp.neuron.BiasNeuron;
+
+public class ConnectionFactoryTest {
+
+    @Test
+    public void testFullConnectUniqueMatchesFullConnect() {
+        Layer from = LayerFactory.createLayer(5, TransferFunctionType.LINEAR);
+        from.addNeuron(new BiasNeuron());
+        Layer to = LayerFactory.createLayer(4, TransferFunctionType.LINEAR);
+        to.addNeuron(new BiasNeuron());
+        Layer uniqueTo = LayerFactory.createLayer(4, TransferFunctionType.LINEAR);
+        uniqueTo.addNeuron(new BiasNeuron());
+
+        ConnectionFactory.fullConnect(from, to);
+        ConnectionFactory.fullConnectUnique(from, uniqueTo);
+
+        for (int j = 0; j < to.getNeuronsCount(); j++) {
+            Neuron expected = to.getNeuronAt(j);
+            Neuron actual = uniqueTo.getNeuronAt(j);
+            assertEquals(expected.getInputConnections().size(), actual.getInputConnections().size());
+            for (int i = 0; i < actual.getInputConnections().size(); i++) {
+                assertSame(expected.getInputConnections().get(i).getFromNeuron(),
+                        actual.getInputConnections().get(i).getFromNeuron());
+            }
+        }
+        assertEquals(0, uniqueTo.getNeuronAt(4).getInputConnections().size());
+        for (int i = 0; i < from.getNeuronsCount(); i++) {
+            List<?> outputs = from.getNeuronAt(i).getOutConnections();
+            // 4 connections to each layer
+            assertEquals(8, outputs.size());
+            for (int j = 0; j < 4; j++) {
+                assertSame(uniqueTo.getNeuronAt(j), from.getNeuronAt(i).getOutConnections().get(4 + j).getToNeuron());
+            }
+        }
+    }
+
+    @Test
+    public void testFullConnectUniqueInvalidatesCompiledNetwork() {
+        MultiLayerPerception network = new MultiLayerPerception(2, 3, 1);
+        double[][] inputs = {{0.2, 0.7}, {0.9, -0.4}};
+        network.calculate(inputs);
+
+        // inputs are not connected to outputs yet
+        ConnectionFactory.fullConnectUnique(network.getLayerAt(0), network.getLayerAt(2));
+
+        double[][] outputs = network.calculate(inputs);
+        for (int i = 0; i < inputs.length; i++) {
+            network.setInput(inputs[i]);
+            network.calculate();
+            assertArrayEquals(network.getOutput(), outputs[i], 0d);
+        }
+    }
+
+    @Test(timeout = 30000)
+    public void testFullConnectUniqueLargeLayers() {
+        Layer from = LayerFactory.createLayer(1024, TransferFunctionType.LINEAR);
+        Layer to = LayerFactory.createLayer(1024, TransferFunctionType.LINEAR);
+
+        ConnectionFactory.fullConnectUnique(from, to);
+
+        assertEquals(1024, to.getNeuronAt(1023).getInputConnections().size());
+        assertEquals(1024, from.getNeuronAt(0).getOutConnections().size());
+    }
+
+    @Test
+    public void testSuppressedEventsAreNotDelivered() {
+        MultiLayerPerception network = new MultiLayerPerception(2, 3, 1);
+        assertFalse(network.isEventsSuppressed());
+        final List<NeuralNetworkEvent> events = new ArrayList<>();
+        network.addListener(new NeuralNetworkEventListener() {
+            @Override
+            public void handleNeuralNetworkEvent(NeuralNetworkEvent event) {
+                events.add(event);
+            }
+        });
+
+        network.setEventsSuppressed(true);
+        network.getLayerAt(1).addNeuron(new Neuron());
+        assertTrue(events.isEmpty());
+
+        network.setEventsSuppressed(false);
+        network.getLayerAt(1).addNeuron(new Neuron());
+        assertEquals(1, events.size());
+    }
+
+}
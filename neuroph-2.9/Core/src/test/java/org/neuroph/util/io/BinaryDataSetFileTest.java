@@ -0,0 +1,160 @@
+package org.neuroph.util.io;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Random;
+
+import org.apache.commons.lang3.SerializationUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.neuroph.core.data.DataSet;
+import org.neuroph.core.data.DataSetRow;
+import org.neuroph.core.data.DenseDataSet;
+import org.neuroph.core.exceptions.NeurophException;
+import org.neuroph.nnet.MultiLayerPerception;
+import org.neuroph.util.DataSetColumnType;
+import org.neuroph.util.TransferFunctionType;
+import org.neuroph.util.random.WeightsRandomizer;
+
+public class BinaryDataSetFileTest {
+
+    static final String IRIS = "src/test/resources/iris_normalized.txt";
+
+    File file;
+
+    DataSet irisDataSet;
+
+    @Before
+    public void setUp() throws IOException {
+        file = File.createTempFile("dataset", ".ndsf");
+        irisDataSet = DataSet.createFromFile(IRIS, 4, 3, ",", false);
+    }
+
+    @After
+    public void tearDown() {
+        file.delete();
+    }
+
+    private static void assertSameRows(DataSet expected, DataSet actual, double delta) {
+        assertEquals(expected.size(), actual.size());
+        int i = 0;
+        for (DataSetRow row : actual) {
+            assertArrayEquals(expected.getRowAt(i).getInput(), row.getInput(), delta);
+            assertArrayEquals(expected.getRowAt(i).getDesiredOutput(), row.getDesiredOutput(), delta);
+            i++;
+        }
+    }
+
+    @Test
+    public void testSaveAndLoad() {
+        irisDataSet.setLabel("iris");
+        irisDataSet.setColumnType(6, DataSetColumnType.NOMINAL);
+        BinaryDataSetFile.save(irisDataSet, file.getPath());
+
+        MappedDataSet dataSet = BinaryDataSetFile.load(file);
+
+        assertEquals(4, dataSet.getInputSize());
+        assertEquals(3, dataSet.getOutputSize());
+        assertTrue(dataSet.isSupervised());
+        assertEquals("iris", dataSet.getLabel());
+        assertArrayEquals(irisDataSet.getColumnNames(), dataSet.getColumnNames());
+        assertEquals(DataSetColumnType.NOMINAL, dataSet.getColumnType(6));
+        assertEquals(DenseDataSet.Precision.DOUBLE, dataSet.getPrecision());
+        assertSameRows(irisDataSet, dataSet, 0);
+        assertEquals(irisDataSet.getRowAt(10).getDesiredOutput()[2], dataSet.getValue(10, 6), 0);
+    }
+
+    @Test
+    public void testConvertCsvWithFloats() {
+        BinaryDataSetFile.convertCsv(new File(IRIS), 4, 3, ",", false, file, DenseDataSet.Precision.FLOAT);
+
+        MappedDataSet dataSet = BinaryDataSetFile.load(file);
+
+        assertEquals(DenseDataSet.Precision.FLOAT, dataSet.getPrecision());
+        assertSameRows(irisDataSet, dataSet, 1e-7);
+        assertEquals((float) irisDataSet.getRowAt(5).getInput()[1], dataSet.getRowAt(5).getInput()[1], 0);
+    }
+
+    @Test
+    public void testConvertSavedDataSet() throws IOException {
+        File saved = File.createTempFile("dataset", ".tset");
+        try {
+            irisDataSet.save(saved.getPath());
+            BinaryDataSetFile.convertSavedDataSet(saved, file, DenseDataSet.Precision.DOUBLE);
+        } finally {
+            saved.delete();
+        }
+
+        assertSameRows(irisDataSet, BinaryDataSetFile.load(file), 0);
+    }
+
+    @Test
+    public void testLearningMatchesDataSet() {
+        BinaryDataSetFile.save(irisDataSet, file.getPath());
+        MultiLayerPerception network = new MultiLayerPerception(TransferFunctionType.SIGMOID, 4, 5, 3);
+        network.randomizeWeights(new WeightsRandomizer(new Random(123)));
+        MultiLayerPerception copy = (MultiLayerPerception) network.copy();
+        network.getLearningRule().setMaxIterations(5);
+        copy.getLearningRule().setMaxIterations(5);
+
+        network.learn(irisDataSet);
+        copy.learn(BinaryDataSetFile.load(file));
+
+        assertArrayEquals(network.getWeights(), copy.getWeights());
+    }
+
+    @Test
+    public void testSerializedAsDenseDataSet() {
+        BinaryDataSetFile.save(irisDataSet, file.getPath());
+        DataSet copy = SerializationUtils.clone(BinaryDataSetFile.load(file));
+
+        assertTrue(copy instanceof DenseDataSet);
+        assertSameRows(irisDataSet, copy, 0);
+    }
+
+    @Test
+    public void testShuffleAndSplit() {
+        BinaryDataSetFile.save(irisDataSet, file.getPath());
+        MappedDataSet dataSet = BinaryDataSetFile.load(file);
+
+        dataSet.shuffle();
+
+        // rows are the same, only in different order
+        assertEquals(irisDataSet.size(), dataSet.size());
+        double sum = 0;
+        double expectedSum = 0;
+        double[] input = new double[4];
+        for (int i = 0; i < dataSet.size(); i++) {
+            dataSet.getInput(i, input);
+            assertArrayEquals(input, dataSet.getRowAt(i).getInput(), 0);
+            assertEquals(input[3], dataSet.getValue(i, 3), 0);
+            for (int j = 0; j < input.length; j++) {
+                sum += input[j] * (j + 1);
+                expectedSum += irisDataSet.getRowAt(i).getInput()[j] * (j + 1);
+            }
+        }
+        assertEquals(expectedSum, sum, 1e-9);
+
+        DataSet[] subsets = dataSet.createTrainingAndTestSubsets(70, 30);
+        assertEquals(dataSet.size(), subsets[0].size() + subsets[1].size());
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testReadOnly() {
+        BinaryDataSetFile.save(irisDataSet, file.getPath());
+        BinaryDataSetFile.load(file).addRow(new double[4], new double[3]);
+    }
+
+    @Test(expected = NeurophException.class)
+    public void testNotDataSetFile() throws IOException {
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.write(new byte[100]);
+        }
+        BinaryDataSetFile.load(file);
+    }
+
+}
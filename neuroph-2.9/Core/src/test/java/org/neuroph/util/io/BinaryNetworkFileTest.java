@@ -0,0 +1,163 @@
+package org.neuroph.util.io;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.neuroph.core.Connection;
+import org.neuroph.core.NeuralNetwork;
+import org.neuroph.core.Neuron;
+import org.neuroph.core.exceptions.NeurophException;
+import org.neuroph.core.flat.FlatNetwork;
+import org.neuroph.nnet.Hopfield;
+import org.neuroph.nnet.MultiLayerPerception;
+import org.neuroph.nnet.learning.MomentumBackpropagation;
+import org.neuroph.util.TransferFunctionType;
+import org.neuroph.util.random.WeightsRandomizer;
+
+public class BinaryNetworkFileTest {
+
+    File file;
+
+    @Before
+    public void setUp() throws IOException {
+        file = File.createTempFile("network", ".nnbf");
+    }
+
+    @After
+    public void tearDown() {
+        file.delete();
+    }
+
+    private static MultiLayerPerception createNetwork() {
+        MultiLayerPerception network = new MultiLayerPerception(TransferFunctionType.TANH, 4, 30, 20, 3);
+        network.randomizeWeights(new WeightsRandomizer(new Random(123)));
+        network.setLabel("binary");
+        return network;
+    }
+
+    private static double[][] inputs() {
+        Random random = new Random(1);
+        double[][] inputs = new double[20][4];
+        for (double[] input : inputs) {
+            for (int i = 0; i < input.length; i++) {
+                input[i] = random.nextDouble();
+            }
+        }
+        return inputs;
+    }
+
+    private static double[] calculate(NeuralNetwork<?> network, double[] input) {
+        network.setInput(input);
+        network.calculate();
+        return network.getOutput().clone();
+    }
+
+    @Test
+    public void testRoundTrip() {
+        MultiLayerPerception network = createNetwork();
+        BinaryNetworkFile.save(network, file);
+        NeuralNetwork<?> loaded = BinaryNetworkFile.load(file);
+
+        assertEquals(MultiLayerPerception.class, loaded.getClass());
+        assertEquals("binary", loaded.getLabel());
+        assertEquals(MomentumBackpropagation.class, loaded.getLearningRule().getClass());
+        assertSame(loaded, loaded.getLearningRule().getNeuralNetwork());
+        assertEquals(network.getLayersCount(), loaded.getLayersCount());
+        for (int l = 0; l < network.getLayersCount(); l++) {
+            assertEquals(network.getLayerAt(l).getNeuronsCount(), loaded.getLayerAt(l).getNeuronsCount());
+        }
+        Neuron outputNeuron = loaded.getOutputNeurons().get(0);
+        assertSame(loaded.getLayerAt(3).getNeuronAt(0), outputNeuron);
+        assertSame(outputNeuron, outputNeuron.getInputConnections().get(0).getFromNeuron().getOutConnections().get(0).getToNeuron());
+
+        Double[] weights = network.getWeights();
+        Double[] loadedWeights = loaded.getWeights();
+        assertArrayEquals(weights, loadedWeights);
+        for (double[] input : inputs()) {
+            assertArrayEquals(calculate(network, input), calculate(loaded, input), 0d);
+        }
+    }
+
+    @Test
+    public void testLoadFlatNetwork() {
+        MultiLayerPerception network = createNetwork();
+        BinaryNetworkFile.save(network, file);
+        FlatNetwork flat = BinaryNetworkFile.loadFlatNetwork(file);
+
+        assertFalse(flat.isAttached());
+        assertEquals(network.getFlatNetwork().getWeightsCount(), flat.getWeightsCount());
+        double[][] inputs = inputs();
+        double[][] outputs = flat.calculate(inputs);
+        for (int i = 0; i < inputs.length; i++) {
+            assertArrayEquals(calculate(network, inputs[i]), outputs[i], 0d);
+        }
+    }
+
+    @Test
+    public void testSharedWeightsStayShared() {
+        MultiLayerPerception network = createNetwork();
+        Connection first = network.getLayerAt(2).getNeuronAt(0).getInputConnections().get(0);
+        Connection second = network.getLayerAt(2).getNeuronAt(1).getInputConnections().get(0);
+        second.setWeight(first.getWeight());
+
+        BinaryNetworkFile.save(network, file);
+        NeuralNetwork<?> loaded = BinaryNetworkFile.load(file);
+
+        assertSame(loaded.getLayerAt(2).getNeuronAt(0).getInputConnections().get(0).getWeight(),
+                loaded.getLayerAt(2).getNeuronAt(1).getInputConnections().get(0).getWeight());
+        assertArrayEquals(network.getWeights(), loaded.getWeights());
+    }
+
+    @Test
+    public void testDeepNetwork() {
+        List<Integer> neurons = new ArrayList<>();
+        for (int i = 0; i < 3000; i++) {
+            neurons.add(2);
+        }
+        MultiLayerPerception network = new MultiLayerPerception(neurons, TransferFunctionType.LINEAR);
+
+        BinaryNetworkFile.save(network, file);
+        NeuralNetwork<?> loaded = BinaryNetworkFile.load(file);
+
+        assertEquals(3000, loaded.getLayersCount());
+        assertArrayEquals(network.getWeights(), loaded.getWeights());
+    }
+
+    @Test
+    public void testNetworkWhichCannotBeCompiled() {
+        Hopfield network = new Hopfield(5);
+        network.randomizeWeights(new WeightsRandomizer(new Random(3)));
+
+        BinaryNetworkFile.save(network, file);
+        NeuralNetwork<?> loaded = BinaryNetworkFile.load(file);
+
+        assertEquals(Hopfield.class, loaded.getClass());
+        assertArrayEquals(network.getWeights(), loaded.getWeights());
+        double[] input = {1, 0, 1, 0, 1};
+        assertArrayEquals(calculate(network, input), calculate(loaded, input), 0d);
+        try {
+            BinaryNetworkFile.loadFlatNetwork(file);
+            fail("NeurophException expected");
+        } catch (NeurophException ex) {
+            // network is not compiled
+        }
+    }
+
+    @Test(expected = NeurophException.class)
+    public void testInvalidFile() throws IOException {
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.write(new byte[100]);
+        }
+        BinaryNetworkFile.load(file);
+    }
+
+}
@@ -0,0 +1,166 @@
+package org.neuroph.util.pruning;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.neuroph.core.Connection;
+import org.neuroph.core.Layer;
+import org.neuroph.core.NeuralNetwork;
+import org.neuroph.core.data.DataSet;
+import org.neuroph.nnet.MultiLayerPerception;
+import org.neuroph.nnet.comp.neuron.BiasNeuron;
+import org.neuroph.nnet.learning.BackPropagation;
+import org.neuroph.util.TransferFunctionType;
+import org.neuroph.util.random.WeightsRandomizer;
+
+public class PrunerTest {
+
+    DataSet irisDataSet;
+
+    @Before
+    public void setUp() {
+        irisDataSet = DataSet.createFromFile("src/test/resources/iris_normalized.txt", 4, 3, ",", false);
+    }
+
+    private MultiLayerPerception createNetwork(int hiddenCount) {
+        MultiLayerPerception network = new MultiLayerPerception(TransferFunctionType.SIGMOID, 4, hiddenCount, 3);
+        network.randomizeWeights(new WeightsRandomizer(new Random(123)));
+        return network;
+    }
+
+    private static int countWeightedConnections(NeuralNetwork<?> network, int layerIdx) {
+        int count = 0;
+        Layer layer = network.getLayerAt(layerIdx);
+        for (int i = 0; i < layer.getNeuronsCount(); i++) {
+            for (Connection connection : layer.getNeuronAt(i).getInputConnections()) {
+                if (!(connection.getFromNeuron() instanceof BiasNeuron)) {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    private static double[] weightMagnitudes(NeuralNetwork<?> network) {
+        List<Double> magnitudes = new ArrayList<>();
+        for (int l = 0; l < network.getLayersCount(); l++) {
+            Layer layer = network.getLayerAt(l);
+            for (int i = 0; i < layer.getNeuronsCount(); i++) {
+                for (Connection connection : layer.getNeuronAt(i).getInputConnections()) {
+                    if (!(connection.getFromNeuron() instanceof BiasNeuron)) {
+                        magnitudes.add(Math.abs(connection.getWeight().value));
+                    }
+                }
+            }
+        }
+        double[] sorted = new double[magnitudes.size()];
+        for (int i = 0; i < sorted.length; i++) {
+            sorted[i] = magnitudes.get(i);
+        }
+        Arrays.sort(sorted);
+        return sorted;
+    }
+
+    @Test
+    public void testGlobalPruningRemovesSmallestWeights() {
+        MultiLayerPerception network = createNetwork(16);
+        int weighted = countWeightedConnections(network, 1) + countWeightedConnections(network, 2);
+        double[] magnitudes = weightMagnitudes(network);
+
+        Pruner pruner = new Pruner(Pruner.Scope.GLOBAL, 0.5);
+        pruner.setMeasureSpeedup(false);
+        PruningReport report = pruner.prune(network);
+
+        // hidden neurons left without outputs are removed with their input connections
+        assertTrue(report.getRemovedConnections() >= weighted / 2);
+        for (int i = 0; i < network.getLayerAt(1).getNeuronsCount(); i++) {
+            assertFalse(network.getLayerAt(1).getNeuronAt(i).getOutConnections().isEmpty());
+        }
+        assertEquals(0d, report.getSpeedup(), 0d);
+        // remaining weights are the larger half
+        assertTrue(weightMagnitudes(network)[0] >= magnitudes[weighted / 2]);
+        // pruned network is compiled to sparse layers and still calculates
+        assertTrue(network.getFlatNetwork().isSparseLayer(0));
+        network.setInput(0.1, 0.2, 0.3, 0.4);
+        network.calculate();
+        assertArrayEquals(network.getOutput(), network.calculate(new double[][]{{0.1, 0.2, 0.3, 0.4}})[0], 1e-12);
+    }
+
+    @Test
+    public void testLayerPruningKeepsLayerSparsity() {
+        MultiLayerPerception network = createNetwork(16);
+        int hidden = countWeightedConnections(network, 1);
+        int output = countWeightedConnections(network, 2);
+
+        Pruner pruner = new Pruner(Pruner.Scope.LAYER, 0.5);
+        pruner.setSteps(2);
+        PruningReport report = pruner.prune(network);
+
+        // dead hidden neurons take remaining input connections with them
+        assertTrue(countWeightedConnections(network, 1) <= hidden / 2);
+        assertEquals(output / 2, countWeightedConnections(network, 2));
+        assertTrue(report.getSpeedup() > 0);
+        assertTrue(report.getSparsity() > 0.4);
+    }
+
+    @Test
+    public void testNeuronPruningShrinksHiddenLayer() {
+        MultiLayerPerception network = createNetwork(16);
+
+        Pruner pruner = new Pruner(Pruner.Scope.NEURON, 0.25);
+        pruner.setMeasureSpeedup(false);
+        PruningReport report = pruner.prune(network);
+
+        // 16 hidden neurons and bias
+        assertEquals(13, network.getLayerAt(1).getNeuronsCount());
+        assertEquals(4, report.getRemovedNeurons());
+        assertEquals(4 * (5 + 3), report.getRemovedConnections());
+        assertFalse(network.getFlatNetwork().isSparseLayer(0));
+        assertFalse(network.getFlatNetwork().isSparseLayer(1));
+    }
+
+    @Test
+    public void testFineTuningKeepsAccuracy() {
+        MultiLayerPerception network = createNetwork(16);
+        BackPropagation rule = network.getLearningRule();
+        rule.setMaxIterations(2000);
+        rule.setMaxError(0.01);
+        network.learn(irisDataSet);
+
+        Pruner pruner = new Pruner(Pruner.Scope.GLOBAL, 0.6);
+        pruner.setSteps(3);
+        pruner.setFineTuneIterations(200);
+        pruner.setMeasureSpeedup(false);
+        pruner.prune(network, irisDataSet);
+
+        assertEquals(2000, rule.getMaxIterations());
+        assertTrue("error " + rule.getTotalNetworkError(), rule.getTotalNetworkError() < 0.05);
+    }
+
+    @Test
+    public void testFineTuningKeepsUnlimitedIterations() {
+        MultiLayerPerception network = createNetwork(8);
+        BackPropagation rule = network.getLearningRule();
+        assertFalse(rule.isIterationsLimited());
+
+        Pruner pruner = new Pruner(Pruner.Scope.GLOBAL, 0.5);
+        pruner.setFineTuneIterations(5);
+        pruner.setMeasureSpeedup(false);
+        pruner.prune(network, irisDataSet);
+
+        assertFalse(rule.isIterationsLimited());
+        assertEquals(Integer.MAX_VALUE, rule.getMaxIterations());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidSparsity() {
+        new Pruner(Pruner.Scope.GLOBAL, 1d);
+    }
+
+}
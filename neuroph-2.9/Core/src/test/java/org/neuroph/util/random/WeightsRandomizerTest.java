@@ -0,0 +1,117 @@
+package org.neuroph.util.random;
+
+import static org.junit.Assert.*;
+
+import java.util.Random;
+import java.util.SplittableRandom;
+
+import org.junit.Test;
+import org.neuroph.core.Layer;
+import org.neuroph.core.Weight;
+import org.neuroph.nnet.ConvolutionalNetwork;
+import org.neuroph.nnet.MultiLayerPerception;
+import org.neuroph.nnet.comp.Dimension2D;
+import org.neuroph.nnet.comp.layer.FeatureMapsLayer;
+import org.neuroph.nnet.comp.layer.TensorConvolutionalLayer;
+import org.neuroph.util.TransferFunctionType;
+
+public class WeightsRandomizerTest {
+
+    private static double[] randomize(WeightsRandomizer randomizer, int threadCount) {
+        return randomize(randomizer, threadCount, false);
+    }
+
+    private static double[] randomize(WeightsRandomizer randomizer, int threadCount, boolean sharedWeights) {
+        MultiLayerPerception network = new MultiLayerPerception(TransferFunctionType.SIGMOID, 20, 300, 200, 5);
+        if (sharedWeights) {
+            // first input weight of all neurons in second hidden layer is shared
+            Layer layer = network.getLayerAt(2);
+            Weight shared = layer.getNeuronAt(0).getInputConnections().get(0).getWeight();
+            for (int i = 1; i < layer.getNeuronsCount(); i++) {
+                if (layer.getNeuronAt(i).hasInputConnections()) {
+                    layer.getNeuronAt(i).getInputConnections().get(0).setWeight(shared);
+                }
+            }
+        }
+        randomizer.setThreadCount(threadCount);
+        network.randomizeWeights(randomizer);
+        Double[] weights = network.getWeights();
+        double[] values = new double[weights.length];
+        for (int i = 0; i < weights.length; i++) {
+            values[i] = weights[i];
+        }
+        return values;
+    }
+
+    @Test
+    public void testStreamsDoNotDependOnThreadCount() {
+        double[] sequential = randomize(new RangeRandomizer(-0.7, 0.7, new SplittableRandom(123)), 1);
+        double[] parallel = randomize(new RangeRandomizer(-0.7, 0.7, new SplittableRandom(123)), 4);
+        assertArrayEquals(sequential, parallel, 0d);
+
+        double[] other = randomize(new RangeRandomizer(-0.7, 0.7, new SplittableRandom(124)), 4);
+        assertTrue(sequential[0] != other[0]);
+        for (double weight : parallel) {
+            assertTrue(weight >= -0.7 && weight < 0.7);
+        }
+    }
+
+    @Test
+    public void testSharedWeightsDoNotDependOnThreadCount() {
+        double[] sequential = randomize(new RangeRandomizer(-0.7, 0.7, new SplittableRandom(123)), 1, true);
+        double[] parallel = randomize(new RangeRandomizer(-0.7, 0.7, new SplittableRandom(123)), 4, true);
+        assertArrayEquals(sequential, parallel, 0d);
+    }
+
+    @Test
+    public void testGaussianStreams() {
+        double[] sequential = randomize(new GaussianRandomizer(0.5, 0.2, new SplittableRandom(7)), 1);
+        double[] parallel = randomize(new GaussianRandomizer(0.5, 0.2, new SplittableRandom(7)), 3);
+        assertArrayEquals(sequential, parallel, 0d);
+
+        double sum = 0, sumSquares = 0;
+        for (double weight : parallel) {
+            sum += weight;
+            sumSquares += weight * weight;
+        }
+        double mean = sum / parallel.length;
+        assertEquals(0.5, mean, 0.01);
+        assertEquals(0.2, Math.sqrt(sumSquares / parallel.length - mean * mean), 0.01);
+    }
+
+    @Test
+    public void testNguyenWidrowStreams() {
+        double[] sequential = randomize(new NguyenWidrowRandomizer(-0.5, 0.5, new SplittableRandom(1)), 1);
+        double[] parallel = randomize(new NguyenWidrowRandomizer(-0.5, 0.5, new SplittableRandom(1)), 2);
+        assertArrayEquals(sequential, parallel, 0d);
+    }
+
+    @Test
+    public void testTensorLayerParameters() {
+        ConvolutionalNetwork network = new ConvolutionalNetwork.Builder()
+                .withInputLayer(6, 5, 2)
+                .withConvolutionLayer(3, 2, 3)
+                .build();
+        TensorConvolutionalLayer layer = new TensorConvolutionalLayer((FeatureMapsLayer) network.getLayerAt(0), new Dimension2D(3, 2), 3);
+        assertArrayEquals(new double[layer.getWeights().length], layer.getWeights(), 0d);
+
+        network.randomizeWeights(new WeightsRandomizer(new SplittableRandom(5)));
+        double[] weights = network.getWeightVector().toArray();
+        network.randomizeWeights(new WeightsRandomizer(new Random(1)));
+        network.randomizeWeights(new WeightsRandomizer(new SplittableRandom(5)));
+        assertArrayEquals(weights, network.getWeightVector().toArray(), 0d);
+    }
+
+    @Test
+    public void testRandomGeneratorOfStreams() {
+        Random random = new WeightsRandomizer(new SplittableRandom(9)).getRandomGen();
+        assertNotNull(random);
+        assertEquals(random.nextDouble(), new WeightsRandomizer(new SplittableRandom(9)).getRandomGen().nextDouble(), 0d);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidThreadCount() {
+        new WeightsRandomizer(new SplittableRandom(1)).setThreadCount(0);
+    }
+
+}
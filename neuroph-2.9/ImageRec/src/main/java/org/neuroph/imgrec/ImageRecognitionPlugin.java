@@ -21,7 +21,9 @@ import java.io.File;
 import java.io.IOException;
 import java.io.Serializable;
 import java.net.URL;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 
 import org.neuroph.imgrec.image.Dimension;
 import org.neuroph.imgrec.image.Image;
@@ -104,6 +106,22 @@ public class ImageRecognitionPlugin extends PluginBase implements Serializable {
 	 *            image to recognize
 	 */
 	public void setInput(Image img) throws ImageSizeMismatchException {
+                try {
+                    this.getParentNetwork().setInput(createInput(img));
+                } catch (VectorSizeMismatchException vsme) {
+                    throw new ImageSizeMismatchException(vsme);
+                }
+	}
+
+	/**
+	 * Creates network input vector from the specified image, using sampling
+	 * resolution and color mode of this plugin
+	 * 
+	 * @param img
+	 *            image to recognize
+	 * @return network input vector
+	 */
+	private double[] createInput(Image img) {
 
 		double input[];
 
@@ -123,11 +141,7 @@ public class ImageRecognitionPlugin extends PluginBase implements Serializable {
                 } else
 			throw new RuntimeException("Unknown color mode!");
 
-                try {
-                    this.getParentNetwork().setInput(input);
-                } catch (VectorSizeMismatchException vsme) {
-                    throw new ImageSizeMismatchException(vsme);
-                }
+		return input;
 	}
 
 	/**
@@ -220,6 +234,41 @@ public class ImageRecognitionPlugin extends PluginBase implements Serializable {
                 return getOutput();
         }
 
+	/**
+	 * This method performs the image recognition for all specified images at once,
+	 * using batch calculation of the parent network.
+	 * Returns list of image recognition results, one for each image, as maps with
+	 * image labels as keys and recogition result as value
+	 *
+	 * @param images images to recognize
+	 * @return image recognition results in the same order as images
+	 */
+        public List<HashMap<String, Double>> recognizeImages(List<? extends Image> images) throws ImageSizeMismatchException {
+		double[][] inputs = new double[images.size()][];
+		for (int i = 0; i < inputs.length; i++) {
+			inputs[i] = createInput(images.get(i));
+		}
+
+		double[][] outputs;
+		try {
+			outputs = this.getParentNetwork().calculate(inputs);
+		} catch (VectorSizeMismatchException vsme) {
+			throw new ImageSizeMismatchException(vsme);
+		}
+
+		List<Neuron> outputNeurons = this.getParentNetwork().getOutputNeurons();
+		List<HashMap<String, Double>> results = new ArrayList<HashMap<String, Double>>(outputs.length);
+		for (double[] output : outputs) {
+			HashMap<String, Double> networkOutput = new HashMap<String, Double>();
+			for (int i = 0; i < output.length; i++) {
+				networkOutput.put(outputNeurons.get(i).getLabel(), output[i]);
+			}
+			results.add(networkOutput);
+		}
+
+                return results;
+        }
+
 	/**
 	 * Returns one or more image labels with the maximum output - recognized
 	 * images
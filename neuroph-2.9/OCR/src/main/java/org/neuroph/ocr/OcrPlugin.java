@@ -24,6 +24,7 @@ import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.neuroph.core.Neuron;
 import org.neuroph.imgrec.ColorMode;
@@ -100,6 +101,31 @@ public class OcrPlugin extends PluginBase implements Serializable {
         return Character.valueOf(ch.charAt(0));
     }
 
+    /**
+     * Recognizes characters from all specified images at once, using batch
+     * calculation of the neural network
+     *
+     * @param charImages character images
+     * @return recognized characters in the same order as images
+     */
+    public List<Character> recognizeCharacters(List<? extends Image> charImages) {
+        // get the image recognition plugin from neural network
+        ImageRecognitionPlugin imageRecognition = (ImageRecognitionPlugin) this.getParentNetwork().getPlugin(ImageRecognitionPlugin.class);
+
+        List<Character> characters = new ArrayList<>(charImages.size());
+        for (HashMap<String, Double> output : imageRecognition.recognizeImages(charImages)) {
+            String maxLabel = null;
+            for (Map.Entry<String, Double> entry : output.entrySet()) {
+                if (maxLabel == null || entry.getValue() > output.get(maxLabel)) {
+                    maxLabel = entry.getKey();
+                }
+            }
+            characters.add(Character.valueOf(maxLabel.charAt(0)));
+        }
+
+        return characters;
+    }
+
     /**
      * Recogize the character from the image and returns HashMap with keys as
      * characters and recognition probability as values sorted descending by probability.